@@ -32,6 +32,8 @@
             ProcessAddress
             ProcessIdentity
             ProcessReport
+            WorkerHealth
+            WorkerProcessHealthReport
             WorkerProcessReport]
            ))
 
@@ -64,11 +66,30 @@
      :state (keyword (.toLowerCase (str (.getState r))))
      }))
 
+(defn- health-report
+  [w ^WorkerProcessHealthReport r]
+  (let [^WorkerHealth h (.getHealth r)
+        s (.getStartupTime r)]
+    (merge w
+      (when h
+        {:health {:interval (.getInterval h)
+                  :gc-time (.getGCTime h)
+                  :allocation-rate (.getAllocationRate h)
+                  :cpu-usage (.getCPUUsage h)
+                  :timer-lag (.getTimerLag h)
+                  :thread-start-latency (.getThreadStartLatency h)
+                  :scheduling-error (.getSchedulingError h)}})
+      (when (and h (.isImpaired h)) {:impaired true})
+      (when (>= s 0) {:startup-time s}))))
+
 (defn- worker-report
   [^WorkerProcessReport r]
-  (assoc (report r)
-         :running-threads (int (.getNumberOfRunningThreads r))
-          :maximum-threads (int (.getMaximumNumberOfThreads r))))
+  (let [w (assoc (report r)
+                 :running-threads (int (.getNumberOfRunningThreads r))
+                 :maximum-threads (int (.getMaximumNumberOfThreads r)))]
+    (if (instance? WorkerProcessHealthReport r)
+      (health-report w r)
+      w)))
 
 (defn- agent-and-workers
   [^ProcessControl$ProcessReports r]
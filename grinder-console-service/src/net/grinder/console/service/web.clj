@@ -65,13 +65,28 @@
 
 (defmethod render-process-state :worker [_ p]
   (let [s (:state p)
-        d (t (keyword "console.state" (name s)))]
+        d (t (keyword "console.state" (name s)))
+        st (if-let [st (:startup-time p)]
+             (str " " (t :console.state/worker-startup st)))
+        h (if-let [h (:health p)]
+            (str " " (t :console.state/worker-health
+                       (:gc-time h)
+                       (:allocation-rate h)
+                       (:cpu-usage h)
+                       (:timer-lag h)
+                       (:thread-start-latency h)
+                       (:scheduling-error h))))]
     (html
       [:div {:class s}
-       (if (= :running s)
+       (condp = s
+         :running
          (str d " " (t :console.state/worker-threads
                       (:running-threads p)
-                      (:maximum-threads p)))
+                      (:maximum-threads p))
+           st
+           h
+           (if (:impaired p) (str " " (t :console.state/worker-impaired))))
+         :started (str d st)
          d)])))
 
 
@@ -34,7 +34,9 @@
            [net.grinder.common.processidentity
             AgentIdentity
             ProcessReport$State
+            WorkerHealth
             WorkerIdentity
+            WorkerProcessHealthReport
             WorkerProcessReport]
            [java.io
             File
@@ -163,6 +165,17 @@
   (getNumberOfRunningThreads [this] running-threads)
   (getMaximumNumberOfThreads [this] maximum-threads))
 
+(defrecord MockWorkerHealthReport
+  [worker-identity state running-threads maximum-threads health startup-time]
+  WorkerProcessHealthReport
+  (getWorkerIdentity [this] worker-identity)
+  (getProcessAddress [this] (WorkerAddress. worker-identity))
+  (getState [this] (make-state state))
+  (getNumberOfRunningThreads [this] running-threads)
+  (getMaximumNumberOfThreads [this] maximum-threads)
+  (getHealth [this] health)
+  (getStartupTime [this] startup-time))
+
 (defrecord MockReports
   [agent-report worker-reports]
   ProcessControl$ProcessReports
@@ -221,6 +234,41 @@
 
         ))))
 
+(deftest test-status-with-health-reports
+  (def listener (atom nil))
+  (let [pc (reify ProcessControl
+             (addProcessStatusListener [this l] (reset! listener l)))
+        agent-report (MockAgentReport. (MockAgentIdentity. "1" "foo" 10)
+                                       :RUNNING)
+        worker (fn [id state health startup-time]
+                 (MockWorkerHealthReport.
+                   (MockWorkerIdentity. id "bah" 0) state 2 3
+                   health startup-time))]
+    (processes/initialise pc)
+    (.update @listener
+      (into-array ProcessControl$ProcessReports
+        [(MockReports. agent-report
+           [(worker "13" :STARTED nil 850)
+            (worker "14" :RUNNING nil -1)
+            (worker "15" :RUNNING
+              (WorkerHealth. 1000 200 4096 0.25 5 -1 0.5 true) 900)])]))
+
+    (is (= [{:id "13" :name "bah" :number 0 :state :started
+             :running-threads 2 :maximum-threads 3 :startup-time 850}
+            {:id "14" :name "bah" :number 0 :state :running
+             :running-threads 2 :maximum-threads 3}
+            {:id "15" :name "bah" :number 0 :state :running
+             :running-threads 2 :maximum-threads 3 :startup-time 900
+             :impaired true
+             :health {:interval 1000
+                      :gc-time 200
+                      :allocation-rate 4096
+                      :cpu-usage 0.25
+                      :timer-lag 5
+                      :thread-start-latency -1
+                      :scheduling-error 0.5}}]
+          (:workers (first (processes/status pc)))))))
+
 (deftest test-status-uninitialised
   (let [pc (reify ProcessControl)]
     (is (thrown? IllegalStateException (processes/status pc)))))
@@ -0,0 +1,175 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.grinder.analysis.DataLogReader;
+import net.grinder.analysis.DataLogStatistics;
+import net.grinder.analysis.ReportWriter;
+import net.grinder.common.Closer;
+import net.grinder.common.GrinderException;
+import net.grinder.util.AbstractMainClass;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Command line tool that analyses worker process data logs.
+ *
+ * @author agent
+ */
+public final class DataLogAnalyser extends AbstractMainClass {
+
+  private static final String USAGE =
+    "  java " + DataLogAnalyser.class.getName() +
+    " <options> <data log file> ..." +
+    "\n\n" +
+    "Options:" +
+    "\n  [-interval <milliseconds>]   Length of each reporting interval" +
+    "\n                               (default 10000)." +
+    "\n  [-format csv|html]           Report format (default csv)." +
+    "\n  [-output <file>]             Write the report to a file, rather" +
+    "\n                               than the standard output." +
+    "\n  [-threads <n>]               Number of parser threads (default" +
+    "\n                               the number of processors)." +
+    "\n\n";
+
+  /**
+   * Entry point.
+   *
+   * @param args Command line arguments.
+   */
+  public static void main(final String[] args) {
+
+    final Logger logger = LoggerFactory.getLogger("analyser");
+
+    try {
+      final DataLogAnalyser analyser = new DataLogAnalyser(args, logger);
+      analyser.run();
+    }
+    catch (final LoggedInitialisationException e) {
+      System.exit(1);
+    }
+    catch (final Throwable e) {
+      logger.error(e.getMessage(), e);
+      System.exit(2);
+    }
+
+    System.exit(0);
+  }
+
+  private final List<File> m_files = new ArrayList<File>();
+  private long m_interval = 10000;
+  private ReportWriter.Format m_format = ReportWriter.Format.CSV;
+  private File m_output;
+  private int m_threads = Runtime.getRuntime().availableProcessors();
+
+  private DataLogAnalyser(final String[] args, final Logger logger)
+    throws GrinderException {
+
+    super(logger, USAGE);
+
+    try {
+      for (int i = 0; i < args.length; ++i) {
+        if ("-interval".equalsIgnoreCase(args[i])) {
+          m_interval = Long.parseLong(args[++i]);
+        }
+        else if ("-format".equalsIgnoreCase(args[i])) {
+          m_format = ReportWriter.Format.valueOf(args[++i].toUpperCase());
+        }
+        else if ("-output".equalsIgnoreCase(args[i])) {
+          m_output = new File(args[++i]);
+        }
+        else if ("-threads".equalsIgnoreCase(args[i])) {
+          m_threads = Integer.parseInt(args[++i]);
+        }
+        else if (!args[i].startsWith("-")) {
+          m_files.add(new File(args[i]));
+        }
+        else {
+          throw barfUsage();
+        }
+      }
+    }
+    catch (final IndexOutOfBoundsException e) {
+      throw barfUsage();
+    }
+    catch (final IllegalArgumentException e) {
+      throw barfUsage();
+    }
+
+    if (m_files.isEmpty() || m_interval <= 0 || m_threads <= 0) {
+      throw barfUsage();
+    }
+  }
+
+  private void run() throws GrinderException, IOException {
+    final ExecutorService executor = Executors.newFixedThreadPool(m_threads);
+
+    final DataLogStatistics statistics;
+
+    try {
+      statistics =
+        new DataLogReader(executor,
+                          m_interval,
+                          DataLogReader.DEFAULT_SPLIT_SIZE).read(m_files);
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    final Writer writer =
+      new BufferedWriter(m_output != null ?
+                           new FileWriter(m_output) :
+                           new OutputStreamWriter(System.out));
+
+    try {
+      new ReportWriter(m_format).write(statistics, writer);
+    }
+    finally {
+      if (m_output != null) {
+        Closer.close(writer);
+      }
+    }
+
+    // Only log if the report is not going to the standard output.
+    if (m_output != null) {
+      getLogger().info("read {} tests from {} files, skipped {} lines, " +
+                       "wrote {}",
+                       statistics.getNumberOfLines(),
+                       m_files.size(),
+                       statistics.getNumberOfSkippedLines(),
+                       m_output);
+    }
+  }
+}
@@ -0,0 +1,255 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.analysis;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Parses lines written by the worker process data logger.
+ *
+ * <p>
+ * The first line of a data log is a header that names the columns. The
+ * thread, run, test, and start time columns always come first; the detail
+ * statistics columns that follow depend on the statistics views registered
+ * by the script and its plug-ins. The parser locates the {@code Test},
+ * {@code Test time} and {@code Errors} columns by name.
+ * </p>
+ *
+ * @author agent
+ */
+final class DataLogParser {
+
+  private static final String TEST_COLUMN = "Test";
+  private static final String START_TIME_COLUMN =
+    "Start time (ms since Epoch)";
+  private static final String TEST_TIME_COLUMN = "Test time";
+  private static final String ERRORS_COLUMN = "Errors";
+
+  private final int m_testColumn;
+  private final int m_startTimeColumn;
+  private final int m_testTimeColumn;
+  private final int m_errorsColumn;
+  private final int m_lastColumn;
+
+  // Scratch space for the values of the current line.
+  private final long[] m_values;
+
+  /**
+   * Constructor.
+   *
+   * @param header
+   *          The data log header line.
+   * @throws DataLogReader.DataLogException
+   *           If the header does not name the required columns.
+   */
+  public DataLogParser(final String header)
+    throws DataLogReader.DataLogException {
+
+    final String[] names = header.split(",");
+
+    int test = -1;
+    int startTime = -1;
+    int testTime = -1;
+    int errors = -1;
+
+    for (int i = 0; i < names.length; ++i) {
+      final String name = names[i].trim();
+
+      if (TEST_COLUMN.equals(name)) {
+        test = i;
+      }
+      else if (START_TIME_COLUMN.equals(name)) {
+        startTime = i;
+      }
+      else if (TEST_TIME_COLUMN.equals(name)) {
+        testTime = i;
+      }
+      else if (ERRORS_COLUMN.equals(name)) {
+        errors = i;
+      }
+    }
+
+    if (test < 0 || startTime < 0 || testTime < 0) {
+      throw new DataLogReader.DataLogException(
+        "Not a data log header, expected '" + TEST_COLUMN + "', '" +
+        START_TIME_COLUMN + "', and '" + TEST_TIME_COLUMN + "' columns: " +
+        header);
+    }
+
+    m_testColumn = test;
+    m_startTimeColumn = startTime;
+    m_testTimeColumn = testTime;
+    m_errorsColumn = errors;
+    m_lastColumn =
+      Math.max(Math.max(test, startTime), Math.max(testTime, errors));
+    m_values = new long[m_lastColumn + 1];
+  }
+
+  /**
+   * Parse the lines in a buffer.
+   *
+   * <p>
+   * Every line that starts at or after {@code start} and before {@code end}
+   * is parsed. If {@code start} falls within a line, that line is left to
+   * the parser of the previous range, so the byte before {@code start} must
+   * be in the buffer. The last line may extend beyond {@code end}, up to the
+   * limit of the buffer.
+   * </p>
+   *
+   * @param buffer
+   *          The buffer.
+   * @param start
+   *          The start of the range.
+   * @param end
+   *          The end of the range.
+   * @param endOfFile
+   *          Whether the limit of the buffer is the end of the file. If not,
+   *          a line that runs into the limit is truncated, and is skipped.
+   * @param statistics
+   *          Where to record the results.
+   */
+  public void parse(final ByteBuffer buffer,
+                    final int start,
+                    final int end,
+                    final boolean endOfFile,
+                    final DataLogStatistics statistics) {
+
+    final int limit = buffer.limit();
+    int p = start;
+
+    if (p > 0 && buffer.get(p - 1) != '\n') {
+      while (p < limit && buffer.get(p) != '\n') {
+        ++p;
+      }
+
+      ++p;
+    }
+
+    while (p < end && p < limit) {
+      int lineEnd = p;
+
+      while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+        ++lineEnd;
+      }
+
+      if (lineEnd == limit && !endOfFile) {
+        // Truncated line.
+        statistics.skippedLine();
+      }
+      else if (lineEnd > p) {
+        if (parseLine(buffer, p, lineEnd)) {
+          statistics.record((int) m_values[m_testColumn],
+                            m_values[m_startTimeColumn],
+                            m_values[m_testTimeColumn],
+                            m_errorsColumn >= 0 ? m_values[m_errorsColumn] : 0);
+        }
+        else if (!isBlank(buffer, p, lineEnd)) {
+          statistics.skippedLine();
+        }
+      }
+
+      p = lineEnd + 1;
+    }
+  }
+
+  private static boolean isBlank(final ByteBuffer buffer,
+                                 final int start,
+                                 final int end) {
+    for (int i = start; i < end; ++i) {
+      if (!Character.isWhitespace(buffer.get(i))) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private static boolean isFloatingPointCharacter(final byte b) {
+    return
+      b >= '0' && b <= '9' ||
+      b == '.' || b == 'E' || b == '-' ||
+      b == '\r';
+  }
+
+  /**
+   * Parse the columns we need into {@link #m_values}.
+   *
+   * @return {@code false} if the line is not a data line.
+   */
+  private boolean parseLine(final ByteBuffer buffer,
+                            final int start,
+                            final int end) {
+    int p = start;
+
+    for (int column = 0; column <= m_lastColumn; ++column) {
+      while (p < end && buffer.get(p) == ' ') {
+        ++p;
+      }
+
+      if (p >= end) {
+        return false;
+      }
+
+      boolean negative = false;
+
+      if (buffer.get(p) == '-') {
+        negative = true;
+        ++p;
+      }
+
+      long value = 0;
+      int digits = 0;
+
+      while (p < end) {
+        final byte b = buffer.get(p);
+
+        if (b < '0' || b > '9') {
+          break;
+        }
+
+        value = value * 10 + b - '0';
+        ++digits;
+        ++p;
+      }
+
+      if (digits == 0) {
+        return false;
+      }
+
+      // Skip any fraction or exponent of a floating point column.
+      while (p < end && buffer.get(p) != ',') {
+        if (!isFloatingPointCharacter(buffer.get(p))) {
+          return false;
+        }
+
+        ++p;
+      }
+
+      m_values[column] = negative ? -value : value;
+
+      ++p;
+    }
+
+    return true;
+  }
+}
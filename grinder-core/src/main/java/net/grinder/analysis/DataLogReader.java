@@ -0,0 +1,239 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.analysis;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import net.grinder.common.Closer;
+import net.grinder.common.GrinderException;
+
+
+/**
+ * Reads worker process data logs in parallel.
+ *
+ * <p>
+ * Each file is memory mapped and split into byte ranges that are parsed by
+ * separate tasks. Splits are aligned to line boundaries by the parser. The
+ * per-task statistics are merged when all the tasks have finished.
+ * </p>
+ *
+ * @author agent
+ */
+public final class DataLogReader {
+
+  /** Default size of each byte range. */
+  public static final int DEFAULT_SPLIT_SIZE = 64 * 1024 * 1024;
+
+  /**
+   * How far beyond the end of its range a task maps, to read its last line.
+   */
+  private static final int MAXIMUM_LINE_LENGTH = 64 * 1024;
+
+  private static final Charset HEADER_CHARSET = Charset.forName("UTF-8");
+
+  private final ExecutorService m_executor;
+  private final long m_interval;
+  private final int m_splitSize;
+
+  /**
+   * Constructor.
+   *
+   * @param executor
+   *          Executes the parsing tasks.
+   * @param interval
+   *          The length of each time interval, in milliseconds.
+   * @param splitSize
+   *          The size of each byte range, in bytes.
+   */
+  public DataLogReader(final ExecutorService executor,
+                       final long interval,
+                       final int splitSize) {
+    m_executor = executor;
+    m_interval = interval;
+    m_splitSize = splitSize;
+  }
+
+  /**
+   * Read data logs.
+   *
+   * @param files
+   *          The data log files.
+   * @return The statistics.
+   * @throws DataLogException
+   *           If a file could not be read, or is not a data log.
+   */
+  public DataLogStatistics read(final List<File> files)
+    throws DataLogException {
+
+    final List<FileChannel> channels = new ArrayList<FileChannel>();
+    final List<Future<DataLogStatistics>> results =
+      new ArrayList<Future<DataLogStatistics>>();
+
+    try {
+      for (final File file : files) {
+        final FileChannel channel;
+
+        try {
+          channel = new FileInputStream(file).getChannel();
+        }
+        catch (final IOException e) {
+          throw new DataLogException("Failed to open '" + file + "'", e);
+        }
+
+        channels.add(channel);
+
+        try {
+          submit(file, channel, results);
+        }
+        catch (final IOException e) {
+          throw new DataLogException("Failed to read '" + file + "'", e);
+        }
+      }
+
+      final DataLogStatistics result = new DataLogStatistics(m_interval);
+
+      for (final Future<DataLogStatistics> future : results) {
+        try {
+          result.add(future.get());
+        }
+        catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new DataLogException("Interrupted", e);
+        }
+        catch (final ExecutionException e) {
+          throw new DataLogException("Failed to parse data log",
+                                     e.getCause());
+        }
+      }
+
+      return result;
+    }
+    finally {
+      for (final Future<DataLogStatistics> future : results) {
+        future.cancel(true);
+      }
+
+      for (final FileChannel channel : channels) {
+        Closer.close(channel);
+      }
+    }
+  }
+
+  private void submit(final File file,
+                      final FileChannel channel,
+                      final List<Future<DataLogStatistics>> results)
+    throws IOException, DataLogException {
+
+    final long size = channel.size();
+
+    if (size == 0) {
+      return;
+    }
+
+    final MappedByteBuffer head =
+      channel.map(FileChannel.MapMode.READ_ONLY,
+                  0,
+                  Math.min(size, MAXIMUM_LINE_LENGTH));
+
+    int headerEnd = 0;
+
+    while (headerEnd < head.limit() && head.get(headerEnd) != '\n') {
+      ++headerEnd;
+    }
+
+    final byte[] headerBytes = new byte[headerEnd];
+    head.get(headerBytes);
+
+    final String header = new String(headerBytes, HEADER_CHARSET);
+
+    // Check the header before we start any work.
+    new DataLogParser(header);
+
+    for (long start = headerEnd + 1; start < size; start += m_splitSize) {
+      final long rangeStart = start;
+      final long rangeEnd = Math.min(size, start + m_splitSize);
+
+      results.add(m_executor.submit(new Callable<DataLogStatistics>() {
+          @Override
+          public DataLogStatistics call() throws Exception {
+            // Map the byte before the range, so the parser can tell
+            // whether the range starts on a line boundary.
+            final long windowStart = rangeStart - 1;
+            final long windowEnd =
+              Math.min(size, rangeEnd + MAXIMUM_LINE_LENGTH);
+
+            final MappedByteBuffer buffer =
+              channel.map(FileChannel.MapMode.READ_ONLY,
+                          windowStart,
+                          windowEnd - windowStart);
+
+            final DataLogStatistics statistics =
+              new DataLogStatistics(m_interval);
+
+            new DataLogParser(header).parse(buffer,
+                                            1,
+                                            (int) (rangeEnd - windowStart),
+                                            windowEnd == size,
+                                            statistics);
+
+            return statistics;
+          }
+        }));
+    }
+  }
+
+  /**
+   * Exception indicating a data log could not be read.
+   */
+  public static final class DataLogException extends GrinderException {
+
+    /**
+     * Constructor.
+     *
+     * @param message The error message.
+     */
+    public DataLogException(final String message) {
+      super(message);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param message The error message.
+     * @param cause The cause.
+     */
+    public DataLogException(final String message, final Throwable cause) {
+      super(message, cause);
+    }
+  }
+}
@@ -0,0 +1,302 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.analysis;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+
+/**
+ * Test statistics read from worker process data logs, grouped by test and
+ * by time interval.
+ *
+ * <p>
+ * As in the console, successful tests contribute to the test time
+ * histograms, and tests that reported errors are counted separately.
+ * </p>
+ *
+ * <p>
+ * Not thread safe. Each parser fills its own instance, and the results are
+ * merged with {@link #add}.
+ * </p>
+ *
+ * @author agent
+ */
+public final class DataLogStatistics {
+
+  private final long m_interval;
+
+  private final Map<Integer, Map<Long, Cell>> m_cells =
+    new HashMap<Integer, Map<Long, Cell>>();
+
+  private long m_lines;
+  private long m_skippedLines;
+
+  /**
+   * Constructor.
+   *
+   * @param interval
+   *          The length of each time interval, in milliseconds.
+   */
+  public DataLogStatistics(final long interval) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("Interval must be positive");
+    }
+
+    m_interval = interval;
+  }
+
+  /**
+   * The length of each time interval.
+   *
+   * @return The interval, in milliseconds.
+   */
+  public long getInterval() {
+    return m_interval;
+  }
+
+  /**
+   * Record a test.
+   *
+   * @param test
+   *          The test number.
+   * @param startTime
+   *          The start time of the test.
+   * @param testTime
+   *          The test time, in milliseconds.
+   * @param errors
+   *          The number of errors.
+   */
+  public void record(final int test,
+                     final long startTime,
+                     final long testTime,
+                     final long errors) {
+
+    ++m_lines;
+
+    Map<Long, Cell> intervals = m_cells.get(test);
+
+    if (intervals == null) {
+      intervals = new HashMap<Long, Cell>();
+      m_cells.put(test, intervals);
+    }
+
+    final long intervalStart = startTime - floorMod(startTime, m_interval);
+
+    Cell cell = intervals.get(intervalStart);
+
+    if (cell == null) {
+      cell = new Cell();
+      intervals.put(intervalStart, cell);
+    }
+
+    if (errors > 0) {
+      cell.m_errors += errors;
+    }
+    else {
+      cell.m_testTimes.record(testTime);
+    }
+  }
+
+  private static long floorMod(final long x, final long y) {
+    final long m = x % y;
+    return m < 0 ? m + y : m;
+  }
+
+  /**
+   * Note a line that could not be parsed.
+   */
+  public void skippedLine() {
+    ++m_skippedLines;
+  }
+
+  /**
+   * Merge in the statistics from another instance.
+   *
+   * @param other
+   *          The other statistics. Must use the same interval. The other
+   *          instance shares state with this one afterwards, and should be
+   *          discarded.
+   */
+  public void add(final DataLogStatistics other) {
+    if (other.m_interval != m_interval) {
+      throw new IllegalArgumentException("Intervals differ");
+    }
+
+    for (final Entry<Integer, Map<Long, Cell>> test :
+         other.m_cells.entrySet()) {
+
+      final Map<Long, Cell> intervals = m_cells.get(test.getKey());
+
+      if (intervals == null) {
+        m_cells.put(test.getKey(), test.getValue());
+        continue;
+      }
+
+      for (final Entry<Long, Cell> interval : test.getValue().entrySet()) {
+        final Cell cell = intervals.get(interval.getKey());
+
+        if (cell == null) {
+          intervals.put(interval.getKey(), interval.getValue());
+        }
+        else {
+          cell.add(interval.getValue());
+        }
+      }
+    }
+
+    m_lines += other.m_lines;
+    m_skippedLines += other.m_skippedLines;
+  }
+
+  /**
+   * The number of tests recorded.
+   *
+   * @return The number of data log lines successfully parsed.
+   */
+  public long getNumberOfLines() {
+    return m_lines;
+  }
+
+  /**
+   * The number of lines that could not be parsed.
+   *
+   * @return The number of lines.
+   */
+  public long getNumberOfSkippedLines() {
+    return m_skippedLines;
+  }
+
+  /**
+   * The statistics for each test, for each interval.
+   *
+   * @return Test number to interval start to statistics, in order.
+   */
+  public SortedMap<Integer, SortedMap<Long, Cell>> getIntervals() {
+    final SortedMap<Integer, SortedMap<Long, Cell>> result =
+      new TreeMap<Integer, SortedMap<Long, Cell>>();
+
+    for (final Entry<Integer, Map<Long, Cell>> test : m_cells.entrySet()) {
+      result.put(test.getKey(), new TreeMap<Long, Cell>(test.getValue()));
+    }
+
+    return result;
+  }
+
+  /**
+   * The statistics for each test, over the whole run.
+   *
+   * @return Test number to statistics, in order.
+   */
+  public SortedMap<Integer, Cell> getTotals() {
+    final SortedMap<Integer, Cell> result = new TreeMap<Integer, Cell>();
+
+    for (final Entry<Integer, Map<Long, Cell>> test : m_cells.entrySet()) {
+      final Cell total = new Cell();
+
+      for (final Cell cell : test.getValue().values()) {
+        total.add(cell);
+      }
+
+      result.put(test.getKey(), total);
+    }
+
+    return result;
+  }
+
+  /**
+   * The start of the first interval for which any test was recorded.
+   *
+   * @return The start time, or {@code 0} if nothing was recorded.
+   */
+  public long getFirstIntervalStart() {
+    long result = Long.MAX_VALUE;
+
+    for (final Map<Long, Cell> intervals : m_cells.values()) {
+      for (final Long start : intervals.keySet()) {
+        result = Math.min(result, start);
+      }
+    }
+
+    return result == Long.MAX_VALUE ? 0 : result;
+  }
+
+  /**
+   * The end of the last interval for which any test was recorded.
+   *
+   * @return The end time, or {@code 0} if nothing was recorded.
+   */
+  public long getLastIntervalEnd() {
+    long result = Long.MIN_VALUE;
+
+    for (final Map<Long, Cell> intervals : m_cells.values()) {
+      for (final Long start : intervals.keySet()) {
+        result = Math.max(result, start + m_interval);
+      }
+    }
+
+    return result == Long.MIN_VALUE ? 0 : result;
+  }
+
+  /**
+   * The statistics for a test over an interval.
+   */
+  public static final class Cell {
+    private final Histogram m_testTimes = new Histogram();
+    private long m_errors;
+
+    private void add(final Cell other) {
+      m_testTimes.add(other.m_testTimes);
+      m_errors += other.m_errors;
+    }
+
+    /**
+     * Test times of the successful tests.
+     *
+     * @return The histogram.
+     */
+    public Histogram getTestTimes() {
+      return m_testTimes;
+    }
+
+    /**
+     * The number of successful tests.
+     *
+     * @return The number of tests.
+     */
+    public long getTests() {
+      return m_testTimes.getCount();
+    }
+
+    /**
+     * The number of errors.
+     *
+     * @return The number of errors.
+     */
+    public long getErrors() {
+      return m_errors;
+    }
+  }
+}
@@ -0,0 +1,191 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.analysis;
+
+import java.util.Arrays;
+
+
+/**
+ * A histogram of non-negative values that can be merged with other
+ * histograms.
+ *
+ * <p>
+ * Values below 64 are counted exactly. Larger values are counted in buckets
+ * that are at most 1/32 of the value wide, so percentiles are accurate to
+ * about 3%. The bucket array grows as larger values are recorded.
+ * </p>
+ *
+ * <p>
+ * Not thread safe.
+ * </p>
+ *
+ * @author agent
+ */
+public final class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int EXACT = 1 << SUB_BUCKET_BITS;
+  private static final int HALF = EXACT / 2;
+
+  private int[] m_counts = new int[EXACT];
+  private long m_count;
+  private long m_total;
+  private long m_minimum = Long.MAX_VALUE;
+  private long m_maximum = Long.MIN_VALUE;
+
+  static int bucketIndex(final long value) {
+    if (value < EXACT) {
+      return (int) value;
+    }
+
+    final int shift =
+      63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+
+    return EXACT + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+  }
+
+  static long bucketLowerBound(final int index) {
+    if (index < EXACT) {
+      return index;
+    }
+
+    final int shift = (index - EXACT) / HALF + 1;
+    final long mantissa = (index - EXACT) % HALF + HALF;
+
+    return mantissa << shift;
+  }
+
+  private static long bucketMidpoint(final int index) {
+    final long lower = bucketLowerBound(index);
+    final long upper = bucketLowerBound(index + 1) - 1;
+
+    return lower + (upper - lower) / 2;
+  }
+
+  /**
+   * Record a value.
+   *
+   * @param value
+   *          The value. Negative values are recorded as zero.
+   */
+  public void record(final long value) {
+    final long v = Math.max(0, value);
+    final int index = bucketIndex(v);
+
+    if (index >= m_counts.length) {
+      m_counts = Arrays.copyOf(m_counts, Math.max(index + 1,
+                                                  m_counts.length * 2));
+    }
+
+    ++m_counts[index];
+    ++m_count;
+    m_total += v;
+    m_minimum = Math.min(m_minimum, v);
+    m_maximum = Math.max(m_maximum, v);
+  }
+
+  /**
+   * Add the values recorded by another histogram to this one.
+   *
+   * @param other
+   *          The other histogram.
+   */
+  public void add(final Histogram other) {
+    if (other.m_counts.length > m_counts.length) {
+      m_counts = Arrays.copyOf(m_counts, other.m_counts.length);
+    }
+
+    for (int i = 0; i < other.m_counts.length; ++i) {
+      m_counts[i] += other.m_counts[i];
+    }
+
+    m_count += other.m_count;
+    m_total += other.m_total;
+    m_minimum = Math.min(m_minimum, other.m_minimum);
+    m_maximum = Math.max(m_maximum, other.m_maximum);
+  }
+
+  /**
+   * The number of values recorded.
+   *
+   * @return The count.
+   */
+  public long getCount() {
+    return m_count;
+  }
+
+  /**
+   * The mean of the recorded values.
+   *
+   * @return The mean, or {@code 0} if no values have been recorded.
+   */
+  public double getMean() {
+    return m_count == 0 ? 0 : (double) m_total / m_count;
+  }
+
+  /**
+   * The smallest recorded value.
+   *
+   * @return The minimum, or {@code 0} if no values have been recorded.
+   */
+  public long getMinimum() {
+    return m_count == 0 ? 0 : m_minimum;
+  }
+
+  /**
+   * The largest recorded value.
+   *
+   * @return The maximum, or {@code 0} if no values have been recorded.
+   */
+  public long getMaximum() {
+    return m_count == 0 ? 0 : m_maximum;
+  }
+
+  /**
+   * Estimate a percentile.
+   *
+   * @param percentile
+   *          The percentile, between 0 and 100.
+   * @return The estimated value, or {@code 0} if no values have been
+   *         recorded.
+   */
+  public long getPercentile(final double percentile) {
+    if (m_count == 0) {
+      return 0;
+    }
+
+    final long rank =
+      Math.max(1, (long) Math.ceil(percentile / 100 * m_count));
+
+    long seen = 0;
+
+    for (int i = 0; i < m_counts.length; ++i) {
+      seen += m_counts[i];
+
+      if (seen >= rank) {
+        return Math.max(m_minimum, Math.min(m_maximum, bucketMidpoint(i)));
+      }
+    }
+
+    return m_maximum;
+  }
+}
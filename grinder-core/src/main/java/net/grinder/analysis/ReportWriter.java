@@ -0,0 +1,228 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.analysis;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.SortedMap;
+
+import net.grinder.analysis.DataLogStatistics.Cell;
+
+
+/**
+ * Writes reports of {@link DataLogStatistics}.
+ *
+ * <p>
+ * The report has a row for each test, summarising the whole run, followed by
+ * a row for each test and each interval.
+ * </p>
+ *
+ * @author agent
+ */
+public final class ReportWriter {
+
+  /**
+   * Report formats.
+   */
+  public enum Format {
+    /** Comma separated values. */
+    CSV,
+
+    /** An HTML page. */
+    HTML
+  }
+
+  private static final double[] PERCENTILES = { 50, 90, 95, 99 };
+
+  private static final String[] HEADINGS = {
+    "Test",
+    "Interval start (ms since Epoch)",
+    "Tests",
+    "Errors",
+    "TPS",
+    "Mean test time (ms)",
+    "Minimum (ms)",
+    "50% (ms)",
+    "90% (ms)",
+    "95% (ms)",
+    "99% (ms)",
+    "Maximum (ms)"
+  };
+
+  private static final String TOTAL = "Total";
+
+  private final Format m_format;
+  private final DecimalFormat m_decimalFormat =
+    new DecimalFormat("0.00", new DecimalFormatSymbols(Locale.ENGLISH));
+
+  /**
+   * Constructor.
+   *
+   * @param format
+   *          The report format.
+   */
+  public ReportWriter(final Format format) {
+    m_format = format;
+  }
+
+  /**
+   * Write a report.
+   *
+   * @param statistics
+   *          The statistics.
+   * @param writer
+   *          Where to write the report.
+   * @throws IOException
+   *           If the report could not be written.
+   */
+  public void write(final DataLogStatistics statistics, final Writer writer)
+    throws IOException {
+
+    final long interval = statistics.getInterval();
+    final long duration =
+      statistics.getLastIntervalEnd() - statistics.getFirstIntervalStart();
+
+    if (m_format == Format.HTML) {
+      writer.write("<!DOCTYPE html>\n<html>\n<head>\n");
+      writer.write("<title>The Grinder data log analysis</title>\n");
+      writer.write("</head>\n<body>\n");
+      writer.write("<h1>The Grinder data log analysis</h1>\n");
+      writer.write("<p>" + statistics.getNumberOfLines() + " tests, " +
+                   statistics.getNumberOfSkippedLines() +
+                   " unparsed lines, " + interval + " ms intervals from " +
+                   new Date(statistics.getFirstIntervalStart()) +
+                   ".</p>\n");
+      writer.write("<h2>Totals</h2>\n");
+    }
+
+    startTable(writer);
+
+    for (final Entry<Integer, Cell> test :
+         statistics.getTotals().entrySet()) {
+      writeRow(writer, test.getKey(), TOTAL, test.getValue(), duration);
+    }
+
+    endTable(writer);
+
+    for (final Entry<Integer, SortedMap<Long, Cell>> test :
+         statistics.getIntervals().entrySet()) {
+
+      if (m_format == Format.HTML) {
+        writer.write("<h2>Test " + test.getKey() + "</h2>\n");
+        startTable(writer);
+      }
+
+      for (final Entry<Long, Cell> cell : test.getValue().entrySet()) {
+        writeRow(writer,
+                 test.getKey(),
+                 Long.toString(cell.getKey()),
+                 cell.getValue(),
+                 interval);
+      }
+
+      endTable(writer);
+    }
+
+    if (m_format == Format.HTML) {
+      writer.write("</body>\n</html>\n");
+    }
+
+    writer.flush();
+  }
+
+  private void startTable(final Writer writer) throws IOException {
+    if (m_format == Format.HTML) {
+      writer.write("<table border=\"1\">\n<tr>");
+
+      for (final String heading : HEADINGS) {
+        writer.write("<th>" + heading + "</th>");
+      }
+
+      writer.write("</tr>\n");
+    }
+    else {
+      for (int i = 0; i < HEADINGS.length; ++i) {
+        writer.write(i > 0 ? ", " : "");
+        writer.write(HEADINGS[i]);
+      }
+
+      writer.write("\n");
+    }
+  }
+
+  private void endTable(final Writer writer) throws IOException {
+    if (m_format == Format.HTML) {
+      writer.write("</table>\n");
+    }
+  }
+
+  private void writeRow(final Writer writer,
+                        final int test,
+                        final String interval,
+                        final Cell cell,
+                        final long duration) throws IOException {
+
+    final Histogram times = cell.getTestTimes();
+
+    final String[] values = new String[HEADINGS.length];
+    int i = 0;
+
+    values[i++] = Integer.toString(test);
+    values[i++] = interval;
+    values[i++] = Long.toString(cell.getTests());
+    values[i++] = Long.toString(cell.getErrors());
+    values[i++] =
+      m_decimalFormat.format(
+        duration > 0 ? cell.getTests() * 1000d / duration : 0);
+    values[i++] = m_decimalFormat.format(times.getMean());
+    values[i++] = Long.toString(times.getMinimum());
+
+    for (final double percentile : PERCENTILES) {
+      values[i++] = Long.toString(times.getPercentile(percentile));
+    }
+
+    values[i++] = Long.toString(times.getMaximum());
+
+    if (m_format == Format.HTML) {
+      writer.write("<tr>");
+
+      for (final String value : values) {
+        writer.write("<td>" + value + "</td>");
+      }
+
+      writer.write("</tr>\n");
+    }
+    else {
+      for (int j = 0; j < values.length; ++j) {
+        writer.write(j > 0 ? ", " : "");
+        writer.write(values[j]);
+      }
+
+      writer.write("\n");
+    }
+  }
+}
@@ -27,6 +27,8 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.Socket;
+import java.nio.channels.Channel;
+import java.nio.channels.Selector;
 
 
 /**
@@ -129,4 +131,36 @@ public final class Closer {
       }
     }
   }
+
+  /**
+   * Close the resource.
+   *
+   * @param channel The resource to close.
+   */
+  public static void close(Channel channel) {
+    if (channel != null) {
+      try {
+        channel.close();
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+      }
+    }
+  }
+
+  /**
+   * Close the resource.
+   *
+   * @param selector The resource to close.
+   */
+  public static void close(Selector selector) {
+    if (selector != null) {
+      try {
+        selector.close();
+      }
+      catch (IOException e) {
+        UncheckedInterruptedException.ioException(e);
+      }
+    }
+  }
 }
@@ -0,0 +1,227 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.common.processidentity;
+
+import java.io.Serializable;
+
+
+/**
+ * Measurements of the health of a worker process, taken over a reporting
+ * interval. These help to decide whether poor response times are due to the
+ * system under test, or to the load generator itself.
+ *
+ * <p>
+ * Measurements that the JVM cannot provide have the value {@code -1}.
+ * </p>
+ *
+ * @author agent
+ * @since 3.12
+ */
+public final class WorkerHealth implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final long m_interval;
+  private final long m_gcTime;
+  private final long m_allocationRate;
+  private final double m_cpuUsage;
+  private final long m_timerLag;
+  private final long m_threadStartLatency;
+  private final double m_schedulingError;
+  private final boolean m_impaired;
+
+  /**
+   * Constructor.
+   *
+   * @param interval
+   *          The length of the interval, in milliseconds.
+   * @param gcTime
+   *          Time spent in garbage collection during the interval, in
+   *          milliseconds.
+   * @param allocationRate
+   *          Rate at which the process allocated memory, in bytes per second.
+   * @param cpuUsage
+   *          CPU used by the process as a fraction of the CPU available, in the
+   *          range 0 to 1.
+   * @param timerLag
+   *          How late the process reported, in milliseconds.
+   * @param threadStartLatency
+   *          The longest time taken to start a worker thread during the
+   *          interval, in milliseconds.
+   * @param schedulingError
+   *          The mean difference between the times that sleeps completed
+   *          during the interval were due to end and the times they did end,
+   *          in milliseconds.
+   * @param impaired
+   *          Whether the measurements suggest the process could not generate
+   *          load reliably.
+   */
+  public WorkerHealth(final long interval,
+                      final long gcTime,
+                      final long allocationRate,
+                      final double cpuUsage,
+                      final long timerLag,
+                      final long threadStartLatency,
+                      final double schedulingError,
+                      final boolean impaired) {
+    m_interval = interval;
+    m_gcTime = gcTime;
+    m_allocationRate = allocationRate;
+    m_cpuUsage = cpuUsage;
+    m_timerLag = timerLag;
+    m_threadStartLatency = threadStartLatency;
+    m_schedulingError = schedulingError;
+    m_impaired = impaired;
+  }
+
+  /**
+   * The length of the interval.
+   *
+   * @return The interval, in milliseconds.
+   */
+  public long getInterval() {
+    return m_interval;
+  }
+
+  /**
+   * Time spent in garbage collection during the interval.
+   *
+   * @return The time, in milliseconds.
+   */
+  public long getGCTime() {
+    return m_gcTime;
+  }
+
+  /**
+   * Rate at which the process allocated memory.
+   *
+   * @return The rate, in bytes per second, or {@code -1}.
+   */
+  public long getAllocationRate() {
+    return m_allocationRate;
+  }
+
+  /**
+   * CPU used by the process.
+   *
+   * @return The fraction of the available CPU, or {@code -1}.
+   */
+  public double getCPUUsage() {
+    return m_cpuUsage;
+  }
+
+  /**
+   * How late the process reported, compared to the reporting interval.
+   *
+   * @return The lag, in milliseconds.
+   */
+  public long getTimerLag() {
+    return m_timerLag;
+  }
+
+  /**
+   * The longest time taken to start a worker thread during the interval.
+   *
+   * @return The latency, in milliseconds, or {@code -1} if no threads were
+   *         started.
+   */
+  public long getThreadStartLatency() {
+    return m_threadStartLatency;
+  }
+
+  /**
+   * The mean difference between the times that sleeps completed during the
+   * interval were due to end and the times they did end.
+   *
+   * @return The scheduling error, in milliseconds, or {@code -1} if no sleeps
+   *         completed.
+   */
+  public double getSchedulingError() {
+    return m_schedulingError;
+  }
+
+  /**
+   * Whether the measurements suggest that the process could not generate load
+   * reliably during the interval. Statistics reported for the interval should
+   * be treated with suspicion.
+   *
+   * @return {@code true} if the process was impaired.
+   */
+  public boolean isImpaired() {
+    return m_impaired;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public int hashCode() {
+    final int prime = 31;
+    int result = (int) m_interval;
+    result = prime * result + (int) m_gcTime;
+    result = prime * result + (int) m_allocationRate;
+    result = prime * result + (int) Double.doubleToLongBits(m_cpuUsage);
+    result = prime * result + (int) m_timerLag;
+    result = prime * result + (int) m_threadStartLatency;
+    result = prime * result + (int) Double.doubleToLongBits(m_schedulingError);
+    result = prime * result + (m_impaired ? 1 : 0);
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    final WorkerHealth other = (WorkerHealth) o;
+
+    return
+      m_interval == other.m_interval &&
+      m_gcTime == other.m_gcTime &&
+      m_allocationRate == other.m_allocationRate &&
+      Double.compare(m_cpuUsage, other.m_cpuUsage) == 0 &&
+      m_timerLag == other.m_timerLag &&
+      m_threadStartLatency == other.m_threadStartLatency &&
+      Double.compare(m_schedulingError, other.m_schedulingError) == 0 &&
+      m_impaired == other.m_impaired;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public String toString() {
+    return
+      "gc " + m_gcTime + "/" + m_interval + " ms" +
+      ", allocation " + m_allocationRate + " B/s" +
+      ", cpu " + m_cpuUsage +
+      ", timer lag " + m_timerLag + " ms" +
+      ", thread start " + m_threadStartLatency + " ms" +
+      ", sleep error " + m_schedulingError + " ms" +
+      (m_impaired ? ", impaired" : "");
+  }
+}
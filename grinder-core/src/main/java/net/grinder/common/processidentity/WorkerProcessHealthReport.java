@@ -0,0 +1,49 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.common.processidentity;
+
+
+/**
+ * A {@link WorkerProcessReport} that also describes the health and start up
+ * time of the worker process.
+ *
+ * @author agent
+ * @since 3.12
+ */
+public interface WorkerProcessHealthReport extends WorkerProcessReport {
+
+  /**
+   * Get the health of the process over the last reporting interval.
+   *
+   * @return The health, or {@code null} if the process has not reported it.
+   */
+  WorkerHealth getHealth();
+
+  /**
+   * Get how long the worker process took to start.
+   *
+   * @return The time from the start of the worker process JVM until the
+   *         process was ready to start its worker threads, in milliseconds,
+   *         or {@code -1} if the process does not have a JVM of its own.
+   */
+  long getStartupTime();
+}
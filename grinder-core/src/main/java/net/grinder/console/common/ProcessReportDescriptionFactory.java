@@ -23,6 +23,8 @@ package net.grinder.console.common;
 
 import net.grinder.common.processidentity.AgentIdentity;
 import net.grinder.common.processidentity.AgentProcessReport;
+import net.grinder.common.processidentity.WorkerHealth;
+import net.grinder.common.processidentity.WorkerProcessHealthReport;
 import net.grinder.common.processidentity.WorkerProcessReport;
 import net.grinder.translation.Translations;
 
@@ -43,6 +45,7 @@ public final class ProcessReportDescriptionFactory {
   private final String m_stateConnectedString;
   private final String m_stateDisconnectedString;
   private final String m_stateUnknownString;
+  private final String m_stateImpairedString;
 
   /**
    * Constructor.
@@ -62,6 +65,8 @@ public final class ProcessReportDescriptionFactory {
     m_stateDisconnectedString =
       translations.translate("console.state/finished-agent");
     m_stateUnknownString = translations.translate("console.state/unknown");
+    m_stateImpairedString =
+      translations.translate("console.state/worker-impaired");
   }
 
   /**
@@ -117,17 +122,34 @@ public final class ProcessReportDescriptionFactory {
 
     final String state;
 
+    final WorkerProcessHealthReport healthReport =
+      workerProcessReport instanceof WorkerProcessHealthReport ?
+        (WorkerProcessHealthReport) workerProcessReport : null;
+
+    final String startupTime =
+      healthReport != null && healthReport.getStartupTime() >= 0 ?
+        " " + m_translations.translate("console.state/worker-startup",
+                                       healthReport.getStartupTime()) :
+        "";
+
     switch (workerProcessReport.getState()) {
       case STARTED:
-        state = m_stateStartedString;
+        state = m_stateStartedString + startupTime;
         break;
 
       case RUNNING:
+        final WorkerHealth health =
+          healthReport != null ? healthReport.getHealth() : null;
+
         state = m_stateRunningString + " " +
             m_translations.translate(
               "console.state/worker-threads",
               workerProcessReport.getNumberOfRunningThreads(),
-              workerProcessReport.getMaximumNumberOfThreads());
+              workerProcessReport.getMaximumNumberOfThreads()) +
+            startupTime +
+            (health != null ? " " + describe(health) : "") +
+            (health != null && health.isImpaired() ?
+                " " + m_stateImpairedString : "");
         break;
 
       case FINISHED:
@@ -145,6 +167,16 @@ public final class ProcessReportDescriptionFactory {
       state);
   }
 
+  private String describe(final WorkerHealth health) {
+    return m_translations.translate("console.state/worker-health",
+                                    health.getGCTime(),
+                                    health.getAllocationRate(),
+                                    health.getCPUUsage(),
+                                    health.getTimerLag(),
+                                    health.getThreadStartLatency(),
+                                    health.getSchedulingError());
+  }
+
   /**
    * Various descriptions of the attributes of a process report.
    */
@@ -0,0 +1,144 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.console.communication;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import net.grinder.common.processidentity.AgentIdentity;
+import net.grinder.common.processidentity.ProcessReport.State;
+import net.grinder.common.processidentity.WorkerProcessReport;
+import net.grinder.messages.agent.SetWorkerThreadsMessage;
+import net.grinder.messages.console.AgentAddress;
+import net.grinder.messages.console.AgentProcessReportMessage;
+
+
+/**
+ * Reduces the number of threads run by the worker processes of agents that
+ * report a high system load.
+ *
+ * <p>
+ * An agent must report a load at or above the threshold for
+ * {@link #OVERLOADED_REPORTS} consecutive reports before its worker processes
+ * are asked to shed threads. Each running worker process then gives up a
+ * tenth of its running threads, but always keeps at least one.
+ * </p>
+ *
+ * @author agent
+ */
+final class LoadShedder {
+
+  /**
+   * The number of consecutive overloaded reports that trigger shedding.
+   */
+  static final int OVERLOADED_REPORTS = 3;
+
+  private final ConsoleCommunication m_consoleCommunication;
+  private final ProcessStatusImplementation m_processStatus;
+
+  private volatile double m_threshold = 0;
+
+  // Guarded by itself.
+  private final Map<AgentIdentity, Integer> m_overloadedReports =
+    new HashMap<AgentIdentity, Integer>();
+
+  /**
+   * Constructor.
+   *
+   * @param consoleCommunication
+   *          The console communication handler.
+   * @param processStatus
+   *          Source of worker process reports.
+   */
+  public LoadShedder(final ConsoleCommunication consoleCommunication,
+                     final ProcessStatusImplementation processStatus) {
+    m_consoleCommunication = consoleCommunication;
+    m_processStatus = processStatus;
+  }
+
+  /**
+   * Set the threshold.
+   *
+   * @param threshold
+   *          The load average per processor. Zero or less disables load
+   *          shedding.
+   */
+  public void setThreshold(final double threshold) {
+    m_threshold = threshold;
+
+    synchronized (m_overloadedReports) {
+      m_overloadedReports.clear();
+    }
+  }
+
+  /**
+   * Consider an agent report.
+   *
+   * @param report
+   *          The agent report.
+   */
+  public void agentReport(final AgentProcessReportMessage report) {
+    final AgentIdentity agent = report.getAgentIdentity();
+    final double threshold = m_threshold;
+    final double load = report.getSystemLoad();
+
+    synchronized (m_overloadedReports) {
+      if (threshold <= 0 || load < threshold) {
+        m_overloadedReports.remove(agent);
+        return;
+      }
+
+      final Integer previous = m_overloadedReports.get(agent);
+      final int count = previous == null ? 1 : previous + 1;
+
+      if (count < OVERLOADED_REPORTS) {
+        m_overloadedReports.put(agent, count);
+        return;
+      }
+
+      m_overloadedReports.remove(agent);
+    }
+
+    shed(agent);
+  }
+
+  private void shed(final AgentIdentity agent) {
+    final AgentAddress address = new AgentAddress(agent);
+
+    for (final WorkerProcessReport worker :
+         m_processStatus.getWorkerProcessReports(agent)) {
+
+      final int running = worker.getNumberOfRunningThreads();
+
+      if (worker.getState() != State.RUNNING || running <= 1) {
+        continue;
+      }
+
+      final int shed = Math.max(1, Math.round(running * 0.1f));
+
+      m_consoleCommunication.sendToAddressedAgents(
+        address,
+        new SetWorkerThreadsMessage(worker.getWorkerIdentity(),
+                                    running - shed));
+    }
+  }
+}
@@ -25,7 +25,9 @@ import java.util.Comparator;
 import java.util.EventListener;
 
 import net.grinder.common.GrinderProperties;
+import net.grinder.common.processidentity.AgentIdentity;
 import net.grinder.common.processidentity.ProcessReport;
+import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.common.processidentity.WorkerProcessReport;
 import net.grinder.console.common.ConsoleException;
 import net.grinder.messages.console.AgentAndCacheReport;
@@ -79,6 +81,86 @@ public interface ProcessControl {
    */
   void stopAgentAndWorkerProcesses();
 
+  /**
+   * Change the thread profile of running worker processes.
+   *
+   * @param properties
+   *          The {@code grinder.threadProfile} properties. If
+   *          {@code grinder.threadProfile} is not set, the worker processes
+   *          will run all of their threads.
+   * @since 3.12
+   */
+  void setThreadProfile(GrinderProperties properties);
+
+  /**
+   * Set a target throughput for the running worker processes. The target is
+   * shared equally between the worker processes that are currently running.
+   * Each process adjusts its sleep time factor to track its share.
+   *
+   * @param testsPerSecond
+   *          The total target throughput, in tests per second. Zero or less
+   *          disables throughput control.
+   * @since 3.12
+   */
+  void setThroughputTarget(double testsPerSecond);
+
+  /**
+   * Signal the worker processes of a single agent to start.
+   *
+   * @param agent
+   *          The agent.
+   * @param properties
+   *          Properties that override the agent's local properties.
+   * @since 3.12
+   */
+  void startWorkerProcesses(AgentIdentity agent, GrinderProperties properties);
+
+  /**
+   * Signal the worker processes of a single agent to reset.
+   *
+   * @param agent
+   *          The agent.
+   * @since 3.12
+   */
+  void resetWorkerProcesses(AgentIdentity agent);
+
+  /**
+   * Signal a single worker process to stop. The process shuts down as it
+   * does when its duration is exceeded: its threads are stopped at their next
+   * test or sleep, without finishing their current run, and the process
+   * exits. The other worker processes are unaffected.
+   *
+   * @param worker
+   *          The worker process.
+   * @since 3.12
+   */
+  void stopWorkerProcess(WorkerIdentity worker);
+
+  /**
+   * Change the number of threads that a running worker process uses. Threads
+   * above the new number park at the end of their current run; raising the
+   * number wakes them, or starts new threads if required.
+   *
+   * @param worker
+   *          The worker process.
+   * @param numberOfThreads
+   *          The number of threads.
+   * @since 3.12
+   */
+  void setWorkerThreads(WorkerIdentity worker, int numberOfThreads);
+
+  /**
+   * Enable load shedding. If an agent reports a load average per processor
+   * at or above {@code threshold} for several consecutive reports, each of
+   * its running worker processes is asked to run fewer threads.
+   *
+   * @param threshold
+   *          The load average per processor. Zero or less disables load
+   *          shedding.
+   * @since 3.12
+   */
+  void setLoadSheddingThreshold(double threshold);
+
   /**
    * Add a listener for process status data.
    *
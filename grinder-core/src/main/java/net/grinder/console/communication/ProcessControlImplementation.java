@@ -26,13 +26,18 @@ import java.util.Timer;
 
 import net.grinder.common.GrinderProperties;
 import net.grinder.common.processidentity.AgentIdentity;
+import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.communication.MessageDispatchRegistry;
 import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
 import net.grinder.console.common.ConsoleException;
 import net.grinder.console.common.DisplayMessageConsoleException;
 import net.grinder.messages.agent.ResetGrinderMessage;
+import net.grinder.messages.agent.SetWorkerThreadsMessage;
 import net.grinder.messages.agent.StartGrinderMessage;
 import net.grinder.messages.agent.StopGrinderMessage;
+import net.grinder.messages.agent.StopWorkerMessage;
+import net.grinder.messages.agent.ThreadProfileMessage;
+import net.grinder.messages.agent.ThroughputTargetMessage;
 import net.grinder.messages.console.AgentAddress;
 import net.grinder.messages.console.AgentProcessReportMessage;
 import net.grinder.messages.console.WorkerProcessReportMessage;
@@ -58,6 +63,8 @@ public class ProcessControlImplementation implements ProcessControl {
 
   private final Translations m_translations;
 
+  private final LoadShedder m_loadShedder;
+
   /**
    * Constructor.
    *
@@ -77,6 +84,8 @@ public class ProcessControlImplementation implements ProcessControl {
     m_translations = translations;
     m_processStatusSet =
       new ProcessStatusImplementation(timer, m_agentNumberMap);
+    m_loadShedder =
+      new LoadShedder(consoleCommunication, m_processStatusSet);
 
     final MessageDispatchRegistry messageDispatchRegistry =
       consoleCommunication.getMessageDispatchRegistry();
@@ -87,6 +96,7 @@ public class ProcessControlImplementation implements ProcessControl {
         @Override
         public void handle(final AgentProcessReportMessage message) {
           m_processStatusSet.addAgentStatusReport(message);
+          m_loadShedder.agentReport(message);
         }
       }
     );
@@ -183,6 +193,83 @@ public class ProcessControlImplementation implements ProcessControl {
     m_consoleCommunication.sendToAgents(new StopGrinderMessage());
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setThreadProfile(final GrinderProperties properties) {
+    m_consoleCommunication.sendToAgents(new ThreadProfileMessage(properties));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setThroughputTarget(final double testsPerSecond) {
+    final int workers = m_processStatusSet.getNumberOfLiveWorkers();
+
+    m_consoleCommunication.sendToAgents(
+      new ThroughputTargetMessage(
+        workers > 0 ? testsPerSecond / workers : testsPerSecond));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void startWorkerProcesses(final AgentIdentity agent,
+                                   final GrinderProperties properties) {
+
+    m_agentNumberMap.forEach(new AllocateLowestNumber.IteratorCallback() {
+      @Override
+      public void objectAndNumber(final Object object, final int number) {
+        if (agent.equals(object)) {
+          m_consoleCommunication.sendToAddressedAgents(
+            new AgentAddress(agent),
+            new StartGrinderMessage(properties, number));
+        }
+      }
+    });
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void resetWorkerProcesses(final AgentIdentity agent) {
+    m_consoleCommunication.sendToAddressedAgents(new AgentAddress(agent),
+                                                 new ResetGrinderMessage());
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void stopWorkerProcess(final WorkerIdentity worker) {
+    m_consoleCommunication.sendToAddressedAgents(
+      new AgentAddress(worker.getAgentIdentity()),
+      new StopWorkerMessage(worker));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setWorkerThreads(final WorkerIdentity worker,
+                               final int numberOfThreads) {
+    m_consoleCommunication.sendToAddressedAgents(
+      new AgentAddress(worker.getAgentIdentity()),
+      new SetWorkerThreadsMessage(worker, numberOfThreads));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setLoadSheddingThreshold(final double threshold) {
+    m_loadShedder.setThreshold(threshold);
+  }
+
   /**
    * {@inheritDoc}
    */
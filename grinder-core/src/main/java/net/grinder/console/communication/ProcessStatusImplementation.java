@@ -32,6 +32,7 @@ import java.util.TimerTask;
 
 import net.grinder.common.processidentity.AgentIdentity;
 import net.grinder.common.processidentity.ProcessIdentity;
+import net.grinder.common.processidentity.ProcessReport.State;
 import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.common.processidentity.WorkerProcessReport;
 import net.grinder.console.communication.ProcessControl.Listener;
@@ -136,6 +137,58 @@ final class ProcessStatusImplementation {
     }
   }
 
+  /**
+   * How many worker processes are started or running?
+   *
+   * @return The number of worker processes.
+   */
+  public int getNumberOfLiveWorkers() {
+    final AgentAndWorkers[] agents;
+
+    synchronized (m_agentIdentityToAgentAndWorkers) {
+      agents =
+        m_agentIdentityToAgentAndWorkers.values().toArray(
+          new AgentAndWorkers[m_agentIdentityToAgentAndWorkers.size()]);
+    }
+
+    int result = 0;
+
+    for (final AgentAndWorkers agent : agents) {
+      for (final WorkerProcessReport worker :
+           agent.getWorkerProcessReports()) {
+        if (worker.getState() == State.STARTED ||
+            worker.getState() == State.RUNNING) {
+          ++result;
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Return the latest worker process reports for an agent.
+   *
+   * @param agentIdentity
+   *          The agent.
+   * @return The worker process reports. Empty if the agent is unknown.
+   */
+  public WorkerProcessReport[] getWorkerProcessReports(
+    final AgentIdentity agentIdentity) {
+
+    final AgentAndWorkers agent;
+
+    synchronized (m_agentIdentityToAgentAndWorkers) {
+      agent = m_agentIdentityToAgentAndWorkers.get(agentIdentity);
+    }
+
+    if (agent == null) {
+      return new WorkerProcessReport[0];
+    }
+
+    return agent.getWorkerProcessReports();
+  }
+
   private void update() {
     if (!m_newData) {
       return;
@@ -25,6 +25,8 @@
 package net.grinder.engine.agent;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Timer;
@@ -52,10 +54,12 @@ import net.grinder.engine.communication.ConsoleListener;
 import net.grinder.messages.agent.StartGrinderMessage;
 import net.grinder.messages.console.AgentAddress;
 import net.grinder.messages.console.AgentProcessReportMessage;
+import net.grinder.scriptengine.jython.JythonScriptEngineService;
 import net.grinder.util.Directory;
 import net.grinder.util.thread.Condition;
 
 import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 
 /**
@@ -218,6 +222,15 @@ public final class AgentImplementation implements Agent {
               }
             }
 
+            if (!properties.containsKey(
+                  JythonScriptEngineService.COMPILED_SCRIPT_CACHE_PROPERTY)) {
+              // Let the workers share compiled copies of the distributed
+              // script.
+              properties.setFile(
+                JythonScriptEngineService.COMPILED_SCRIPT_CACHE_PROPERTY,
+                m_fileStore.getCompiledScriptDirectory());
+            }
+
             m_agentIdentity.setNumber(startMessage.getAgentNumber());
           }
           else {
@@ -248,7 +261,11 @@ public final class AgentImplementation implements Agent {
 
           final WorkerFactory workerFactory;
 
-          if (!properties.getBoolean("grinder.debug.singleprocess", false)) {
+          final boolean debugSingleProcess =
+            properties.getBoolean("grinder.debug.singleprocess", false);
+
+          if (!debugSingleProcess &&
+              !properties.getBoolean("grinder.singleProcess", false)) {
 
             final WorkerProcessCommandLine workerCommandLine =
               new WorkerProcessCommandLine(properties,
@@ -264,8 +281,14 @@ public final class AgentImplementation implements Agent {
                 consoleCommunication != null, script, properties);
           }
           else {
-            m_logger.info(
-              "DEBUG MODE: Spawning threads rather than processes");
+            if (debugSingleProcess) {
+              m_logger.info(
+                "DEBUG MODE: Spawning threads rather than processes");
+            }
+            else {
+              m_logger.info("running workers in isolated class loaders " +
+                            "within the agent process");
+            }
 
             if (jvmArguments != null) {
               m_logger.warn(
@@ -276,7 +299,8 @@ public final class AgentImplementation implements Agent {
             workerFactory =
               new DebugThreadWorkerFactory(
                 m_agentIdentity, m_fanOutStreamSender,
-                consoleCommunication != null, script, properties);
+                consoleCommunication != null, script, properties,
+                m_timer, LoggerFactory.getLogger("agent.workers"));
           }
 
           final WorkerLauncher workerLauncher =
@@ -458,6 +482,13 @@ public final class AgentImplementation implements Agent {
     }
   }
 
+  private static double getSystemLoad() {
+    final OperatingSystemMXBean os =
+      ManagementFactory.getOperatingSystemMXBean();
+
+    return os.getSystemLoadAverage() / os.getAvailableProcessors();
+  }
+
   private final class ConsoleCommunication {
     private final ClientSender m_sender;
     private final Connector m_connector;
@@ -508,7 +539,8 @@ public final class AgentImplementation implements Agent {
             m_sender.send(
               new AgentProcessReportMessage(
                 ProcessReport.State.RUNNING,
-                m_fileStore.getCacheHighWaterMark()));
+                m_fileStore.getCacheHighWaterMark(),
+                getSystemLoad()));
           }
           catch (final CommunicationException e) {
             cancel();
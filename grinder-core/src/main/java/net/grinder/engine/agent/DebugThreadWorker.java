@@ -26,27 +26,48 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import net.grinder.common.UncheckedInterruptedException;
 import net.grinder.common.processidentity.WorkerIdentity;
 
+import org.slf4j.Logger;
+
 
 /**
  * Class that starts a worker in a separate thread and a
- * {@link net.grinder.util.BlockingClassLoader}. Used for debugging.
+ * {@link net.grinder.util.BlockingClassLoader}. Used for single process mode,
+ * and for debugging.
+ *
+ * <p>
+ * The worker's threads belong to a thread group of their own, which is used
+ * to account for the resources they use, and to make sure none outlive the
+ * worker.
+ * </p>
  *
  * @author Philip Aston
  */
 final class DebugThreadWorker implements Worker {
 
+  private static final long SAMPLE_INTERVAL = 1000;
+
   private final WorkerIdentity m_workerIdentity;
+  private final ThreadGroup m_threadGroup;
+  private final ThreadGroupResourceUsage m_resourceUsage;
   private final Thread m_thread;
   private final PipedOutputStream m_communicationStream;
   private int m_result;
 
   public DebugThreadWorker(WorkerIdentity workerIdentity,
-                           final IsolateGrinderProcessRunner runner) {
+                           final IsolateGrinderProcessRunner runner,
+                           final Timer timer,
+                           final Logger logger) {
     m_workerIdentity = workerIdentity;
+    m_threadGroup = new ThreadGroup(workerIdentity.getName());
+    m_resourceUsage = new ThreadGroupResourceUsage(m_threadGroup);
 
     m_communicationStream = new PipedOutputStream();
     final InputStream inputStream;
@@ -58,14 +79,61 @@ final class DebugThreadWorker implements Worker {
       throw new AssertionError(e);
     }
 
-    m_thread = new Thread(workerIdentity.getName()) {
+    m_thread = new Thread(m_threadGroup, workerIdentity.getName()) {
           public void run() {
-            m_result = runner.run(inputStream);
+            final TimerTask samplingTask = new TimerTask() {
+                public void run() {
+                  m_resourceUsage.sample();
+                }
+              };
+
+            timer.schedule(samplingTask, 0, SAMPLE_INTERVAL);
+
+            try {
+              m_result = runner.run(inputStream);
+            }
+            finally {
+              samplingTask.cancel();
+              m_resourceUsage.sample();
+
+              logger.info("worker {} used {} ms CPU time, peak threads {}",
+                          new Object[] { m_workerIdentity.getName(),
+                                         m_resourceUsage.getCPUTime(),
+                                         m_resourceUsage.getPeakThreadCount(),
+                                       });
+
+              tearDown(logger);
+            }
           }
         };
     m_thread.setDaemon(true);
   }
 
+  /**
+   * Called by the worker's main thread as it finishes. Interrupts any
+   * threads the worker has left behind and ensures the thread group is
+   * destroyed once they have gone.
+   */
+  private void tearDown(final Logger logger) {
+    final List<String> remaining = new ArrayList<String>();
+
+    for (final Thread thread :
+         ThreadGroupResourceUsage.activeThreads(m_threadGroup)) {
+      if (thread != Thread.currentThread()) {
+        remaining.add(thread.getName());
+        thread.interrupt();
+      }
+    }
+
+    if (remaining.size() > 0) {
+      logger.warn("worker {} left threads running, interrupted {}",
+                  m_workerIdentity.getName(),
+                  remaining);
+    }
+
+    m_threadGroup.setDaemon(true);
+  }
+
   public void start() {
     m_thread.start();
   }
@@ -90,7 +158,16 @@ final class DebugThreadWorker implements Worker {
   }
 
   public void destroy() {
-    m_thread.interrupt();
+    m_threadGroup.interrupt();
+  }
+
+  /**
+   * Return the resources used by the worker's threads.
+   *
+   * @return The resource usage.
+   */
+  public ThreadGroupResourceUsage getResourceUsage() {
+    return m_resourceUsage;
   }
 
   /**
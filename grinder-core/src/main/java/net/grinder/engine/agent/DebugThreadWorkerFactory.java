@@ -28,6 +28,7 @@ import java.io.OutputStream;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.Timer;
 
 import net.grinder.common.GrinderProperties;
 import net.grinder.communication.FanOutStreamSender;
@@ -38,10 +39,12 @@ import net.grinder.engine.common.ScriptLocation;
 import net.grinder.util.BlockingClassLoader;
 import net.grinder.util.weave.agent.ExposeInstrumentation;
 
+import org.slf4j.Logger;
+
 
 /**
  * Class that starts workers in a separate thread and class loader. Used for
- * debugging.
+ * single process mode, and for debugging.
  *
  * @author Philip Aston
  */
@@ -52,6 +55,8 @@ final class DebugThreadWorkerFactory extends AbstractWorkerFactory {
 
   private final Set<String> m_isolatedClasses;
   private final Set<String> m_sharedClasses;
+  private final Timer m_timer;
+  private final Logger m_logger;
 
   /**
    * Allow unit tests to change the IsolateGrinderProcessRunner.
@@ -69,7 +74,9 @@ final class DebugThreadWorkerFactory extends AbstractWorkerFactory {
                                   FanOutStreamSender fanOutStreamSender,
                                   boolean reportToConsole,
                                   ScriptLocation script,
-                                  GrinderProperties properties)
+                                  GrinderProperties properties,
+                                  Timer timer,
+                                  Logger logger)
     throws EngineException {
     super(agentIdentity,
           fanOutStreamSender,
@@ -77,6 +84,9 @@ final class DebugThreadWorkerFactory extends AbstractWorkerFactory {
           script,
           properties);
 
+    m_timer = timer;
+    m_logger = logger;
+
     //  Isolate everything...
     m_isolatedClasses = singleton("*");
 
@@ -140,7 +150,7 @@ final class DebugThreadWorkerFactory extends AbstractWorkerFactory {
       currentThread.setContextClassLoader(classLoader);
 
       final DebugThreadWorker worker =
-        new DebugThreadWorker(workerIdentity, runner);
+        new DebugThreadWorker(workerIdentity, runner, m_timer, m_logger);
 
       worker.start();
 
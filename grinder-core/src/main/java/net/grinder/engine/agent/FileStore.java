@@ -57,6 +57,8 @@ final class FileStore {
 
   private final Directory m_currentDirectory;
 
+  private final Directory m_compiledScriptDirectory;
+
   // Guarded by m_incomingDirectory
   private boolean m_incremental;
 
@@ -87,6 +89,8 @@ final class FileStore {
     try {
       m_incomingDirectory = new Directory(new File(rootDirectory, "incoming"));
       m_currentDirectory = new Directory(new File(rootDirectory, "current"));
+      m_compiledScriptDirectory =
+        new Directory(new File(rootDirectory, "compiled-scripts"));
     }
     catch (final Directory.DirectoryException e) {
       throw new FileStoreException(e.getMessage(), e);
@@ -113,6 +117,18 @@ final class FileStore {
     }
   }
 
+  /**
+   * Directory that worker processes use to share compiled scripts. It lives
+   * alongside, rather than within, the distributed files so that it is
+   * unaffected by file distribution. Its contents are discarded whenever
+   * new files are distributed.
+   *
+   * @return The directory. It is created on demand by the script engine.
+   */
+  public File getCompiledScriptDirectory() {
+    return m_compiledScriptDirectory.getFile();
+  }
+
   public CacheHighWaterMark getCacheHighWaterMark() {
     return m_cacheHighWaterMark;
   }
@@ -164,6 +180,8 @@ final class FileStore {
 
               m_logger.info("Updating file store: {}", fileContents);
               fileContents.create(m_incomingDirectory);
+
+              discardCompiledScripts();
             }
           }
           catch (final FileContents.FileContentsException e) {
@@ -187,6 +205,17 @@ final class FileStore {
       });
   }
 
+  private void discardCompiledScripts() {
+    // Entries for the previous script revision will never be used again.
+    // The cache recovers from missing entries, so failure is not fatal.
+    try {
+      m_compiledScriptDirectory.deleteContents();
+    }
+    catch (final Directory.DirectoryException e) {
+      m_logger.warn("Failed to discard compiled scripts: {}", e.getMessage());
+    }
+  }
+
   private void createReadmeFile() throws CommunicationException {
     if (!m_readmeFile.exists()) {
       try {
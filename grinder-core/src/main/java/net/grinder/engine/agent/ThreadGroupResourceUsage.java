@@ -0,0 +1,135 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.agent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * Accounts for the resources used by the threads of a {@link ThreadGroup}.
+ *
+ * <p>
+ * The JVM forgets the CPU time of a thread once it has terminated, so the
+ * group is sampled periodically and the last time seen for each thread is
+ * remembered. CPU time used by a short-lived thread between samples may be
+ * missed.
+ * </p>
+ *
+ * @author agent
+ */
+final class ThreadGroupResourceUsage {
+
+  private static final ThreadMXBean s_threadMXBean =
+    ManagementFactory.getThreadMXBean();
+
+  private final ThreadGroup m_threadGroup;
+
+  // Guarded by this.
+  private final Map<Long, Long> m_cpuTimes = new HashMap<Long, Long>();
+  private int m_peakThreadCount;
+
+  public ThreadGroupResourceUsage(final ThreadGroup threadGroup) {
+    m_threadGroup = threadGroup;
+  }
+
+  /**
+   * Record the current resource usage of the group's threads.
+   */
+  public void sample() {
+    final Thread[] threads = activeThreads(m_threadGroup);
+    final boolean cpuTimeEnabled = isCPUTimeEnabled();
+
+    synchronized (this) {
+      m_peakThreadCount = Math.max(m_peakThreadCount, threads.length);
+
+      if (cpuTimeEnabled) {
+        for (final Thread thread : threads) {
+          final long cpuTime = s_threadMXBean.getThreadCpuTime(thread.getId());
+
+          if (cpuTime >= 0) {
+            m_cpuTimes.put(thread.getId(), cpuTime);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The CPU time used by the group's threads, as of the last sample.
+   *
+   * @return The CPU time in milliseconds, or {@code -1} if the JVM does not
+   *         support thread CPU time measurement.
+   */
+  public synchronized long getCPUTime() {
+    if (!isCPUTimeEnabled()) {
+      return -1;
+    }
+
+    long total = 0;
+
+    for (final long cpuTime : m_cpuTimes.values()) {
+      total += cpuTime;
+    }
+
+    return total / 1000000;
+  }
+
+  /**
+   * The largest number of threads seen in the group.
+   *
+   * @return The thread count.
+   */
+  public synchronized int getPeakThreadCount() {
+    return m_peakThreadCount;
+  }
+
+  private static boolean isCPUTimeEnabled() {
+    return s_threadMXBean.isThreadCpuTimeSupported() &&
+           s_threadMXBean.isThreadCpuTimeEnabled();
+  }
+
+  /**
+   * Return the live threads of a group and its subgroups.
+   *
+   * @param threadGroup The group.
+   * @return The threads.
+   */
+  static Thread[] activeThreads(final ThreadGroup threadGroup) {
+    // ThreadGroup.enumerate() silently truncates, so allow some head room.
+    Thread[] threads = new Thread[threadGroup.activeCount() + 10];
+
+    while (true) {
+      final int n = threadGroup.enumerate(threads);
+
+      if (n < threads.length) {
+        final Thread[] result = new Thread[n];
+        System.arraycopy(threads, 0, result, 0, n);
+        return result;
+      }
+
+      threads = new Thread[threads.length * 2];
+    }
+  }
+}
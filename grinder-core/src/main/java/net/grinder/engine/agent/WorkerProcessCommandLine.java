@@ -21,7 +21,10 @@
 
 package net.grinder.engine.agent;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -31,6 +34,7 @@ import java.util.StringTokenizer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import net.grinder.common.Closer;
 import net.grinder.common.GrinderProperties;
 import net.grinder.engine.process.WorkerProcessEntryPoint;
 import net.grinder.util.Directory;
@@ -46,6 +50,9 @@ final class WorkerProcessCommandLine implements CommandLine {
   private static final Pattern AGENT_JAR_FILENAME_PATTERN =
       Pattern.compile("^grinder-dcr-agent-([\\d.]*)(-.*)?.jar$");
 
+  private static final Pattern JAVA_VERSION_PATTERN =
+      Pattern.compile("^JAVA_VERSION=\"(1\\.)?(\\d+).*\"");
+
   private final Directory m_workingDirectory;
   private final List<String> m_command;
   private final int m_commandClassIndex;
@@ -57,7 +64,9 @@ final class WorkerProcessCommandLine implements CommandLine {
 
     m_workingDirectory = workingDirectory;
     m_command = new ArrayList<String>();
-    m_command.add(properties.getProperty("grinder.jvm", "java"));
+    final String jvm = properties.getProperty("grinder.jvm", "java");
+
+    m_command.add(jvm);
 
     final List<File> systemClasspath =
       workingDirectory.rebasePath(
@@ -99,6 +108,25 @@ final class WorkerProcessCommandLine implements CommandLine {
       classpath.append(f.getPath());
     }
 
+    // -XX:+AutoCreateSharedArchive requires Java 19 or later. Older JVMs
+    // refuse to start if given it, so we only use it if we can tell the
+    // worker JVM is new enough.
+    if (properties.getBoolean("grinder.jvm.classDataSharing", false) &&
+        getJavaMajorVersion(jvm) >= 19) {
+      // The JVM creates the archive when the first worker exits, and
+      // recreates it if the JVM or class path changes. We name the archive
+      // after the command line so that agents with different configurations
+      // don't keep invalidating each other's archives.
+      final File archive =
+        new File(systemProperties.getProperty("java.io.tmpdir", "."),
+                 "grinder-worker-" +
+                 Integer.toHexString((m_command + "" + classpath).hashCode()) +
+                 ".jsa");
+
+      m_command.add("-XX:SharedArchiveFile=" + archive.getPath());
+      m_command.add("-XX:+AutoCreateSharedArchive");
+    }
+
     if (classpath.length() > 0) {
       m_command.add("-classpath");
 
@@ -109,6 +137,80 @@ final class WorkerProcessCommandLine implements CommandLine {
     m_command.add(WorkerProcessEntryPoint.class.getName());
   }
 
+  /**
+   * Find the major version of a JVM from the {@code release} file in its
+   * home directory.
+   *
+   * @param jvm
+   *          The JVM executable. If this has no directory, it is looked up
+   *          on the {@code PATH}.
+   * @return The major version, or {@code -1} if it could not be determined.
+   */
+  static int getJavaMajorVersion(final String jvm) {
+    final File executable = findExecutable(jvm);
+
+    if (executable == null) {
+      return -1;
+    }
+
+    BufferedReader reader = null;
+
+    try {
+      // Resolve links such as /usr/bin/java.
+      final File bin = executable.getCanonicalFile().getParentFile();
+
+      if (bin == null || bin.getParentFile() == null) {
+        return -1;
+      }
+
+      final File home = bin.getParentFile();
+
+      reader = new BufferedReader(new FileReader(new File(home, "release")));
+
+      String line;
+
+      while ((line = reader.readLine()) != null) {
+        final Matcher matcher = JAVA_VERSION_PATTERN.matcher(line);
+
+        if (matcher.find()) {
+          return Integer.parseInt(matcher.group(2));
+        }
+      }
+    }
+    catch (final IOException e) {
+      // Fall through.
+    }
+    finally {
+      Closer.close(reader);
+    }
+
+    return -1;
+  }
+
+  private static File findExecutable(final String name) {
+    final File file = new File(name);
+
+    if (file.getParentFile() != null) {
+      return file.isFile() ? file : null;
+    }
+
+    final String path = System.getenv("PATH");
+
+    if (path != null) {
+      for (final String directory : path.split(File.pathSeparator)) {
+        for (final String candidate : new String[] { name, name + ".exe" }) {
+          final File result = new File(directory, candidate);
+
+          if (result.isFile()) {
+            return result;
+          }
+        }
+      }
+    }
+
+    return null;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -24,8 +24,13 @@
 
 package net.grinder.engine.process;
 
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
 import java.net.UnknownHostException;
 import java.text.SimpleDateFormat;
 import java.util.Collection;
@@ -35,6 +40,7 @@ import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 
+import net.grinder.common.Closer;
 import net.grinder.common.GrinderBuild;
 import net.grinder.common.GrinderException;
 import net.grinder.common.GrinderProperties;
@@ -43,12 +49,14 @@ import net.grinder.common.Test;
 import net.grinder.common.TimeAuthority;
 import net.grinder.common.processidentity.ProcessReport;
 import net.grinder.common.processidentity.ProcessReport.State;
+import net.grinder.common.processidentity.WorkerHealth;
 import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.communication.ClientSender;
 import net.grinder.communication.CommunicationException;
 import net.grinder.communication.ConnectionType;
 import net.grinder.communication.Message;
 import net.grinder.communication.MessageDispatchSender;
+import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
 import net.grinder.communication.MessagePump;
 import net.grinder.communication.QueuedSender;
 import net.grinder.communication.QueuedSenderDecorator;
@@ -58,6 +66,10 @@ import net.grinder.engine.common.EngineException;
 import net.grinder.engine.communication.ConsoleListener;
 import net.grinder.engine.messages.InitialiseGrinderMessage;
 import net.grinder.engine.process.dcr.DCRContextImplementation;
+import net.grinder.messages.agent.SetWorkerThreadsMessage;
+import net.grinder.messages.agent.StopWorkerMessage;
+import net.grinder.messages.agent.ThreadProfileMessage;
+import net.grinder.messages.agent.ThroughputTargetMessage;
 import net.grinder.messages.console.RegisterTestsMessage;
 import net.grinder.messages.console.ReportStatisticsMessage;
 import net.grinder.messages.console.WorkerAddress;
@@ -82,11 +94,12 @@ import net.grinder.synchronisation.LocalBarrierGroups;
 import net.grinder.util.JVM;
 import net.grinder.util.ListenerSupport;
 import net.grinder.util.ListenerSupport.Informer;
-import net.grinder.util.Sleeper;
 import net.grinder.util.SleeperImplementation;
+import net.grinder.util.SleeperImplementation.Distribution;
 import net.grinder.util.StandardTimeAuthority;
 import net.grinder.util.thread.BooleanCondition;
 import net.grinder.util.thread.Condition;
+import net.grinder.util.weave.WeavingException;
 
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
@@ -114,7 +127,9 @@ final class GrinderProcess {
   private final Logger m_dataLogger;
   private final LoggerConfiguration m_logging;
   private final QueuedSender m_consoleSender;
-  private final Sleeper m_sleeper;
+  private final SleeperImplementation m_sleeper;
+  private final ThroughputController m_throughputController;
+  private final HealthMonitor m_healthMonitor;
   private final InitialiseGrinderMessage m_initialisationMessage;
   private final ConsoleListener m_consoleListener;
   private final StatisticsServices m_statisticsServices;
@@ -141,17 +156,42 @@ final class GrinderProcess {
   // Guarded by m_eventSynchronisation.
   private String m_shutdownReason;
 
+  private final boolean m_dedicatedJVM;
+
+  // Reported to the console with each process report.
+  private volatile long m_startupTime = -1;
+
+  private volatile ThreadProfile m_threadProfile;
+
+  // The number of threads the console has asked us to run.
+  private volatile int m_threadLimit = Integer.MAX_VALUE;
+
+  // Guarded by m_eventSynchronisation.
+  private ThreadSynchronisation m_threadSynchronisation;
+
+  /**
+   * How often the active thread count is updated from the thread profile.
+   */
+  private static final int THREAD_PROFILE_INTERVAL = 100;
+
   /**
    * Creates a new {@code GrinderProcess} instance.
    *
    * @param agentReceiver
    *          Receiver used to listen to the agent.
+   * @param dedicatedJVM
+   *          {@code true} if the process has a JVM to itself, in which case
+   *          the time taken to start the JVM and initialise the process is
+   *          reported.
    * @exception GrinderException
    *          If the process could not be created.
    */
-  public GrinderProcess(final Receiver agentReceiver)
+  public GrinderProcess(final Receiver agentReceiver,
+                        final boolean dedicatedJVM)
     throws GrinderException {
 
+    m_dedicatedJVM = dedicatedJVM;
+
     m_initialisationMessage =
       (InitialiseGrinderMessage)agentReceiver.waitForMessage();
 
@@ -182,6 +222,9 @@ final class GrinderProcess {
 
     final MessageDispatchSender messageDispatcher = new MessageDispatchSender();
 
+    final BarrierIdentityGenerator barrierIdentityGenerator =
+      new BarrierIdentityGenerator(m_initialisationMessage.getWorkerIdentity());
+
     final BarrierGroups barrierGroups;
 
     if (m_initialisationMessage.getReportToConsole()) {
@@ -194,16 +237,15 @@ final class GrinderProcess {
 
       barrierGroups =
         new ClientBarrierGroups(m_consoleSender,
-                                messageDispatcher);
+                                messageDispatcher,
+                                barrierIdentityGenerator,
+                                m_terminalLogger);
     }
     else {
       m_consoleSender = new NullQueuedSender();
       barrierGroups = new LocalBarrierGroups();
     }
 
-    final BarrierIdentityGenerator barrierIdentityGenerator =
-      new BarrierIdentityGenerator(m_initialisationMessage.getWorkerIdentity());
-
     final ThreadStarter delegatingThreadStarter = new ThreadStarter() {
       @Override
       public int startThread(final Object testRunner)
@@ -237,12 +279,18 @@ final class GrinderProcess {
     final Logger externalLogger =
       new ExternalLogger(m_logger, m_threadContexts);
 
-    m_sleeper = new SleeperImplementation(
+    final SleeperImplementation sleeper = new SleeperImplementation(
       m_times.getTimeAuthority(),
       externalLogger,
       properties.getDouble("grinder.sleepTimeFactor", 1.0d),
       properties.getDouble("grinder.sleepTimeVariation", 0.2d));
 
+    sleeper.setDistribution(createSleepTimeDistribution(properties));
+
+    m_sleeper = sleeper;
+    m_throughputController = new ThroughputController(sleeper, m_logger);
+    m_healthMonitor = new HealthMonitor(m_times.getTimeAuthority(), sleeper);
+
     final Statistics scriptStatistics =
       new ScriptStatisticsImplementation(m_threadContexts,
                                          m_statisticsServices,
@@ -299,6 +347,62 @@ final class GrinderProcess {
       new ConsoleListener(m_eventSynchronisation, m_logger);
 
     m_consoleListener.registerMessageHandlers(messageDispatcher);
+
+    messageDispatcher.set(
+      ThreadProfileMessage.class,
+      new AbstractHandler<ThreadProfileMessage>() {
+        @Override
+        public void handle(final ThreadProfileMessage message) {
+          try {
+            m_threadProfile =
+              ThreadProfile.create(message.getProperties(),
+                                   m_initialisationMessage.getProperties()
+                                   .getInt("grinder.duration", 0));
+
+            m_terminalLogger.info("thread profile changed to {}",
+                                  m_threadProfile);
+          }
+          catch (final EngineException e) {
+            m_terminalLogger.error("ignoring thread profile - {}",
+                                   e.getMessage());
+          }
+        }
+      });
+
+    messageDispatcher.set(
+      StopWorkerMessage.class,
+      new AbstractHandler<StopWorkerMessage>() {
+        @Override
+        public void handle(final StopWorkerMessage message) {
+          if (isForThisWorker(message.getWorkerIdentity())) {
+            GrinderProcess.this.shutdown("stopped by the console");
+          }
+        }
+      });
+
+    messageDispatcher.set(
+      SetWorkerThreadsMessage.class,
+      new AbstractHandler<SetWorkerThreadsMessage>() {
+        @Override
+        public void handle(final SetWorkerThreadsMessage message) {
+          if (isForThisWorker(message.getWorkerIdentity())) {
+            setNumberOfThreads(message.getNumberOfThreads());
+          }
+        }
+      });
+
+    messageDispatcher.set(
+      ThroughputTargetMessage.class,
+      new AbstractHandler<ThroughputTargetMessage>() {
+        @Override
+        public void handle(final ThroughputTargetMessage message) {
+          m_throughputController.setTarget(message.getTestsPerSecond());
+
+          m_terminalLogger.info("target throughput changed to {} TPS",
+                                message.getTestsPerSecond());
+        }
+      });
+
     m_messagePump = new MessagePump(agentReceiver, messageDispatcher, 1);
   }
 
@@ -322,10 +426,19 @@ final class GrinderProcess {
       final GrinderProperties properties =
         m_initialisationMessage.getProperties();
 
+      final DCRContextImplementation dcrContext =
+        DCRContextImplementation.create(m_logger);
+
+      if (dcrContext != null) {
+        // Weave the instrumentation requested as the script is initialised
+        // in one batch, before the worker threads start.
+        dcrContext.deferChanges();
+      }
+
       final ScriptEngineContainer scriptEngineContainer =
         new ScriptEngineContainer(properties,
                                   m_logger,
-                                  DCRContextImplementation.create(m_logger),
+                                  dcrContext,
                                   m_initialisationMessage.getScript());
 
       final WorkerIdentity workerIdentity =
@@ -352,6 +465,21 @@ final class GrinderProcess {
       final boolean reportTimesToConsole =
           properties.getBoolean("grinder.reportTimesToConsole", true);
 
+      m_threadProfile = ThreadProfile.create(properties, duration);
+
+      if (m_threadProfile != null) {
+        m_logger.info("thread profile is {}", m_threadProfile);
+      }
+
+      final double throughputTarget =
+        properties.getDouble("grinder.throughputTarget", 0);
+
+      m_throughputController.setTarget(throughputTarget);
+
+      if (throughputTarget > 0) {
+        m_logger.info("target throughput is {} TPS", throughputTarget);
+      }
+
       final Instrumenter instrumenter =
         scriptEngineContainer.createInstrumenter();
 
@@ -375,6 +503,27 @@ final class GrinderProcess {
                     m_initialisationMessage.getScript(),
                     scriptEngine.getDescription());
 
+      if (dcrContext != null) {
+        final long weavingStart = System.currentTimeMillis();
+
+        try {
+          dcrContext.applyDeferredChanges();
+        }
+        catch (final WeavingException e) {
+          throw new EngineException("Failed to apply instrumentation", e);
+        }
+
+        m_logger.info("applied instrumentation in {} ms",
+                      System.currentTimeMillis() - weavingStart);
+      }
+
+      if (m_dedicatedJVM) {
+        // Includes JVM start up, class loading, and script initialisation,
+        // which are the costs that grinder.jvm.classDataSharing reduces.
+        m_startupTime = ManagementFactory.getRuntimeMXBean().getUptime();
+        m_terminalLogger.info("ready {} ms after JVM start", m_startupTime);
+      }
+
       m_messagePump.start();
 
       // Don't write out the data log header until now as the script may
@@ -395,7 +544,8 @@ final class GrinderProcess {
 
       sendStatusMessage(ProcessReport.State.STARTED,
                         (short)0,
-                        numberOfThreads);
+                        numberOfThreads,
+                        null);
 
       final ThreadSynchronisation threadSynchronisation =
         new ThreadSynchronisation(m_eventSynchronisation);
@@ -403,6 +553,7 @@ final class GrinderProcess {
       m_terminalLogger.info("starting threads");
 
       synchronized (m_eventSynchronisation) {
+        m_threadSynchronisation = threadSynchronisation;
         m_threadStarter =
           new ThreadStarterImplementation(threadSynchronisation, scriptEngine);
 
@@ -411,6 +562,11 @@ final class GrinderProcess {
         }
       }
 
+      final ThreadProfileTimerTask threadProfileTimerTask =
+        new ThreadProfileTimerTask(threadSynchronisation);
+
+      threadProfileTimerTask.update(0);
+
       threadSynchronisation.startThreads();
 
       m_times.setExecutionStartTime();
@@ -420,7 +576,8 @@ final class GrinderProcess {
 
       final TimerTask reportTimerTask =
         new ReportToConsoleTimerTask(threadSynchronisation,
-                                     reportTimesToConsole);
+                                     reportTimesToConsole,
+                                     reportToConsoleInterval);
 
       final TimerTask shutdownTimerTask = new ShutdownTimerTask();
 
@@ -437,6 +594,10 @@ final class GrinderProcess {
       timer.schedule(reportTimerTask, reportToConsoleInterval,
                      reportToConsoleInterval);
 
+      timer.scheduleAtFixedRate(threadProfileTimerTask,
+                                THREAD_PROFILE_INTERVAL,
+                                THREAD_PROFILE_INTERVAL);
+
       try {
         if (duration > 0) {
           m_terminalLogger.info("will shut down after {} ms", duration);
@@ -473,6 +634,9 @@ final class GrinderProcess {
             m_threadStarter = m_invalidThreadStarter;
             m_threadContexts.shutdownAll();
 
+            // Wake any parked threads.
+            threadSynchronisation.shutdown();
+
             // Interrupt any sleepers.
             SleeperImplementation.shutdownAllCurrentSleepers();
 
@@ -494,6 +658,7 @@ final class GrinderProcess {
       finally {
         reportTimerTask.cancel();
         shutdownTimerTask.cancel();
+        threadProfileTimerTask.cancel();
       }
 
       scriptEngine.shutdown();
@@ -503,13 +668,24 @@ final class GrinderProcess {
 
       sendStatusMessage(ProcessReport.State.FINISHED,
                         (short)0,
-                        (short)0);
+                        (short)0,
+                        null);
 
       m_consoleSender.shutdown();
 
       final long elapsedTime = m_times.getElapsedTime();
       m_logger.info("elapsed time is {} ms", elapsedTime);
 
+      if (m_sleeper.getNumberOfSleeps() > 0) {
+        m_logger.info(
+          "sleep scheduling error: mean {} ms, maximum {} ms, over {} sleeps",
+          new Object[] {
+            String.format("%.3f", m_sleeper.getMeanSchedulingError()),
+            String.format("%.3f", m_sleeper.getMaximumSchedulingError()),
+            m_sleeper.getNumberOfSleeps(),
+          });
+      }
+
       m_logger.info("Final statistics for this process:");
 
       final StatisticsTable statisticsTable =
@@ -548,14 +724,69 @@ final class GrinderProcess {
     }
   }
 
+  private static Distribution createSleepTimeDistribution(
+    final GrinderProperties properties) throws EngineException {
+
+    final String name =
+      properties.getProperty("grinder.sleepTimeDistribution", "normal").trim();
+
+    if ("normal".equals(name)) {
+      return Distribution.NORMAL;
+    }
+    else if ("uniform".equals(name)) {
+      return Distribution.UNIFORM;
+    }
+    else if ("exponential".equals(name)) {
+      return Distribution.EXPONENTIAL;
+    }
+    else if ("empirical".equals(name)) {
+      final String fileName =
+        properties.getProperty("grinder.sleepTimeDistribution.file");
+
+      if (fileName == null) {
+        throw new EngineException(
+          "grinder.sleepTimeDistribution.file must be set for an " +
+          "empirical distribution");
+      }
+
+      final File file = properties.resolveRelativeFile(new File(fileName));
+      Reader reader = null;
+
+      try {
+        reader = new FileReader(file);
+        return Distribution.empirical(reader);
+      }
+      catch (final IOException e) {
+        throw new EngineException("Failed to read sleep times from " + file,
+                                  e);
+      }
+      catch (final IllegalArgumentException e) {
+        throw new EngineException("Invalid sleep times in " + file + " - " +
+                                  e.getMessage());
+      }
+      finally {
+        Closer.close(reader);
+      }
+    }
+
+    throw new EngineException(
+      "Unknown grinder.sleepTimeDistribution '" + name + "', expected " +
+      "normal, uniform, exponential, or empirical");
+  }
+
   private class ReportToConsoleTimerTask extends TimerTask {
     private final ThreadSynchronisation m_threads;
     private final boolean m_reportTimesToConsole;
+    private final long m_interval;
+    private long m_lastReportTime = -1;
+    private boolean m_impaired = false;
 
     public ReportToConsoleTimerTask(final ThreadSynchronisation threads,
-                                    final boolean reportTimesToConsole) {
+                                    final boolean reportTimesToConsole,
+                                    final long interval) {
       m_threads = threads;
       m_reportTimesToConsole = reportTimesToConsole;
+      m_interval = interval;
     }
 
     @Override
@@ -564,6 +795,32 @@ final class GrinderProcess {
         m_testRegistryImplementation.getTestStatisticsMap().reset();
       m_accumulatedStatistics.add(sample);
 
+      final long now = m_times.getTimeAuthority().getTimeInMilliseconds();
+
+      if (m_lastReportTime >= 0) {
+        m_throughputController.update(
+          m_statisticsServices.getTestStatisticsQueries().getNumberOfTests(
+            sample.nonCompositeStatisticsTotals()),
+          now - m_lastReportTime);
+      }
+
+      m_lastReportTime = now;
+
+      final WorkerHealth health = m_healthMonitor.sample(m_interval);
+
+      if (health != null && health.isImpaired() != m_impaired) {
+        m_impaired = health.isImpaired();
+
+        if (m_impaired) {
+          m_terminalLogger.warn("load generator impaired ({}), treat " +
+                                "statistics with suspicion", health);
+        }
+        else {
+          m_terminalLogger.info("load generator no longer impaired ({})",
+                                health);
+        }
+      }
+
       // We look up the new tests after we've taken the sample to
       // avoid a race condition when new tests are being added.
       final Collection<Test> newTests =
@@ -583,8 +840,9 @@ final class GrinderProcess {
         }
 
         sendStatusMessage(ProcessReport.State.RUNNING,
-                          m_threads.getNumberOfRunningThreads(),
-                          m_threads.getTotalNumberOfThreads());
+                          m_threads.getNumberOfActiveThreads(),
+                          m_threads.getTotalNumberOfThreads(),
+                          health);
       }
       catch (final CommunicationException e) {
         m_terminalLogger.error("Report to console failed", e);
@@ -596,13 +854,16 @@ final class GrinderProcess {
 
   private void sendStatusMessage(final State finished,
                                  final short numberOfThreads,
-                                 final short totalNumberOfThreads)
+                                 final short totalNumberOfThreads,
+                                 final WorkerHealth health)
     throws CommunicationException {
 
     m_consoleSender.send(new WorkerProcessReportMessage(
                            finished,
                            numberOfThreads,
-                           totalNumberOfThreads));
+                           totalNumberOfThreads,
+                           health,
+                           m_startupTime));
 
     m_consoleSender.flush();
   }
@@ -616,6 +877,69 @@ final class GrinderProcess {
     }
   }
 
+  private class ThreadProfileTimerTask extends TimerTask {
+    private final ThreadSynchronisation m_threads;
+
+    public ThreadProfileTimerTask(final ThreadSynchronisation threads) {
+      m_threads = threads;
+    }
+
+    @Override
+    public void run() {
+      update(m_times.getElapsedTime());
+    }
+
+    public void update(final long time) {
+      final ThreadProfile threadProfile = m_threadProfile;
+
+      if (threadProfile == null) {
+        m_threads.setMaximumActiveThreads(m_threadLimit);
+      }
+      else {
+        m_threads.setMaximumActiveThreads(
+          Math.min((int)Math.round(threadProfile.getLoad(time) *
+                                   m_threads.getTotalNumberOfThreads()),
+                   m_threadLimit));
+      }
+    }
+  }
+
+  private boolean isForThisWorker(final WorkerIdentity workerIdentity) {
+    return m_initialisationMessage.getWorkerIdentity().equals(workerIdentity);
+  }
+
+  /**
+   * Change the number of threads that run. Threads beyond the new number are
+   * parked before their next run. If the number exceeds the threads started
+   * so far, more are started.
+   */
+  private void setNumberOfThreads(final int numberOfThreads) {
+    m_terminalLogger.info("number of threads changed to {}", numberOfThreads);
+
+    m_threadLimit = numberOfThreads;
+
+    synchronized (m_eventSynchronisation) {
+      if (m_threadSynchronisation == null) {
+        // The threads have not been started yet.
+        return;
+      }
+
+      try {
+        for (int i = m_threadSynchronisation.getTotalNumberOfThreads();
+             i < numberOfThreads;
+             ++i) {
+          m_threadStarter.startThread(null);
+        }
+      }
+      catch (final EngineException e) {
+        m_terminalLogger.error("failed to start thread", e);
+      }
+      catch (final InvalidContextException e) {
+        // Shutting down.
+      }
+    }
+  }
+
   private class ShutdownTimerTask extends TimerTask {
     @Override
     public void run() {
@@ -633,6 +957,12 @@ final class GrinderProcess {
   static class ThreadSynchronisation implements WorkerThreadSynchronisation {
     private final BooleanCondition m_started = new BooleanCondition();
     private final Condition m_threadEventCondition;
+    private final Condition m_activeCondition = new Condition();
+
+    // Written while holding m_activeCondition. Volatile so that
+    // awaitActive() need only take the lock when a thread must be parked.
+    private volatile int m_maximumActiveThreads = Integer.MAX_VALUE;
+    private volatile boolean m_shutdown = false;
 
     private short m_numberCreated = 0;
     private short m_numberAwaitingStart = 0;
@@ -652,6 +982,42 @@ final class GrinderProcess {
       }
     }
 
+    /**
+     * The number of worker threads that are running and not parked by the
+     * thread profile.
+     */
+    public short getNumberOfActiveThreads() {
+      final short running = getNumberOfRunningThreads();
+
+      synchronized (m_activeCondition) {
+        return (short)Math.min(running, m_maximumActiveThreads);
+      }
+    }
+
+    /**
+     * Set the number of worker threads that may run. Threads with a thread
+     * number greater than or equal to {@code maximumActiveThreads} are
+     * parked before their next run.
+     */
+    public void setMaximumActiveThreads(final int maximumActiveThreads) {
+      synchronized (m_activeCondition) {
+        if (maximumActiveThreads != m_maximumActiveThreads) {
+          m_maximumActiveThreads = maximumActiveThreads;
+          m_activeCondition.notifyAll();
+        }
+      }
+    }
+
+    /**
+     * Release parked threads so they can finish.
+     */
+    public void shutdown() {
+      synchronized (m_activeCondition) {
+        m_shutdown = true;
+        m_activeCondition.notifyAll();
+      }
+    }
+
     public boolean isReadyToStart() {
       synchronized (m_threadEventCondition) {
         return m_numberAwaitingStart >= getNumberOfRunningThreads();
@@ -703,6 +1069,23 @@ final class GrinderProcess {
       m_started.await(true);
     }
 
+    @Override
+    public boolean awaitActive(final int threadNumber) {
+      // This is called before every run, so avoid the lock in the common
+      // case where the thread is active.
+      if (threadNumber < m_maximumActiveThreads && !m_shutdown) {
+        return true;
+      }
+
+      synchronized (m_activeCondition) {
+        while (!m_shutdown && threadNumber >= m_maximumActiveThreads) {
+          m_activeCondition.waitNoInterrruptException();
+        }
+
+        return !m_shutdown;
+      }
+    }
+
     @Override
     public void threadFinished() {
       synchronized (m_threadEventCondition) {
@@ -738,6 +1121,7 @@ final class GrinderProcess {
 
     @Override
     public int startThread(final Object testRunner) throws EngineException {
+      final long startTime = System.nanoTime();
       final int threadNumber;
       synchronized (this) {
         threadNumber = ++m_i;
@@ -784,7 +1168,14 @@ final class GrinderProcess {
         });
 
 
-      final Thread t = new Thread(runnable, "thread " + threadNumber);
+      final Thread t = new Thread(new Runnable() {
+          @Override
+          public void run() {
+            m_healthMonitor.threadStarted(System.nanoTime() - startTime);
+            runnable.run();
+          }
+        },
+        "thread " + threadNumber);
       t.setDaemon(true);
       t.start();
 
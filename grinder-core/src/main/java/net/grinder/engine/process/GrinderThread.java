@@ -101,6 +101,11 @@ class GrinderThread implements Runnable {
            numberOfRuns == 0 || currentRun < numberOfRuns;
            currentRun++) {
 
+        if (!m_threadSynchronisation.awaitActive(m_context.getThreadNumber())) {
+          m_logger.info(m_context.getLogMarker(), "shut down");
+          break;
+        }
+
         m_context.setCurrentRunNumber(currentRun);
 
         m_context.fireBeginRunEvent();
@@ -0,0 +1,285 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.grinder.common.TimeAuthority;
+import net.grinder.common.processidentity.WorkerHealth;
+import net.grinder.util.SleeperImplementation;
+
+
+/**
+ * Samples measurements of the health of the worker process.
+ *
+ * <p>
+ * The allocation rate and CPU usage rely on HotSpot extensions to the
+ * platform MBeans, and are reported as {@code -1} on JVMs that lack them.
+ * The extensions are looked up by name once, so their classes are never
+ * loaded on such JVMs.
+ * </p>
+ *
+ * @author agent
+ */
+final class HealthMonitor {
+
+  /** Fraction of the interval spent in GC that marks a process impaired. */
+  static final double GC_THRESHOLD = 0.1;
+
+  /** CPU usage that marks a process impaired. */
+  static final double CPU_THRESHOLD = 0.9;
+
+  /** Timer lag, as a fraction of the interval, that marks a process
+   * impaired. */
+  static final double TIMER_LAG_THRESHOLD = 0.1;
+
+  /** Thread start latency, in milliseconds, that marks a process impaired. */
+  static final long THREAD_START_THRESHOLD = 1000;
+
+  /** Mean sleep scheduling error, in milliseconds, that marks a process
+   * impaired. */
+  static final double SCHEDULING_ERROR_THRESHOLD = 10;
+
+  private final TimeAuthority m_timeAuthority;
+  private final SleeperImplementation m_sleeper;
+  private final List<GarbageCollectorMXBean> m_garbageCollectorBeans;
+  private final ThreadMXBean m_threadBean;
+  private final OperatingSystemMXBean m_operatingSystemBean;
+  private final boolean m_hotSpotThreadBean;
+  private final boolean m_hotSpotOperatingSystemBean;
+
+  private final AtomicLong m_maximumThreadStartLatency = new AtomicLong(-1);
+
+  // Guarded by this.
+  private long m_lastTime = -1;
+  private long m_lastGCTime;
+  private long m_lastAllocatedBytes;
+  private long m_lastCPUTime;
+  private long m_lastNumberOfSleeps;
+  private double m_lastSchedulingError;
+
+  /**
+   * Constructor.
+   *
+   * @param timeAuthority
+   *          Time authority.
+   * @param sleeper
+   *          The sleeper used by the worker threads.
+   */
+  public HealthMonitor(final TimeAuthority timeAuthority,
+                       final SleeperImplementation sleeper) {
+    this(timeAuthority,
+         sleeper,
+         ManagementFactory.getGarbageCollectorMXBeans(),
+         ManagementFactory.getThreadMXBean(),
+         ManagementFactory.getOperatingSystemMXBean());
+  }
+
+  /**
+   * Constructor for unit tests.
+   */
+  HealthMonitor(final TimeAuthority timeAuthority,
+                final SleeperImplementation sleeper,
+                final List<GarbageCollectorMXBean> garbageCollectorBeans,
+                final ThreadMXBean threadBean,
+                final OperatingSystemMXBean operatingSystemBean) {
+    m_timeAuthority = timeAuthority;
+    m_sleeper = sleeper;
+    m_garbageCollectorBeans = garbageCollectorBeans;
+    m_threadBean = threadBean;
+    m_operatingSystemBean = operatingSystemBean;
+    m_hotSpotThreadBean = isInstance(HotSpot.THREAD_BEAN, threadBean);
+    m_hotSpotOperatingSystemBean =
+      isInstance(HotSpot.OPERATING_SYSTEM_BEAN, operatingSystemBean);
+  }
+
+  /**
+   * Record the time taken to start a worker thread.
+   *
+   * @param latency
+   *          The latency, in nanoseconds.
+   */
+  public void threadStarted(final long latency) {
+    final long millis = latency / 1000000;
+
+    while (true) {
+      final long current = m_maximumThreadStartLatency.get();
+
+      if (millis <= current ||
+          m_maximumThreadStartLatency.compareAndSet(current, millis)) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Take a sample, covering the time since the previous sample.
+   *
+   * @param expectedInterval
+   *          The intended time between samples, in milliseconds.
+   * @return The health, or {@code null} if this is the first sample.
+   */
+  public synchronized WorkerHealth sample(final long expectedInterval) {
+    final long now = m_timeAuthority.getTimeInMilliseconds();
+    final long gcTime = getGCTime();
+    final long allocatedBytes = getAllocatedBytes();
+    final long cpuTime = getCPUTime();
+    final long threadStartLatency = m_maximumThreadStartLatency.getAndSet(-1);
+    final long numberOfSleeps = m_sleeper.getNumberOfSleeps();
+    final double totalSchedulingError = m_sleeper.getTotalSchedulingError();
+
+    try {
+      if (m_lastTime < 0) {
+        return null;
+      }
+
+      final long interval = max(1, now - m_lastTime);
+
+      final long gc = max(0, gcTime - m_lastGCTime);
+
+      final long allocationRate =
+        allocatedBytes < 0 || m_lastAllocatedBytes < 0 ?
+          -1 :
+          max(0, allocatedBytes - m_lastAllocatedBytes) * 1000 / interval;
+
+      final double cpuUsage =
+        cpuTime < 0 || m_lastCPUTime < 0 ?
+          -1 :
+          min(1d,
+              max(0, cpuTime - m_lastCPUTime) /
+              (interval * 1e6d *
+               m_operatingSystemBean.getAvailableProcessors()));
+
+      final long timerLag = max(0, interval - expectedInterval);
+
+      final long sleeps = numberOfSleeps - m_lastNumberOfSleeps;
+
+      final double schedulingError =
+        sleeps <= 0 ?
+          -1 :
+          max(0, totalSchedulingError - m_lastSchedulingError) / sleeps;
+
+      final boolean impaired =
+        gc > interval * GC_THRESHOLD ||
+        cpuUsage >= CPU_THRESHOLD ||
+        timerLag > expectedInterval * TIMER_LAG_THRESHOLD ||
+        threadStartLatency > THREAD_START_THRESHOLD ||
+        schedulingError > SCHEDULING_ERROR_THRESHOLD;
+
+      return new WorkerHealth(interval,
+                              gc,
+                              allocationRate,
+                              cpuUsage,
+                              timerLag,
+                              threadStartLatency,
+                              schedulingError,
+                              impaired);
+    }
+    finally {
+      m_lastTime = now;
+      m_lastGCTime = gcTime;
+      m_lastAllocatedBytes = allocatedBytes;
+      m_lastCPUTime = cpuTime;
+      m_lastNumberOfSleeps = numberOfSleeps;
+      m_lastSchedulingError = totalSchedulingError;
+    }
+  }
+
+  private long getGCTime() {
+    long result = 0;
+
+    for (final GarbageCollectorMXBean bean : m_garbageCollectorBeans) {
+      result += max(0, bean.getCollectionTime());
+    }
+
+    return result;
+  }
+
+  private long getAllocatedBytes() {
+    return m_hotSpotThreadBean ? HotSpot.getAllocatedBytes(m_threadBean) : -1;
+  }
+
+  private long getCPUTime() {
+    return m_hotSpotOperatingSystemBean ?
+      HotSpot.getCPUTime(m_operatingSystemBean) : -1;
+  }
+
+  /**
+   * Whether {@code o} is an instance of the named class. Returns
+   * {@code false} if the class is not available.
+   */
+  private static boolean isInstance(final String className, final Object o) {
+    try {
+      return Class.forName(className).isInstance(o);
+    }
+    catch (final ClassNotFoundException e) {
+      return false;
+    }
+    catch (final LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Isolates references to the HotSpot MBean extensions, so they are only
+   * loaded if they are available.
+   */
+  private static final class HotSpot {
+    static final String THREAD_BEAN = "com.sun.management.ThreadMXBean";
+    static final String OPERATING_SYSTEM_BEAN =
+      "com.sun.management.OperatingSystemMXBean";
+
+    static long getAllocatedBytes(final ThreadMXBean threadBean) {
+      final com.sun.management.ThreadMXBean bean =
+        (com.sun.management.ThreadMXBean) threadBean;
+
+      if (!bean.isThreadAllocatedMemorySupported() ||
+          !bean.isThreadAllocatedMemoryEnabled()) {
+        return -1;
+      }
+
+      // Allocations by threads that have exited are lost, but the worker
+      // threads live for the length of the run.
+      long result = 0;
+
+      for (final long bytes :
+           bean.getThreadAllocatedBytes(bean.getAllThreadIds())) {
+        result += max(0, bytes);
+      }
+
+      return result;
+    }
+
+    static long getCPUTime(final OperatingSystemMXBean operatingSystemBean) {
+      return ((com.sun.management.OperatingSystemMXBean) operatingSystemBean)
+        .getProcessCpuTime();
+    }
+  }
+}
@@ -29,6 +29,7 @@ import java.security.KeyStore;
 
 import javax.net.ssl.KeyManager;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
 
 import net.grinder.common.SSLContextFactory;
 import net.grinder.common.SkeletonThreadLifeCycleListener;
@@ -47,6 +48,12 @@ final class SSLControlImplementation implements SSLControl {
   private final ThreadContextLocator m_threadContextLocator;
 
   private boolean m_shareContextBetweenRuns = false;
+  private boolean m_shareContextBetweenThreads = false;
+  private int m_sessionCacheSize = -1;
+  private int m_sessionTimeout = -1;
+
+  /** Guarded by this. */
+  private SSLContext m_sharedSSLContext;
 
   public SSLControlImplementation(ThreadContextLocator threadContextLocator) {
     m_threadContextLocator = threadContextLocator;
@@ -138,6 +145,9 @@ final class SSLControlImplementation implements SSLControl {
     if (threadSSLContextFactory != null) {
       return threadSSLContextFactory.getSSLContext();
     }
+    else if (m_shareContextBetweenThreads) {
+      return getSharedSSLContext();
+    }
     else {
       final CachingSSLContextFactory defaultContextFactoryForThread =
         new CachingSSLContextFactory(new InsecureSSLContextFactory());
@@ -157,6 +167,58 @@ final class SSLControlImplementation implements SSLControl {
     m_shareContextBetweenRuns = b;
   }
 
+  public boolean getShareContextBetweenThreads() {
+    return m_shareContextBetweenThreads;
+  }
+
+  public void setShareContextBetweenThreads(boolean b) {
+    m_shareContextBetweenThreads = b;
+  }
+
+  public int getSessionCacheSize() {
+    return m_sessionCacheSize;
+  }
+
+  public void setSessionCacheSize(int size) {
+    m_sessionCacheSize = size;
+  }
+
+  public int getSessionTimeout() {
+    return m_sessionTimeout;
+  }
+
+  public void setSessionTimeout(int seconds) {
+    m_sessionTimeout = seconds;
+  }
+
+  private synchronized SSLContext getSharedSSLContext()
+    throws SSLContextFactoryException {
+
+    if (m_sharedSSLContext == null) {
+      m_sharedSSLContext =
+        configureSessionCache(new InsecureSSLContextFactory().getSSLContext());
+    }
+
+    return m_sharedSSLContext;
+  }
+
+  private SSLContext configureSessionCache(SSLContext sslContext) {
+    final SSLSessionContext sessionContext =
+      sslContext.getClientSessionContext();
+
+    if (sessionContext != null) {
+      if (m_sessionCacheSize >= 0) {
+        sessionContext.setSessionCacheSize(m_sessionCacheSize);
+      }
+
+      if (m_sessionTimeout >= 0) {
+        sessionContext.setSessionTimeout(m_sessionTimeout);
+      }
+    }
+
+    return sslContext;
+  }
+
   private void setThreadSSLContextFactory(
     ThreadContext threadContext,
     CachingSSLContextFactory cachingSSLContextFactory) {
@@ -185,7 +247,8 @@ final class SSLControlImplementation implements SSLControl {
 
     public final SSLContext getSSLContext() throws SSLContextFactoryException {
       if (m_sslContext == null) {
-        m_sslContext = m_delegateContextFactory.getSSLContext();
+        m_sslContext =
+          configureSessionCache(m_delegateContextFactory.getSSLContext());
       }
 
       return m_sslContext;
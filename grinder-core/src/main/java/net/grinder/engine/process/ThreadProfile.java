@@ -0,0 +1,253 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import static java.lang.Math.PI;
+import static java.lang.Math.cos;
+import static java.lang.Math.floor;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import net.grinder.common.GrinderProperties;
+import net.grinder.engine.common.EngineException;
+
+
+/**
+ * Shapes the number of worker threads that are active over time.
+ *
+ * <p>
+ * All threads are started when the process starts. Threads that the profile
+ * does not require are parked between runs.
+ * </p>
+ *
+ * @author agent
+ */
+abstract class ThreadProfile {
+
+  /**
+   * Property that selects the profile.
+   */
+  public static final String PROFILE_PROPERTY = "grinder.threadProfile";
+
+  private static final String PERIOD_PROPERTY = PROFILE_PROPERTY + ".period";
+  private static final String MINIMUM_PROPERTY = PROFILE_PROPERTY + ".minimum";
+  private static final String STEPS_PROPERTY = PROFILE_PROPERTY + ".steps";
+  private static final String WIDTH_PROPERTY = PROFILE_PROPERTY + ".width";
+  private static final String RAMP_DOWN_PROPERTY =
+    PROFILE_PROPERTY + ".rampDown";
+
+  /**
+   * Create a profile from properties.
+   *
+   * @param properties
+   *          The properties.
+   * @param duration
+   *          The duration of the run in milliseconds, or {@code 0} if the run
+   *          has no fixed duration.
+   * @return The profile, or {@code null} if no profile is specified.
+   * @throws EngineException
+   *           If the properties do not describe a valid profile.
+   */
+  public static ThreadProfile create(final GrinderProperties properties,
+                                     final long duration)
+    throws EngineException {
+
+    final String name = properties.getProperty(PROFILE_PROPERTY);
+
+    if (name == null || name.trim().length() == 0) {
+      return null;
+    }
+
+    final long period = properties.getLong(PERIOD_PROPERTY, 60000);
+
+    if (period <= 0) {
+      throw new EngineException(PERIOD_PROPERTY + " must be positive");
+    }
+
+    final double minimum = properties.getDouble(MINIMUM_PROPERTY, 0);
+
+    if (minimum < 0 || minimum > 1) {
+      throw new EngineException(MINIMUM_PROPERTY + " must be between 0 and 1");
+    }
+
+    final ThreadProfile profile;
+
+    if ("linear".equals(name.trim())) {
+      profile = new Linear(period, minimum);
+    }
+    else if ("step".equals(name.trim())) {
+      final int steps = properties.getInt(STEPS_PROPERTY, 4);
+
+      if (steps <= 0) {
+        throw new EngineException(STEPS_PROPERTY + " must be positive");
+      }
+
+      profile = new Step(period, minimum, steps);
+    }
+    else if ("spike".equals(name.trim())) {
+      final long width = properties.getLong(WIDTH_PROPERTY, period / 10);
+
+      if (width <= 0 || width > period) {
+        throw new EngineException(
+          WIDTH_PROPERTY + " must be positive and no more than " +
+          PERIOD_PROPERTY);
+      }
+
+      profile = new Spike(period, minimum, width);
+    }
+    else if ("sine".equals(name.trim())) {
+      profile = new Sine(period, minimum);
+    }
+    else {
+      throw new EngineException("Unknown " + PROFILE_PROPERTY + " '" +
+                                name + "', expected linear, step, spike, " +
+                                "or sine");
+    }
+
+    final long rampDown = properties.getLong(RAMP_DOWN_PROPERTY, 0);
+
+    if (rampDown > 0 && duration > 0) {
+      return new RampDown(profile, duration, rampDown);
+    }
+
+    return profile;
+  }
+
+  /**
+   * The proportion of the threads that should be active.
+   *
+   * @param time
+   *          Time since the threads were started, in milliseconds.
+   * @return A value between {@code 0} and {@code 1}.
+   */
+  public abstract double getLoad(long time);
+
+  /**
+   * Scales a value between 0 and 1 to lie between a minimum and 1.
+   */
+  private abstract static class AbstractProfile extends ThreadProfile {
+    protected final long m_period;
+    private final double m_minimum;
+
+    protected AbstractProfile(final long period, final double minimum) {
+      m_period = period;
+      m_minimum = minimum;
+    }
+
+    @Override public final double getLoad(final long time) {
+      return m_minimum + (1 - m_minimum) * getShape(max(time, 0));
+    }
+
+    protected abstract double getShape(long time);
+
+    protected final String describe(final String name) {
+      return name + " (period " + m_period + " ms, minimum " + m_minimum + ")";
+    }
+  }
+
+  private static final class Linear extends AbstractProfile {
+    public Linear(final long period, final double minimum) {
+      super(period, minimum);
+    }
+
+    @Override protected double getShape(final long time) {
+      return min((double)time / m_period, 1);
+    }
+
+    @Override public String toString() {
+      return describe("linear");
+    }
+  }
+
+  private static final class Step extends AbstractProfile {
+    private final int m_steps;
+
+    public Step(final long period, final double minimum, final int steps) {
+      super(period, minimum);
+      m_steps = steps;
+    }
+
+    @Override protected double getShape(final long time) {
+      return min((floor((double)time * m_steps / m_period) + 1) / m_steps, 1);
+    }
+
+    @Override public String toString() {
+      return describe(m_steps + " step");
+    }
+  }
+
+  private static final class Spike extends AbstractProfile {
+    private final long m_width;
+
+    public Spike(final long period, final double minimum, final long width) {
+      super(period, minimum);
+      m_width = width;
+    }
+
+    @Override protected double getShape(final long time) {
+      return time % m_period >= m_period - m_width ? 1 : 0;
+    }
+
+    @Override public String toString() {
+      return describe("spike of " + m_width + " ms");
+    }
+  }
+
+  private static final class Sine extends AbstractProfile {
+    public Sine(final long period, final double minimum) {
+      super(period, minimum);
+    }
+
+    @Override protected double getShape(final long time) {
+      return (1 - cos(2 * PI * time / m_period)) / 2;
+    }
+
+    @Override public String toString() {
+      return describe("sine");
+    }
+  }
+
+  private static final class RampDown extends ThreadProfile {
+    private final ThreadProfile m_delegate;
+    private final long m_duration;
+    private final long m_rampDown;
+
+    public RampDown(final ThreadProfile delegate,
+                    final long duration,
+                    final long rampDown) {
+      m_delegate = delegate;
+      m_duration = duration;
+      m_rampDown = rampDown;
+    }
+
+    @Override public double getLoad(final long time) {
+      final double remaining =
+        max(min((double)(m_duration - time) / m_rampDown, 1), 0);
+
+      return m_delegate.getLoad(time) * remaining;
+    }
+
+    @Override public String toString() {
+      return m_delegate + ", ramping down over the last " + m_rampDown + " ms";
+    }
+  }
+}
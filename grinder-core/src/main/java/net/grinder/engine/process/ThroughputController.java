@@ -0,0 +1,139 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.sqrt;
+
+import net.grinder.util.SleeperImplementation;
+
+import org.slf4j.Logger;
+
+
+/**
+ * Adjusts the sleep time factor of a worker process so that it tracks a target
+ * throughput.
+ *
+ * <p>
+ * Each statistics report interval, the measured throughput is compared with
+ * the target. If the process is running too fast, the sleep time factor is
+ * increased; if too slow, it is decreased. The change is damped to avoid
+ * oscillation. The controller can only regulate time that the script spends
+ * sleeping, so a script that does not sleep cannot be slowed down, and a
+ * process cannot be sped up beyond the throughput of its threads with no
+ * sleep time at all.
+ * </p>
+ *
+ * @author agent
+ */
+final class ThroughputController {
+
+  private static final double MINIMUM_FACTOR = 0.001;
+  private static final double MAXIMUM_FACTOR = 1000;
+  private static final double MAXIMUM_STEP = 2;
+  private static final double SMOOTHING = 0.5;
+
+  private final SleeperImplementation m_sleeper;
+  private final double m_initialFactor;
+  private final Logger m_logger;
+
+  // Guarded by this.
+  private double m_target = 0;
+  private double m_throughput = -1;
+  private boolean m_warned = false;
+
+  /**
+   * Constructor.
+   *
+   * @param sleeper The sleeper to control.
+   * @param logger Logger.
+   */
+  public ThroughputController(SleeperImplementation sleeper, Logger logger) {
+    m_sleeper = sleeper;
+    m_initialFactor = sleeper.getFactor();
+    m_logger = logger;
+  }
+
+  /**
+   * Set the target throughput.
+   *
+   * @param testsPerSecond
+   *          The target, in tests per second. If zero or negative, the
+   *          controller is disabled and the sleep time factor is restored.
+   */
+  public synchronized void setTarget(double testsPerSecond) {
+    m_target = testsPerSecond;
+    m_throughput = -1;
+    m_warned = false;
+
+    if (testsPerSecond <= 0) {
+      m_sleeper.setFactor(m_initialFactor);
+    }
+    else if (m_sleeper.getFactor() < MINIMUM_FACTOR) {
+      m_sleeper.setFactor(MINIMUM_FACTOR);
+    }
+  }
+
+  /**
+   * Update the controller with a new sample.
+   *
+   * @param tests Number of tests completed in the sample interval.
+   * @param interval Length of the sample interval, in milliseconds.
+   */
+  public synchronized void update(long tests, long interval) {
+    if (m_target <= 0 || interval <= 0) {
+      return;
+    }
+
+    final double sample = tests * 1000d / interval;
+
+    if (m_throughput < 0) {
+      m_throughput = sample;
+    }
+    else {
+      m_throughput = SMOOTHING * sample + (1 - SMOOTHING) * m_throughput;
+    }
+
+    final double ratio =
+      max(min(m_throughput / m_target, MAXIMUM_STEP), 1 / MAXIMUM_STEP);
+
+    final double oldFactor = m_sleeper.getFactor();
+
+    final double newFactor =
+      max(min(oldFactor * sqrt(ratio), MAXIMUM_FACTOR), MINIMUM_FACTOR);
+
+    m_sleeper.setFactor(newFactor);
+
+    m_logger.debug("throughput {} TPS, target {} TPS, sleep time factor {}",
+                   new Object[] { m_throughput, m_target, newFactor });
+
+    if (newFactor == MINIMUM_FACTOR &&
+        m_throughput < m_target * 0.95 &&
+        !m_warned) {
+      m_logger.warn("cannot reach target throughput of {} TPS, " +
+                    "achieved {} TPS with no sleep time",
+                    m_target, m_throughput);
+      m_warned = true;
+    }
+  }
+}
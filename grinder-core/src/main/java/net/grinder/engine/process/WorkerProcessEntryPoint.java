@@ -57,19 +57,34 @@ public class WorkerProcessEntryPoint {
       System.exit(-1);
     }
 
-    final int exitCode = new WorkerProcessEntryPoint().run(System.in);
+    final int exitCode = new WorkerProcessEntryPoint().run(System.in, true);
 
     System.exit(exitCode);
   }
   // CHECKSTYLE.ON: Regexp
 
   /**
-   * Create and run a process.
+   * Create and run a process that shares its JVM with the agent.
    *
    * @param agentCommunicationStream The agent communication stream.
    * @return Process exit code.
    */
   public int run(final InputStream agentCommunicationStream) {
+    return run(agentCommunicationStream, false);
+  }
+
+  /**
+   * Create and run a process.
+   *
+   * @param agentCommunicationStream The agent communication stream.
+   * @param dedicatedJVM
+   *          {@code true} if the process has a JVM to itself and
+   *          {@code agentCommunicationStream} is the standard input. The
+   *          process reports the time taken to start the JVM.
+   * @return Process exit code.
+   */
+  int run(final InputStream agentCommunicationStream,
+          final boolean dedicatedJVM) {
 
     final Logger logger = LoggerFactory.getLogger("worker-bootstrap");
 
@@ -77,7 +92,8 @@ public class WorkerProcessEntryPoint {
 
     try {
       grinderProcess =
-        new GrinderProcess(new StreamReceiver(agentCommunicationStream));
+        new GrinderProcess(new StreamReceiver(agentCommunicationStream),
+                           dedicatedJVM);
     }
     catch (final Exception e) {
       logger.error("Error initialising worker process", e);
@@ -97,7 +113,7 @@ public class WorkerProcessEntryPoint {
       throw t;
     }
     finally {
-      grinderProcess.shutdown(agentCommunicationStream == System.in);
+      grinderProcess.shutdown(dedicatedJVM);
     }
   }
 }
@@ -42,6 +42,16 @@ interface WorkerThreadSynchronisation {
    */
   void awaitStart();
 
+  /**
+   * The worker thread should call this before each run. The call blocks
+   * while the thread profile does not require the thread.
+   *
+   * @param threadNumber The thread number.
+   * @return {@code false} if the process is shutting down, in which case the
+   *         thread should finish.
+   */
+  boolean awaitActive(int threadNumber);
+
   /**
    * The worker thread should call this to indicate it has finished.
    */
@@ -58,6 +58,8 @@ public final class DCRContextImplementation implements DCRContext {
   private final Weaver m_weaver;
   private final RecorderRegistry m_recorderRegistry;
 
+  private volatile boolean m_deferChanges;
+
   /**
    * Attempt to create a context.
    *
@@ -244,8 +246,39 @@ public final class DCRContextImplementation implements DCRContext {
 
   /**
    * {@inheritDoc}
+   *
+   * <p>
+   * Does nothing if changes are being deferred.
+   * </p>
    */
   @Override public void applyChanges() throws WeavingException {
+    if (!m_deferChanges) {
+      m_weaver.applyChanges();
+    }
+  }
+
+  /**
+   * Queue subsequent changes until {@link #applyDeferredChanges()} is
+   * called, rather than applying them as each target is instrumented.
+   *
+   * <p>
+   * Each class retransformation is expensive, and discards compiled code.
+   * Scripts typically record many targets as they are initialised, so it is
+   * much cheaper to retransform the affected classes in a single batch.
+   * </p>
+   */
+  public void deferChanges() {
+    m_deferChanges = true;
+  }
+
+  /**
+   * Apply any deferred changes, and stop deferring subsequent changes.
+   *
+   * @throws WeavingException
+   *           If weaving failed.
+   */
+  public void applyDeferredChanges() throws WeavingException {
+    m_deferChanges = false;
     m_weaver.applyChanges();
   }
 }
@@ -25,11 +25,8 @@ import static extra166y.CustomConcurrentHashMap.IDENTITY;
 import static extra166y.CustomConcurrentHashMap.STRONG;
 import static extra166y.CustomConcurrentHashMap.WEAK;
 
-import java.util.Collections;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.Arrays;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import net.grinder.common.UncheckedGrinderException;
 import net.grinder.engine.common.EngineException;
@@ -41,84 +38,131 @@ import extra166y.CustomConcurrentHashMap;
  * Static methods that weaved code uses to dispatch enter and exit calls to the
  * appropriate {@link Recorder}.
  *
+ * <p>
+ * Each (target, location) pair is bound to an immutable array of recorders,
+ * which is replaced as a whole when a recorder is registered. Dispatch is
+ * therefore lock and allocation free. Until the first registration, the
+ * advice is a no-op guarded by a single volatile read.
+ * </p>
+ *
  * @author Philip Aston
  */
 public final class RecorderLocator implements RecorderRegistry {
 
   private static final RecorderLocator s_instance = new RecorderLocator();
 
+  private static final Recorder[] NO_RECORDERS = new Recorder[0];
+
   /**
    * Accessor for the unit tests.
    */
   static void clearRecorders() {
     s_instance.m_recorders.clear();
+    s_instance.m_recorders2.clear();
+    s_instance.m_registered = false;
   }
 
   /**
-   * Target reference -> location -> recorder list. Location strings are
+   * Set when the first recorder is registered. Woven code for classes
+   * that are instrumented before anything is registered need not consult
+   * the maps.
+   */
+  private volatile boolean m_registered;
+
+  /**
+   * Target reference -> location -> recorder chain. Location strings are
    * interned, so we use an identity hash map for both maps. We use concurrent
    * structures throughout to avoid synchronisation. The target reference is the
    * first key to minimise the cost of traversing woven code for
    * non-instrumented references, which is important if {@code Object}, {@code
    * PyObject}, etc. are instrumented.
    */
-  private final ConcurrentMap<Object,
-                              ConcurrentMap<String, List<Recorder>>>
+  private final ConcurrentMap<Object, ConcurrentMap<String, Recorder[]>>
     m_recorders =
         new CustomConcurrentHashMap<Object,
-                                    ConcurrentMap<String, List<Recorder>>>(
+                                    ConcurrentMap<String, Recorder[]>>(
               WEAK, IDENTITY, STRONG, IDENTITY, 101);
 
   private final ConcurrentMap<Object,
                     ConcurrentMap<Object,
-                                  ConcurrentMap<String, List<Recorder>>>>
+                                  ConcurrentMap<String, Recorder[]>>>
     m_recorders2 =
       new CustomConcurrentHashMap<Object,
            ConcurrentMap<Object,
-                         ConcurrentMap<String, List<Recorder>>>>(
+                         ConcurrentMap<String, Recorder[]>>>(
         WEAK, IDENTITY, STRONG, IDENTITY, 101);
 
-  private List<Recorder> getRecorderList(final Object target,
-                                         final String locationID) {
+  private Recorder[] getRecorders(final Object target,
+                                  final String locationID) {
 
-    final ConcurrentMap<String, List<Recorder>> locationMap =
+    if (!m_registered) {
+      return NO_RECORDERS;
+    }
+
+    final ConcurrentMap<String, Recorder[]> locationMap =
       m_recorders.get(target);
 
     if (locationMap != null) {
-      final List<Recorder> list = locationMap.get(locationID);
+      final Recorder[] recorders = locationMap.get(locationID);
 
-      if (list != null) {
-        return list;
+      if (recorders != null) {
+        return recorders;
       }
     }
 
-    return Collections.<Recorder>emptyList();
+    return NO_RECORDERS;
   }
 
-  private List<Recorder> getRecorderList(final Object target,
-                                         final Object target2,
-                                         final String locationID) {
+  private Recorder[] getRecorders(final Object target,
+                                  final Object target2,
+                                  final String locationID) {
 
-    final ConcurrentMap<Object, ConcurrentMap<String, List<Recorder>>>
+    if (!m_registered) {
+      return NO_RECORDERS;
+    }
+
+    final ConcurrentMap<Object, ConcurrentMap<String, Recorder[]>>
       target2Map =
       m_recorders2.get(target);
 
     if (target2Map != null) {
-      final ConcurrentMap<String, List<Recorder>>
+      final ConcurrentMap<String, Recorder[]>
         locationMap = target2Map.get(target2);
 
       if (locationMap != null) {
-        final List<Recorder> list = locationMap.get(locationID);
+        final Recorder[] recorders = locationMap.get(locationID);
 
-        if (list != null) {
-          return list;
+        if (recorders != null) {
+          return recorders;
         }
       }
     }
 
-    return Collections.<Recorder>emptyList();
+    return NO_RECORDERS;
   }
 
+  private static void start(final Recorder[] recorders) {
+    try {
+      for (final Recorder recorder : recorders) {
+        recorder.start();
+      }
+    }
+    catch (final EngineException e) {
+      throw new RecordingFailureException(e);
+    }
+  }
+
+  private static void end(final Recorder[] recorders, final boolean success) {
+    try {
+      // Iterate over recorders in reverse.
+      for (int i = recorders.length - 1; i >= 0; --i) {
+        recorders[i].end(success);
+      }
+    }
+    catch (final EngineException e) {
+      throw new RecordingFailureException(e);
+    }
+  }
 
   /**
    * Called when a weaved method is entered.
@@ -148,18 +192,7 @@ public final class RecorderLocator implements RecorderRegistry {
 //                     target.getClass(),
 //                     location);
 
-    try {
-      for (final Recorder recorder :
-        s_instance.getRecorderList(target, location)) {
-
-//        System.out.printf(" -> %s%n", System.identityHashCode(recorder));
-
-        recorder.start();
-      }
-    }
-    catch (final EngineException e) {
-      throw new RecordingFailureException(e);
-    }
+    start(s_instance.getRecorders(target, location));
   }
 
   /**
@@ -186,16 +219,7 @@ public final class RecorderLocator implements RecorderRegistry {
       return;
     }
 
-    try {
-      for (final Recorder recorder :
-        s_instance.getRecorderList(target, target2, location)) {
-
-        recorder.start();
-      }
-    }
-    catch (final EngineException e) {
-      throw new RecordingFailureException(e);
-    }
+    start(s_instance.getRecorders(target, target2, location));
   }
 
   /**
@@ -231,24 +255,7 @@ public final class RecorderLocator implements RecorderRegistry {
 //                      location,
 //                      success);
 
-    final List<Recorder> recorders =
-      s_instance.getRecorderList(target, location);
-
-    // Iterate over recorders in reverse.
-    final ListIterator<Recorder> i = recorders.listIterator(recorders.size());
-
-    try {
-      while (i.hasPrevious()) {
-        final Recorder recorder = i.previous();
-
-//        System.out.printf(" -> %s%n", System.identityHashCode(recorder));
-
-        recorder.end(success);
-      }
-    }
-    catch (final EngineException e) {
-      throw new RecordingFailureException(e);
-    }
+    end(s_instance.getRecorders(target, location), success);
   }
 
   /**
@@ -278,22 +285,7 @@ public final class RecorderLocator implements RecorderRegistry {
       return;
     }
 
-    final List<Recorder> recorders =
-      s_instance.getRecorderList(target, target2, location);
-
-    // Iterate over recorders in reverse.
-    final ListIterator<Recorder> i = recorders.listIterator(recorders.size());
-
-    try {
-      while (i.hasPrevious()) {
-        final Recorder recorder = i.previous();
-
-        recorder.end(success);
-      }
-    }
-    catch (final EngineException e) {
-      throw new RecordingFailureException(e);
-    }
+    end(s_instance.getRecorders(target, target2, location), success);
   }
 
   /**
@@ -312,39 +304,21 @@ public final class RecorderLocator implements RecorderRegistry {
                                  final String location,
                                  final Recorder recorder) {
 
-    // We will create and quickly discard many maps and lists here to avoid
-    // needing to lock the ConcurrentMaps. It is important that the
-    // enter/exit methods are lock free, the instrumentation registration
-    // process can be relatively slow.
+    // We will create and quickly discard many maps here to avoid needing to
+    // lock the ConcurrentMaps. It is important that the enter/exit methods
+    // are lock free, the instrumentation registration process can be
+    // relatively slow.
 
-    final ConcurrentMap<String, List<Recorder>> newMap =
-      new CustomConcurrentHashMap<String, List<Recorder>>(
+    m_registered = true;
+
+    final ConcurrentMap<String, Recorder[]> newMap =
+      new CustomConcurrentHashMap<String, Recorder[]>(
             STRONG, IDENTITY, STRONG, IDENTITY, 0);
 
-    final ConcurrentMap<String, List<Recorder>> oldMap =
+    final ConcurrentMap<String, Recorder[]> oldMap =
       m_recorders.putIfAbsent(target, newMap);
 
-    final ConcurrentMap<String, List<Recorder>> locationMap =
-      oldMap != null ? oldMap : newMap;
-
-    final List<Recorder> newList = new CopyOnWriteArrayList<Recorder>();
-
-    final List<Recorder> oldList =
-      locationMap.putIfAbsent(location.intern(), newList);
-
-    final List<Recorder> recorderList = oldList != null ? oldList : newList;
-
-    // Same target, location, recorder => no-op, avoiding memory leak. The
-    // Recorder implementation ignores recursive invocations, so only the
-    // first registered instance of a (target, location, recorder) tuple
-    // matters.
-    for (final Recorder existingRecorder : recorderList) {
-      if (existingRecorder == recorder) {
-        return;
-      }
-    }
-
-    recorderList.add(recorder);
+    addRecorder(oldMap != null ? oldMap : newMap, location, recorder);
   }
 
   /**
@@ -355,50 +329,68 @@ public final class RecorderLocator implements RecorderRegistry {
                                  final String location,
                                  final Recorder recorder) {
 
+    m_registered = true;
 
+    final ConcurrentMap<Object, ConcurrentMap<String, Recorder[]>> newMap =
+      new CustomConcurrentHashMap<Object, ConcurrentMap<String, Recorder[]>>(
+            STRONG, IDENTITY, STRONG, IDENTITY, 0);
 
-      final ConcurrentMap<Object,
-                          ConcurrentMap<String, List<Recorder>>> newMap =
-        new CustomConcurrentHashMap<Object,
-                                   ConcurrentMap<String, List<Recorder>>>(
-              STRONG, IDENTITY, STRONG, IDENTITY, 0);
+    final ConcurrentMap<Object, ConcurrentMap<String, Recorder[]>> oldMap =
+      m_recorders2.putIfAbsent(target, newMap);
 
-      final ConcurrentMap<Object,
-                          ConcurrentMap<String, List<Recorder>>> oldMap =
-        m_recorders2.putIfAbsent(target, newMap);
+    final ConcurrentMap<Object, ConcurrentMap<String, Recorder[]>> target2Map =
+      oldMap != null ? oldMap : newMap;
 
-      final ConcurrentMap<Object,
-                          ConcurrentMap<String, List<Recorder>>> target2Map =
-          oldMap != null ? oldMap : newMap;
+    final ConcurrentMap<String, Recorder[]> newTarget2Map =
+      new CustomConcurrentHashMap<String, Recorder[]>(
+            STRONG, IDENTITY, STRONG, IDENTITY, 0);
 
-      final ConcurrentMap<String, List<Recorder>> newTarget2Map =
-          new CustomConcurrentHashMap<String, List<Recorder>>(
-                STRONG, IDENTITY, STRONG, IDENTITY, 0);
+    final ConcurrentMap<String, Recorder[]> oldTarget2Map =
+      target2Map.putIfAbsent(target2, newTarget2Map);
 
-        final ConcurrentMap<String, List<Recorder>> oldTarget2Map =
-          target2Map.putIfAbsent(target2, newTarget2Map);
+    addRecorder(oldTarget2Map != null ? oldTarget2Map : newTarget2Map,
+                location,
+                recorder);
+  }
 
-      final ConcurrentMap<String, List<Recorder>> locationMap =
-        oldTarget2Map != null ? oldTarget2Map : newTarget2Map;
+  /**
+   * Append a recorder to the chain for a location, replacing the chain
+   * array. The map compares values by identity, so a concurrent
+   * registration will cause {@code replace} to fail and we will retry.
+   */
+  private static void addRecorder(
+    final ConcurrentMap<String, Recorder[]> locationMap,
+    final String location,
+    final Recorder recorder) {
 
-      final List<Recorder> newList = new CopyOnWriteArrayList<Recorder>();
+    final String internedLocation = location.intern();
 
-      final List<Recorder> oldList =
-        locationMap.putIfAbsent(location.intern(), newList);
+    while (true) {
+      final Recorder[] existing =
+        locationMap.putIfAbsent(internedLocation, new Recorder[] { recorder });
 
-      final List<Recorder> recorderList = oldList != null ? oldList : newList;
+      if (existing == null) {
+        return;
+      }
 
       // Same target, location, recorder => no-op, avoiding memory leak. The
       // Recorder implementation ignores recursive invocations, so only the
       // first registered instance of a (target, location, recorder) tuple
       // matters.
-      for (final Recorder existingRecorder : recorderList) {
+      for (final Recorder existingRecorder : existing) {
         if (existingRecorder == recorder) {
           return;
         }
       }
 
-      recorderList.add(recorder);
+      final Recorder[] recorders =
+        Arrays.copyOf(existing, existing.length + 1);
+      recorders[existing.length] = recorder;
+
+      if (locationMap.replace(internedLocation, existing, recorders)) {
+        return;
+      }
+    }
   }
 
   private static final class RecordingFailureException
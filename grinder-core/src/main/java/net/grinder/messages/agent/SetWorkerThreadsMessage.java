@@ -0,0 +1,72 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.messages.agent;
+
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.communication.Message;
+
+
+/**
+ * Message used to change the number of threads a worker process runs. Agents
+ * pass it on to their workers, and the addressed worker adjusts.
+ *
+ * @author agent
+ */
+public final class SetWorkerThreadsMessage implements Message {
+
+  private static final long serialVersionUID = 1L;
+
+  private final WorkerIdentity m_workerIdentity;
+  private final int m_numberOfThreads;
+
+  /**
+   * Constructor.
+   *
+   * @param workerIdentity
+   *          The worker process.
+   * @param numberOfThreads
+   *          The number of threads the worker process should run.
+   */
+  public SetWorkerThreadsMessage(final WorkerIdentity workerIdentity,
+                                 final int numberOfThreads) {
+    m_workerIdentity = workerIdentity;
+    m_numberOfThreads = numberOfThreads;
+  }
+
+  /**
+   * The worker process.
+   *
+   * @return The worker identity.
+   */
+  public WorkerIdentity getWorkerIdentity() {
+    return m_workerIdentity;
+  }
+
+  /**
+   * The number of threads the worker process should run.
+   *
+   * @return The number of threads.
+   */
+  public int getNumberOfThreads() {
+    return m_numberOfThreads;
+  }
+}
@@ -0,0 +1,57 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.messages.agent;
+
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.communication.Message;
+
+
+/**
+ * Message used to stop a single worker process. Agents pass it on to their
+ * workers, and the addressed worker shuts down.
+ *
+ * @author agent
+ */
+public final class StopWorkerMessage implements Message {
+
+  private static final long serialVersionUID = 1L;
+
+  private final WorkerIdentity m_workerIdentity;
+
+  /**
+   * Constructor.
+   *
+   * @param workerIdentity The worker process to stop.
+   */
+  public StopWorkerMessage(final WorkerIdentity workerIdentity) {
+    m_workerIdentity = workerIdentity;
+  }
+
+  /**
+   * The worker process to stop.
+   *
+   * @return The worker identity.
+   */
+  public WorkerIdentity getWorkerIdentity() {
+    return m_workerIdentity;
+  }
+}
@@ -0,0 +1,60 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.messages.agent;
+
+import net.grinder.common.GrinderProperties;
+import net.grinder.communication.Message;
+
+
+/**
+ * Message used to change the thread profile of running worker processes.
+ * Agents pass it on to their workers.
+ *
+ * @author agent
+ */
+public final class ThreadProfileMessage implements Message {
+
+  private static final long serialVersionUID = 1L;
+
+  private final GrinderProperties m_properties;
+
+  /**
+   * Constructor.
+   *
+   * @param properties
+   *          The {@code grinder.threadProfile} properties. If the
+   *          {@code grinder.threadProfile} property is not set, the workers
+   *          will run all of their threads.
+   */
+  public ThreadProfileMessage(final GrinderProperties properties) {
+    m_properties = properties;
+  }
+
+  /**
+   * The {@code grinder.threadProfile} properties.
+   *
+   * @return The properties.
+   */
+  public GrinderProperties getProperties() {
+    return m_properties;
+  }
+}
@@ -0,0 +1,58 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.messages.agent;
+
+import net.grinder.communication.Message;
+
+
+/**
+ * Message used to set the target throughput of running worker processes.
+ * Agents pass it on to their workers.
+ *
+ * @author agent
+ */
+public final class ThroughputTargetMessage implements Message {
+
+  private static final long serialVersionUID = 1L;
+
+  private final double m_testsPerSecond;
+
+  /**
+   * Constructor.
+   *
+   * @param testsPerSecond
+   *          The target throughput for each worker process, in tests per
+   *          second. Zero or less disables throughput control.
+   */
+  public ThroughputTargetMessage(double testsPerSecond) {
+    m_testsPerSecond = testsPerSecond;
+  }
+
+  /**
+   * The target throughput for each worker process.
+   *
+   * @return The target, in tests per second.
+   */
+  public double getTestsPerSecond() {
+    return m_testsPerSecond;
+  }
+}
@@ -36,10 +36,11 @@ import net.grinder.messages.agent.CacheHighWaterMark;
 public final class AgentProcessReportMessage
   implements AddressAwareMessage, AgentAndCacheReport {
 
-  private static final long serialVersionUID = 5L;
+  private static final long serialVersionUID = 6L;
 
   private final State m_state;
   private final CacheHighWaterMark m_cacheHighWaterMark;
+  private final double m_systemLoad;
 
   private transient AgentAddress m_processAddress;
 
@@ -55,8 +56,27 @@ public final class AgentProcessReportMessage
   public AgentProcessReportMessage(
            final State state,
            final CacheHighWaterMark cacheHighWaterMark) {
+    this(state, cacheHighWaterMark, -1);
+  }
+
+  /**
+   * Creates a new {@code AgentProcessReportMessage} instance.
+   *
+   * @param state
+   *          The process state. See
+   *          {@link net.grinder.common.processidentity.ProcessReport}.
+   * @param cacheHighWaterMark
+   *          The current cache status.
+   * @param systemLoad
+   *          The load on the agent's machine. See {@link #getSystemLoad()}.
+   */
+  public AgentProcessReportMessage(
+           final State state,
+           final CacheHighWaterMark cacheHighWaterMark,
+           final double systemLoad) {
     m_state = state;
     m_cacheHighWaterMark = cacheHighWaterMark;
+    m_systemLoad = systemLoad;
   }
 
   /**
@@ -113,6 +133,17 @@ public final class AgentProcessReportMessage
     return m_cacheHighWaterMark;
   }
 
+  /**
+   * The load on the agent's machine: the system load average divided by the
+   * number of processors. A value of {@code 1} or more means the CPUs are
+   * saturated. The load is not considered by {@link #equals(Object)}.
+   *
+   * @return The system load, or a negative value if it is not available.
+   */
+  public double getSystemLoad() {
+    return m_systemLoad;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -22,8 +22,9 @@
 
 package net.grinder.messages.console;
 
+import net.grinder.common.processidentity.WorkerHealth;
 import net.grinder.common.processidentity.WorkerIdentity;
-import net.grinder.common.processidentity.WorkerProcessReport;
+import net.grinder.common.processidentity.WorkerProcessHealthReport;
 import net.grinder.communication.Address;
 import net.grinder.communication.AddressAwareMessage;
 import net.grinder.communication.CommunicationException;
@@ -36,13 +37,15 @@ import net.grinder.communication.CommunicationException;
  * @author Philip Aston
  */
 public final class WorkerProcessReportMessage
-  implements AddressAwareMessage, WorkerProcessReport {
+  implements AddressAwareMessage, WorkerProcessHealthReport {
 
-  private static final long serialVersionUID = 3L;
+  private static final long serialVersionUID = 4L;
 
   private final State m_state;
   private final short m_totalNumberOfThreads;
   private final short m_numberOfRunningThreads;
+  private final WorkerHealth m_health;
+  private final long m_startupTime;
 
   private transient WorkerAddress m_processAddress;
 
@@ -60,9 +63,36 @@ public final class WorkerProcessReportMessage
   public WorkerProcessReportMessage(final State finished,
                                     final short runningThreads,
                                     final short totalThreads) {
+    this(finished, runningThreads, totalThreads, null, -1);
+  }
+
+  /**
+   * Creates a new <code>WorkerProcessReportMessage</code> instance.
+   *
+   * @param finished
+   *          The process state. See
+   *          {@link net.grinder.common.processidentity.ProcessReport}.
+   * @param totalThreads
+   *          The total number of threads.
+   * @param runningThreads
+   *          The number of threads that are still running.
+   * @param health
+   *          The health of the process, or {@code null}.
+   * @param startupTime
+   *          How long the process took to start, in milliseconds, or
+   *          {@code -1}.
+   * @since 3.12
+   */
+  public WorkerProcessReportMessage(final State finished,
+                                    final short runningThreads,
+                                    final short totalThreads,
+                                    final WorkerHealth health,
+                                    final long startupTime) {
     m_state = finished;
     m_numberOfRunningThreads = runningThreads;
     m_totalNumberOfThreads = totalThreads;
+    m_health = health;
+    m_startupTime = startupTime;
   }
 
   /**
@@ -129,12 +159,30 @@ public final class WorkerProcessReportMessage
     return m_totalNumberOfThreads;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public WorkerHealth getHealth() {
+    return m_health;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getStartupTime() {
+    return m_startupTime;
+  }
+
   @Override
   public int hashCode() {
     final int prime = 31;
     int result = m_state.hashCode();
     result = prime * result + m_numberOfRunningThreads;
     result = prime * result + m_totalNumberOfThreads;
+    result = prime * result + (m_health == null ? 0 : m_health.hashCode());
+    result = prime * result + (int) m_startupTime;
     return result;
   }
 
@@ -152,6 +200,9 @@ public final class WorkerProcessReportMessage
       return
           m_state == other.m_state &&
           m_numberOfRunningThreads == other.m_numberOfRunningThreads &&
-          m_totalNumberOfThreads == other.m_totalNumberOfThreads;
+          m_totalNumberOfThreads == other.m_totalNumberOfThreads &&
+          (m_health == null ?
+              other.m_health == null : m_health.equals(other.m_health)) &&
+          m_startupTime == other.m_startupTime;
   }
 }
@@ -59,6 +59,15 @@ import net.grinder.common.SSLContextFactory;
  * <p><b>Do not use The Grinder to implement any SSL communication
  * that you want to be secure.</b></p>
  *
+ * <p>The caching of SSL sessions, and hence whether new connections can
+ * resume an existing session rather than perform a full handshake, can be
+ * controlled with {@link #setShareContextBetweenRuns}, {@link
+ * #setShareContextBetweenThreads}, {@link #setSessionCacheSize} and {@link
+ * #setSessionTimeout}. Support for TLS session tickets is a property of the
+ * JSSE implementation; for recent Java releases it can be controlled with
+ * the <code>jdk.tls.client.enableSessionTicketExtension</code> system
+ * property, set using <code>grinder.jvm.arguments</code>.</p>
+ *
  * <p> <a name="set_methods"></a> This interface provides several
  * methods for specifying the appropriate certificate and key pair to
  * use for a thread:</p>
@@ -218,4 +227,68 @@ public interface SSLControl extends SSLContextFactory {
    * <code>false</code> => each run should have a new SSL context.
    */
   void setShareContextBetweenRuns(boolean b);
+
+  /**
+   * Get whether worker threads share a single SSL context.
+   *
+   * @return <code>true</code> => SSL contexts are shared by all threads.
+   * @see #setShareContextBetweenThreads
+   */
+  boolean getShareContextBetweenThreads();
+
+  /**
+   * Specify that worker threads should share a single SSL context, and
+   * so a single SSL session cache. This is a worker process level
+   * setting. The shared context is never discarded, so this implies
+   * sharing between runs.
+   *
+   * <p>Threads that have specified their own key managers or key store
+   * using one of the {@link <a href="#set_methods">setKey...</a>} methods
+   * continue to use their own SSL context.</p>
+   *
+   * <p>Sharing SSL sessions allows the server under test to do less work,
+   * so this is only appropriate when the intention is to test
+   * session resumption.</p>
+   *
+   * @param b <code>true</code> => share an SSL context between threads,
+   * <code>false</code> => each thread has its own SSL context.
+   */
+  void setShareContextBetweenThreads(boolean b);
+
+  /**
+   * Get the SSL session cache size that will be used for new SSL contexts.
+   *
+   * @return The cache size.
+   * @see #setSessionCacheSize
+   */
+  int getSessionCacheSize();
+
+  /**
+   * Set the maximum number of SSL sessions cached by each SSL context
+   * that is subsequently created. This is a worker process level setting.
+   *
+   * @param size The cache size. <code>0</code> means no limit. A
+   * negative value means use the JSSE default, which is the default
+   * behaviour.
+   */
+  void setSessionCacheSize(int size);
+
+  /**
+   * Get the SSL session timeout that will be used for new SSL contexts.
+   *
+   * @return The timeout in seconds.
+   * @see #setSessionTimeout
+   */
+  int getSessionTimeout();
+
+  /**
+   * Set the time for which cached SSL sessions can be resumed, for each
+   * SSL context that is subsequently created. This is a worker process
+   * level setting.
+   *
+   * @param seconds The timeout in seconds. <code>0</code> means no limit.
+   * A negative value means use the JSSE default, which is the default
+   * behaviour.
+   */
+  void setSessionTimeout(int seconds);
 }
@@ -245,6 +245,14 @@ import net.grinder.common.GrinderException;
  * </tr>
  *
  * <tr>
+ * <td><em>httpplugin.sslHandshakeTime</em></td>
+ * <td>basic&nbsp;long</td>
+ * <td>The time taken to complete the SSL handshake for a new HTTPS
+ * connection in milliseconds. (This is not included in
+ * <em>httpplugin.connectTime</em>).</td>
+ * </tr>
+ *
+ * <tr>
  * <td><em>httpplugin.firstByteTime</em></td>
  * <td>basic&nbsp;long</td>
  * <td>The time taken to receive the first response byte in milliseconds. (This
@@ -0,0 +1,376 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine.java;
+
+import static java.util.Arrays.asList;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import net.grinder.engine.common.EngineException;
+import net.grinder.engine.common.ScriptLocation;
+import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
+import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
+import net.grinder.scriptengine.ScriptExecutionException;
+import net.grinder.util.Directory;
+import net.grinder.util.Directory.DirectoryException;
+import net.grinder.util.FileExtensionMatcher;
+
+
+/**
+ * Script engine for compiled Java test runners.
+ *
+ * <p>
+ * The script is either a {@code .java} source file, which is compiled when
+ * the engine is created, or a {@code .jar} file with a
+ * {@value #TEST_RUNNER_ATTRIBUTE} manifest attribute that names the test
+ * runner class. The test runner class must be public, have a public no-args
+ * constructor, and implement {@link Runnable} or {@link Callable}. Its static
+ * initialiser is run once per worker process, and a new instance is created
+ * for each worker thread. If the test runner implements {@link Closeable},
+ * {@code close()} is called when the worker thread finishes.
+ * </p>
+ *
+ * @author agent
+ */
+class JavaScriptEngine implements ScriptEngine {
+
+  /**
+   * Manifest attribute that identifies the test runner class of a jar
+   * script.
+   */
+  public static final String TEST_RUNNER_ATTRIBUTE = "Grinder-TestRunner";
+
+  private static final FileExtensionMatcher s_javaFileMatcher =
+    new FileExtensionMatcher(".java");
+
+  private final Directory m_classesDirectory;
+  private final Constructor<?> m_constructor;
+
+  public JavaScriptEngine(final ScriptLocation script)
+    throws EngineException {
+
+    final File file = script.getFile();
+    final URL url;
+    final String className;
+
+    try {
+      if (s_javaFileMatcher.accept(file)) {
+        m_classesDirectory = compile(script);
+        url = m_classesDirectory.getFile().toURI().toURL();
+        className = findClassName(m_classesDirectory, file);
+      }
+      else {
+        m_classesDirectory = null;
+        url = file.toURI().toURL();
+        className = readTestRunnerAttribute(file);
+      }
+    }
+    catch (final IOException e) {
+      throw new JavaScriptExecutionException("Failed to load " + script, e);
+    }
+
+    final ClassLoader classLoader =
+      new URLClassLoader(new URL[] { url },
+                         JavaScriptEngine.class.getClassLoader());
+
+    final Class<?> testRunnerClass;
+
+    try {
+      // Initialise the class, so its static initialiser can perform
+      // process level initialisation.
+      testRunnerClass = Class.forName(className, true, classLoader);
+    }
+    catch (final ClassNotFoundException e) {
+      throw new JavaScriptExecutionException(
+        "Failed to load test runner class " + className, e);
+    }
+    catch (final ExceptionInInitializerError e) {
+      throw new JavaScriptExecutionException(
+        "Failed to initialise test runner class " + className,
+        e.getCause());
+    }
+
+    if (!Runnable.class.isAssignableFrom(testRunnerClass) &&
+        !Callable.class.isAssignableFrom(testRunnerClass)) {
+      throw new JavaScriptExecutionException(
+        "The test runner class " + className +
+        " should implement java.lang.Runnable or " +
+        "java.util.concurrent.Callable");
+    }
+
+    try {
+      m_constructor = testRunnerClass.getConstructor();
+    }
+    catch (final NoSuchMethodException e) {
+      throw new JavaScriptExecutionException(
+        "The test runner class " + className +
+        " should have a public no-args constructor", e);
+    }
+  }
+
+  private static Directory compile(final ScriptLocation script)
+    throws IOException, EngineException {
+
+    final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    if (compiler == null) {
+      throw new JavaScriptExecutionException(
+        "No Java compiler is available; .java scripts require a JDK");
+    }
+
+    final File classesFile = File.createTempFile("grinder-java-script", "");
+
+    if (!classesFile.delete()) {
+      throw new IOException("Could not delete " + classesFile);
+    }
+
+    final Directory classesDirectory;
+
+    try {
+      classesDirectory = new Directory(classesFile);
+      classesDirectory.create();
+    }
+    catch (final DirectoryException e) {
+      throw new JavaScriptExecutionException(e.getMessage(), e);
+    }
+
+    final DiagnosticCollector<JavaFileObject> diagnostics =
+      new DiagnosticCollector<JavaFileObject>();
+
+    final StandardJavaFileManager fileManager =
+      compiler.getStandardFileManager(diagnostics, null, null);
+
+    try {
+      final List<String> options = asList(
+        "-d", classesFile.getPath(),
+        "-sourcepath", script.getDirectory().getFile().getPath(),
+        "-classpath", System.getProperty("java.class.path"));
+
+      final boolean success =
+        compiler.getTask(null,
+                         fileManager,
+                         diagnostics,
+                         options,
+                         null,
+                         fileManager.getJavaFileObjects(script.getFile()))
+        .call();
+
+      if (!success) {
+        final StringBuilder message =
+          new StringBuilder("Failed to compile ").append(script);
+
+        for (final Diagnostic<? extends JavaFileObject> diagnostic :
+             diagnostics.getDiagnostics()) {
+          message.append("\n").append(diagnostic);
+        }
+
+        delete(classesDirectory);
+
+        throw new JavaScriptExecutionException(message.toString());
+      }
+    }
+    finally {
+      fileManager.close();
+    }
+
+    return classesDirectory;
+  }
+
+  /**
+   * The script file is named after its public class, which may be in a
+   * package.
+   */
+  private static String findClassName(final Directory classesDirectory,
+                                      final File sourceFile)
+    throws EngineException {
+
+    final String sourceName = sourceFile.getName();
+    final String classFileName =
+      sourceName.substring(0, sourceName.length() - ".java".length()) +
+      ".class";
+
+    for (final File f :
+         classesDirectory.listContents(Directory.getMatchAllFilesFilter())) {
+
+      if (f.getName().equals(classFileName)) {
+        final String path = f.getPath();
+
+        return path.substring(0, path.length() - ".class".length())
+          .replace(File.separatorChar, '.');
+      }
+    }
+
+    throw new JavaScriptExecutionException(
+      "Compiling " + sourceFile + " did not produce " + classFileName);
+  }
+
+  private static String readTestRunnerAttribute(final File jarFile)
+    throws IOException, EngineException {
+
+    final JarFile jar = new JarFile(jarFile);
+
+    try {
+      final Manifest manifest = jar.getManifest();
+
+      if (manifest != null) {
+        final Attributes attributes = manifest.getMainAttributes();
+        final String className = attributes.getValue(TEST_RUNNER_ATTRIBUTE);
+
+        if (className != null) {
+          return className.trim();
+        }
+      }
+    }
+    finally {
+      jar.close();
+    }
+
+    throw new JavaScriptExecutionException(
+      "The manifest of " + jarFile + " has no " + TEST_RUNNER_ATTRIBUTE +
+      " attribute");
+  }
+
+  @Override
+  public WorkerRunnable createWorkerRunnable() throws EngineException {
+    final Object testRunner;
+
+    try {
+      testRunner = m_constructor.newInstance();
+    }
+    catch (final InvocationTargetException e) {
+      throw new JavaScriptExecutionException(
+        "Failed to create test runner", e.getCause());
+    }
+    catch (final Exception e) {
+      throw new JavaScriptExecutionException(
+        "Failed to create test runner", e);
+    }
+
+    return createWorkerRunnable(testRunner);
+  }
+
+  @Override
+  public WorkerRunnable createWorkerRunnable(final Object testRunner)
+    throws EngineException {
+
+    if (testRunner instanceof Callable<?>) {
+      return new JavaWorkerRunnable((Callable<?>) testRunner, testRunner);
+    }
+    else if (testRunner instanceof Runnable) {
+      return new JavaWorkerRunnable(
+        Executors.callable((Runnable) testRunner), testRunner);
+    }
+
+    throw new JavaScriptExecutionException(
+      "supplied testRunner is not a Runnable or Callable");
+  }
+
+  @Override
+  public String getDescription() {
+    return "Java " + System.getProperty("java.version");
+  }
+
+  @Override
+  public void shutdown() throws EngineException {
+    if (m_classesDirectory != null) {
+      delete(m_classesDirectory);
+    }
+  }
+
+  private static void delete(final Directory directory)
+    throws EngineException {
+
+    try {
+      directory.deleteContents();
+      directory.delete();
+    }
+    catch (final DirectoryException e) {
+      throw new JavaScriptExecutionException(e.getMessage(), e);
+    }
+  }
+
+  private static final class JavaWorkerRunnable implements WorkerRunnable {
+    private final Callable<?> m_callable;
+    private final Object m_testRunner;
+
+    private JavaWorkerRunnable(final Callable<?> callable,
+                               final Object testRunner) {
+      m_callable = callable;
+      m_testRunner = testRunner;
+    }
+
+    @Override
+    public void run() throws ScriptExecutionException {
+      try {
+        m_callable.call();
+      }
+      catch (final Exception e) {
+        throw new JavaScriptExecutionException(
+          "Worker thread raised exception", e);
+      }
+    }
+
+    @Override
+    public void shutdown() throws ScriptExecutionException {
+      if (m_testRunner instanceof Closeable) {
+        try {
+          ((Closeable) m_testRunner).close();
+        }
+        catch (final IOException e) {
+          throw new JavaScriptExecutionException(
+            "Test runner raised exception on close", e);
+        }
+      }
+    }
+  }
+
+  private static final class JavaScriptExecutionException
+    extends ScriptExecutionException {
+
+    public JavaScriptExecutionException(final String s) {
+      super(s);
+    }
+
+    public JavaScriptExecutionException(final String s, final Throwable t) {
+      super(s, t);
+    }
+  }
+}
@@ -10,6 +10,7 @@ import net.grinder.engine.common.ScriptLocation;
 import net.grinder.scriptengine.DCRContext;
 import net.grinder.scriptengine.Instrumenter;
 import net.grinder.scriptengine.ScriptEngineService;
+import net.grinder.util.FileExtensionMatcher;
 
 
 /**
@@ -19,6 +20,11 @@ import net.grinder.scriptengine.ScriptEngineService;
  */
 public final class JavaScriptEngineService implements ScriptEngineService {
 
+  private final FileExtensionMatcher m_javaFileMatcher =
+    new FileExtensionMatcher(".java");
+  private final FileExtensionMatcher m_jarFileMatcher =
+    new FileExtensionMatcher(".jar");
+
   private final DCRContext m_dcrContext;
 
   /**
@@ -55,6 +61,12 @@ public final class JavaScriptEngineService implements ScriptEngineService {
    */
   @Override public ScriptEngine createScriptEngine(ScriptLocation script)
     throws EngineException {
+
+    if (m_javaFileMatcher.accept(script.getFile()) ||
+        m_jarFileMatcher.accept(script.getFile())) {
+      return new JavaScriptEngine(script);
+    }
+
     return null;
   }
 }
@@ -0,0 +1,192 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine.jython;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import net.grinder.util.StreamCopier;
+
+import org.python.core.BytecodeLoader;
+import org.python.core.PyCode;
+import org.python.core.PyException;
+import org.python.core.imp;
+import org.slf4j.Logger;
+
+
+/**
+ * Cache of compiled Jython scripts, shared by the worker processes of an
+ * agent.
+ *
+ * <p>
+ * Entries are keyed by a digest of the Jython version, the script path, and
+ * the script source, so an edited or redistributed script is simply compiled
+ * afresh. Entries are written to a temporary file and renamed into place so
+ * that concurrent workers never see a partial class file.
+ * </p>
+ *
+ * <p>
+ * Package scope.
+ * </p>
+ *
+ * @author agent
+ */
+final class CompiledScriptCache {
+
+  private static final String MODULE_NAME = "__main__";
+  private static final String SUFFIX = ".class";
+
+  private final File m_directory;
+  private final Logger m_logger;
+
+  /**
+   * Constructor.
+   *
+   * @param directory The cache directory. Created if necessary.
+   * @param logger Logger used to report cache hits and misses.
+   */
+  public CompiledScriptCache(final File directory, final Logger logger) {
+    m_directory = directory;
+    m_logger = logger;
+  }
+
+  /**
+   * Return the compiled code for a script, compiling it and adding it to the
+   * cache if necessary.
+   *
+   * @param script The script.
+   * @param version Version of Jython that will run the code.
+   * @return The compiled code.
+   * @throws IOException If the script could not be read.
+   */
+  public PyCode getCode(final File script, final String version)
+      throws IOException {
+
+    final byte[] source = readFile(script);
+    final String fileName = script.getPath();
+    final File entry =
+      new File(m_directory, key(version, fileName, source) + SUFFIX);
+
+    if (entry.isFile()) {
+      try {
+        final PyCode code = makeCode(readFile(entry), fileName);
+        m_logger.info("compiled script cache hit for {}", script);
+        return code;
+      }
+      catch (final PyException e) {
+        m_logger.warn("ignoring corrupt compiled script cache entry {}",
+                      entry);
+      }
+      catch (final LinkageError e) {
+        m_logger.warn("ignoring corrupt compiled script cache entry {}",
+                      entry);
+      }
+    }
+
+    m_logger.info("compiled script cache miss for {}", script);
+
+    final byte[] bytes =
+      imp.compileSource(MODULE_NAME,
+                        new ByteArrayInputStream(source),
+                        fileName);
+
+    try {
+      store(entry, bytes);
+    }
+    catch (final IOException e) {
+      m_logger.warn("failed to update compiled script cache {}: {}",
+                    m_directory, e.getMessage());
+    }
+
+    return makeCode(bytes, fileName);
+  }
+
+  private static PyCode makeCode(final byte[] bytes, final String fileName) {
+    return BytecodeLoader.makeCode(MODULE_NAME + "$py", bytes, fileName);
+  }
+
+  private void store(final File entry, final byte[] bytes)
+      throws IOException {
+
+    m_directory.mkdirs();
+
+    final File temporary =
+      File.createTempFile(entry.getName(), ".tmp", m_directory);
+
+    try {
+      final FileOutputStream out = new FileOutputStream(temporary);
+
+      try {
+        out.write(bytes);
+      }
+      finally {
+        out.close();
+      }
+
+      // Another worker may have won the race; either copy will do.
+      if (!temporary.renameTo(entry) && !entry.isFile()) {
+        throw new IOException("Could not rename " + temporary);
+      }
+    }
+    finally {
+      temporary.delete();
+    }
+  }
+
+  private static byte[] readFile(final File file) throws IOException {
+    final ByteArrayOutputStream out =
+      new ByteArrayOutputStream((int) file.length());
+
+    new StreamCopier(4096, true).copy(new FileInputStream(file), out);
+
+    return out.toByteArray();
+  }
+
+  private static String key(final String version,
+                            final String fileName,
+                            final byte[] source) {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+
+      digest.update(
+        (version + '\0' + imp.getAPIVersion() + '\0' + fileName + '\0')
+        .getBytes("UTF-8"));
+      digest.update(source);
+
+      return String.format("%040x", new BigInteger(1, digest.digest()));
+    }
+    catch (final NoSuchAlgorithmException e) {
+      throw new AssertionError(e);
+    }
+    catch (final UnsupportedEncodingException e) {
+      throw new AssertionError(e);
+    }
+  }
+}
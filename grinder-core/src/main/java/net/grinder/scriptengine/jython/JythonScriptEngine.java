@@ -23,6 +23,7 @@
 package net.grinder.scriptengine.jython;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Method;
 
 import net.grinder.engine.common.EngineException;
@@ -33,6 +34,7 @@ import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
 import net.grinder.scriptengine.ScriptExecutionException;
 
 import org.python.core.PyClass;
+import org.python.core.PyCode;
 import org.python.core.PyException;
 import org.python.core.PyObject;
 import org.python.core.PyString;
@@ -64,12 +66,27 @@ final class JythonScriptEngine implements ScriptEngine {
 
   /**
    * Constructor for JythonScriptEngine.
-   * @param pySystemState Python system state.
    *
+   * @param script The script.
    * @throws EngineException If the script engine could not be created.
    */
   public JythonScriptEngine(final ScriptLocation script)
       throws EngineException {
+    this(script, null);
+  }
+
+  /**
+   * Constructor for JythonScriptEngine.
+   *
+   * @param script The script.
+   * @param compiledScriptCache
+   *          Cache of compiled scripts, or {@code null} if the script should
+   *          be compiled directly.
+   * @throws EngineException If the script engine could not be created.
+   */
+  public JythonScriptEngine(final ScriptLocation script,
+                            final CompiledScriptCache compiledScriptCache)
+      throws EngineException {
 
     // Work around Jython issue 1894900.
     // If the python.cachedir has not been specified, and Jython is loaded
@@ -129,7 +146,14 @@ final class JythonScriptEngine implements ScriptEngine {
 
       try {
         // Run the test script, script does global set up here.
-        m_interpreter.execfile(script.getFile().getPath());
+        final PyCode code = getCompiledCode(compiledScriptCache, script);
+
+        if (code != null) {
+          m_interpreter.exec(code);
+        }
+        else {
+          m_interpreter.execfile(script.getFile().getPath());
+        }
       }
       catch (final PyException e) {
         throw new JythonScriptExecutionException("initialising test script", e);
@@ -150,6 +174,23 @@ final class JythonScriptEngine implements ScriptEngine {
     }
   }
 
+  private PyCode getCompiledCode(final CompiledScriptCache compiledScriptCache,
+                                 final ScriptLocation script) {
+    if (compiledScriptCache != null) {
+      try {
+        return compiledScriptCache.getCode(script.getFile(), m_version);
+      }
+      catch (final IOException e) {
+        // Fall back to execfile(), which will report any problem.
+      }
+      catch (final LinkageError e) {
+        // Unsupported version of Jython; fall back to execfile().
+      }
+    }
+
+    return null;
+  }
+
   /**
    * Find a file, given a search path.
    *
@@ -22,6 +22,7 @@
 
 package net.grinder.scriptengine.jython;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -36,6 +37,8 @@ import net.grinder.scriptengine.jython.instrumentation.dcr.Jython25Instrumenter;
 import net.grinder.util.FileExtensionMatcher;
 import net.grinder.util.weave.WeavingException;
 
+import org.slf4j.Logger;
+
 
 /**
  * Jython {@link ScriptEngineService} implementation.
@@ -44,22 +47,51 @@ import net.grinder.util.weave.WeavingException;
  */
 public final class JythonScriptEngineService implements ScriptEngineService {
 
+  /**
+   * Property naming the directory used to share compiled scripts between
+   * worker processes. If not set, scripts are compiled by each worker.
+   */
+  public static final String COMPILED_SCRIPT_CACHE_PROPERTY =
+    "grinder.jython.compiledScriptCache";
+
   private final FileExtensionMatcher m_pyFileMatcher =
     new FileExtensionMatcher(".py");
 
   private final DCRContext m_dcrContext;
 
+  private final CompiledScriptCache m_compiledScriptCache;
+
   /**
    * Constructor.
    *
    * @param properties Properties.
+   * @param logger Logger.
    * @param dcrContext DCR context.
    * @param scriptLocation Script location.
    */
   public JythonScriptEngineService(final GrinderProperties properties,
+                                   final Logger logger,
                                    final DCRContext dcrContext,
                                    final ScriptLocation scriptLocation) {
     m_dcrContext = dcrContext;
+
+    final File cacheDirectory =
+      properties.getFile(COMPILED_SCRIPT_CACHE_PROPERTY, null);
+
+    m_compiledScriptCache =
+      cacheDirectory != null ?
+        new CompiledScriptCache(cacheDirectory, logger) : null;
+  }
+
+  /**
+   * Constructor used when DCR is unavailable.
+   *
+   * @param properties Properties.
+   * @param logger Logger.
+   */
+  public JythonScriptEngineService(final GrinderProperties properties,
+                                   final Logger logger) {
+    this(properties, logger, null, null);
   }
 
   /**
@@ -67,6 +99,7 @@ public final class JythonScriptEngineService implements ScriptEngineService {
    */
   public JythonScriptEngineService() {
     m_dcrContext = null;
+    m_compiledScriptCache = null;
   }
 
   /**
@@ -106,7 +139,7 @@ public final class JythonScriptEngineService implements ScriptEngineService {
     throws EngineException {
 
     if (m_pyFileMatcher.accept(script.getFile())) {
-      return new JythonScriptEngine(script);
+      return new JythonScriptEngine(script, m_compiledScriptCache);
     }
 
     return null;
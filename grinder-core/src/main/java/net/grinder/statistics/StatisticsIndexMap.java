@@ -129,6 +129,13 @@ public final class StatisticsIndexMap implements Serializable {
   public static final String HTTP_PLUGIN_CONNECTIONS_ESTABLISHED =
     "httpplugin.connectionsEstablished";
 
+  /**
+   * Special slot for the HTTP plugin so it doesn't steal "user"
+   * indices. Use with {@link #getLongIndex(String)}.
+   */
+  public static final String HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY =
+    "httpplugin.sslHandshakeTime";
+
   /**
    * Constructor.
    */
@@ -145,6 +152,7 @@ public final class StatisticsIndexMap implements Serializable {
                 HTTP_PLUGIN_CONNECT_TIME_KEY,
                 HTTP_PLUGIN_FIRST_BYTE_TIME_KEY,
                 HTTP_PLUGIN_CONNECTIONS_ESTABLISHED,
+                HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY,
                 "userLong0",
                 "userLong1",
                 "userLong2",
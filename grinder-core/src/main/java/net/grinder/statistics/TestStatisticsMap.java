@@ -24,10 +24,7 @@ package net.grinder.statistics;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
-import java.util.Map.Entry;
+import java.util.Arrays;
 
 import net.grinder.common.AbstractTestSemantics;
 import net.grinder.common.Test;
@@ -47,16 +44,22 @@ public final class TestStatisticsMap implements java.io.Externalizable {
   // The serialVersionUID should be incremented whenever the default
   // statistic indices are changed in StatisticsIndexMap, or
   // when the StatisticsSet externalisation methods are changed.
-  private static final long serialVersionUID = 5L;
+  private static final long serialVersionUID = 6L;
 
   private final transient StatisticsSetFactory m_statisticsSetFactory;
 
+  private static final int INITIAL_CAPACITY = 16;
+
   /**
-   * Use a TreeMap so we store in test number order. Synchronise on
+   * Entries are held in parallel arrays, in test number order. Lookups
+   * are binary searches of the primitive test numbers, and merging,
+   * iteration, and externalisation are linear scans. Synchronise on
    * this TestStatisticsMap before accessing.
    */
-  private final Map<Test, StatisticsSet> m_data =
-    new TreeMap<Test, StatisticsSet>();
+  private int[] m_numbers = new int[INITIAL_CAPACITY];
+  private Test[] m_tests = new Test[INITIAL_CAPACITY];
+  private StatisticsSet[] m_statistics = new StatisticsSet[INITIAL_CAPACITY];
+  private int m_size = 0;
 
   /**
    * Creates a new <code>TestStatisticsMap</code> instance.
@@ -90,8 +93,47 @@ public final class TestStatisticsMap implements java.io.Externalizable {
     }
 
     synchronized (this) {
-      m_data.put(test, statistics);
+      final int number = test.getNumber();
+
+      // Fast path for the common case of tests arriving in order.
+      final int index =
+        m_size == 0 || number > m_numbers[m_size - 1] ?
+          -(m_size + 1) : Arrays.binarySearch(m_numbers, 0, m_size, number);
+
+      if (index >= 0) {
+        m_statistics[index] = statistics;
+      }
+      else {
+        insert(-(index + 1), test, statistics);
+      }
+    }
+  }
+
+  /**
+   * Callers are responsible for synchronisation.
+   */
+  private void insert(final int index,
+                      final Test test,
+                      final StatisticsSet statistics) {
+    if (m_size == m_numbers.length) {
+      final int capacity = m_size * 2;
+      m_numbers = Arrays.copyOf(m_numbers, capacity);
+      m_tests = Arrays.copyOf(m_tests, capacity);
+      m_statistics = Arrays.copyOf(m_statistics, capacity);
+    }
+
+    final int tail = m_size - index;
+
+    if (tail > 0) {
+      System.arraycopy(m_numbers, index, m_numbers, index + 1, tail);
+      System.arraycopy(m_tests, index, m_tests, index + 1, tail);
+      System.arraycopy(m_statistics, index, m_statistics, index + 1, tail);
     }
+
+    m_numbers[index] = test.getNumber();
+    m_tests[index] = test;
+    m_statistics[index] = statistics;
+    ++m_size;
   }
 
   /**
@@ -102,7 +144,7 @@ public final class TestStatisticsMap implements java.io.Externalizable {
    */
   public int size() {
     synchronized (this) {
-      return m_data.size();
+      return m_size;
     }
   }
 
@@ -114,25 +156,84 @@ public final class TestStatisticsMap implements java.io.Externalizable {
    */
   public void add(TestStatisticsMap other) {
     synchronized (other) {
-      for (Entry<Test, StatisticsSet> othersEntry : other.m_data.entrySet()) {
-        final StatisticsSet statistics;
+      synchronized (this) {
+        // Both maps are in test number order, so a single merge pass
+        // visits every entry once.
+        final int newEntries = countMissing(other);
+
+        if (newEntries > 0) {
+          final int capacity =
+            Math.max(INITIAL_CAPACITY, m_size + newEntries);
+          final int[] numbers = new int[capacity];
+          final Test[] tests = new Test[capacity];
+          final StatisticsSet[] statistics = new StatisticsSet[capacity];
+
+          int i = 0;
+          int j = 0;
+          int k = 0;
+
+          while (i < m_size || j < other.m_size) {
+            if (j == other.m_size ||
+                i < m_size && m_numbers[i] <= other.m_numbers[j]) {
+              if (j < other.m_size && m_numbers[i] == other.m_numbers[j]) {
+                ++j;
+              }
+
+              numbers[k] = m_numbers[i];
+              tests[k] = m_tests[i];
+              statistics[k] = m_statistics[i];
+              ++i;
+            }
+            else {
+              numbers[k] = other.m_numbers[j];
+              tests[k] = other.m_tests[j];
+              statistics[k] = m_statisticsSetFactory.create();
+              ++j;
+            }
+
+            ++k;
+          }
+
+          m_numbers = numbers;
+          m_tests = tests;
+          m_statistics = statistics;
+          m_size = k;
+        }
 
-        synchronized (this) {
-          final StatisticsSet existingStatistics =
-            m_data.get(othersEntry.getKey());
+        int i = 0;
 
-          if (existingStatistics == null) {
-            statistics = m_statisticsSetFactory.create();
-            put(othersEntry.getKey(), statistics);
-          }
-          else {
-            statistics = existingStatistics;
+        for (int j = 0; j < other.m_size; ++j) {
+          while (m_numbers[i] != other.m_numbers[j]) {
+            ++i;
           }
+
+          m_statistics[i].add(other.m_statistics[j]);
         }
+      }
+    }
+  }
+
+  /**
+   * Count the tests in another map that are not in this one. Callers are
+   * responsible for synchronisation.
+   */
+  private int countMissing(TestStatisticsMap other) {
+    int result = 0;
+    int i = 0;
+
+    for (int j = 0; j < other.m_size; ++j) {
+      final int number = other.m_numbers[j];
+
+      while (i < m_size && m_numbers[i] < number) {
+        ++i;
+      }
 
-        statistics.add(othersEntry.getValue());
+      if (i == m_size || m_numbers[i] != number) {
+        ++result;
       }
     }
+
+    return result;
   }
 
   /**
@@ -221,21 +322,13 @@ public final class TestStatisticsMap implements java.io.Externalizable {
 
     final TestStatisticsMap otherMap = (TestStatisticsMap)o;
 
-    if (m_data.size() != otherMap.m_data.size()) {
+    if (m_size != otherMap.m_size) {
       return false;
     }
 
-    final Iterator<Entry<Test, StatisticsSet>> iterator =
-      m_data.entrySet().iterator();
-    final Iterator<Entry<Test, StatisticsSet>> otherIterator =
-      otherMap.m_data.entrySet().iterator();
-
-    while (iterator.hasNext()) {
-      final Entry<Test, StatisticsSet> entry = iterator.next();
-      final Entry<Test, StatisticsSet> otherEntry = otherIterator.next();
-
-      if (!entry.getKey().equals(otherEntry.getKey()) ||
-          !entry.getValue().equals(otherEntry.getValue())) {
+    for (int i = 0; i < m_size; ++i) {
+      if (m_numbers[i] != otherMap.m_numbers[i] ||
+          !m_statistics[i].equals(otherMap.m_statistics[i])) {
         return false;
       }
     }
@@ -291,15 +384,15 @@ public final class TestStatisticsMap implements java.io.Externalizable {
   public void writeExternal(ObjectOutput out) throws IOException {
 
     synchronized (this) {
-      out.writeInt(m_data.size());
+      out.writeInt(m_size);
 
-      for (Entry<Test, StatisticsSet> entry : m_data.entrySet()) {
-        out.writeInt(entry.getKey().getNumber());
+      for (int i = 0; i < m_size; ++i) {
+        out.writeInt(m_numbers[i]);
 
         // Its a class invariant that our StatisticsSets are all
         // StatisticsSetImplementations.
         m_statisticsSetFactory.writeStatisticsExternal(
-          out, (StatisticsSetImplementation)entry.getValue());
+          out, (StatisticsSetImplementation)m_statistics[i]);
       }
     }
   }
@@ -315,11 +408,16 @@ public final class TestStatisticsMap implements java.io.Externalizable {
 
     final int n = in.readInt();
 
-    m_data.clear();
+    final int capacity = Math.max(INITIAL_CAPACITY, n);
+    m_numbers = new int[capacity];
+    m_tests = new Test[capacity];
+    m_statistics = new StatisticsSet[capacity];
+    m_size = 0;
 
     for (int i = 0; i < n; i++) {
-      m_data.put(new LightweightTest(in.readInt()),
-                 m_statisticsSetFactory.readStatisticsExternal(in));
+      // Entries are written in order, so put() appends.
+      put(new LightweightTest(in.readInt()),
+          m_statisticsSetFactory.readStatisticsExternal(in));
     }
   }
 
@@ -351,8 +449,8 @@ public final class TestStatisticsMap implements java.io.Externalizable {
      */
     public void iterate() {
       synchronized (TestStatisticsMap.this) {
-        for (Entry<Test, StatisticsSet> entry : m_data.entrySet()) {
-          next(entry.getKey(), entry.getValue());
+        for (int i = 0; i < m_size; ++i) {
+          next(m_tests[i], m_statistics[i]);
         }
       }
     }
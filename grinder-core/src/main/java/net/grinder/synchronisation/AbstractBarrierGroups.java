@@ -252,6 +252,53 @@ public abstract class AbstractBarrierGroups implements BarrierGroups  {
       }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override public void waiterResumed(BarrierIdentity barrierIdentity) {
+      // No-op.
+    }
+
+    /**
+     * The number of barriers.
+     *
+     * @return The number of barriers, or a negative number if the group is
+     *         invalid.
+     */
+    protected final long getNumberOfBarriers() {
+      synchronized (this) {
+        return m_barriers;
+      }
+    }
+
+    /**
+     * The number of waiters.
+     *
+     * @return The number of waiters.
+     */
+    protected final int getNumberOfWaiters() {
+      synchronized (this) {
+        return m_waiters.size();
+      }
+    }
+
+    /**
+     * Check whether all the barriers are waiting, without changing the state
+     * of the group.
+     *
+     * @return The current waiters if every barrier is waiting, otherwise an
+     *         empty set.
+     */
+    protected final Set<BarrierIdentity> getWaitersIfAllWaiting() {
+      synchronized (this) {
+        if (m_barriers > 0 && m_barriers == m_waiters.size()) {
+          return new HashSet<BarrierIdentity>(m_waiters);
+        }
+
+        return emptySet();
+      }
+    }
+
     /**
      * Call the {@link BarrierGroup$Listener#awaken} method for all of the
      * listeners.
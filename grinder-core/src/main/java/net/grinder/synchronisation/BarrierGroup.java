@@ -146,6 +146,14 @@ public interface BarrierGroup {
   void cancelWaiter(BarrierIdentity barrierIdentity)
     throws CommunicationException;
 
+  /**
+   * Notify the group that a waiter has been awoken and has resumed.
+   * Implementations may use this to measure how long a release takes.
+   *
+   * @param barrierIdentity Identifies the barrier.
+   */
+  void waiterResumed(BarrierIdentity barrierIdentity);
+
   /**
    * Cancels all waiters and removes all barriers.
    *
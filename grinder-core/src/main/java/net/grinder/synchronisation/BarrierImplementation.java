@@ -155,7 +155,13 @@ public final class BarrierImplementation
           }
         }
 
-        return m_state.awoken(BarrierImplementation.this);
+        final boolean result = m_state.awoken(BarrierImplementation.this);
+
+        if (result) {
+          m_barrierGroup.waiterResumed(m_identity);
+        }
+
+        return result;
       }
     }
 
@@ -21,6 +21,9 @@
 
 package net.grinder.synchronisation;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import net.grinder.communication.CommunicationException;
@@ -34,36 +37,67 @@ import net.grinder.synchronisation.messages.CancelWaiterMessage;
 import net.grinder.synchronisation.messages.OpenBarrierMessage;
 import net.grinder.synchronisation.messages.RemoveBarriersMessage;
 
+import org.slf4j.Logger;
+
 
 /**
  * {@link BarrierGroups} implementation which delegates to a remote instance.
  *
+ * <p>
+ * Barriers and waiters are aggregated before they are passed on. However many
+ * barriers a group has locally, the remote instance sees a single barrier.
+ * When every local barrier is waiting, the remote instance is sent a single
+ * waiter that stands for them all. If the local group changes before the
+ * remote instance opens the barrier, the waiter is cancelled. So a process
+ * sends a few messages per barrier, rather than a few per thread, and receives
+ * one small {@link OpenBarrierMessage} when the barrier opens.
+ * </p>
+ *
+ * <p>
+ * The release skew is the time from an open barrier message arriving to the
+ * last released thread resuming. It is measured for each release and logged.
+ * </p>
+ *
  * @author Philip Aston
  */
 public class ClientBarrierGroups extends AbstractBarrierGroups {
 
   private final Sender m_sender;
+  private final BarrierIdentity.Factory m_identityFactory;
+  private final Logger m_logger;
 
   /**
    * Constructor.
    *
    * @param sender Used to send messages to the remote instance (the console).
    * @param messageDispatch Used to receive messages from the remote instance.
+   * @param identityFactory
+   *          Generates the identities of the waiters sent to the remote
+   *          instance.
+   * @param logger Logger used to report release skew.
    */
   public ClientBarrierGroups(Sender sender,
-                             MessageDispatchRegistry messageDispatch) {
+                             MessageDispatchRegistry messageDispatch,
+                             BarrierIdentity.Factory identityFactory,
+                             Logger logger) {
     m_sender = sender;
+    m_identityFactory = identityFactory;
+    m_logger = logger;
 
     messageDispatch.set(
       OpenBarrierMessage.class,
       new AbstractHandler<OpenBarrierMessage>() {
-        public void handle(OpenBarrierMessage message) {
+        public void handle(OpenBarrierMessage message)
+          throws CommunicationException {
+
           final BarrierGroupImplementation existingGroup =
             getExistingGroup(message.getName());
 
           if (existingGroup != null) {
             final Set<BarrierIdentity> removedWaiters =
-              existingGroup.clearWaiters(message.getWaiters());
+              ((AggregatingBarrierGroup) existingGroup)
+              .open(message.getWaiters());
+
             existingGroup.fireAwaken(removedWaiters);
           }
         }
@@ -75,47 +109,172 @@ public class ClientBarrierGroups extends AbstractBarrierGroups {
    */
   @Override
   protected BarrierGroupImplementation createBarrierGroup(String name) {
+    return new AggregatingBarrierGroup(name);
+  }
 
-    /**
-     * Extending {@link AbstractBarrierGroups} verifies the consistency of the
-     * local partition of the barrier group.
-     */
-    return new BarrierGroupImplementation(name) {
+  /**
+   * Extending {@link BarrierGroupImplementation} verifies the consistency of
+   * the local partition of the barrier group.
+   *
+   * <p>
+   * Messages are sent while holding the group's lock so that the remote
+   * instance sees the changes in the order they were made.
+   * </p>
+   */
+  private final class AggregatingBarrierGroup
+    extends BarrierGroupImplementation {
+
+    // Guarded by this. The waiter that the remote instance knows about, or
+    // null.
+    private BarrierIdentity m_remoteWaiter;
 
-      @Override
-      public void addBarrier()
-        throws CommunicationException {
+    // Guarded by this. The local waiters that each remote waiter stands for.
+    // Cancelled remote waiters are kept, as the remote instance may have
+    // opened the barrier before it received the cancellation.
+    private final Map<BarrierIdentity, Set<BarrierIdentity>> m_remoteWaiters =
+      new HashMap<BarrierIdentity, Set<BarrierIdentity>>();
 
+    // Guarded by this. The released waiters that have yet to resume, and
+    // the time their release began.
+    private final Set<BarrierIdentity> m_resuming =
+      new HashSet<BarrierIdentity>();
+    private int m_released;
+    private long m_releaseStart;
+
+    public AggregatingBarrierGroup(String name) {
+      super(name);
+    }
+
+    @Override
+    public void addBarrier() throws CommunicationException {
+      synchronized (this) {
         super.addBarrier();
 
-        m_sender.send(new AddBarrierMessage(getName()));
+        if (getNumberOfBarriers() == 1) {
+          m_sender.send(new AddBarrierMessage(getName()));
+        }
+
+        updateRemoteWaiter();
       }
+    }
 
-      @Override
-      public void removeBarriers(long n) throws CommunicationException {
+    @Override
+    public void removeBarriers(long n) throws CommunicationException {
+      synchronized (this) {
+        final long before = getNumberOfBarriers();
 
         super.removeBarriers(n);
 
-        m_sender.send(new RemoveBarriersMessage(getName(), n));
+        if (n > 0 && before == n) {
+          m_sender.send(new RemoveBarriersMessage(getName(), 1));
+        }
+        else {
+          updateRemoteWaiter();
+        }
       }
+    }
 
-      @Override
-      public void addWaiter(BarrierIdentity barrierIdentity)
-        throws CommunicationException {
+    @Override
+    public void addWaiter(BarrierIdentity barrierIdentity)
+      throws CommunicationException {
 
+      synchronized (this) {
         super.addWaiter(barrierIdentity);
-
-        m_sender.send(new AddWaiterMessage(getName(), barrierIdentity));
+        updateRemoteWaiter();
       }
+    }
 
-      @Override
-      public void cancelWaiter(BarrierIdentity barrierIdentity)
-        throws CommunicationException {
+    @Override
+    public void cancelWaiter(BarrierIdentity barrierIdentity)
+      throws CommunicationException {
 
+      synchronized (this) {
         super.cancelWaiter(barrierIdentity);
+        resumed(barrierIdentity);
+        updateRemoteWaiter();
+      }
+    }
+
+    @Override
+    public void waiterResumed(BarrierIdentity barrierIdentity) {
+      synchronized (this) {
+        resumed(barrierIdentity);
+      }
+    }
+
+    /**
+     * Handle an open barrier message.
+     *
+     * @param remoteWaiters The remote waiters to wake.
+     * @return The local waiters to wake.
+     * @throws CommunicationException If a network problem occurred.
+     */
+    public Set<BarrierIdentity> open(Set<BarrierIdentity> remoteWaiters)
+      throws CommunicationException {
+
+      synchronized (this) {
+        final Set<BarrierIdentity> released = new HashSet<BarrierIdentity>();
+
+        for (BarrierIdentity remoteWaiter : remoteWaiters) {
+          final Set<BarrierIdentity> waiters =
+            m_remoteWaiters.remove(remoteWaiter);
+
+          if (waiters != null) {
+            released.addAll(clearWaiters(waiters));
+          }
+
+          if (remoteWaiter.equals(m_remoteWaiter)) {
+            m_remoteWaiter = null;
+          }
+        }
+
+        if (released.size() > 0) {
+          m_resuming.addAll(released);
+          m_released = released.size();
+          m_releaseStart = System.nanoTime();
+        }
+
+        updateRemoteWaiter();
 
-        m_sender.send(new CancelWaiterMessage(getName(), barrierIdentity));
+        return released;
+      }
+    }
+
+    private void resumed(BarrierIdentity barrierIdentity) {
+      if (m_resuming.remove(barrierIdentity) && m_resuming.isEmpty()) {
+        m_logger.info(
+          "barrier {} released {} threads with a skew of {} ms",
+          new Object[] { getName(),
+                         m_released,
+                         (System.nanoTime() - m_releaseStart) / 1000000,
+                       });
+      }
+    }
+
+    /**
+     * Ensure the remote instance has a waiter for us if and only if all of
+     * our barriers are waiting.
+     */
+    private void updateRemoteWaiter() throws CommunicationException {
+      final Set<BarrierIdentity> waiters = getWaitersIfAllWaiting();
+
+      if (m_remoteWaiter != null &&
+          !waiters.equals(m_remoteWaiters.get(m_remoteWaiter))) {
+        m_sender.send(new CancelWaiterMessage(getName(), m_remoteWaiter));
+        m_remoteWaiter = null;
+      }
+
+      if (waiters.isEmpty()) {
+        if (getNumberOfWaiters() == 0) {
+          // No local waiters, so any late open would wake nobody.
+          m_remoteWaiters.clear();
+        }
+      }
+      else if (m_remoteWaiter == null) {
+        m_remoteWaiter = m_identityFactory.next();
+        m_remoteWaiters.put(m_remoteWaiter, waiters);
+        m_sender.send(new AddWaiterMessage(getName(), m_remoteWaiter));
       }
-    };
+    }
   }
 }
@@ -21,10 +21,15 @@
 
 package net.grinder.util;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
 
 import net.grinder.common.TimeAuthority;
 import net.grinder.util.thread.Condition;
@@ -35,23 +40,59 @@ import org.slf4j.Logger;
 /**
  * Manage sleeping.
  *
- * <p>Several threads can safely use the same <code>Sleeper</code>.
+ * <p>Several threads can safely use the same <code>Sleeper</code>. Each
+ * thread has its own source of random numbers.
+ * </p>
+ *
+ * <p>Sleeps are timed with {@link System#nanoTime()}. Most of the time is
+ * spent waiting on a monitor, which a shutdown interrupts. The last couple of
+ * milliseconds are spent parked, and the last tens of microseconds spinning,
+ * so that threads wake close to the requested time. The difference between
+ * the requested and actual wake up times is recorded as the scheduling error.
+ * Each thread records its scheduling errors separately, and they are added
+ * up when read.
  * </p>
  *
  * @author Philip Aston
  */
 public final class SleeperImplementation implements Sleeper {
 
-  private static final Random s_random = new Random();
+  /** Remaining time below which we park rather than wait. */
+  private static final long PARK_NANOS = 2000000;
+
+  /** Remaining time below which we spin rather than park. */
+  private static final long SPIN_NANOS = 50000;
+
+  private static final ThreadLocal<Random> s_random =
+    new ThreadLocal<Random>() {
+      @Override protected Random initialValue() {
+        return new Random();
+      }
+    };
+
   private static final List<WeakReference<SleeperImplementation>>
     s_allSleepers = new ArrayList<WeakReference<SleeperImplementation>>();
 
   private final TimeAuthority m_timeAuthority;
-  private final double m_factor;
+  private volatile double m_factor;
   private final double m_limit9975Factor;
   private final Logger m_logger;
   private final Condition m_condition = new Condition();
 
+  private volatile Distribution m_distribution = Distribution.NORMAL;
+
+  private final List<SchedulingErrors> m_allSchedulingErrors =
+    new CopyOnWriteArrayList<SchedulingErrors>();
+
+  private final ThreadLocal<SchedulingErrors> m_schedulingErrors =
+    new ThreadLocal<SchedulingErrors>() {
+      @Override protected SchedulingErrors initialValue() {
+        final SchedulingErrors result = new SchedulingErrors();
+        m_allSchedulingErrors.add(result);
+        return result;
+      }
+    };
+
   private boolean m_shutdown = false;
 
   /**
@@ -108,6 +149,103 @@ public final class SleeperImplementation implements Sleeper {
     }
   }
 
+  /**
+   * The factor by which sleep times are modified.
+   *
+   * @return The factor.
+   */
+  public double getFactor() {
+    return m_factor;
+  }
+
+  /**
+   * Change the factor by which sleep times are modified. Sleeps that are in
+   * progress are not affected.
+   *
+   * @param factor The new factor.
+   */
+  public void setFactor(final double factor) {
+    if (factor < 0d) {
+      throw new IllegalArgumentException("Factors must be positive");
+    }
+
+    m_factor = factor;
+  }
+
+  /**
+   * Change the distribution used by {@link #sleepNormal}.
+   *
+   * @param distribution The distribution.
+   */
+  public void setDistribution(final Distribution distribution) {
+    m_distribution = distribution;
+  }
+
+  /**
+   * The number of sleeps that have completed.
+   *
+   * @return The number of sleeps.
+   */
+  public long getNumberOfSleeps() {
+    long result = 0;
+
+    for (final SchedulingErrors errors : m_allSchedulingErrors) {
+      result += errors.m_numberOfSleeps;
+    }
+
+    return result;
+  }
+
+  /**
+   * The total difference between the time each completed sleep was due to end
+   * and the time it did end.
+   *
+   * @return The total scheduling error in milliseconds.
+   */
+  public double getTotalSchedulingError() {
+    long result = 0;
+
+    for (final SchedulingErrors errors : m_allSchedulingErrors) {
+      result += errors.m_total;
+    }
+
+    return result / 1e6;
+  }
+
+  /**
+   * The mean difference between the time each completed sleep was due to end
+   * and the time it did end.
+   *
+   * @return The mean scheduling error in milliseconds.
+   */
+  public double getMeanSchedulingError() {
+    long n = 0;
+    long total = 0;
+
+    for (final SchedulingErrors errors : m_allSchedulingErrors) {
+      n += errors.m_numberOfSleeps;
+      total += errors.m_total;
+    }
+
+    return n == 0 ? 0 : total / (n * 1e6);
+  }
+
+  /**
+   * The largest difference between the time a completed sleep was due to end
+   * and the time it did end.
+   *
+   * @return The maximum scheduling error in milliseconds.
+   */
+  public double getMaximumSchedulingError() {
+    long result = 0;
+
+    for (final SchedulingErrors errors : m_allSchedulingErrors) {
+      result = Math.max(result, errors.m_maximum);
+    }
+
+    return result / 1e6;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -133,12 +271,7 @@ public final class SleeperImplementation implements Sleeper {
     checkShutdown();
 
     if (meanTime > 0) {
-      if (sigma > 0) {
-        doSleep(meanTime + (long) (s_random.nextGaussian() * sigma));
-      }
-      else {
-        doSleep(meanTime);
-      }
+      doSleep(m_distribution.sample(s_random.get(), meanTime, sigma));
     }
   }
 
@@ -151,7 +284,7 @@ public final class SleeperImplementation implements Sleeper {
     checkShutdown();
 
     if (maximumTime > 0) {
-      doSleep(Math.abs(s_random.nextLong()) % maximumTime);
+      doSleep(Math.abs(s_random.get().nextLong()) % maximumTime);
     }
   }
 
@@ -164,17 +297,31 @@ public final class SleeperImplementation implements Sleeper {
     }
 
     if (time > 0) {
-      long currentTime = m_timeAuthority.getTimeInMilliseconds();
-      final long wakeUpTime = currentTime + factoredTime;
+      final long wakeUpTime = System.nanoTime() + factoredTime * 1000000;
+      long remaining = factoredTime * 1000000;
 
-      while (currentTime < wakeUpTime) {
+      while (remaining > PARK_NANOS) {
         synchronized (m_condition) {
           checkShutdown();
-          m_condition.waitNoInterrruptException(wakeUpTime - currentTime);
+          m_condition.waitNoInterrruptException(
+            (remaining - PARK_NANOS) / 1000000 + 1);
         }
 
-        currentTime = m_timeAuthority.getTimeInMilliseconds();
+        remaining = wakeUpTime - System.nanoTime();
+      }
+
+      while (remaining > SPIN_NANOS) {
+        checkShutdown();
+        LockSupport.parkNanos(remaining - SPIN_NANOS);
+        remaining = wakeUpTime - System.nanoTime();
+      }
+
+      while (remaining > 0) {
+        Thread.yield();
+        remaining = wakeUpTime - System.nanoTime();
       }
+
+      m_schedulingErrors.get().record(-remaining);
     }
   }
 
@@ -186,4 +333,158 @@ public final class SleeperImplementation implements Sleeper {
       }
     }
   }
+
+  /**
+   * The scheduling errors of the sleeps made by one thread. Only the owning
+   * thread updates the fields, so sleeping threads do not contend with each
+   * other. The fields are volatile so that other threads can read them.
+   */
+  private static final class SchedulingErrors {
+    private volatile long m_numberOfSleeps;
+    private volatile long m_total;
+    private volatile long m_maximum;
+
+    void record(final long error) {
+      m_numberOfSleeps = m_numberOfSleeps + 1;
+      m_total = m_total + error;
+
+      if (error > m_maximum) {
+        m_maximum = error;
+      }
+    }
+  }
+
+  /**
+   * A distribution of sleep times.
+   */
+  public abstract static class Distribution {
+
+    /**
+     * Normal distribution.
+     */
+    public static final Distribution NORMAL = new Distribution() {
+      @Override long sample(final Random random,
+                            final long meanTime,
+                            final long sigma) {
+        if (sigma > 0) {
+          return meanTime + (long) (random.nextGaussian() * sigma);
+        }
+
+        return meanTime;
+      }
+    };
+
+    /**
+     * Uniform distribution with the same mean and standard deviation as
+     * {@link #NORMAL}.
+     */
+    public static final Distribution UNIFORM = new Distribution() {
+      @Override long sample(final Random random,
+                            final long meanTime,
+                            final long sigma) {
+        final double halfWidth = sigma * Math.sqrt(3);
+
+        return meanTime + (long) ((2 * random.nextDouble() - 1) * halfWidth);
+      }
+    };
+
+    /**
+     * Exponential distribution with the same mean as {@link #NORMAL}. The
+     * standard deviation is ignored. Exponential sleep times model the
+     * arrivals of independent users.
+     */
+    public static final Distribution EXPONENTIAL = new Distribution() {
+      @Override long sample(final Random random,
+                            final long meanTime,
+                            final long sigma) {
+        return (long) (-meanTime * Math.log(1 - random.nextDouble()));
+      }
+    };
+
+    /**
+     * Create an empirical distribution from recorded sleep times. Samples
+     * are drawn from the recorded times, scaled so that their mean is the
+     * requested mean. The standard deviation is ignored.
+     *
+     * @param samples The recorded sleep times.
+     * @return The distribution.
+     * @throws IllegalArgumentException If the samples do not have a positive
+     *  mean.
+     */
+    public static Distribution empirical(final double[] samples) {
+      double total = 0;
+
+      for (final double sample : samples) {
+        if (sample < 0) {
+          throw new IllegalArgumentException("Negative sample " + sample);
+        }
+
+        total += sample;
+      }
+
+      if (total <= 0) {
+        throw new IllegalArgumentException("Samples must have a positive mean");
+      }
+
+      final double mean = total / samples.length;
+      final double[] copy = samples.clone();
+
+      return new Distribution() {
+        @Override long sample(final Random random,
+                              final long meanTime,
+                              final long sigma) {
+          return (long) (copy[random.nextInt(copy.length)] * meanTime / mean);
+        }
+      };
+    }
+
+    /**
+     * Create an empirical distribution from recorded sleep times read from a
+     * stream. Times are separated by white space or commas. Blank lines and
+     * lines starting with {@code #} are ignored.
+     *
+     * @param reader The stream.
+     * @return The distribution.
+     * @throws IOException If the stream could not be read.
+     * @throws IllegalArgumentException If the stream does not contain valid
+     *  sleep times.
+     * @see #empirical(double[])
+     */
+    public static Distribution empirical(final Reader reader)
+      throws IOException {
+
+      final List<Double> samples = new ArrayList<Double>();
+
+      final BufferedReader bufferedReader = new BufferedReader(reader);
+      String line;
+
+      while ((line = bufferedReader.readLine()) != null) {
+        final String trimmed = line.trim();
+
+        if (trimmed.length() == 0 || trimmed.startsWith("#")) {
+          continue;
+        }
+
+        for (final String token : trimmed.split("[,\\s]+")) {
+          try {
+            samples.add(Double.valueOf(token));
+          }
+          catch (final NumberFormatException e) {
+            throw new IllegalArgumentException(
+              "Invalid sample '" + token + "'");
+          }
+        }
+      }
+
+      final double[] result = new double[samples.size()];
+
+      for (int i = 0; i < result.length; ++i) {
+        result[i] = samples.get(i);
+      }
+
+      return empirical(result);
+    }
+
+    abstract long sample(Random random, long meanTime, long sigma);
+  }
 }
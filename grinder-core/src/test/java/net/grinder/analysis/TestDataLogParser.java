@@ -0,0 +1,151 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.SortedMap;
+
+import net.grinder.analysis.DataLogStatistics.Cell;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link DataLogParser}.
+ *
+ * @author agent
+ */
+public class TestDataLogParser {
+
+  private static final String HEADER =
+    "Thread, Run, Test, Start time (ms since Epoch), Test time, Errors, " +
+    "HTTP response code";
+
+  private static ByteBuffer buffer(final String s) {
+    return ByteBuffer.wrap(s.getBytes());
+  }
+
+  @Test public void testBadHeader() throws Exception {
+    try {
+      new DataLogParser("Thread, Run, Test, Errors");
+      fail("Expected DataLogException");
+    }
+    catch (final DataLogReader.DataLogException e) {
+    }
+  }
+
+  @Test public void testParse() throws Exception {
+    final String data =
+      "\n" +
+      "0, 0, 1, 1000, 10, 0, 200\n" +
+      "0, 0, 2, 1500, 20, 1, 500\n" +
+      "1, 0, 1, 2100, 30, 0, 200\r\n" +
+      "\n" +
+      "garbage\n" +
+      "1, 1, 1, 2200, 40.0, 0.0, 1.5E3\n" +
+      "1, 1, 1, -\n" +
+      "1, 1, 1, 2300, 5\n" +
+      "1, 2, 1, 3000, 5, 0";
+
+    final DataLogStatistics statistics = new DataLogStatistics(1000);
+
+    new DataLogParser(HEADER).parse(buffer(data),
+                                    1,
+                                    data.length(),
+                                    true,
+                                    statistics);
+
+    assertEquals(5, statistics.getNumberOfLines());
+    assertEquals(3, statistics.getNumberOfSkippedLines());
+
+    final SortedMap<Integer, SortedMap<Long, Cell>> intervals =
+      statistics.getIntervals();
+
+    assertEquals(2, intervals.size());
+
+    final SortedMap<Long, Cell> test1 = intervals.get(1);
+    assertEquals(3, test1.size());
+    assertEquals(1, test1.get(1000L).getTests());
+    assertEquals(2, test1.get(2000L).getTests());
+    assertEquals(35, test1.get(2000L).getTestTimes().getMean(), 0);
+    assertEquals(1, test1.get(3000L).getTests());
+
+    final Cell test2 = intervals.get(2).get(1000L);
+    assertEquals(0, test2.getTests());
+    assertEquals(1, test2.getErrors());
+  }
+
+  @Test public void testRanges() throws Exception {
+    final StringBuilder data = new StringBuilder("\n");
+
+    for (int i = 0; i < 100; ++i) {
+      data.append("0, ").append(i).append(", 1, ").append(i * 100)
+        .append(", ").append(i).append(", 0, 200\n");
+    }
+
+    final ByteBuffer buffer = buffer(data.toString());
+    final DataLogParser parser = new DataLogParser(HEADER);
+
+    // Every split point must give the same answer.
+    for (int split = 1; split < data.length(); ++split) {
+      final DataLogStatistics statistics = new DataLogStatistics(1000);
+      parser.parse(buffer, 1, split, true, statistics);
+      parser.parse(buffer, split, data.length(), true, statistics);
+
+      assertEquals(100, statistics.getNumberOfLines());
+      assertEquals(0, statistics.getNumberOfSkippedLines());
+      assertEquals(100, statistics.getTotals().get(1).getTests());
+      assertEquals(49.5,
+                   statistics.getTotals().get(1).getTestTimes().getMean(),
+                   0);
+    }
+  }
+
+  @Test public void testTruncated() throws Exception {
+    final String data = "\n0, 0, 1, 1000, 10, 0, 200\n0, 0, 1, 10";
+
+    final DataLogStatistics statistics = new DataLogStatistics(1000);
+
+    new DataLogParser(HEADER).parse(buffer(data),
+                                    1,
+                                    data.length(),
+                                    false,
+                                    statistics);
+
+    assertEquals(1, statistics.getNumberOfLines());
+    assertEquals(1, statistics.getNumberOfSkippedLines());
+  }
+
+  @Test public void testNoErrorsColumn() throws Exception {
+    final String data = "\n0, 0, 3, 1000, 10\n";
+    final DataLogStatistics statistics = new DataLogStatistics(1000);
+
+    new DataLogParser("Thread, Run, Test, Start time (ms since Epoch), " +
+                      "Test time")
+      .parse(buffer(data), 1, data.length(), true, statistics);
+
+    assertEquals(1, statistics.getTotals().get(3).getTests());
+  }
+}
@@ -0,0 +1,137 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.analysis;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import net.grinder.testutility.AbstractFileTestCase;
+
+
+/**
+ * Unit tests for {@link DataLogReader}.
+ *
+ * @author agent
+ */
+public class TestDataLogReader extends AbstractFileTestCase {
+
+  private static final String HEADER =
+    "Thread, Run, Test, Start time (ms since Epoch), Test time, Errors";
+
+  private final ExecutorService m_executor = Executors.newFixedThreadPool(3);
+
+  @Override public void tearDown() throws Exception {
+    m_executor.shutdownNow();
+    super.tearDown();
+  }
+
+  private File createLog(final String name, final int lines)
+    throws IOException {
+
+    final File file = new File(getDirectory(), name);
+    final Writer writer = new FileWriter(file);
+
+    try {
+      writer.write(HEADER + "\n");
+
+      for (int i = 0; i < lines; ++i) {
+        writer.write("0, " + i + ", " + (i % 3) + ", " + (1000 + i * 10) +
+                     ", " + i + ", " + (i % 10 == 0 ? 1 : 0) + "\n");
+      }
+    }
+    finally {
+      writer.close();
+    }
+
+    return file;
+  }
+
+  public void testRead() throws Exception {
+    final File log1 = createLog("1.log", 1000);
+    final File log2 = createLog("2.log", 500);
+
+    for (final int splitSize : new int[] { 7, 100, 1000, 1000000 }) {
+      final DataLogStatistics statistics =
+        new DataLogReader(m_executor, 1000, splitSize)
+        .read(asList(log1, log2));
+
+      assertEquals(1500, statistics.getNumberOfLines());
+      assertEquals(0, statistics.getNumberOfSkippedLines());
+      assertEquals(3, statistics.getTotals().size());
+
+      long tests = 0;
+      long errors = 0;
+
+      for (final DataLogStatistics.Cell cell :
+           statistics.getTotals().values()) {
+        tests += cell.getTests();
+        errors += cell.getErrors();
+      }
+
+      assertEquals(1350, tests);
+      assertEquals(150, errors);
+
+      assertEquals(1000, statistics.getFirstIntervalStart());
+      assertEquals(11000, statistics.getLastIntervalEnd());
+    }
+  }
+
+  public void testEmptyFile() throws Exception {
+    final File empty = new File(getDirectory(), "empty");
+    empty.createNewFile();
+
+    final DataLogStatistics statistics =
+      new DataLogReader(m_executor, 1000, 1000).read(singletonList(empty));
+
+    assertEquals(0, statistics.getNumberOfLines());
+  }
+
+  public void testBadFiles() throws Exception {
+    final DataLogReader reader = new DataLogReader(m_executor, 1000, 1000);
+
+    try {
+      reader.read(singletonList(new File(getDirectory(), "missing")));
+      fail("Expected DataLogException");
+    }
+    catch (final DataLogReader.DataLogException e) {
+    }
+
+    final File notALog = new File(getDirectory(), "notALog");
+    final Writer writer = new FileWriter(notALog);
+    writer.write("Hello world\n1, 2, 3\n");
+    writer.close();
+
+    try {
+      reader.read(asList(createLog("ok.log", 10), notALog));
+      fail("Expected DataLogException");
+    }
+    catch (final DataLogReader.DataLogException e) {
+    }
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link Histogram}.
+ *
+ * @author agent
+ */
+public class TestHistogram {
+
+  @Test public void testBuckets() {
+    int lastIndex = -1;
+
+    for (long v = 0; v < 1000000; ++v) {
+      final int index = Histogram.bucketIndex(v);
+
+      assertTrue(index == lastIndex || index == lastIndex + 1);
+      assertTrue(Histogram.bucketLowerBound(index) <= v);
+      assertTrue(Histogram.bucketLowerBound(index + 1) > v);
+
+      final long width =
+        Histogram.bucketLowerBound(index + 1) -
+        Histogram.bucketLowerBound(index);
+      assertTrue(width == 1 || width * 32 <= v);
+
+      lastIndex = index;
+    }
+
+    final int index = Histogram.bucketIndex(Long.MAX_VALUE);
+    assertTrue(Histogram.bucketLowerBound(index) <= Long.MAX_VALUE);
+  }
+
+  @Test public void testEmpty() {
+    final Histogram histogram = new Histogram();
+
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMean(), 0);
+    assertEquals(0, histogram.getMinimum());
+    assertEquals(0, histogram.getMaximum());
+    assertEquals(0, histogram.getPercentile(50));
+  }
+
+  @Test public void testPercentiles() {
+    final Histogram histogram = new Histogram();
+
+    for (int i = 1; i <= 100; ++i) {
+      histogram.record(i);
+    }
+
+    histogram.record(-10);
+
+    assertEquals(101, histogram.getCount());
+    assertEquals(0, histogram.getMinimum());
+    assertEquals(100, histogram.getMaximum());
+    assertEquals(5050 / 101d, histogram.getMean(), 0.0001);
+    assertEquals(50, histogram.getPercentile(50), 1);
+    assertEquals(99, histogram.getPercentile(99), 2);
+    assertEquals(100, histogram.getPercentile(100));
+    assertEquals(0, histogram.getPercentile(0));
+  }
+
+  @Test public void testAccuracy() {
+    final Random random = new Random(7);
+    final long[] values = new long[10000];
+    final Histogram histogram = new Histogram();
+
+    for (int i = 0; i < values.length; ++i) {
+      values[i] = (long) Math.abs(random.nextGaussian() * 5000);
+      histogram.record(values[i]);
+    }
+
+    Arrays.sort(values);
+
+    for (final double percentile : new double[] { 50, 90, 99, 99.9 }) {
+      final long expected =
+        values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+
+      assertEquals(expected,
+                   histogram.getPercentile(percentile),
+                   Math.max(1, expected / 32d));
+    }
+  }
+
+  @Test public void testAdd() {
+    final Histogram h1 = new Histogram();
+    final Histogram h2 = new Histogram();
+    final Histogram all = new Histogram();
+
+    for (int i = 0; i < 1000; ++i) {
+      h1.record(i);
+      all.record(i);
+      h2.record(i * 1000);
+      all.record(i * 1000);
+    }
+
+    h1.add(h2);
+    h1.add(new Histogram());
+
+    assertEquals(all.getCount(), h1.getCount());
+    assertEquals(all.getMean(), h1.getMean(), 0);
+    assertEquals(all.getMinimum(), h1.getMinimum());
+    assertEquals(all.getMaximum(), h1.getMaximum());
+
+    for (int p = 0; p <= 100; p += 5) {
+      assertEquals(all.getPercentile(p), h1.getPercentile(p));
+    }
+
+    // Adding a larger histogram to an empty one.
+    final Histogram empty = new Histogram();
+    empty.add(all);
+    assertEquals(all.getPercentile(99), empty.getPercentile(99));
+  }
+}
@@ -0,0 +1,88 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.analysis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import net.grinder.analysis.ReportWriter.Format;
+
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link ReportWriter}.
+ *
+ * @author agent
+ */
+public class TestReportWriter {
+
+  private final DataLogStatistics m_statistics = new DataLogStatistics(1000);
+
+  @Before public void setUp() {
+    m_statistics.record(1, 1000, 10, 0);
+    m_statistics.record(1, 1500, 30, 0);
+    m_statistics.record(1, 2000, 20, 1);
+    m_statistics.record(2, 2500, 5, 0);
+  }
+
+  @Test public void testCSV() throws Exception {
+    final StringWriter writer = new StringWriter();
+
+    new ReportWriter(Format.CSV).write(m_statistics, writer);
+
+    final String[] lines = writer.toString().split("\n");
+
+    assertEquals(6, lines.length);
+    assertTrue(lines[0].startsWith("Test, "));
+    assertTrue(lines[1], lines[1].startsWith("1, Total, 2, 1, 1.00, 20.00"));
+    assertTrue(lines[2], lines[2].startsWith("2, Total, 1, 0, 0.50, 5.00"));
+    assertTrue(lines[3], lines[3].startsWith("1, 1000, 2, 0, 2.00, 20.00"));
+    assertTrue(lines[4], lines[4].startsWith("1, 2000, 0, 1, 0.00"));
+    assertTrue(lines[5], lines[5].startsWith("2, 2000, 1, 0, 1.00, 5.00"));
+  }
+
+  @Test public void testHTML() throws Exception {
+    final StringWriter writer = new StringWriter();
+
+    new ReportWriter(Format.HTML).write(m_statistics, writer);
+
+    final String html = writer.toString();
+
+    assertTrue(html.startsWith("<!DOCTYPE html>"));
+    assertTrue(html.contains("<h2>Totals</h2>"));
+    assertTrue(html.contains("<h2>Test 1</h2>"));
+    assertTrue(html.contains("<h2>Test 2</h2>"));
+    assertTrue(html.trim().endsWith("</html>"));
+  }
+
+  @Test public void testEmpty() throws Exception {
+    final StringWriter writer = new StringWriter();
+
+    new ReportWriter(Format.CSV).write(new DataLogStatistics(1000), writer);
+
+    assertEquals(1, writer.toString().split("\n").length);
+  }
+}
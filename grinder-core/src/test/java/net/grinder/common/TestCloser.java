@@ -23,6 +23,8 @@ package net.grinder.common;
 
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -31,8 +33,12 @@ import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
 import java.net.Socket;
+import java.nio.channels.Channel;
+import java.nio.channels.Selector;
 
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 
 /**
@@ -188,6 +194,58 @@ public class TestCloser {
     }
   }
 
+  @Test public void testCloseChannel() throws Exception {
+    Closer.close((Channel)null);
+
+    final Channel channel = mock(Channel.class);
+    doAnswer(m_closeAnswer).when(channel).close();
+
+    Closer.close(channel);
+
+    m_ioexception[0] = new IOException();
+    Closer.close(channel);
+
+    m_ioexception[0] = new InterruptedIOException();
+
+    try {
+      Closer.close(channel);
+      fail("Expected UncheckedInterruptedException");
+    }
+    catch (UncheckedInterruptedException e) {
+      assertSame(m_ioexception[0], e.getCause());
+    }
+  }
+
+  @Test public void testCloseSelector() throws Exception {
+    Closer.close((Selector)null);
+
+    final Selector selector = mock(Selector.class);
+    doAnswer(m_closeAnswer).when(selector).close();
+
+    Closer.close(selector);
+
+    m_ioexception[0] = new IOException();
+    Closer.close(selector);
+
+    m_ioexception[0] = new InterruptedIOException();
+
+    try {
+      Closer.close(selector);
+      fail("Expected UncheckedInterruptedException");
+    }
+    catch (UncheckedInterruptedException e) {
+      assertSame(m_ioexception[0], e.getCause());
+    }
+  }
+
+  private final Answer<Void> m_closeAnswer = new Answer<Void>() {
+    @Override public Void answer(final InvocationOnMock invocation)
+      throws IOException {
+      close();
+      return null;
+    }
+  };
+
   private void close() throws IOException {
     if (m_ioexception[0] != null) {
       throw m_ioexception[0];
@@ -27,7 +27,9 @@ import static org.mockito.MockitoAnnotations.initMocks;
 import net.grinder.common.processidentity.AgentProcessReport;
 import net.grinder.common.processidentity.ProcessReport;
 import net.grinder.common.processidentity.ProcessReport.State;
+import net.grinder.common.processidentity.WorkerHealth;
 import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.common.processidentity.WorkerProcessHealthReport;
 import net.grinder.common.processidentity.WorkerProcessReport;
 import net.grinder.console.common.ProcessReportDescriptionFactory.ProcessDescription;
 import net.grinder.engine.agent.StubAgentIdentity;
@@ -77,6 +79,20 @@ public class TestProcessReportDescriptionFactory {
 
     when(m_translations.translate("console.state/unknown"))
       .thenReturn("huh");
+
+    when(m_translations.translate("console.state/worker-impaired"))
+      .thenReturn("wobbly");
+
+    when(m_translations.translate("console.state/worker-startup", 850L))
+      .thenReturn("(up after 850)");
+
+    when(m_translations.translate("console.state/worker-health",
+                                  500L, -1L, 0.5, 0L, -1L, -1d))
+      .thenReturn("(gc 500)");
+
+    when(m_translations.translate("console.state/worker-health",
+                                  0L, -1L, 0.5, 0L, -1L, 1.5))
+      .thenReturn("(gc 0)");
   }
 
   @Test public void testWithAgentProcessReport() throws Exception {
@@ -147,9 +163,9 @@ public class TestProcessReportDescriptionFactory {
     final WorkerIdentity workerIdentity =
       agentIdentity.createWorkerIdentity();
 
-    final RandomStubFactory<WorkerProcessReport>
+    final RandomStubFactory<WorkerProcessHealthReport>
       workerProcessReportStubFactory =
-        RandomStubFactory.create(WorkerProcessReport.class);
+        RandomStubFactory.create(WorkerProcessHealthReport.class);
 
     final WorkerProcessReport workerProcessReport =
       workerProcessReportStubFactory.getStub();
@@ -157,6 +173,8 @@ public class TestProcessReportDescriptionFactory {
                                              workerIdentity);
     workerProcessReportStubFactory.setResult(
       "getState", ProcessReport.State.UNKNOWN);
+    workerProcessReportStubFactory.setResult("getHealth", null);
+    workerProcessReportStubFactory.setResult("getStartupTime", -1L);
 
     final ProcessReportDescriptionFactory processReportDescriptionFactory =
       new ProcessReportDescriptionFactory(m_translations);
@@ -181,6 +199,20 @@ public class TestProcessReportDescriptionFactory {
 
     assertEquals("rolling (10 out of 21 strings)", description2.getState());
 
+    workerProcessReportStubFactory.setResult(
+      "getHealth", new WorkerHealth(1000, 500, -1, 0.5, 0, -1, -1, true));
+
+    assertEquals("rolling (10 out of 21 strings) (gc 500) wobbly",
+                 processReportDescriptionFactory.create(workerProcessReport)
+                 .getState());
+
+    workerProcessReportStubFactory.setResult(
+      "getHealth", new WorkerHealth(1000, 0, -1, 0.5, 0, -1, 1.5, false));
+
+    assertEquals("rolling (10 out of 21 strings) (gc 0)",
+                 processReportDescriptionFactory.create(workerProcessReport)
+                 .getState());
+
     workerProcessReportStubFactory.setResult(
       "getState", ProcessReport.State.STARTED);
 
@@ -189,6 +221,19 @@ public class TestProcessReportDescriptionFactory {
 
     assertEquals("hot to trot", description3.getState());
 
+    workerProcessReportStubFactory.setResult("getStartupTime", 850L);
+
+    assertEquals("hot to trot (up after 850)",
+                 processReportDescriptionFactory.create(workerProcessReport)
+                 .getState());
+
+    workerProcessReportStubFactory.setResult(
+      "getState", ProcessReport.State.RUNNING);
+
+    assertEquals("rolling (10 out of 21 strings) (up after 850) (gc 0)",
+                 processReportDescriptionFactory.create(workerProcessReport)
+                 .getState());
+
     workerProcessReportStubFactory.setResult(
       "getState", ProcessReport.State.FINISHED);
 
@@ -0,0 +1,172 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.console.communication;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.MockitoAnnotations.initMocks;
+
+import java.util.List;
+import java.util.Timer;
+
+import net.grinder.common.processidentity.ProcessReport.State;
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.engine.agent.StubAgentIdentity;
+import net.grinder.messages.agent.SetWorkerThreadsMessage;
+import net.grinder.messages.agent.StubCacheHighWaterMark;
+import net.grinder.messages.console.AgentAddress;
+import net.grinder.messages.console.AgentProcessReportMessage;
+import net.grinder.messages.console.WorkerAddress;
+import net.grinder.messages.console.WorkerProcessReportMessage;
+import net.grinder.util.AllocateLowestNumberImplementation;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+
+
+/**
+ * Unit tests for {@link LoadShedder}.
+ *
+ * @author agent
+ */
+public class TestLoadShedder {
+
+  private final StubAgentIdentity m_agentIdentity =
+    new StubAgentIdentity("agent");
+
+  @Mock private Timer m_timer;
+  @Mock private ConsoleCommunication m_consoleCommunication;
+  @Captor private ArgumentCaptor<SetWorkerThreadsMessage> m_messageCaptor;
+
+  private ProcessStatusImplementation m_processStatus;
+  private LoadShedder m_loadShedder;
+
+  @Before public void setUp() {
+    initMocks(this);
+
+    m_processStatus =
+      new ProcessStatusImplementation(m_timer,
+                                      new AllocateLowestNumberImplementation());
+
+    m_loadShedder = new LoadShedder(m_consoleCommunication, m_processStatus);
+  }
+
+  private WorkerIdentity addWorker(final State state, final int threads)
+    throws Exception {
+    final WorkerIdentity worker = m_agentIdentity.createWorkerIdentity();
+
+    final WorkerProcessReportMessage report =
+      new WorkerProcessReportMessage(state, (short)threads, (short)threads);
+    report.setAddress(new WorkerAddress(worker));
+
+    m_processStatus.addWorkerStatusReport(report);
+
+    return worker;
+  }
+
+  private void report(final double load) throws Exception {
+    final AgentProcessReportMessage report =
+      new AgentProcessReportMessage(State.RUNNING,
+                                    new StubCacheHighWaterMark(null, 0),
+                                    load);
+    report.setAddress(new AgentAddress(m_agentIdentity));
+
+    m_loadShedder.agentReport(report);
+  }
+
+  @Test public void testDisabled() throws Exception {
+    addWorker(State.RUNNING, 10);
+
+    for (int i = 0; i < 10; ++i) {
+      report(100);
+    }
+
+    m_loadShedder.setThreshold(0);
+
+    for (int i = 0; i < 10; ++i) {
+      report(100);
+    }
+
+    verifyNoMoreInteractions(m_consoleCommunication);
+  }
+
+  @Test public void testShedding() throws Exception {
+    final WorkerIdentity worker1 = addWorker(State.RUNNING, 25);
+    final WorkerIdentity worker2 = addWorker(State.RUNNING, 3);
+    addWorker(State.RUNNING, 1);
+    addWorker(State.FINISHED, 10);
+
+    m_loadShedder.setThreshold(1.5);
+
+    for (int i = 0; i < LoadShedder.OVERLOADED_REPORTS - 1; ++i) {
+      report(1.5);
+    }
+
+    // Not consecutive.
+    report(1.4);
+
+    for (int i = 0; i < LoadShedder.OVERLOADED_REPORTS - 1; ++i) {
+      report(2);
+    }
+
+    verifyNoMoreInteractions(m_consoleCommunication);
+
+    report(2);
+
+    verify(m_consoleCommunication, times(2)).sendToAddressedAgents(
+      eq(new AgentAddress(m_agentIdentity)),
+      m_messageCaptor.capture());
+
+    final List<SetWorkerThreadsMessage> messages =
+      m_messageCaptor.getAllValues();
+
+    for (final SetWorkerThreadsMessage message : messages) {
+      if (message.getWorkerIdentity().equals(worker1)) {
+        assertEquals(22, message.getNumberOfThreads());
+      }
+      else {
+        assertEquals(worker2, message.getWorkerIdentity());
+        assertEquals(2, message.getNumberOfThreads());
+      }
+    }
+
+    // The count starts again.
+    report(2);
+    verifyNoMoreInteractions(m_consoleCommunication);
+  }
+
+  @Test public void testUnknownAgent() throws Exception {
+    m_loadShedder.setThreshold(1);
+
+    for (int i = 0; i < LoadShedder.OVERLOADED_REPORTS; ++i) {
+      report(2);
+    }
+
+    verifyNoMoreInteractions(m_consoleCommunication);
+  }
+}
@@ -23,7 +23,9 @@ package net.grinder.console.communication;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
@@ -31,17 +33,24 @@ import java.io.File;
 import java.util.Timer;
 
 import net.grinder.common.GrinderProperties;
-import net.grinder.common.processidentity.AgentIdentity;
+import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.common.processidentity.ProcessReport.State;
 import net.grinder.communication.MessageDispatchRegistry;
 import net.grinder.communication.MessageDispatchRegistry.Handler;
 import net.grinder.console.common.DisplayMessageConsoleException;
 import net.grinder.console.communication.ProcessControl.ProcessReports;
 import net.grinder.engine.agent.StubAgentIdentity;
+import net.grinder.messages.agent.ResetGrinderMessage;
+import net.grinder.messages.agent.SetWorkerThreadsMessage;
 import net.grinder.messages.agent.StartGrinderMessage;
+import net.grinder.messages.agent.StopWorkerMessage;
 import net.grinder.messages.agent.StubCacheHighWaterMark;
+import net.grinder.messages.agent.ThreadProfileMessage;
+import net.grinder.messages.agent.ThroughputTargetMessage;
 import net.grinder.messages.console.AgentAddress;
 import net.grinder.messages.console.AgentProcessReportMessage;
+import net.grinder.messages.console.WorkerAddress;
+import net.grinder.messages.console.WorkerProcessReportMessage;
 import net.grinder.translation.Translations;
 import net.grinder.util.Directory;
 
@@ -58,7 +67,7 @@ import org.mockito.Mock;
  */
 public class TestProcessControlImplementation {
 
-  private final AgentIdentity m_agentIdentity =
+  private final StubAgentIdentity m_agentIdentity =
       new StubAgentIdentity("my agent");
 
   private final AgentProcessReportMessage m_agentMessage =
@@ -73,7 +82,15 @@ public class TestProcessControlImplementation {
   @Mock private Translations m_translations;
   @Captor ArgumentCaptor<Handler<AgentProcessReportMessage>>
     m_agentReportMessageHandlerCaptor;
+  @Captor ArgumentCaptor<Handler<WorkerProcessReportMessage>>
+    m_workerReportMessageHandlerCaptor;
   @Captor ArgumentCaptor<StartGrinderMessage> m_startGrinderMessageCaptor;
+  @Captor ArgumentCaptor<StopWorkerMessage> m_stopWorkerMessageCaptor;
+  @Captor ArgumentCaptor<SetWorkerThreadsMessage>
+    m_setWorkerThreadsMessageCaptor;
+  @Captor ArgumentCaptor<ThreadProfileMessage> m_threadProfileMessageCaptor;
+  @Captor ArgumentCaptor<ThroughputTargetMessage>
+    m_throughputTargetMessageCaptor;
 
   private ProcessControl m_processControl;
 
@@ -189,4 +206,128 @@ public class TestProcessControlImplementation {
     assertEquals(properties, sentProperties);
     assertEquals(new File("four/my.props"), sentProperties.getAssociatedFile());
   }
+
+  @Test public void testSetThreadProfile() throws Exception {
+    final GrinderProperties properties = new GrinderProperties();
+    properties.setProperty("grinder.threadProfile", "sine");
+
+    m_processControl.setThreadProfile(properties);
+
+    verify(m_consoleCommunication).sendToAgents(
+      m_threadProfileMessageCaptor.capture());
+
+    assertEquals(properties,
+                 m_threadProfileMessageCaptor.getValue().getProperties());
+  }
+
+  @Test public void testSetThroughputTarget() throws Exception {
+    m_processControl.setThroughputTarget(100);
+
+    verify(m_consoleCommunication).sendToAgents(
+      m_throughputTargetMessageCaptor.capture());
+
+    // No workers are running, so the target is not divided.
+    assertEquals(100,
+                 m_throughputTargetMessageCaptor.getValue()
+                 .getTestsPerSecond(),
+                 0);
+  }
+
+  @Test public void testStartWorkerProcessesForAgent() throws Exception {
+    final GrinderProperties properties = new GrinderProperties();
+
+    m_processControl.startWorkerProcesses(new StubAgentIdentity("another"),
+                                          properties);
+
+    verify(m_consoleCommunication).getMessageDispatchRegistry();
+    verifyNoMoreInteractions(m_consoleCommunication);
+
+    m_processControl.startWorkerProcesses(m_agentIdentity, properties);
+
+    verify(m_consoleCommunication).sendToAddressedAgents(
+      eq(m_agentMessage.getProcessAddress()),
+      m_startGrinderMessageCaptor.capture());
+
+    final StartGrinderMessage startMessage =
+        m_startGrinderMessageCaptor.getValue();
+    assertEquals(0, startMessage.getAgentNumber());
+    assertEquals(properties, startMessage.getProperties());
+  }
+
+  @Test public void testResetWorkerProcessesForAgent() throws Exception {
+    m_processControl.resetWorkerProcesses(m_agentIdentity);
+
+    verify(m_consoleCommunication).sendToAddressedAgents(
+      eq(m_agentMessage.getProcessAddress()),
+      isA(ResetGrinderMessage.class));
+  }
+
+  @Test public void testStopWorkerProcess() throws Exception {
+    final WorkerIdentity worker = m_agentIdentity.createWorkerIdentity();
+
+    m_processControl.stopWorkerProcess(worker);
+
+    verify(m_consoleCommunication).sendToAddressedAgents(
+      eq(m_agentMessage.getProcessAddress()),
+      m_stopWorkerMessageCaptor.capture());
+
+    assertEquals(worker,
+                 m_stopWorkerMessageCaptor.getValue().getWorkerIdentity());
+  }
+
+  @Test public void testSetWorkerThreads() throws Exception {
+    final WorkerIdentity worker = m_agentIdentity.createWorkerIdentity();
+
+    m_processControl.setWorkerThreads(worker, 7);
+
+    verify(m_consoleCommunication).sendToAddressedAgents(
+      eq(m_agentMessage.getProcessAddress()),
+      m_setWorkerThreadsMessageCaptor.capture());
+
+    final SetWorkerThreadsMessage message =
+      m_setWorkerThreadsMessageCaptor.getValue();
+    assertEquals(worker, message.getWorkerIdentity());
+    assertEquals(7, message.getNumberOfThreads());
+  }
+
+  @Test public void testLoadSheddingThreshold() throws Exception {
+    verify(m_messageDispatchRegistry)
+      .set(eq(WorkerProcessReportMessage.class),
+           m_workerReportMessageHandlerCaptor.capture());
+
+    final WorkerIdentity worker = m_agentIdentity.createWorkerIdentity();
+
+    final WorkerProcessReportMessage workerMessage =
+      new WorkerProcessReportMessage(State.RUNNING, (short)10, (short)10);
+    workerMessage.setAddress(new WorkerAddress(worker));
+    m_workerReportMessageHandlerCaptor.getValue().handle(workerMessage);
+
+    final AgentProcessReportMessage busyMessage =
+      new AgentProcessReportMessage(State.RUNNING,
+                                    new StubCacheHighWaterMark(null, 0),
+                                    2.5);
+    busyMessage.setAddress(new AgentAddress(m_agentIdentity));
+
+    for (int i = 0; i < LoadShedder.OVERLOADED_REPORTS; ++i) {
+      m_agentReportMessageHandlerCaptor.getValue().handle(busyMessage);
+    }
+
+    // Disabled by default.
+    verify(m_consoleCommunication).getMessageDispatchRegistry();
+    verifyNoMoreInteractions(m_consoleCommunication);
+
+    m_processControl.setLoadSheddingThreshold(2);
+
+    for (int i = 0; i < LoadShedder.OVERLOADED_REPORTS; ++i) {
+      m_agentReportMessageHandlerCaptor.getValue().handle(busyMessage);
+    }
+
+    verify(m_consoleCommunication).sendToAddressedAgents(
+      eq(m_agentMessage.getProcessAddress()),
+      m_setWorkerThreadsMessageCaptor.capture());
+
+    assertEquals(9,
+                 m_setWorkerThreadsMessageCaptor.getValue()
+                 .getNumberOfThreads());
+  }
 }
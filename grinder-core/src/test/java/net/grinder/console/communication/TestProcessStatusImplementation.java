@@ -193,6 +193,7 @@ public class TestProcessStatusImplementation {
     }
 
     assertEquals(2, processStatus.getNumberOfLiveAgents());
+    assertEquals(3, processStatus.getNumberOfLiveWorkers());
     verify(m_allocateLowestNumber, times(2)).add(any());
 
     updateTask.run();
@@ -65,6 +65,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.slf4j.LoggerFactory;
 
 
 /**
@@ -210,11 +211,14 @@ public class TestDistributedBarriers {
                                            ConnectionType.WORKER),
                             workerAddress);
 
-      m_barrierGroups =
-        new ClientBarrierGroups(workerSender, m_messageDispatcher);
-
       m_identityFactory =
         new BarrierIdentityGenerator(workerAddress.getIdentity());
+
+      m_barrierGroups =
+        new ClientBarrierGroups(workerSender,
+                                m_messageDispatcher,
+                                m_identityFactory,
+                                LoggerFactory.getLogger("test"));
     }
 
     public void start() {
@@ -25,8 +25,15 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyObject;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import java.io.InputStream;
+import java.util.Collections;
+import java.util.Timer;
 
 import net.grinder.common.UncheckedInterruptedException;
 import net.grinder.communication.StreamSender;
@@ -35,7 +42,9 @@ import net.grinder.engine.agent.DebugThreadWorker.IsolateGrinderProcessRunner;
 import net.grinder.testutility.DelegatingStubFactory;
 import net.grinder.testutility.RedirectStandardStreams;
 
+import org.junit.After;
 import org.junit.Test;
+import org.slf4j.Logger;
 
 
 /**
@@ -49,6 +58,13 @@ public class TestDebugThreadWorker {
     new AgentIdentityImplementation(getClass().getName())
     .createWorkerIdentity();
 
+  private final Timer m_timer = new Timer(true);
+  private final Logger m_logger = mock(Logger.class);
+
+  @After public void cancelTimer() {
+    m_timer.cancel();
+  }
+
   @Test public void testDebugThreadWorker() throws Exception {
 
     final DelegatingStubFactory<IsolatedGrinderProcessRunner>
@@ -57,7 +73,9 @@ public class TestDebugThreadWorker {
 
     final DebugThreadWorker worker =
       new DebugThreadWorker(m_workerIdentity,
-                            isolateGrinderProcessRunnerStubFactory.getStub());
+                            isolateGrinderProcessRunnerStubFactory.getStub(),
+                            m_timer,
+                            m_logger);
 
     assertEquals(m_workerIdentity, worker.getIdentity());
     assertNotNull(worker.getCommunicationStream());
@@ -109,7 +127,9 @@ public class TestDebugThreadWorker {
             catch (InterruptedException e) {
             }
             return 0;
-          }});
+          }},
+        m_timer,
+        m_logger);
 
     debugThreadWorker.start();
 
@@ -125,4 +145,53 @@ public class TestDebugThreadWorker {
     debugThreadWorker.destroy();
     debugThreadWorker.waitFor();
   }
+
+  @Test public void testResourceUsageAndTearDown() throws Exception {
+    final Thread[] leaked = new Thread[1];
+
+    final DebugThreadWorker worker =
+      new DebugThreadWorker(
+        m_workerIdentity,
+        new IsolateGrinderProcessRunner() {
+          public int run(InputStream agentInputStream) {
+            leaked[0] = new Thread("leaked") {
+                public void run() {
+                  try {
+                    Thread.sleep(10000);
+                  }
+                  catch (InterruptedException e) {
+                  }
+                }
+              };
+
+            leaked[0].start();
+
+            // Burn some CPU.
+            final long end = System.currentTimeMillis() + 50;
+            while (System.currentTimeMillis() < end) {
+              Thread.yield();
+            }
+
+            return 3;
+          }},
+        m_timer,
+        m_logger);
+
+    worker.start();
+    assertEquals(3, worker.waitFor());
+
+    assertEquals(2, worker.getResourceUsage().getPeakThreadCount());
+    assertTrue(worker.getResourceUsage().getCPUTime() != 0);
+
+    verify(m_logger).info(contains("CPU time"),
+                          eq(m_workerIdentity.getName()),
+                          anyObject(),
+                          eq(2));
+    verify(m_logger).warn(contains("left threads"),
+                          eq(m_workerIdentity.getName()),
+                          eq(Collections.singletonList("leaked")));
+
+    leaked[0].join(5000);
+    assertTrue(!leaked[0].isAlive());
+  }
 }
@@ -29,6 +29,7 @@ import static org.mockito.Mockito.mock;
 import java.io.File;
 import java.io.InputStream;
 import java.lang.instrument.Instrumentation;
+import java.util.Timer;
 
 import net.grinder.common.GrinderProperties;
 import net.grinder.communication.CommunicationException;
@@ -45,6 +46,7 @@ import net.grinder.util.weave.agent.ExposeInstrumentation;
 
 import org.junit.After;
 import org.junit.Test;
+import org.slf4j.Logger;
 
 
 /**
@@ -59,9 +61,12 @@ public class TestDebugThreadWorkerFactory extends AbstractJUnit4FileTestCase {
 
   private FanOutStreamSender m_fanOutStreamSender = new FanOutStreamSender(1);
   private GrinderProperties m_properties = new GrinderProperties();
+  private Timer m_timer = new Timer(true);
+  private Logger m_logger = mock(Logger.class);
 
   @After public void shutdownStreamSender() throws Exception {
     m_fanOutStreamSender.shutdown();
+    m_timer.cancel();
   }
 
   @Test public void testFactory() throws Exception {
@@ -73,7 +78,9 @@ public class TestDebugThreadWorkerFactory extends AbstractJUnit4FileTestCase {
                                    m_fanOutStreamSender,
                                    false,
                                    new ScriptLocation(new File("missing.py")),
-                                   m_properties);
+                                   m_properties,
+                                   m_timer,
+                                   m_logger);
 
     final RedirectStandardStreams streams = new RedirectStandardStreams() {
       protected void runWithRedirectedStreams() throws Exception {
@@ -102,7 +109,9 @@ public class TestDebugThreadWorkerFactory extends AbstractJUnit4FileTestCase {
                                      m_fanOutStreamSender,
                                      false,
                                      new ScriptLocation(new File(".")),
-                                     m_properties);
+                                     m_properties,
+                                   m_timer,
+                                   m_logger);
 
       try {
         factory.create(null, null);
@@ -126,7 +135,9 @@ public class TestDebugThreadWorkerFactory extends AbstractJUnit4FileTestCase {
                                      m_fanOutStreamSender,
                                      false,
                                      new ScriptLocation(new File(".")),
-                                     m_properties);
+                                     m_properties,
+                                   m_timer,
+                                   m_logger);
 
       try {
         factory2.create(null, null);
@@ -150,7 +161,9 @@ public class TestDebugThreadWorkerFactory extends AbstractJUnit4FileTestCase {
                                      m_fanOutStreamSender,
                                      false,
                                      new ScriptLocation(new File(".")),
-                                     m_properties);
+                                     m_properties,
+                                   m_timer,
+                                   m_logger);
 
       try {
         factory3.create(null, null);
@@ -173,7 +186,9 @@ public class TestDebugThreadWorkerFactory extends AbstractJUnit4FileTestCase {
                                      m_fanOutStreamSender,
                                      false,
                                      new ScriptLocation(new File(".")),
-                                     m_properties);
+                                     m_properties,
+                                   m_timer,
+                                   m_logger);
 
       try {
         factory3.create(null, null);
@@ -197,7 +212,9 @@ public class TestDebugThreadWorkerFactory extends AbstractJUnit4FileTestCase {
                                      m_fanOutStreamSender,
                                      false,
                                      new ScriptLocation(new File(".")),
-                                     m_properties);
+                                     m_properties,
+                                   m_timer,
+                                   m_logger);
 
       final RedirectStandardStreams rss0 = new RedirectStandardStreams() {
         protected void runWithRedirectedStreams() throws Exception {
@@ -241,7 +258,9 @@ public class TestDebugThreadWorkerFactory extends AbstractJUnit4FileTestCase {
                                      m_fanOutStreamSender,
                                      false,
                                      new ScriptLocation(new File(".")),
-                                     m_properties);
+                                     m_properties,
+                                   m_timer,
+                                   m_logger);
 
       final RedirectStandardStreams rss0 = new RedirectStandardStreams() {
         protected void runWithRedirectedStreams() throws Exception {
@@ -291,7 +310,9 @@ public class TestDebugThreadWorkerFactory extends AbstractJUnit4FileTestCase {
                                      m_fanOutStreamSender,
                                      false,
                                      new ScriptLocation(new File(".")),
-                                     m_properties);
+                                     m_properties,
+                                   m_timer,
+                                   m_logger);
 
       final RedirectStandardStreams rss0 = new RedirectStandardStreams() {
         protected void runWithRedirectedStreams() throws Exception {
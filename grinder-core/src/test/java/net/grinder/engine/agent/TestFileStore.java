@@ -264,6 +264,46 @@ public class TestFileStore extends AbstractJUnit4FileTestCase {
     assertEquals(currentDirectoryFile, fileStore.getDirectory().getFile());
   }
 
+  @Test public void testCompiledScriptsDiscarded() throws Exception {
+
+    final Logger logger = mock(Logger.class);
+
+    final FileStore fileStore = new FileStore(getDirectory(), logger);
+
+    final MessageDispatchSender messageDispatcher = new MessageDispatchSender();
+    fileStore.registerMessageHandlers(messageDispatcher);
+
+    final File compiledScriptDirectory =
+      fileStore.getCompiledScriptDirectory();
+    assertEquals(new File(getDirectory(), "compiled-scripts"),
+                 compiledScriptDirectory);
+    assertFalse(compiledScriptDirectory.exists());
+
+    final File sourceDirectory = new File(getDirectory(), "source");
+    assertTrue(sourceDirectory.mkdirs());
+    assertTrue(new File(sourceDirectory, "script.py").createNewFile());
+
+    final Message message =
+      new DistributeFileMessage(
+        new FileContents(sourceDirectory, new File("script.py")));
+
+    // Fine if there is nothing to discard.
+    messageDispatcher.send(message);
+
+    assertTrue(compiledScriptDirectory.mkdir());
+    final File entry = new File(compiledScriptDirectory, "entry.class");
+    assertTrue(entry.createNewFile());
+
+    messageDispatcher.send(message);
+
+    assertFalse(entry.exists());
+    assertTrue(compiledScriptDirectory.exists());
+
+    verify(logger, times(2)).info(contains("Updating file store"),
+                                  isA(FileContents.class));
+    verifyNoMoreInteractions(logger);
+  }
+
   @Test public void testFileStoreException() throws Exception {
     final Exception nested = new Exception("");
     final FileStore.FileStoreException e =
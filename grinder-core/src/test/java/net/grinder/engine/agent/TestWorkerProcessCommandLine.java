@@ -30,9 +30,12 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 import net.grinder.common.GrinderProperties;
 import net.grinder.testutility.AbstractJUnit4FileTestCase;
@@ -141,6 +144,106 @@ public class TestWorkerProcessCommandLine extends AbstractJUnit4FileTestCase {
     assertEquals(expectedSuffix, commandLine);
   }
 
+  private File createJVM(final String name, final String version)
+    throws Exception {
+
+    final File home = new File(getDirectory(), name);
+    final File java = new File(home, "bin/java");
+    assertTrue(java.getParentFile().mkdirs());
+    assertTrue(java.createNewFile());
+
+    final Writer writer = new FileWriter(new File(home, "release"));
+    writer.write("IMPLEMENTOR=\"Someone\"\nJAVA_VERSION=\"" + version +
+                 "\"\nOS_NAME=\"Linux\"\n");
+    writer.close();
+
+    return java;
+  }
+
+  @Test public void testGetJavaMajorVersion() throws Exception {
+    assertEquals(21,
+      WorkerProcessCommandLine.getJavaMajorVersion(
+        createJVM("jdk21", "21.0.1").getPath()));
+
+    assertEquals(11,
+      WorkerProcessCommandLine.getJavaMajorVersion(
+        createJVM("jdk11", "11.0.21").getPath()));
+
+    assertEquals(8,
+      WorkerProcessCommandLine.getJavaMajorVersion(
+        createJVM("jdk8", "1.8.0_392").getPath()));
+
+    final File noRelease = createJVM("norelease", "19");
+    assertTrue(new File(noRelease.getParentFile().getParentFile(), "release")
+               .delete());
+
+    assertEquals(-1,
+      WorkerProcessCommandLine.getJavaMajorVersion(noRelease.getPath()));
+
+    assertEquals(-1,
+      WorkerProcessCommandLine.getJavaMajorVersion(
+        new File(getDirectory(), "missing/bin/java").getPath()));
+
+    assertEquals(-1,
+      WorkerProcessCommandLine.getJavaMajorVersion(
+        "no-such-java-executable"));
+  }
+
+  @Test public void testClassDataSharing() throws Exception {
+
+    final String jvm = createJVM("jdk", "19.0.2").getPath();
+
+    final GrinderProperties grinderProperties = new GrinderProperties() {{
+      setBoolean("grinder.jvm.classDataSharing", true);
+      setProperty("grinder.jvm", jvm);
+    }};
+
+    final Properties systemProperties = new Properties() {{
+      setProperty("java.class.path", "foo.jar");
+      setProperty("java.io.tmpdir", getDirectory().getPath());
+    }};
+
+    final String commandLine =
+      new WorkerProcessCommandLine(grinderProperties,
+                                   systemProperties,
+                                   "-Xmx64M",
+                                   new Directory()).toString();
+
+    assertContainsPattern(
+      commandLine,
+      "^" + Pattern.quote(jvm) + " '-Xmx64M' " +
+      "'-XX:SharedArchiveFile=[^\\s]*grinder-worker-\\w+.jsa' " +
+      "'-XX:\\+AutoCreateSharedArchive' -classpath 'foo.jar' " +
+      "net.grinder.engine.process.WorkerProcessEntryPoint$");
+
+    // The same configuration shares an archive...
+    assertEquals(commandLine,
+                 new WorkerProcessCommandLine(grinderProperties,
+                                              systemProperties,
+                                              "-Xmx64M",
+                                              new Directory()).toString());
+
+    // ... a different one does not.
+    final String otherCommandLine =
+      new WorkerProcessCommandLine(grinderProperties,
+                                   systemProperties,
+                                   "-Xmx128M",
+                                   new Directory()).toString();
+
+    assertFalse(otherCommandLine.replace("128", "64").equals(commandLine));
+
+    // Older JVMs are not given the options.
+    grinderProperties.setProperty("grinder.jvm",
+                                  createJVM("jdk17", "17.0.9").getPath());
+
+    assertFalse(
+      new WorkerProcessCommandLine(grinderProperties,
+                                   systemProperties,
+                                   "-Xmx64M",
+                                   new Directory()).toString()
+      .contains("SharedArchive"));
+  }
+
   private static List<File> path(final String... strings) {
     final List<File> result = new ArrayList<File>(strings.length);
 
@@ -118,6 +118,47 @@ public class TestGrinderProcess {
     assertEquals(100, ts.getTotalNumberOfThreads());
   }
 
+  @Test public void testThreadSynchronisationActiveThreads()
+    throws Exception {
+
+    final ThreadSynchronisation ts =
+      new GrinderProcess.ThreadSynchronisation(new Condition());
+
+    ts.threadCreated();
+    ts.threadCreated();
+
+    assertEquals(2, ts.getNumberOfActiveThreads());
+    assertTrue(ts.awaitActive(1));
+
+    ts.setMaximumActiveThreads(1);
+    assertEquals(1, ts.getNumberOfActiveThreads());
+    assertTrue(ts.awaitActive(0));
+
+    final Callable<Boolean> awaitSecondThread = new Callable<Boolean>() {
+        @Override
+        public Boolean call() {
+          return ts.awaitActive(1);
+        }
+      };
+
+    final Future<Boolean> parked = s_executor.submit(awaitSecondThread);
+
+    Thread.sleep(20);
+    assertFalse(parked.isDone());
+
+    ts.setMaximumActiveThreads(2);
+    assertTrue(parked.get());
+
+    ts.setMaximumActiveThreads(0);
+    assertEquals(0, ts.getNumberOfActiveThreads());
+
+    final Future<Boolean> shutdown = s_executor.submit(awaitSecondThread);
+
+    ts.shutdown();
+    assertFalse(shutdown.get());
+    assertFalse(ts.awaitActive(0));
+  }
+
   private static class MyRunnable implements Runnable {
     private final ThreadSynchronisation m_ts;
     private final boolean m_failBeforeStart;
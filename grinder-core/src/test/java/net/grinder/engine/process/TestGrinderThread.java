@@ -62,6 +62,7 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
     MockitoAnnotations.initMocks(this);
 
     when(m_workerRunnableFactory.create()).thenReturn(m_workerRunnable);
+    when(m_workerThreadSynchronisation.awaitActive(0)).thenReturn(true);
   }
 
   @Test public void testConstruction() throws Exception {
@@ -175,6 +176,35 @@ public class TestGrinderThread extends AbstractJUnit4FileTestCase {
     // TODO verify(m_threadLogger).output("shut down");
   }
 
+  @Test public void testShutdownWhileParked() throws Exception {
+
+    final GrinderThread grinderThread =
+      new GrinderThread(m_logger,
+                        m_threadContext,
+                        m_workerThreadSynchronisation,
+                        m_properties,
+                        m_sleeper,
+                        m_workerRunnableFactory);
+
+    m_properties.setInt("grinder.runs", 0);
+
+    when(m_threadContext.getThreadNumber()).thenReturn(3);
+    when(m_workerThreadSynchronisation.awaitActive(3)).thenReturn(false);
+
+    grinderThread.run();
+
+    verify(m_threadContext, never()).fireBeginRunEvent();
+    verify(m_threadContext).fireBeginShutdownEvent();
+    verify(m_threadContext).fireEndThreadEvent();
+
+    verify(m_workerRunnable, never()).run();
+    verify(m_workerRunnable).shutdown();
+
+    verify(m_workerThreadSynchronisation).awaitStart();
+    verify(m_workerThreadSynchronisation).awaitActive(3);
+    verify(m_workerThreadSynchronisation).threadFinished();
+  }
+
   @Test public void testRunScriptException() throws Exception {
 
     final GrinderThread grinderThread =
@@ -0,0 +1,203 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+
+import net.grinder.common.TimeAuthority;
+import net.grinder.common.processidentity.WorkerHealth;
+import net.grinder.util.SleeperImplementation;
+import net.grinder.util.StandardTimeAuthority;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+/**
+ * Unit tests for {@link HealthMonitor}.
+ *
+ * @author agent
+ */
+public class TestHealthMonitor {
+
+  @Mock private TimeAuthority m_timeAuthority;
+  @Mock private GarbageCollectorMXBean m_gc1;
+  @Mock private GarbageCollectorMXBean m_gc2;
+  @Mock private com.sun.management.ThreadMXBean m_threadBean;
+  @Mock private com.sun.management.OperatingSystemMXBean m_osBean;
+
+  private final SleeperImplementation m_sleeper =
+    new SleeperImplementation(new StandardTimeAuthority(), null, 1, 0);
+
+  private HealthMonitor m_monitor;
+
+  @Before public void setUp() {
+    MockitoAnnotations.initMocks(this);
+
+    when(m_threadBean.isThreadAllocatedMemorySupported()).thenReturn(true);
+    when(m_threadBean.isThreadAllocatedMemoryEnabled()).thenReturn(true);
+    when(m_threadBean.getAllThreadIds()).thenReturn(new long[] { 1, 2 });
+    when(m_osBean.getAvailableProcessors()).thenReturn(2);
+
+    m_monitor = new HealthMonitor(m_timeAuthority,
+                                  m_sleeper,
+                                  asList(m_gc1, m_gc2),
+                                  m_threadBean,
+                                  m_osBean);
+  }
+
+  private void set(final long time,
+                   final long gc1,
+                   final long gc2,
+                   final long allocated1,
+                   final long allocated2,
+                   final long cpu) {
+    when(m_timeAuthority.getTimeInMilliseconds()).thenReturn(time);
+    when(m_gc1.getCollectionTime()).thenReturn(gc1);
+    when(m_gc2.getCollectionTime()).thenReturn(gc2);
+    when(m_threadBean.getThreadAllocatedBytes(new long[] { 1, 2 }))
+      .thenReturn(new long[] { allocated1, allocated2 });
+    when(m_osBean.getProcessCpuTime()).thenReturn(cpu);
+  }
+
+  @Test public void testHealthy() throws Exception {
+    set(1000, 10, -1, 100, 200, 0);
+    assertNull(m_monitor.sample(500));
+
+    set(1500, 30, -1, 300, 500, 250000000L);
+    final WorkerHealth health = m_monitor.sample(500);
+
+    assertEquals(500, health.getInterval());
+    assertEquals(20, health.getGCTime());
+    assertEquals(1000, health.getAllocationRate());
+    assertEquals(0.25, health.getCPUUsage(), 0.0001);
+    assertEquals(0, health.getTimerLag());
+    assertEquals(-1, health.getThreadStartLatency());
+    assertEquals(-1, health.getSchedulingError(), 0);
+    assertFalse(health.isImpaired());
+    assertNotNull(health.toString());
+  }
+
+  @Test public void testImpaired() throws Exception {
+    set(0, 0, 0, 0, 0, 0);
+    m_monitor.sample(500);
+
+    // GC.
+    set(500, 30, 30, 0, 0, 0);
+    assertTrue(m_monitor.sample(500).isImpaired());
+
+    // CPU.
+    set(1000, 30, 30, 0, 0, 1000000000L);
+    final WorkerHealth busy = m_monitor.sample(500);
+    assertEquals(1, busy.getCPUUsage(), 0);
+    assertTrue(busy.isImpaired());
+
+    // Timer lag.
+    set(1600, 30, 30, 0, 0, 1000000000L);
+    final WorkerHealth late = m_monitor.sample(500);
+    assertEquals(100, late.getTimerLag());
+    assertTrue(late.isImpaired());
+
+    // Thread start latency.
+    m_monitor.threadStarted(20000000L);
+    m_monitor.threadStarted(2000000000L);
+    m_monitor.threadStarted(3000000L);
+    set(2100, 30, 30, 0, 0, 1000000000L);
+    final WorkerHealth slowStart = m_monitor.sample(500);
+    assertEquals(2000, slowStart.getThreadStartLatency());
+    assertTrue(slowStart.isImpaired());
+
+    set(2600, 30, 30, 0, 0, 1000000000L);
+    assertFalse(m_monitor.sample(500).isImpaired());
+  }
+
+  @Test public void testSchedulingError() throws Exception {
+    set(0, 0, 0, 0, 0, 0);
+    m_monitor.sample(500);
+
+    m_sleeper.sleepNormal(2);
+    m_sleeper.sleepNormal(2);
+
+    set(500, 0, 0, 0, 0, 0);
+    final WorkerHealth health = m_monitor.sample(500);
+    assertTrue(health.getSchedulingError() >= 0);
+    assertTrue(health.getSchedulingError() <=
+               m_sleeper.getMaximumSchedulingError());
+
+    set(1000, 0, 0, 0, 0, 0);
+    assertEquals(-1, m_monitor.sample(500).getSchedulingError(), 0);
+  }
+
+  @Test public void testUnsupported() throws Exception {
+    final HealthMonitor monitor =
+      new HealthMonitor(m_timeAuthority,
+                        m_sleeper,
+                        asList(m_gc1),
+                        ManagementFactory.getThreadMXBean(),
+                        ManagementFactory.getOperatingSystemMXBean());
+
+    when(m_threadBean.isThreadAllocatedMemoryEnabled()).thenReturn(false);
+    set(0, 0, 0, 0, 0, -1);
+
+    final HealthMonitor monitor2 =
+      new HealthMonitor(m_timeAuthority,
+                        m_sleeper,
+                        asList(m_gc1),
+                        m_threadBean,
+                        m_osBean);
+
+    monitor.sample(100);
+    monitor2.sample(100);
+
+    set(100, 0, 0, 0, 0, -1);
+
+    // Whatever the platform MBeans support, we should get a result.
+    assertNotNull(monitor.sample(100));
+
+    final WorkerHealth health = monitor2.sample(100);
+    assertEquals(-1, health.getAllocationRate());
+    assertEquals(-1, health.getCPUUsage(), 0);
+    assertFalse(health.isImpaired());
+  }
+
+  @Test public void testPlatformBeans() throws Exception {
+    final HealthMonitor monitor =
+      new HealthMonitor(new StandardTimeAuthority(), m_sleeper);
+
+    assertNull(monitor.sample(10));
+    Thread.sleep(20);
+    assertNotNull(monitor.sample(10));
+  }
+}
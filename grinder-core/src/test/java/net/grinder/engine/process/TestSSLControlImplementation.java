@@ -183,6 +183,56 @@ public class TestSSLControlImplementation extends AbstractFileTestCase {
     assertSame(context, context2);
   }
 
+  public void testShareContextBetweenThreads() throws Exception {
+    final SSLControl sslControl =
+      new SSLControlImplementation(m_threadContextLocator);
+
+    assertFalse(sslControl.getShareContextBetweenThreads());
+    sslControl.setShareContextBetweenThreads(true);
+    assertTrue(sslControl.getShareContextBetweenThreads());
+
+    m_threadContextStubFactory.setResult("getThreadSSLContextFactory", null);
+
+    final SSLContext context = sslControl.getSSLContext();
+    assertNotNull(context);
+    assertSame(context, sslControl.getSSLContext());
+
+    final RandomStubFactory<ThreadContext> threadContextStubFactory2 =
+      RandomStubFactory.create(ThreadContext.class);
+    threadContextStubFactory2.setResult("getThreadSSLContextFactory", null);
+    m_threadContextLocator.set(threadContextStubFactory2.getStub());
+
+    assertSame(context, sslControl.getSSLContext());
+
+    m_threadContextStubFactory.assertNoMoreCalls();
+  }
+
+  public void testSessionCache() throws Exception {
+    final SSLControl sslControl =
+      new SSLControlImplementation(m_threadContextLocator);
+
+    m_threadContextStubFactory.setResult("getThreadSSLContextFactory", null);
+
+    final int defaultTimeout =
+      sslControl.getSSLContext().getClientSessionContext().getSessionTimeout();
+
+    assertEquals(-1, sslControl.getSessionCacheSize());
+    sslControl.setSessionCacheSize(23);
+    assertEquals(23, sslControl.getSessionCacheSize());
+
+    assertEquals(-1, sslControl.getSessionTimeout());
+    sslControl.setSessionTimeout(defaultTimeout + 10);
+    assertEquals(defaultTimeout + 10, sslControl.getSessionTimeout());
+
+    sslControl.setShareContextBetweenThreads(true);
+
+    final SSLContext context = sslControl.getSSLContext();
+
+    assertEquals(23, context.getClientSessionContext().getSessionCacheSize());
+    assertEquals(defaultTimeout + 10,
+                 context.getClientSessionContext().getSessionTimeout());
+  }
+
   public void testSetKeyStoreMethods() throws Exception {
     final SSLControl sslControl =
       new SSLControlImplementation(m_threadContextLocator);
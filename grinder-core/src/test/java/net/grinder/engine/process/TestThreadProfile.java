@@ -0,0 +1,161 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import net.grinder.common.GrinderProperties;
+import net.grinder.engine.common.EngineException;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link ThreadProfile}.
+ *
+ * @author agent
+ */
+public class TestThreadProfile {
+
+  private static final double DELTA = 0.0001;
+
+  private final GrinderProperties m_properties = new GrinderProperties();
+
+  private ThreadProfile create(final String name) throws EngineException {
+    m_properties.setProperty("grinder.threadProfile", name);
+    return ThreadProfile.create(m_properties, 0);
+  }
+
+  @Test public void testNoProfile() throws Exception {
+    assertNull(ThreadProfile.create(m_properties, 0));
+    assertNull(create(" "));
+  }
+
+  @Test public void testLinear() throws Exception {
+    m_properties.setLong("grinder.threadProfile.period", 1000);
+
+    final ThreadProfile profile = create("linear");
+
+    assertEquals(0, profile.getLoad(-10), DELTA);
+    assertEquals(0, profile.getLoad(0), DELTA);
+    assertEquals(0.25, profile.getLoad(250), DELTA);
+    assertEquals(1, profile.getLoad(1000), DELTA);
+    assertEquals(1, profile.getLoad(5000), DELTA);
+    assertTrue(profile.toString().contains("linear"));
+
+    m_properties.setDouble("grinder.threadProfile.minimum", 0.5);
+
+    assertEquals(0.5, create("linear").getLoad(0), DELTA);
+    assertEquals(0.75, create("linear").getLoad(500), DELTA);
+  }
+
+  @Test public void testStep() throws Exception {
+    m_properties.setLong("grinder.threadProfile.period", 1000);
+
+    final ThreadProfile profile = create("step");
+
+    assertEquals(0.25, profile.getLoad(0), DELTA);
+    assertEquals(0.25, profile.getLoad(249), DELTA);
+    assertEquals(0.5, profile.getLoad(250), DELTA);
+    assertEquals(1, profile.getLoad(999), DELTA);
+    assertEquals(1, profile.getLoad(2000), DELTA);
+
+    m_properties.setInt("grinder.threadProfile.steps", 2);
+
+    assertEquals(0.5, create("step").getLoad(499), DELTA);
+    assertTrue(create("step").toString().contains("2 step"));
+  }
+
+  @Test public void testSpike() throws Exception {
+    m_properties.setLong("grinder.threadProfile.period", 1000);
+    m_properties.setDouble("grinder.threadProfile.minimum", 0.2);
+
+    final ThreadProfile profile = create("spike");
+
+    assertEquals(0.2, profile.getLoad(0), DELTA);
+    assertEquals(0.2, profile.getLoad(899), DELTA);
+    assertEquals(1, profile.getLoad(900), DELTA);
+    assertEquals(1, profile.getLoad(999), DELTA);
+    assertEquals(0.2, profile.getLoad(1000), DELTA);
+
+    m_properties.setLong("grinder.threadProfile.width", 500);
+
+    assertEquals(1, create("spike").getLoad(1500), DELTA);
+  }
+
+  @Test public void testSine() throws Exception {
+    m_properties.setLong("grinder.threadProfile.period", 1000);
+
+    final ThreadProfile profile = create("sine");
+
+    assertEquals(0, profile.getLoad(0), DELTA);
+    assertEquals(0.5, profile.getLoad(250), DELTA);
+    assertEquals(1, profile.getLoad(500), DELTA);
+    assertEquals(0, profile.getLoad(1000), DELTA);
+  }
+
+  @Test public void testRampDown() throws Exception {
+    m_properties.setLong("grinder.threadProfile.period", 100);
+    m_properties.setLong("grinder.threadProfile.rampDown", 1000);
+    m_properties.setProperty("grinder.threadProfile", "linear");
+
+    assertEquals(1, ThreadProfile.create(m_properties, 0).getLoad(9500),
+                 DELTA);
+
+    final ThreadProfile profile = ThreadProfile.create(m_properties, 10000);
+
+    assertEquals(1, profile.getLoad(9000), DELTA);
+    assertEquals(0.5, profile.getLoad(9500), DELTA);
+    assertEquals(0, profile.getLoad(10000), DELTA);
+    assertEquals(0, profile.getLoad(11000), DELTA);
+    assertTrue(profile.toString().contains("ramping down"));
+  }
+
+  @Test public void testBadProperties() throws Exception {
+    assertInvalid("foo");
+
+    m_properties.setLong("grinder.threadProfile.period", 0);
+    assertInvalid("linear");
+    m_properties.setLong("grinder.threadProfile.period", 1000);
+
+    m_properties.setDouble("grinder.threadProfile.minimum", 1.5);
+    assertInvalid("linear");
+    m_properties.setDouble("grinder.threadProfile.minimum", 0);
+
+    m_properties.setInt("grinder.threadProfile.steps", 0);
+    assertInvalid("step");
+
+    m_properties.setLong("grinder.threadProfile.width", 2000);
+    assertInvalid("spike");
+  }
+
+  private void assertInvalid(final String name) {
+    try {
+      create(name);
+      fail("Expected EngineException");
+    }
+    catch (EngineException e) {
+    }
+  }
+}
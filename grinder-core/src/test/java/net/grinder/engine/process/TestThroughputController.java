@@ -0,0 +1,117 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.engine.process;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import net.grinder.util.SleeperImplementation;
+import net.grinder.util.StandardTimeAuthority;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+
+/**
+ * Unit tests for {@link ThroughputController}.
+ *
+ * @author agent
+ */
+public class TestThroughputController {
+
+  @Mock private Logger m_logger;
+
+  private final SleeperImplementation m_sleeper =
+    new SleeperImplementation(new StandardTimeAuthority(), null, 2, 0);
+
+  private ThroughputController m_controller;
+
+  @Before public void setUp() {
+    MockitoAnnotations.initMocks(this);
+
+    m_controller = new ThroughputController(m_sleeper, m_logger);
+  }
+
+  @Test public void testDisabled() throws Exception {
+    m_controller.update(1000, 1000);
+    m_controller.setTarget(0);
+    m_controller.update(1000, 1000);
+
+    assertEquals(2, m_sleeper.getFactor(), 0);
+    verifyNoMoreInteractions(m_logger);
+  }
+
+  @Test public void testTooFast() throws Exception {
+    m_controller.setTarget(10);
+
+    m_controller.update(40, 1000);
+    assertEquals(2 * Math.sqrt(2), m_sleeper.getFactor(), 0.0001);
+
+    m_controller.update(10, 1000);
+    assertEquals(2 * Math.sqrt(2) * Math.sqrt(2),
+                 m_sleeper.getFactor(),
+                 0.0001);
+
+    // Interval of zero length is ignored.
+    m_controller.update(10, 0);
+    assertEquals(4, m_sleeper.getFactor(), 0.0001);
+
+    m_controller.setTarget(-1);
+    assertEquals(2, m_sleeper.getFactor(), 0);
+  }
+
+  @Test public void testOnTarget() throws Exception {
+    m_controller.setTarget(10);
+
+    m_controller.update(5, 500);
+    m_controller.update(5, 500);
+
+    assertEquals(2, m_sleeper.getFactor(), 0.0001);
+  }
+
+  @Test public void testUnreachable() throws Exception {
+    m_controller.setTarget(1000);
+
+    for (int i = 0; i < 100; ++i) {
+      m_controller.update(1, 1000);
+    }
+
+    assertTrue(m_sleeper.getFactor() <= 0.001);
+
+    verify(m_logger).warn(contains("cannot reach"), anyDouble(), anyDouble());
+    verify(m_logger, times(100)).debug(contains("target"),
+                                       new Object[] { anyDouble(),
+                                                      anyDouble(),
+                                                      anyDouble() });
+    verifyNoMoreInteractions(m_logger);
+
+    m_controller.setTarget(1);
+    assertEquals(0.001, m_sleeper.getFactor(), 0);
+  }
+}
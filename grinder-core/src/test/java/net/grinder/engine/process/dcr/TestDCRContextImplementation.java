@@ -26,14 +26,22 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.lang.instrument.ClassFileTransformer;
 import java.lang.instrument.Instrumentation;
 
 import net.grinder.engine.process.ExternalLoggerScopeTunnel;
 import net.grinder.scriptengine.DCRContext;
+import net.grinder.scriptengine.Recorder;
+import net.grinder.util.Pair;
+import net.grinder.util.weave.ClassSource;
 import net.grinder.util.weave.agent.ExposeInstrumentation;
 
 import org.junit.After;
@@ -67,6 +75,7 @@ public class TestDCRContextImplementation {
 
   @After public void tearDown() throws Exception {
     ExposeInstrumentation.premain("", m_originalInstrumentation);
+    RecorderLocator.clearRecorders();
   }
 
   @Test public void testCreateWithNoInstrumentation() throws Exception {
@@ -121,4 +130,44 @@ public class TestDCRContextImplementation {
 
     assertTrue(context.isInstrumentable(loggerClass));
   }
+
+  @Test public void testDeferChanges() throws Exception {
+    final DCRContextImplementation context =
+      new DCRContextImplementation(m_instrumentation,
+                                   RecorderLocator.class,
+                                   RecorderLocator.getRecorderRegistry());
+
+    final Recorder recorder = mock(Recorder.class);
+
+    context.deferChanges();
+
+    context.add(ClassSource.CLASS,
+                Pair.class,
+                Pair.class.getMethod("getFirst"),
+                recorder);
+    context.applyChanges();
+
+    context.add(ClassSource.CLASS,
+                Pair.class,
+                Pair.class.getMethod("getSecond"),
+                recorder);
+    context.applyChanges();
+
+    verify(m_instrumentation).addTransformer(isA(ClassFileTransformer.class),
+                                             eq(true));
+    verifyNoMoreInteractions(m_instrumentation);
+
+    context.applyDeferredChanges();
+
+    verify(m_instrumentation).retransformClasses(Pair.class);
+
+    context.add(ClassSource.CLASS,
+                Pair.class,
+                Pair.class.getMethod("hashCode"),
+                recorder);
+    context.applyChanges();
+
+    verify(m_instrumentation, times(2)).retransformClasses(Pair.class);
+    verifyNoMoreInteractions(m_instrumentation);
+  }
 }
@@ -24,6 +24,8 @@ package net.grinder.messages.agent;
 import java.io.File;
 
 import net.grinder.common.GrinderProperties;
+import net.grinder.common.processidentity.WorkerIdentity;
+import net.grinder.engine.agent.StubAgentIdentity;
 import net.grinder.testutility.AbstractFileTestCase;
 import net.grinder.testutility.Serializer;
 import net.grinder.util.FileContents;
@@ -73,4 +75,25 @@ public class TestAgentMessages extends AbstractFileTestCase {
   @Test public void testClearCacheMessage() throws Exception {
     Serializer.serialize(new ClearCacheMessage());
   }
+
+  @Test public void testStopWorkerMessage() throws Exception {
+    final WorkerIdentity worker =
+      new StubAgentIdentity("agent").createWorkerIdentity();
+
+    final StopWorkerMessage received =
+      Serializer.serialize(new StopWorkerMessage(worker));
+
+    assertEquals(worker, received.getWorkerIdentity());
+  }
+
+  @Test public void testSetWorkerThreadsMessage() throws Exception {
+    final WorkerIdentity worker =
+      new StubAgentIdentity("agent").createWorkerIdentity();
+
+    final SetWorkerThreadsMessage received =
+      Serializer.serialize(new SetWorkerThreadsMessage(worker, 3));
+
+    assertEquals(worker, received.getWorkerIdentity());
+    assertEquals(3, received.getNumberOfThreads());
+  }
 }
@@ -23,6 +23,8 @@ package net.grinder.messages.console;
 
 import static net.grinder.testutility.AssertUtilities.assertNotEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.ByteArrayInputStream;
@@ -34,6 +36,7 @@ import java.util.Collection;
 import java.util.HashSet;
 
 import net.grinder.common.processidentity.ProcessReport.State;
+import net.grinder.common.processidentity.WorkerHealth;
 import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.communication.Address;
 import net.grinder.communication.CommunicationException;
@@ -163,6 +166,27 @@ public class TestConsoleMessages {
     assertEquals(State.RUNNING, received.getState());
     assertEquals(2, received.getNumberOfRunningThreads());
     assertEquals(3, received.getMaximumNumberOfThreads());
+    assertNull(received.getHealth());
+    assertEquals(-1, received.getStartupTime());
+
+    final WorkerProcessReportMessage healthy =
+      new WorkerProcessReportMessage(State.RUNNING, (short)2, (short)3,
+                                     new WorkerHealth(10, 1, 2, 0.5, 3, 4,
+                                                      0.25, true),
+                                     850);
+
+    final WorkerProcessReportMessage receivedHealthy =
+      Serializer.serialize(healthy);
+    assertEquals(850, receivedHealthy.getStartupTime());
+
+    final WorkerHealth health = receivedHealthy.getHealth();
+    assertEquals(10, health.getInterval());
+    assertEquals(1, health.getGCTime());
+    assertEquals(2, health.getAllocationRate());
+    assertEquals(0.5, health.getCPUUsage(), 0);
+    assertEquals(3, health.getTimerLag());
+    assertEquals(4, health.getThreadStartLatency());
+    assertTrue(health.isImpaired());
   }
 
   @Test public void testWorkerReportMessageEquality() throws Exception {
@@ -201,6 +225,57 @@ public class TestConsoleMessages {
                                                    (short)2,
                                                    (short)2));
 
+    // The health measurements affect equality, so that the console shows
+    // the latest ones.
+    final WorkerHealth health = new WorkerHealth(1, 2, 3, 0, 0, 0, 0, false);
+
+    final WorkerProcessReportMessage m3 =
+      new WorkerProcessReportMessage(State.RUNNING,
+                                     (short)2,
+                                     (short)3,
+                                     health,
+                                     -1);
+
+    assertNotEquals(m1, m3);
+    assertEquals(m3,
+                 new WorkerProcessReportMessage(State.RUNNING,
+                                                (short)2,
+                                                (short)3,
+                                                new WorkerHealth(1, 2, 3, 0,
+                                                                 0, 0, 0,
+                                                                 false),
+                                                -1));
+    assertEquals(m3.hashCode(),
+                 new WorkerProcessReportMessage(State.RUNNING,
+                                                (short)2,
+                                                (short)3,
+                                                new WorkerHealth(1, 2, 3, 0,
+                                                                 0, 0, 0,
+                                                                 false),
+                                                -1).hashCode());
+    assertNotEquals(m3,
+                    new WorkerProcessReportMessage(State.RUNNING,
+                                                   (short)2,
+                                                   (short)3,
+                                                   new WorkerHealth(1, 2, 3,
+                                                                    0, 0, 0,
+                                                                    0.5, false),
+                                                   -1));
+    assertNotEquals(m3,
+                    new WorkerProcessReportMessage(State.RUNNING,
+                                                   (short)2,
+                                                   (short)3,
+                                                   new WorkerHealth(1, 2, 3,
+                                                                    0, 0, 0,
+                                                                    0, true),
+                                                   -1));
+
+    assertNotEquals(m1,
+                    new WorkerProcessReportMessage(State.RUNNING,
+                                                   (short)2,
+                                                   (short)3,
+                                                   null,
+                                                   850));
   }
 
   @Test public void testWorkerReportMessageBadAddress() throws Exception {
@@ -244,6 +319,12 @@ public class TestConsoleMessages {
     assertEquals(address, original.getProcessAddress());
     assertEquals(State.RUNNING, received.getState());
     assertEquals(cacheHighWaterMark, received.getCacheHighWaterMark());
+    assertEquals(-1, received.getSystemLoad(), 0);
+
+    final AgentProcessReportMessage loaded =
+      new AgentProcessReportMessage(State.RUNNING, cacheHighWaterMark, 0.75);
+
+    assertEquals(0.75, Serializer.serialize(loaded).getSystemLoad(), 0);
   }
 
   @Test public void testAgentReportMessageEquality() throws Exception {
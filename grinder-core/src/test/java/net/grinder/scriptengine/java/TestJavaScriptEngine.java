@@ -0,0 +1,275 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine.java;
+
+import static net.grinder.testutility.AssertUtilities.assertContains;
+import static net.grinder.testutility.FileUtilities.createFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.concurrent.Callable;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import net.grinder.engine.common.ScriptLocation;
+import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
+import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
+import net.grinder.scriptengine.ScriptExecutionException;
+import net.grinder.testutility.AbstractJUnit4FileTestCase;
+import net.grinder.util.Directory;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link JavaScriptEngine}.
+ *
+ * @author agent
+ */
+public class TestJavaScriptEngine extends AbstractJUnit4FileTestCase {
+
+  private static final String PROPERTY = "grinder.test.javascriptengine";
+
+  private static int s_calls;
+
+  private ScriptLocation createScript(final String name,
+                                      final String... lines)
+    throws Exception {
+
+    final ScriptLocation script =
+      new ScriptLocation(new Directory(getDirectory()), new File(name));
+
+    createFile(script.getFile(), lines);
+
+    return script;
+  }
+
+  @Test public void testSourceScript() throws Exception {
+    final ScriptLocation script =
+      createScript("foo/Runner.java",
+                   "package foo;",
+                   "public class Runner implements Runnable, java.io.Closeable {",
+                   "  static { System.setProperty(\"" + PROPERTY + "\", \"init\"); }",
+                   "  private int m_runs;",
+                   "  public void run() {",
+                   "    System.setProperty(\"" + PROPERTY + "\", \"run \" + ++m_runs);",
+                   "  }",
+                   "  public void close() {",
+                   "    System.setProperty(\"" + PROPERTY + "\", \"closed\");",
+                   "  }",
+                   "}");
+
+    final ScriptEngine scriptEngine =
+      new JavaScriptEngineService().createScriptEngine(script);
+
+    assertEquals("init", System.getProperty(PROPERTY));
+    assertContains(scriptEngine.getDescription(), "Java");
+
+    final WorkerRunnable runnable1 = scriptEngine.createWorkerRunnable();
+    final WorkerRunnable runnable2 = scriptEngine.createWorkerRunnable();
+
+    runnable1.run();
+    assertEquals("run 1", System.getProperty(PROPERTY));
+    runnable1.run();
+    assertEquals("run 2", System.getProperty(PROPERTY));
+    runnable2.run();
+    assertEquals("run 1", System.getProperty(PROPERTY));
+
+    runnable1.shutdown();
+    assertEquals("closed", System.getProperty(PROPERTY));
+
+    scriptEngine.shutdown();
+  }
+
+  @Test public void testCompilationFailure() throws Exception {
+    final ScriptLocation script = createScript("Bad.java", "class Bad {");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (final ScriptExecutionException e) {
+      assertContains(e.getMessage(), "Failed to compile");
+    }
+  }
+
+  @Test public void testNotRunnable() throws Exception {
+    final ScriptLocation script =
+      createScript("NotRunnable.java", "public class NotRunnable {}");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (final ScriptExecutionException e) {
+      assertContains(e.getMessage(), "should implement");
+    }
+  }
+
+  @Test public void testNoDefaultConstructor() throws Exception {
+    final ScriptLocation script =
+      createScript("NoConstructor.java",
+                   "public class NoConstructor implements Runnable {",
+                   "  public NoConstructor(int x) {}",
+                   "  public void run() {}",
+                   "}");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (final ScriptExecutionException e) {
+      assertContains(e.getMessage(), "no-args constructor");
+    }
+  }
+
+  @Test public void testBadInitialiser() throws Exception {
+    final ScriptLocation script =
+      createScript("BadInit.java",
+                   "public class BadInit implements Runnable {",
+                   "  static { if (true) throw new RuntimeException(\"x\"); }",
+                   "  public void run() {}",
+                   "}");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (final ScriptExecutionException e) {
+      assertContains(e.getMessage(), "Failed to initialise");
+      assertTrue(e.getCause() instanceof RuntimeException);
+    }
+  }
+
+  @Test public void testRunnerThrows() throws Exception {
+    final ScriptLocation script =
+      createScript("Throws.java",
+                   "public class Throws implements java.util.concurrent.Callable<Object> {",
+                   "  public Object call() throws Exception {",
+                   "    throw new java.io.IOException(\"bang\");",
+                   "  }",
+                   "}");
+
+    final ScriptEngine scriptEngine =
+      new JavaScriptEngineService().createScriptEngine(script);
+
+    final WorkerRunnable runnable = scriptEngine.createWorkerRunnable();
+
+    try {
+      runnable.run();
+      fail("Expected ScriptExecutionException");
+    }
+    catch (final ScriptExecutionException e) {
+      assertContains(e.getCause().getMessage(), "bang");
+    }
+
+    runnable.shutdown();
+    scriptEngine.shutdown();
+  }
+
+  public static final class MyCallable implements Callable<Void> {
+    @Override public Void call() {
+      ++s_calls;
+      return null;
+    }
+  }
+
+  private ScriptLocation createJar(final String testRunnerClass)
+    throws Exception {
+
+    final ScriptLocation script =
+      new ScriptLocation(new Directory(getDirectory()), new File("my.jar"));
+
+    final Manifest manifest = new Manifest();
+    manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+
+    if (testRunnerClass != null) {
+      manifest.getMainAttributes().putValue(
+        JavaScriptEngine.TEST_RUNNER_ATTRIBUTE, testRunnerClass);
+    }
+
+    new JarOutputStream(new FileOutputStream(script.getFile()),
+                        manifest).close();
+
+    return script;
+  }
+
+  @Test public void testJarScript() throws Exception {
+    final ScriptLocation script = createJar(MyCallable.class.getName());
+
+    final ScriptEngine scriptEngine =
+      new JavaScriptEngineService().createScriptEngine(script);
+
+    s_calls = 0;
+
+    final WorkerRunnable runnable = scriptEngine.createWorkerRunnable();
+    runnable.run();
+    runnable.run();
+    runnable.shutdown();
+
+    assertEquals(2, s_calls);
+
+    final WorkerRunnable runnable2 =
+      scriptEngine.createWorkerRunnable(new MyCallable());
+    runnable2.run();
+
+    assertEquals(3, s_calls);
+
+    try {
+      scriptEngine.createWorkerRunnable(new Object());
+      fail("Expected ScriptExecutionException");
+    }
+    catch (final ScriptExecutionException e) {
+      assertContains(e.getMessage(), "not a Runnable or Callable");
+    }
+
+    scriptEngine.shutdown();
+  }
+
+  @Test public void testJarWithoutTestRunner() throws Exception {
+    final ScriptLocation script = createJar(null);
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (final ScriptExecutionException e) {
+      assertContains(e.getMessage(), JavaScriptEngine.TEST_RUNNER_ATTRIBUTE);
+    }
+  }
+
+  @Test public void testJarWithUnknownTestRunner() throws Exception {
+    final ScriptLocation script = createJar("no.such.Class");
+
+    try {
+      new JavaScriptEngineService().createScriptEngine(script);
+      fail("Expected ScriptExecutionException");
+    }
+    catch (final ScriptExecutionException e) {
+      assertContains(e.getMessage(), "no.such.Class");
+    }
+  }
+}
@@ -66,7 +66,7 @@ public class TestJavaScriptEngineService {
   }
 
   @Test public void testGetScriptEngine() throws Exception {
-    final ScriptLocation script = new ScriptLocation(new File("foo.java"));
+    final ScriptLocation script = new ScriptLocation(new File("foo.py"));
 
     assertNull(new JavaScriptEngineService(null).createScriptEngine(script));
   }
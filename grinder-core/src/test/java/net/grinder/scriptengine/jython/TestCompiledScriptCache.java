@@ -0,0 +1,172 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.scriptengine.jython;
+
+import static net.grinder.testutility.FileUtilities.createFile;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.io.File;
+
+import net.grinder.common.GrinderProperties;
+import net.grinder.engine.common.ScriptLocation;
+import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
+import net.grinder.testutility.AbstractJUnit4FileTestCase;
+import net.grinder.util.Directory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.python.core.PyCode;
+import org.python.core.PySystemState;
+import org.python.util.PythonInterpreter;
+import org.slf4j.Logger;
+
+
+/**
+ * Unit tests for {@link CompiledScriptCache}.
+ *
+ * @author agent
+ */
+public class TestCompiledScriptCache extends AbstractJUnit4FileTestCase {
+
+  {
+    PySystemState.initialize();
+  }
+
+  @Mock private Logger m_logger;
+
+  private File m_cacheDirectory;
+  private File m_script;
+  private CompiledScriptCache m_cache;
+
+  @Before public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+
+    m_cacheDirectory = new File(getDirectory(), "cache");
+    m_script = new File(getDirectory(), "script.py");
+    m_cache = new CompiledScriptCache(m_cacheDirectory, m_logger);
+  }
+
+  private Object run(final PyCode code, final String name) {
+    final PythonInterpreter interpreter =
+      new PythonInterpreter(null, new PySystemState());
+    interpreter.exec(code);
+    return interpreter.get(name).__tojava__(Object.class);
+  }
+
+  @Test public void testMissThenHit() throws Exception {
+    createFile(m_script, "x = 6 * 7");
+
+    final PyCode code1 = m_cache.getCode(m_script, "2.5");
+    assertEquals(42, run(code1, "x"));
+    verify(m_logger).info(contains("miss"), eq(m_script));
+
+    assertEquals(1, m_cacheDirectory.list().length);
+
+    final PyCode code2 = m_cache.getCode(m_script, "2.5");
+    assertEquals(42, run(code2, "x"));
+    verify(m_logger).info(contains("hit"), eq(m_script));
+
+    assertEquals(1, m_cacheDirectory.list().length);
+
+    // A second cache sharing the directory, as another worker would.
+    new CompiledScriptCache(m_cacheDirectory, m_logger)
+      .getCode(m_script, "2.5");
+    verify(m_logger, times(2))
+      .info(contains("hit"), eq(m_script));
+
+    verifyNoMoreInteractions(m_logger);
+  }
+
+  @Test public void testKey() throws Exception {
+    createFile(m_script, "x = 1");
+    m_cache.getCode(m_script, "2.5");
+
+    createFile(m_script, "x = 2");
+    assertEquals(2, run(m_cache.getCode(m_script, "2.5"), "x"));
+    assertEquals(2, m_cacheDirectory.list().length);
+
+    m_cache.getCode(m_script, "2.7");
+    assertEquals(3, m_cacheDirectory.list().length);
+
+    verify(m_logger, times(3))
+      .info(contains("miss"), eq(m_script));
+  }
+
+  @Test public void testCorruptEntry() throws Exception {
+    createFile(m_script, "x = 'ok'");
+    m_cache.getCode(m_script, "2.5");
+
+    final File entry = m_cacheDirectory.listFiles()[0];
+    createFile(entry, "not a class file");
+
+    assertEquals("ok", run(m_cache.getCode(m_script, "2.5"), "x"));
+    verify(m_logger).warn(contains("corrupt"), eq(entry));
+
+    // The entry has been replaced.
+    assertEquals("ok", run(m_cache.getCode(m_script, "2.5"), "x"));
+    verify(m_logger).info(contains("hit"), eq(m_script));
+  }
+
+  @Test public void testUnwritableDirectory() throws Exception {
+    createFile(m_script, "x = 1");
+    createFile(m_cacheDirectory);
+
+    assertEquals(1, run(m_cache.getCode(m_script, "2.5"), "x"));
+    verify(m_logger).warn(contains("failed"),
+                          eq(m_cacheDirectory),
+                          anyString());
+  }
+
+  @Test public void testWithScriptEngineService() throws Exception {
+    createFile(m_script,
+               "class TestRunner:",
+               "  def __call__(self): pass");
+
+    final GrinderProperties properties = new GrinderProperties();
+    properties.setFile(JythonScriptEngineService.COMPILED_SCRIPT_CACHE_PROPERTY,
+                       m_cacheDirectory);
+
+    final JythonScriptEngineService service =
+      new JythonScriptEngineService(properties, m_logger);
+
+    final ScriptLocation script =
+      new ScriptLocation(new Directory(getDirectory()), m_script);
+
+    for (int i = 0; i < 2; ++i) {
+      final ScriptEngine engine = service.createScriptEngine(script);
+      assertNotNull(engine.createWorkerRunnable());
+      engine.shutdown();
+    }
+
+    verify(m_logger).info(contains("miss"), eq(m_script));
+    verify(m_logger).info(contains("hit"), eq(m_script));
+  }
+}
@@ -51,7 +51,7 @@ public class TestJythonScriptEngineServiceWithJython22
         DCRContextImplementation.create(null);
 
     final List<Instrumenter> instrumenters =
-      new JythonScriptEngineService(properties, context, m_pyScript)
+      new JythonScriptEngineService(properties, null, context, m_pyScript)
       .createInstrumenters();
 
     assertEquals(1, instrumenters.size());
@@ -66,6 +66,7 @@ public class TestJythonScriptEngineServiceWithJython22
   @Test public void testWithNoInstrumenters() throws Exception {
     final List<Instrumenter> instrumenters =
       new JythonScriptEngineService(new GrinderProperties(),
+                                    null,
                                     null,
                                     new ScriptLocation(new File("notpy.blah")))
       .createInstrumenters();
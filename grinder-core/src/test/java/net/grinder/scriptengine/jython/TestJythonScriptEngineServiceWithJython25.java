@@ -148,7 +148,7 @@ public class TestJythonScriptEngineServiceWithJython25
     final DCRContext context = DCRContextImplementation.create(null);
 
     final List<Instrumenter> instrumenters =
-        new JythonScriptEngineService(properties, context, m_pyScript)
+        new JythonScriptEngineService(properties, null, context, m_pyScript)
             .createInstrumenters();
 
     assertEquals(1, instrumenters.size());
@@ -172,7 +172,7 @@ public class TestJythonScriptEngineServiceWithJython25
     final DCRContext context = DCRContextImplementation.create(null);
 
     final List<Instrumenter> instrumenters =
-        new JythonScriptEngineService(properties, context, m_pyScript)
+        new JythonScriptEngineService(properties, null, context, m_pyScript)
             .createInstrumenters();
 
     assertEquals(1, instrumenters.size());
@@ -194,7 +194,7 @@ public class TestJythonScriptEngineServiceWithJython25
         .create(null);
 
     final List<Instrumenter> instrumenters =
-        new JythonScriptEngineService(properties, context, m_pyScript)
+        new JythonScriptEngineService(properties, null, context, m_pyScript)
             .createInstrumenters();
 
     instrumenters.get(0).instrument(m_test, m_recorder, new PyInstance());
@@ -27,6 +27,7 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import junit.framework.TestCase;
 import net.grinder.common.StubTest;
@@ -145,6 +146,77 @@ public class TestTestStatisticsMap extends TestCase {
     assertEquals(20, content.getStatisticsSet().getValue(m_index));
   }
 
+  public void testOrdering() throws Exception {
+    final StatisticsSetFactory factory =
+      m_statisticsServices.getStatisticsSetFactory();
+
+    final TestStatisticsMap map = new TestStatisticsMap(factory);
+
+    final Random random = new Random(99);
+
+    for (int i = 0; i < 100; ++i) {
+      map.put(new StubTest(random.nextInt(200) - 50, ""), m_statistics0);
+    }
+
+    int last = Integer.MIN_VALUE;
+
+    for (Pair pair : extract(map)) {
+      assertTrue(pair.getTest().getNumber() > last);
+      last = pair.getTest().getNumber();
+    }
+  }
+
+  public void testAddInterleaved() throws Exception {
+    final StatisticsSetFactory factory =
+      m_statisticsServices.getStatisticsSetFactory();
+
+    final TestStatisticsMap map0 = new TestStatisticsMap(factory);
+    final TestStatisticsMap map1 = new TestStatisticsMap(factory);
+
+    for (int i = 0; i < 40; i += 2) {
+      final StatisticsSet statistics = factory.create();
+      statistics.setValue(m_index, i);
+      map0.put(new StubTest(i, ""), statistics);
+    }
+
+    for (int i = 0; i < 60; i += 3) {
+      final StatisticsSet statistics = factory.create();
+      statistics.setValue(m_index, 1000);
+      map1.put(new StubTest(i, ""), statistics);
+    }
+
+    map0.add(map1);
+
+    final List<Pair> result = extract(map0);
+    int expectedNumber = 0;
+
+    for (Pair pair : result) {
+      while (expectedNumber % 2 != 0 && expectedNumber % 3 != 0 ||
+             expectedNumber >= 40 && expectedNumber % 3 != 0) {
+        ++expectedNumber;
+      }
+
+      assertEquals(expectedNumber, pair.getTest().getNumber());
+
+      final long expectedValue =
+        (expectedNumber % 2 == 0 && expectedNumber < 40 ? expectedNumber : 0) +
+        (expectedNumber % 3 == 0 ? 1000 : 0);
+
+      assertEquals(expectedValue, pair.getStatisticsSet().getValue(m_index));
+
+      ++expectedNumber;
+    }
+
+    assertEquals(57, result.get(result.size() - 1).getTest().getNumber());
+    assertEquals(result.size(), map0.size());
+
+    // Adding again only changes the values.
+    map0.add(map1);
+    assertEquals(result.size(), map0.size());
+    assertEquals(2000, extract(map0).get(0).getStatisticsSet()
+                 .getValue(m_index));
+  }
+
   public void testReset() throws Exception {
     final TestStatisticsMap map =
       new TestStatisticsMap(m_statisticsServices.getStatisticsSetFactory());
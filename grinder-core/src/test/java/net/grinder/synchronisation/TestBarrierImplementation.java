@@ -207,6 +207,7 @@ public class TestBarrierImplementation {
     b.await();
 
     verify(m_barrierGroup).addWaiter(ID2);
+    verify(m_barrierGroup).waiterResumed(ID2);
     verifyNoMoreInteractions(m_barrierGroup);
 
     futureHolder[0].get();
@@ -21,12 +21,15 @@
 
 package net.grinder.synchronisation;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.argThat;
+import static org.mockito.Matchers.contains;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
@@ -35,6 +38,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
+import java.util.HashSet;
 import java.util.Set;
 
 import net.grinder.communication.MessageDispatchRegistry;
@@ -55,6 +59,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
 
 
 /**
@@ -67,20 +72,31 @@ public class TestClientBarrierGroups {
 
   private static final BarrierIdentity ID1 = new BarrierIdentity() {};
   private static final BarrierIdentity ID2 = new BarrierIdentity() {};
+  private static final BarrierIdentity ID3 = new BarrierIdentity() {};
+  private static final BarrierIdentity R1 = new BarrierIdentity() {};
+  private static final BarrierIdentity R2 = new BarrierIdentity() {};
 
   @Mock private Sender m_sender;
   @Mock private MessageDispatchRegistry m_messageDispatch;
+  @Mock private BarrierIdentity.Factory m_identityFactory;
+  @Mock private Logger m_logger;
   @Captor
   private ArgumentCaptor<AbstractHandler<OpenBarrierMessage>> m_handlerCaptor;
 
   private int m_awakenCount = 0;
+  private Set<BarrierIdentity> m_lastAwoken;
 
   private ClientBarrierGroups m_groups;
 
   @Before public void setUp() {
     MockitoAnnotations.initMocks(this);
 
-    m_groups = new ClientBarrierGroups(m_sender, m_messageDispatch);
+    when(m_identityFactory.next()).thenReturn(R1, R2);
+
+    m_groups = new ClientBarrierGroups(m_sender,
+                                       m_messageDispatch,
+                                       m_identityFactory,
+                                       m_logger);
   }
 
   @Test public void testCreateAndRetrieve() throws Exception {
@@ -120,20 +136,62 @@ public class TestClientBarrierGroups {
     assertNull(m_groups.getExistingGroup("A"));
     assertEquals(0, m_awakenCount);
 
-    createBarrierGroup("A");
+    final BarrierGroup a = createBarrierGroup("A");
     assertEquals(0, m_awakenCount);
     handler.handle(message);
     assertEquals(1, m_awakenCount);
 
+    a.addBarrier();
+    a.addBarrier();
+    a.addWaiter(ID1);
+    a.addWaiter(ID2);
+
+    when(message.getWaiters()).thenReturn(new HashSet<BarrierIdentity>(asList(R1)));
+    handler.handle(message);
+    assertEquals(2, m_awakenCount);
+    assertEquals(new HashSet<BarrierIdentity>(asList(ID1, ID2)), m_lastAwoken);
+
+    // Not a waiter we know about.
+    handler.handle(message);
+    assertEquals(3, m_awakenCount);
+    assertEquals(0, m_lastAwoken.size());
+
     verifyNoMoreInteractions(m_messageDispatch);
   }
 
+  @Test public void testReleaseSkew() throws Exception {
+    verify(m_messageDispatch).set(eq(OpenBarrierMessage.class),
+                                  m_handlerCaptor.capture());
+
+    final BarrierGroup bg = createBarrierGroup("A");
+    bg.addBarrier();
+    bg.addBarrier();
+    bg.addWaiter(ID1);
+    bg.addWaiter(ID2);
+
+    final OpenBarrierMessage message = mock(OpenBarrierMessage.class);
+    when(message.getName()).thenReturn("A");
+    when(message.getWaiters()).thenReturn(new HashSet<BarrierIdentity>(asList(R1)));
+    m_handlerCaptor.getValue().handle(message);
+
+    bg.waiterResumed(ID1);
+    bg.waiterResumed(ID3);
+    verifyNoMoreInteractions(m_logger);
+
+    bg.waiterResumed(ID2);
+    verify(m_logger).info(contains("skew"), eq("A"), eq(2), anyObject());
+
+    bg.waiterResumed(ID2);
+    verifyNoMoreInteractions(m_logger);
+  }
+
   private BarrierGroup createBarrierGroup(String groupName) {
     final BarrierGroup bg = m_groups.getGroup(groupName);
 
     bg.addListener(new Listener() {
         public void awaken(Set<BarrierIdentity> waiters) {
           ++m_awakenCount;
+          m_lastAwoken = waiters;
         }
       });
 
@@ -153,14 +211,14 @@ public class TestClientBarrierGroups {
     bg.addBarrier();
     bg.addBarrier();
 
-    verify(m_sender, times(2)).send(isA(AddBarrierMessage.class));
+    verify(m_sender).send(isA(AddBarrierMessage.class));
 
     bg.addWaiter(ID1);
+    verifyNoMoreInteractions(m_sender);
 
     bg.addWaiter(ID2);
 
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID1)));
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID2)));
+    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(R1)));
 
     assertEquals(0, m_awakenCount);
 
@@ -188,13 +246,26 @@ public class TestClientBarrierGroups {
     bg.addBarrier();
     bg.addBarrier();
 
-    verify(m_sender, times(3)).send(isA(AddBarrierMessage.class));
+    verify(m_sender).send(isA(AddBarrierMessage.class));
 
     bg.addWaiter(ID1);
     bg.addWaiter(ID2);
 
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID1)));
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID2)));
+    verifyNoMoreInteractions(m_sender);
+
+    bg.removeBarriers(1);
+
+    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(R1)));
+
+    bg.cancelWaiter(ID1);
+
+    verify(m_sender).send(argThat(new CancelWaiterMessageMatcher(R1)));
+
+    bg.removeBarriers(1);
+    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(R2)));
+
+    bg.cancelWaiter(ID2);
+    verify(m_sender).send(argThat(new CancelWaiterMessageMatcher(R2)));
 
     bg.removeBarriers(1);
 
@@ -272,22 +343,21 @@ public class TestClientBarrierGroups {
     bg.addBarrier();
     bg.addBarrier();
 
-    verify(m_sender, times(2)).send(isA(AddBarrierMessage.class));
+    verify(m_sender).send(isA(AddBarrierMessage.class));
 
     bg.addWaiter(ID1);
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID1)));
-
     bg.cancelWaiter(ID2); // noop
-    verify(m_sender).send(argThat(new CancelWaiterMessageMatcher(ID2)));
-
     bg.cancelWaiter(ID1);
-    verify(m_sender).send(argThat(new CancelWaiterMessageMatcher(ID1)));
 
     bg.addWaiter(ID2);
-    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(ID2)));
+    bg.addWaiter(ID1);
+    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(R1)));
+
+    bg.cancelWaiter(ID1);
+    verify(m_sender).send(argThat(new CancelWaiterMessageMatcher(R1)));
 
     bg.addWaiter(ID1);
-    verify(m_sender, times(2)).send(argThat(new AddWaiterMessageMatcher(ID1)));
+    verify(m_sender).send(argThat(new AddWaiterMessageMatcher(R2)));
 
     assertEquals(0, m_awakenCount);
 
@@ -21,6 +21,7 @@
 
 package net.grinder.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.contains;
@@ -28,8 +29,12 @@ import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import java.io.StringReader;
+import java.util.Random;
+
 import net.grinder.common.TimeAuthority;
 import net.grinder.testutility.Time;
+import net.grinder.util.SleeperImplementation.Distribution;
 
 import org.junit.Test;
 import org.slf4j.Logger;
@@ -62,6 +67,25 @@ public class TestSleeper {
     new SleeperImplementation(m_timeAuthority, null, 1, 1);
   }
 
+  @Test public void testSetFactor() throws Exception {
+    final SleeperImplementation sleeper =
+      new SleeperImplementation(m_timeAuthority, null, 2, 0);
+
+    assertEquals(2, sleeper.getFactor(), 0);
+
+    sleeper.setFactor(0.5);
+    assertEquals(0.5, sleeper.getFactor(), 0);
+
+    try {
+      sleeper.setFactor(-1);
+      fail("IllegalArgumentException expected");
+    }
+    catch (final IllegalArgumentException e) {
+    }
+
+    assertEquals(0.5, sleeper.getFactor(), 0);
+  }
+
   @Test public void testSleepNormal() throws Exception {
     // Warm up Hot Spot.
     final Sleeper sleep0 =
@@ -177,6 +201,107 @@ public class TestSleeper {
     verifyNoMoreInteractions(logger);
   }
 
+  @Test public void testDistributions() throws Exception {
+    final Random random = new Random(1);
+
+    assertEquals(100, Distribution.NORMAL.sample(random, 100, 0));
+
+    final int n = 10000;
+    long normalTotal = 0;
+    long exponentialTotal = 0;
+
+    for (int i = 0; i < n; ++i) {
+      normalTotal += Distribution.NORMAL.sample(random, 1000, 100);
+
+      final long uniform = Distribution.UNIFORM.sample(random, 1000, 100);
+      assertTrue(uniform >= 1000 - 174 && uniform <= 1000 + 174);
+
+      final long exponential =
+        Distribution.EXPONENTIAL.sample(random, 1000, 100);
+      assertTrue(exponential >= 0);
+      exponentialTotal += exponential;
+    }
+
+    assertEquals(1000, normalTotal / n, 10);
+    assertEquals(1000, exponentialTotal / n, 50);
+
+    final Distribution empirical =
+      Distribution.empirical(new double[] { 1, 3 });
+
+    for (int i = 0; i < 10; ++i) {
+      final long sample = empirical.sample(random, 1000, 0);
+      assertTrue(sample == 500 || sample == 1500);
+    }
+  }
+
+  @Test public void testEmpiricalFromReader() throws Exception {
+    final Distribution distribution =
+      Distribution.empirical(
+        new StringReader("# Recorded think times\n2, 2\n\n 2 2\n"));
+
+    assertEquals(50, distribution.sample(new Random(), 50, 0));
+
+    final String[] bad = { "", "# nothing", "1, x", "-1 3", "0 0" };
+
+    for (final String s : bad) {
+      try {
+        Distribution.empirical(new StringReader(s));
+        fail("Expected IllegalArgumentException");
+      }
+      catch (final IllegalArgumentException e) {
+      }
+    }
+  }
+
+  @Test public void testSchedulingError() throws Exception {
+    final SleeperImplementation sleeper =
+      new SleeperImplementation(m_timeAuthority, null, 1, 0);
+
+    assertEquals(0, sleeper.getNumberOfSleeps());
+    assertEquals(0, sleeper.getMeanSchedulingError(), 0);
+
+    sleeper.sleepNormal(5);
+    sleeper.setDistribution(Distribution.EXPONENTIAL);
+    sleeper.sleepNormal(5);
+    sleeper.sleepNormal(0);
+
+    final long n = sleeper.getNumberOfSleeps();
+    assertTrue(n >= 1 && n <= 2);
+
+    final double mean = sleeper.getMeanSchedulingError();
+    assertTrue(mean >= 0);
+    assertTrue(mean < 10);
+    assertTrue(sleeper.getMaximumSchedulingError() >= mean);
+    assertEquals(mean * n, sleeper.getTotalSchedulingError(), 0.000001);
+
+    final Thread[] threads = new Thread[3];
+
+    for (int i = 0; i < threads.length; ++i) {
+      threads[i] = new Thread() {
+          @Override public void run() {
+            try {
+              sleeper.sleepFlat(5);
+              sleeper.sleepFlat(5);
+            }
+            catch (final SleeperImplementation.ShutdownException e) {
+              fail(e.getMessage());
+            }
+          }
+        };
+
+      threads[i].start();
+    }
+
+    for (final Thread thread : threads) {
+      thread.join();
+    }
+
+    // Sleeps made by each thread are added up.
+    assertTrue(sleeper.getNumberOfSleeps() >= n);
+    assertTrue(sleeper.getNumberOfSleeps() <= n + 6);
+    assertTrue(sleeper.getMaximumSchedulingError() >= mean);
+  }
+
   @Test public void testShutdown() throws Exception {
     final TakeFifty t1 = new TakeFifty();
 
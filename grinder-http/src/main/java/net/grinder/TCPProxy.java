@@ -25,16 +25,22 @@
 
 package net.grinder;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.PrintWriter;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
 
+import net.grinder.common.Closer;
 import net.grinder.plugin.http.tcpproxyfilter.ConnectionCache;
 import net.grinder.plugin.http.tcpproxyfilter.ConnectionHandlerFactoryImplementation;
+import net.grinder.plugin.http.tcpproxyfilter.HARImporter;
 import net.grinder.plugin.http.tcpproxyfilter.HTTPRecordingImplementation;
 import net.grinder.plugin.http.tcpproxyfilter.HTTPRequestFilter;
 import net.grinder.plugin.http.tcpproxyfilter.HTTPResponseFilter;
@@ -43,18 +49,19 @@ import net.grinder.plugin.http.tcpproxyfilter.ProcessHTTPRecordingWithXSLT;
 import net.grinder.plugin.http.tcpproxyfilter.ProcessHTTPRecordingWithXSLT.BuiltInStyleSheet;
 import net.grinder.plugin.http.tcpproxyfilter.ProcessHTTPRecordingWithXSLT.StyleSheetFile;
 import net.grinder.plugin.http.tcpproxyfilter.RegularExpressionsImplementation;
+import net.grinder.plugin.http.tcpproxyfilter.ReplayTimeAuthority;
 import net.grinder.tools.tcpproxy.CommentSourceImplementation;
 import net.grinder.tools.tcpproxy.CompositeFilter;
 import net.grinder.tools.tcpproxy.ConnectionDetails;
 import net.grinder.tools.tcpproxy.EchoFilter;
 import net.grinder.tools.tcpproxy.EndPoint;
 import net.grinder.tools.tcpproxy.HTTPProxyTCPProxyEngine;
+import net.grinder.tools.tcpproxy.NIOTCPProxyEngine;
 import net.grinder.tools.tcpproxy.NullFilter;
 import net.grinder.tools.tcpproxy.PortForwarderTCPProxyEngine;
 import net.grinder.tools.tcpproxy.TCPProxyConsole;
 import net.grinder.tools.tcpproxy.TCPProxyEngine;
 import net.grinder.tools.tcpproxy.TCPProxyFilter;
-import net.grinder.tools.tcpproxy.TCPProxySSLSocketFactory;
 import net.grinder.tools.tcpproxy.TCPProxySSLSocketFactoryImplementation;
 import net.grinder.tools.tcpproxy.UpdatableCommentSource;
 import net.grinder.util.AbstractMainClass;
@@ -84,8 +91,9 @@ public final class TCPProxy extends AbstractMainClass {
     "  java " + TCPProxy.class.getName() + " <options>" +
     "\n\n" +
     "Commonly used options:" +
-    "\n  [-http [jython|clojure|<stylesheet>]]" +
+    "\n  [-http [jython|clojure|xml|<stylesheet>]]" +
     "\n                               See below." +
+    "\n  [-har <file>]                Import a HAR capture." +
     "\n  [-console]                   Display the console." +
     "\n  [-requestfilter <filter>]    Add a request filter." +
     "\n  [-responsefilter <filter>]   Add a response filter." +
@@ -105,6 +113,7 @@ public final class TCPProxy extends AbstractMainClass {
     "\n                               HTTPS." +
     "\n  [-ssl]                       Use SSL when port forwarding." +
     "\n  [-colour]                    Be pretty on ANSI terminals." +
+    "\n  [-nio]                       Use the event driven proxy engine." +
     "\n  [-component <class>]         Register a component class with" +
     "\n                               the filter PicoContainer." +
     "\n  [-debug]                     Make PicoContainer chatty." +
@@ -124,7 +133,9 @@ public final class TCPProxy extends AbstractMainClass {
     "suitable for use with the HTTP plugin. The keywords 'jython', or " +
     "'clojure' can be used to set the script language; or the filename of " +
     "of an alternative XSLT style sheet can be provided. The default is" +
-    "'jython' which creates a Jython script." +
+    "'jython' which creates a Jython script. The keyword 'xml' saves the " +
+    "recording itself, which can be used directly as the grinder.script " +
+    "without generating a script." +
     "\n\n" +
     "-timeout is how long the TCPProxy will wait for a request " +
     "before timing out and freeing the local port. The TCPProxy will " +
@@ -139,6 +150,17 @@ public final class TCPProxy extends AbstractMainClass {
     "another HTTP/HTTPS proxy; this may help you reach the Internet. " +
     "These options are not supported in port forwarding mode." +
     "\n\n" +
+    "-har generates a script from an HTTP Archive (HAR) file, such as " +
+    "those saved by browser developer tools, rather than from live " +
+    "traffic. It must be used with -http. The requests are processed in " +
+    "the order they appear in the file, and the captured timings are used " +
+    "for the sleep times." +
+    "\n\n" +
+    "-nio handles all connections on a single thread, rather than " +
+    "using a pair of threads per connection. This reduces the overhead " +
+    "of recording browsers that open many connections. It does not support " +
+    "-httpproxy or -httpsproxy." +
+    "\n\n" +
     "Typical usage: " +
     "\n  java " + TCPProxy.class + " -http -console > grinder.py" +
     "\n\n";
@@ -170,6 +192,7 @@ public final class TCPProxy extends AbstractMainClass {
     new DefaultPicoContainer(new Caching());
 
   private final TCPProxyEngine m_proxyEngine;
+  private final File m_harFile;
 
   /**
    * Package scope for unit tests.
@@ -201,6 +224,9 @@ public final class TCPProxy extends AbstractMainClass {
     EndPoint chainedHTTPSProxy = null;
     int timeout = 0;
     boolean useColour = false;
+    boolean useNIO = false;
+    boolean http = false;
+    File harFile = null;
 
     final FilterChain requestFilterChain = new FilterChain("request");
     final FilterChain responseFilterChain = new FilterChain("response");
@@ -241,6 +267,7 @@ public final class TCPProxy extends AbstractMainClass {
           m_filterContainer.addComponent(componentClass);
         }
         else if ("-http".equalsIgnoreCase(args[i])) {
+          http = true;
           requestFilterChain.add(HTTPRequestFilter.class);
           responseFilterChain.add(HTTPResponseFilter.class);
           m_filterContainer.addComponent(
@@ -269,6 +296,9 @@ public final class TCPProxy extends AbstractMainClass {
             else if ("clojure".equals(s)) {
               m_filterContainer.addComponent(BuiltInStyleSheet.Clojure);
             }
+            else if ("xml".equals(s)) {
+              m_filterContainer.addComponent(BuiltInStyleSheet.XML);
+            }
             else {
               m_filterContainer.addComponent(new StyleSheetFile(new File(s)));
             }
@@ -312,6 +342,12 @@ public final class TCPProxy extends AbstractMainClass {
                  "-color".equalsIgnoreCase(args[i])) {
           useColour = true;
         }
+        else if ("-nio".equalsIgnoreCase(args[i])) {
+          useNIO = true;
+        }
+        else if ("-har".equalsIgnoreCase(args[i])) {
+          harFile = new File(args[++i]);
+        }
         else if ("-properties".equalsIgnoreCase(args[i])) {
           /* Already handled */
           ++i;
@@ -359,6 +395,32 @@ public final class TCPProxy extends AbstractMainClass {
                       "in port forwarding mode.");
     }
 
+    if (chainedHTTPSProxy != null && useNIO) {
+      throw barfError("Routing through a HTTP/HTTPS proxy is not supported " +
+                      "by the event driven engine.");
+    }
+
+    m_harFile = harFile;
+
+    if (harFile != null) {
+      if (!http) {
+        throw barfError("-har must be used with -http.");
+      }
+
+      if (!harFile.canRead()) {
+        throw barfError("Cannot read '" + harFile + "'.");
+      }
+
+      m_filterContainer.addComponent(ReplayTimeAuthority.class);
+      m_filterContainer.addComponent(HARImporter.class);
+
+      logger.info("Initialising to import " + harFile);
+
+      m_filterContainer.start();
+      m_proxyEngine = null;
+      return;
+    }
+
     final TCPProxyFilter requestFilter = requestFilterChain.resolveFilter();
     final TCPProxyFilter responseFilter = responseFilterChain.resolveFilter();
 
@@ -389,6 +451,10 @@ public final class TCPProxy extends AbstractMainClass {
       startMessage.append("\n   Remote address:     " + remoteEndPoint);
     }
 
+    if (useNIO) {
+      startMessage.append("\n   Engine:             event driven");
+    }
+
     if (chainedHTTPProxy != null) {
       startMessage.append("\n   HTTP proxy:         " + chainedHTTPProxy);
     }
@@ -419,7 +485,7 @@ public final class TCPProxy extends AbstractMainClass {
 
     logger.info(startMessage.toString());
 
-    final TCPProxySSLSocketFactory sslSocketFactory =
+    final TCPProxySSLSocketFactoryImplementation sslSocketFactory =
       keyStoreFile != null ?
       new TCPProxySSLSocketFactoryImplementation(keyStoreFile,
                                                  keyStorePassword,
@@ -428,7 +494,33 @@ public final class TCPProxy extends AbstractMainClass {
 
     m_filterContainer.start();
 
-    if (isHTTPProxy) {
+    if (useNIO) {
+      if (isHTTPProxy) {
+        m_proxyEngine =
+          new NIOTCPProxyEngine(
+            sslSocketFactory.getSSLContext(),
+            requestFilter, responseFilter,
+            output,
+            logger,
+            localEndPoint,
+            useColour,
+            timeout);
+      }
+      else {
+        m_proxyEngine =
+          new NIOTCPProxyEngine(
+            sslSocketFactory.getSSLContext(),
+            requestFilter, responseFilter,
+            output,
+            logger,
+            new ConnectionDetails(localEndPoint,
+                                  remoteEndPoint,
+                                  useSSLPortForwarding),
+            useColour,
+            timeout);
+      }
+    }
+    else if (isHTTPProxy) {
       m_proxyEngine =
         new HTTPProxyTCPProxyEngine(
           sslSocketFactory,
@@ -471,7 +563,12 @@ public final class TCPProxy extends AbstractMainClass {
     logger.info("Engine initialised, listening on port " + localPort);
   }
 
-  private void run() {
+  private void run() throws IOException {
+    if (m_harFile != null) {
+      importHAR();
+      return;
+    }
+
     final Runnable shutdown = new Runnable() {
       private boolean m_stopped = false;
 
@@ -493,6 +590,27 @@ public final class TCPProxy extends AbstractMainClass {
     getLogger().info("Engine exited");
   }
 
+  private void importHAR() throws IOException {
+    final HARImporter importer =
+      m_filterContainer.getComponent(HARImporter.class);
+
+    final Reader in =
+      new BufferedReader(
+        new InputStreamReader(new FileInputStream(m_harFile), "UTF-8"));
+
+    try {
+      final int entries = importer.importHAR(in);
+      getLogger().info("Imported " + entries + " requests");
+    }
+    finally {
+      Closer.close(in);
+
+      // Disposing the container writes the recording.
+      m_filterContainer.stop();
+      m_filterContainer.dispose();
+    }
+  }
+
   private final class FilterChain {
     private final String m_type;
     private final List<String> m_filterKeys = new ArrayList<String>();
@@ -50,6 +50,14 @@ final class HTTPConnectionWrapper implements HTTPPluginConnection {
   private final HTTPConnection m_httpConnection;
   private final Sleeper m_slowClientSleeper;
 
+  private boolean m_keepAliveBetweenRuns;
+  private long m_maximumConnectionAge;
+  private int m_maximumConnectionRequests;
+
+  /** Requests sent since the physical connection was last closed. */
+  private int m_requests;
+  private long m_firstRequestTime;
+
   static {
     // Load HTTPClient modules dynamically as we don't have public
     // access.
@@ -87,6 +95,9 @@ final class HTTPConnectionWrapper implements HTTPPluginConnection {
     setProxyServer(defaults.getProxyHost(), defaults.getProxyPort());
     setLocalAddress(defaults.getLocalAddress());
     setBandwidthLimit(defaults.getBandwidthLimit());
+    setKeepAliveBetweenRuns(defaults.getKeepAliveBetweenRuns());
+    setMaximumConnectionAge(defaults.getMaximumConnectionAge());
+    setMaximumConnectionRequests(defaults.getMaximumConnectionRequests());
   }
 
   HTTPConnection getConnection() {
@@ -191,8 +202,50 @@ final class HTTPConnectionWrapper implements HTTPPluginConnection {
     }
   }
 
+  @Override
+  public void setKeepAliveBetweenRuns(final boolean keepAlive) {
+    m_keepAliveBetweenRuns = keepAlive;
+  }
+
+  boolean getKeepAliveBetweenRuns() {
+    return m_keepAliveBetweenRuns;
+  }
+
+  @Override
+  public void setMaximumConnectionAge(final long milliseconds) {
+    m_maximumConnectionAge = milliseconds;
+  }
+
+  @Override
+  public void setMaximumConnectionRequests(final int requests) {
+    m_maximumConnectionRequests = requests;
+  }
+
+  /**
+   * Called before each request is sent. Closes the physical connection if
+   * it has exceeded the maximum age or number of requests.
+   *
+   * @param now The current time in milliseconds.
+   */
+  void beginRequest(final long now) {
+    if (m_requests > 0 &&
+        (m_maximumConnectionRequests > 0 &&
+         m_requests >= m_maximumConnectionRequests ||
+         m_maximumConnectionAge > 0 &&
+         now - m_firstRequestTime >= m_maximumConnectionAge)) {
+      close();
+    }
+
+    if (m_requests == 0) {
+      m_firstRequestTime = now;
+    }
+
+    ++m_requests;
+  }
+
   @Override
   public void close() {
     m_httpConnection.stop();
+    m_requests = 0;
   }
 }
@@ -178,6 +178,10 @@ public class HTTPPlugin implements GrinderPlugin {
           "New connections",
           StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED);
 
+        statistics.registerDataLogExpression(
+          "Time to complete SSL handshake",
+          StatisticsIndexMap.HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY);
+
         statistics.registerSummaryExpression(
           "Mean response length",
           "(/ " + StatisticsIndexMap.HTTP_PLUGIN_RESPONSE_LENGTH_KEY +
@@ -204,6 +208,12 @@ public class HTTPPlugin implements GrinderPlugin {
           " (+ " + StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED +
           "))");
 
+        statistics.registerSummaryExpression(
+          "Mean time to complete SSL handshake",
+          "(/ " + StatisticsIndexMap.HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY +
+          " (+ " + StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED +
+          "))");
+
         statistics.registerSummaryExpression(
           "Mean time to first byte",
           "(/ " + StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY +
@@ -228,7 +238,8 @@ public class HTTPPlugin implements GrinderPlugin {
 
     return new HTTPPluginThreadState(m_scriptContext.getSSLControl(),
                                      m_slowClientSleeper,
-                                     m_httpClientTimeAuthority);
+                                     m_httpClientTimeAuthority,
+                                     m_scriptContext.getLogger());
   }
 
   // It may be useful to separate out a null implementation that can
@@ -231,6 +231,58 @@ public interface HTTPPluginConnection {
    */
   void setBandwidthLimit(int targetBPS);
 
+  /**
+   * Set whether the physical connection should be kept open between
+   * runs.
+   *
+   * <p>By default, each worker thread closes all of its connections at the
+   * start of every run, so every run pays the full cost of establishing new
+   * TCP and SSL connections. If keep alive is enabled, the connection is
+   * retained and reused by the next run of the same worker thread. Settings
+   * made to a retained {@code HTTPPluginConnection} persist with it.</p>
+   *
+   * <p>Whether cookies are discarded between runs is controlled separately,
+   * see {@link HTTPPluginControl#setDiscardCookiesBetweenRuns}.</p>
+   *
+   * <p>Default: {@code false}</p>
+   *
+   * @param keepAlive {@code true} => keep connections open between runs.
+   * @see #setMaximumConnectionAge
+   * @see #setMaximumConnectionRequests
+   */
+  void setKeepAliveBetweenRuns(boolean keepAlive);
+
+  /**
+   * Limit the time for which a physical connection is reused.
+   *
+   * <p>Before each request, if the connection has been in use for longer
+   * than {@code milliseconds}, it is closed and a new connection will be
+   * established. The new connection is reported by the {@code
+   * httpplugin.connectionsEstablished} statistic in the usual way.</p>
+   *
+   * <p>Default: {@code 0}</p>
+   *
+   * @param milliseconds
+   *          Maximum connection age in milliseconds. Set to {@code 0} for no
+   *          limit.
+   */
+  void setMaximumConnectionAge(long milliseconds);
+
+  /**
+   * Limit the number of requests sent over a physical connection.
+   *
+   * <p>Before each request, if {@code requests} requests have already been
+   * sent over the connection, it is closed and a new connection will be
+   * established.</p>
+   *
+   * <p>Default: {@code 0}</p>
+   *
+   * @param requests
+   *          Maximum number of requests per connection. Set to {@code 0} for
+   *          no limit.
+   */
+  void setMaximumConnectionRequests(int requests);
+
   /**
    * Explicitly closes physical connection to the server. A new connection will
    * be created if this {@link HTTPPluginConnection} is used again. You
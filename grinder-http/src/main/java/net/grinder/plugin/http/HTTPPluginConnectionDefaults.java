@@ -51,6 +51,10 @@ final class HTTPPluginConnectionDefaults implements HTTPPluginConnection {
   private boolean m_verifyServerDistinguishedName = false;
   private InetAddress m_localAddress;
   private int m_slowClientTargetBPS;
+  private boolean m_keepAliveBetweenRuns = false;
+  private long m_maximumConnectionAge = 0;
+  private int m_maximumConnectionRequests = 0;
+  private boolean m_discardCookiesBetweenRuns = true;
 
   @Override
   public synchronized void setFollowRedirects(final boolean followRedirects) {
@@ -165,6 +169,41 @@ final class HTTPPluginConnectionDefaults implements HTTPPluginConnection {
     return m_slowClientTargetBPS;
   }
 
+  @Override
+  public synchronized void setKeepAliveBetweenRuns(final boolean keepAlive) {
+    m_keepAliveBetweenRuns = keepAlive;
+  }
+
+  synchronized boolean getKeepAliveBetweenRuns() {
+    return m_keepAliveBetweenRuns;
+  }
+
+  @Override
+  public synchronized void setMaximumConnectionAge(final long milliseconds) {
+    m_maximumConnectionAge = milliseconds;
+  }
+
+  synchronized long getMaximumConnectionAge() {
+    return m_maximumConnectionAge;
+  }
+
+  @Override
+  public synchronized void setMaximumConnectionRequests(final int requests) {
+    m_maximumConnectionRequests = requests;
+  }
+
+  synchronized int getMaximumConnectionRequests() {
+    return m_maximumConnectionRequests;
+  }
+
+  synchronized void setDiscardCookiesBetweenRuns(final boolean b) {
+    m_discardCookiesBetweenRuns = b;
+  }
+
+  synchronized boolean getDiscardCookiesBetweenRuns() {
+    return m_discardCookiesBetweenRuns;
+  }
+
   private static final HTTPPluginConnectionDefaults
     s_defaultConnectionDefaults = new HTTPPluginConnectionDefaults();
 
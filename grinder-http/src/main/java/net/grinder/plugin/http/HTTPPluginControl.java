@@ -49,6 +49,33 @@ public final class HTTPPluginControl {
     return HTTPPluginConnectionDefaults.getConnectionDefaults();
   }
 
+  /**
+   * Returns a {@link NameResolverControl} that can be used to control how
+   * host names are resolved.
+   *
+   * @return The {@code NameResolverControl}.
+   */
+  public static NameResolverControl getNameResolverControl() {
+    return NameResolverControlImplementation.getInstance();
+  }
+
+  /**
+   * Set whether each worker thread discards its cookies at the start of
+   * each run.
+   *
+   * <p>This is independent of whether connections are kept open between
+   * runs, see {@link HTTPPluginConnection#setKeepAliveBetweenRuns}.</p>
+   *
+   * <p>Default: {@code true}</p>
+   *
+   * @param discardCookies {@code true} => discard cookies between runs.
+   */
+  public static void setDiscardCookiesBetweenRuns(
+    final boolean discardCookies) {
+    HTTPPluginConnectionDefaults.getConnectionDefaults()
+      .setDiscardCookiesBetweenRuns(discardCookies);
+  }
+
   /**
    * Returns a {@link HTTPPluginConnection} for a particular URL.
    *
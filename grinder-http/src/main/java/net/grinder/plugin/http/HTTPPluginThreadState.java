@@ -22,6 +22,7 @@
 package net.grinder.plugin.http;
 
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 import net.grinder.common.SSLContextFactory;
@@ -30,6 +31,9 @@ import net.grinder.common.SkeletonThreadLifeCycleListener;
 import net.grinder.plugininterface.PluginException;
 import net.grinder.plugininterface.PluginThreadListener;
 import net.grinder.util.Sleeper;
+
+import org.slf4j.Logger;
+
 import HTTPClient.CookieModule;
 import HTTPClient.HTTPConnection;
 import HTTPClient.HTTPConnection.TimeAuthority;
@@ -54,14 +58,35 @@ class HTTPPluginThreadState
   private HTTPResponse m_lastResponse;
   private final Sleeper m_slowClientSleeper;
   private final TimeAuthority m_timeAuthority;
+  private final NameResolverControlImplementation.ThreadNameResolver
+    m_nameResolver;
+  private final Logger m_logger;
 
   HTTPPluginThreadState(final SSLContextFactory sslContextFactory,
                         final Sleeper slowClientSleeper,
-                        final TimeAuthority timeAuthority)
+                        final TimeAuthority timeAuthority,
+                        final Logger logger)
     throws PluginException {
     m_sslContextFactory = sslContextFactory;
     m_slowClientSleeper = slowClientSleeper;
     m_timeAuthority = timeAuthority;
+    m_logger = logger;
+    m_nameResolver =
+      NameResolverControlImplementation.getInstance()
+      .createThreadResolver(timeAuthority);
+  }
+
+  /**
+   * Returns the key used to look up the connection for a URI. Callers that
+   * make many requests to the same URI can calculate this once and use
+   * {@link #getConnectionWrapper(URI, URI)}.
+   *
+   * @param uri The URI.
+   * @return The key.
+   * @throws ParseException If the key could not be created.
+   */
+  static URI getConnectionKey(final URI uri) throws ParseException {
+    return new URI(uri.getScheme(), uri.getHost(), uri.getPort(), "");
   }
 
   public HTTPConnectionWrapper getConnectionWrapper(final URI uri)
@@ -69,8 +94,13 @@ class HTTPPluginThreadState
            ProtocolNotSuppException,
            SSLContextFactoryException {
 
-    final URI keyURI =
-      new URI(uri.getScheme(), uri.getHost(), uri.getPort(), "");
+    return getConnectionWrapper(uri, getConnectionKey(uri));
+  }
+
+  public HTTPConnectionWrapper getConnectionWrapper(final URI uri,
+                                                    final URI keyURI)
+    throws ProtocolNotSuppException,
+           SSLContextFactoryException {
 
     final HTTPConnectionWrapper existingConnectionWrapper =
       m_httpConnectionWrappers.get(keyURI);
@@ -89,6 +119,7 @@ class HTTPPluginThreadState
       m_sslContextFactory.getSSLContext().getSocketFactory());
 
     httpConnection.setTimeAuthority(m_timeAuthority);
+    httpConnection.setNameResolver(m_nameResolver);
 
     final HTTPConnectionWrapper newConnectionWrapper =
       new HTTPConnectionWrapper(httpConnection,
@@ -102,16 +133,28 @@ class HTTPPluginThreadState
 
   @Override
   public void beginRun() {
-    // Discard our cookies.
-    CookieModule.discardAllCookies(this);
+    if (HTTPPluginConnectionDefaults.getConnectionDefaults()
+        .getDiscardCookiesBetweenRuns()) {
+      CookieModule.discardAllCookies(this);
+    }
+
+    // Close connections from previous run, unless they should be kept alive.
+    final Iterator<HTTPConnectionWrapper> iterator =
+      m_httpConnectionWrappers.values().iterator();
 
-    // Close connections from previous run.
-    for (final HTTPConnectionWrapper connection :
-      m_httpConnectionWrappers.values()) {
-      connection.close();
+    while (iterator.hasNext()) {
+      final HTTPConnectionWrapper connection = iterator.next();
+
+      if (!connection.getKeepAliveBetweenRuns()) {
+        connection.close();
+        iterator.remove();
+      }
     }
+  }
 
-    m_httpConnectionWrappers.clear();
+  @Override
+  public void endThread() {
+    m_nameResolver.report(m_logger);
   }
 
   public void setLastResponse(final HTTPResponse lastResponse) {
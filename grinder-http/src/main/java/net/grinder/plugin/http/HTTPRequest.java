@@ -38,6 +38,8 @@ import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.lang.reflect.Method;
 import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -46,6 +48,7 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import net.grinder.common.Closer;
 import net.grinder.common.GrinderException;
 import net.grinder.plugininterface.PluginException;
 import net.grinder.script.Grinder.ScriptContext;
@@ -1000,6 +1003,69 @@ public class HTTPRequest {
       .getHTTPResponse();
   }
 
+  /**
+   * Makes an HTTP {@code POST} request. This version sends the contents of
+   * a file as the body of the request.
+   *
+   * <p>The file is read in large blocks directly from its file channel and
+   * its length is sent as the {@code Content-Length}, so the request body is
+   * never held in memory. This is more efficient than {@link
+   * #setDataFromFile} or the {@link InputStream} variants for large
+   * files.</p>
+   *
+   * @param uri The URI. If a default URL has been specified with
+   * {@link #setUrl}, this value need not be absolute and, if
+   * relative, it will be resolved relative to the default URL.
+   * Otherwise this value must be an absolute URL.
+   * @param file File containing the data to be submitted in the body of the
+   * request. The value set with {@link #setData} is ignored.
+   * @return Contains details of the server's response.
+   * @throws Exception If an error occurs.
+   */
+  public final HTTPResponse POST(final String uri, final File file)
+    throws Exception {
+    return POST(uri, file, getHeaders());
+  }
+
+  /**
+   * Makes an HTTP {@code POST} request. This version sends the contents of
+   * a file as the body of the request.
+   *
+   * <p>The file is read in large blocks directly from its file channel and
+   * its length is sent as the {@code Content-Length}, so the request body is
+   * never held in memory. This is more efficient than {@link
+   * #setDataFromFile} or the {@link InputStream} variants for large
+   * files.</p>
+   *
+   * @param uri The URI. If a default URL has been specified with
+   * {@link #setUrl}, this value need not be absolute and, if
+   * relative, it will be resolved relative to the default URL.
+   * Otherwise this value must be an absolute URL.
+   * @param file File containing the data to be submitted in the body of the
+   * request. The value set with {@link #setData} is ignored.
+   * @param headers
+   *          Request headers. Overrides headers with matching names set by
+   *          {@link #setHeaders}.
+   * @return Contains details of the server's response.
+   * @throws Exception If an error occurs.
+   */
+  public final HTTPResponse POST(final String uri,
+                                 final File file,
+                                 final NVPair[] headers) throws Exception {
+
+    return new FileRequest(uri, headers, file) {
+        @Override
+        HTTPResponse doStreamingRequest(final HTTPConnection connection,
+                                        final String path,
+                                        final NVPair[] mergedHeaders,
+                                        final HttpOutputStream outputStream)
+          throws IOException, ModuleException {
+          return connection.Post(path, outputStream, mergedHeaders);
+        }
+      }
+      .getHTTPResponse();
+  }
+
   /**
    * Makes an HTTP {@code PUT} request.
    *
@@ -1135,6 +1201,69 @@ public class HTTPRequest {
       .getHTTPResponse();
   }
 
+  /**
+   * Makes an HTTP {@code PUT} request. This version sends the contents of
+   * a file as the body of the request.
+   *
+   * <p>The file is read in large blocks directly from its file channel and
+   * its length is sent as the {@code Content-Length}, so the request body is
+   * never held in memory. This is more efficient than {@link
+   * #setDataFromFile} or the {@link InputStream} variants for large
+   * files.</p>
+   *
+   * @param uri The URI. If a default URL has been specified with
+   * {@link #setUrl}, this value need not be absolute and, if
+   * relative, it will be resolved relative to the default URL.
+   * Otherwise this value must be an absolute URL.
+   * @param file File containing the data to be submitted in the body of the
+   * request. The value set with {@link #setData} is ignored.
+   * @return Contains details of the server's response.
+   * @throws Exception If an error occurs.
+   */
+  public final HTTPResponse PUT(final String uri, final File file)
+    throws Exception {
+    return PUT(uri, file, getHeaders());
+  }
+
+  /**
+   * Makes an HTTP {@code PUT} request. This version sends the contents of
+   * a file as the body of the request.
+   *
+   * <p>The file is read in large blocks directly from its file channel and
+   * its length is sent as the {@code Content-Length}, so the request body is
+   * never held in memory. This is more efficient than {@link
+   * #setDataFromFile} or the {@link InputStream} variants for large
+   * files.</p>
+   *
+   * @param uri The URI. If a default URL has been specified with
+   * {@link #setUrl}, this value need not be absolute and, if
+   * relative, it will be resolved relative to the default URL.
+   * Otherwise this value must be an absolute URL.
+   * @param file File containing the data to be submitted in the body of the
+   * request. The value set with {@link #setData} is ignored.
+   * @param headers
+   *          Request headers. Overrides headers with matching names set by
+   *          {@link #setHeaders}.
+   * @return Contains details of the server's response.
+   * @throws Exception If an error occurs.
+   */
+  public final HTTPResponse PUT(final String uri,
+                                final File file,
+                                final NVPair[] headers) throws Exception {
+
+    return new FileRequest(uri, headers, file) {
+        @Override
+        HTTPResponse doStreamingRequest(final HTTPConnection connection,
+                                        final String path,
+                                        final NVPair[] mergedHeaders,
+                                        final HttpOutputStream outputStream)
+          throws IOException, ModuleException {
+          return connection.Put(path, outputStream, mergedHeaders);
+        }
+      }
+      .getHTTPResponse();
+  }
+
   /**
    * Makes an HTTP {@code PUT} request.
    *
@@ -1326,6 +1455,180 @@ public class HTTPRequest {
       .getHTTPResponse();
   }
 
+  /**
+   * Prepares a request that can be executed many times.
+   *
+   * <p>The URI is resolved and the request headers are merged once, when
+   * this method is called, rather than each time the request is made. This
+   * reduces the per-request overhead of scripts that make the same request
+   * many times, such as those recorded by the TCPProxy.</p>
+   *
+   * <p>The {@link #setHeaders default headers} and {@link #setUrl default
+   * URL} at the time of the call are used; later changes to them do not
+   * affect the returned {@link PreparedRequest}. The {@link
+   * #setReadResponseBody} setting and {@link #processResponse} are applied
+   * each time the request is executed.</p>
+   *
+   * @param method
+   *          The HTTP method, e.g. {@code GET}. Leading and trailing white
+   *          space is removed; the method is otherwise sent as given.
+   * @param uri
+   *          The URI. If a default URL has been specified with
+   *          {@link #setUrl}, this value need not be absolute and, if
+   *          relative, it will be resolved relative to the default URL.
+   *          Otherwise this value must be an absolute URL.
+   * @return The prepared request.
+   * @throws Exception If an error occurs.
+   */
+  public final PreparedRequest prepare(final String method, final String uri)
+    throws Exception {
+    return prepare(method, uri, getHeaders(), null);
+  }
+
+  /**
+   * Prepares a request that can be executed many times.
+   *
+   * @param method
+   *          The HTTP method, e.g. {@code GET}.
+   * @param uri
+   *          The URI. If a default URL has been specified with
+   *          {@link #setUrl}, this value need not be absolute and, if
+   *          relative, it will be resolved relative to the default URL.
+   *          Otherwise this value must be an absolute URL.
+   * @param headers
+   *          Request headers. Overrides headers with matching names set by
+   *          {@link #setHeaders}.
+   * @return The prepared request.
+   * @throws Exception If an error occurs.
+   * @see #prepare(String, String)
+   */
+  public final PreparedRequest prepare(final String method,
+                                       final String uri,
+                                       final NVPair[] headers)
+    throws Exception {
+    return prepare(method, uri, headers, null);
+  }
+
+  /**
+   * Prepares a request that can be executed many times.
+   *
+   * @param method
+   *          The HTTP method, e.g. {@code GET}.
+   * @param uri
+   *          The URI. If a default URL has been specified with
+   *          {@link #setUrl}, this value need not be absolute and, if
+   *          relative, it will be resolved relative to the default URL.
+   *          Otherwise this value must be an absolute URL.
+   * @param headers
+   *          Request headers. Overrides headers with matching names set by
+   *          {@link #setHeaders}.
+   * @param data
+   *          Data to be submitted in the body of the request, or
+   *          {@code null} for no body. The data is copied. {@code POST},
+   *          {@code PUT}, and {@code PATCH} requests always have a body; an
+   *          empty body is sent if {@code data} is {@code null}.
+   * @return The prepared request.
+   * @throws Exception If an error occurs.
+   * @see #prepare(String, String)
+   */
+  public final PreparedRequest prepare(final String method,
+                                       final String uri,
+                                       final NVPair[] headers,
+                                       final byte[] data)
+    throws Exception {
+
+    if (method == null || method.trim().length() == 0) {
+      throw new URLException("HTTP method not specified");
+    }
+
+    final String trimmedMethod = method.trim();
+
+    final byte[] body;
+
+    if (data != null) {
+      // Copy, so later changes to the caller's array don't affect us.
+      body = data.clone();
+    }
+    else if (s_methodsWithBody.contains(trimmedMethod)) {
+      body = new byte[0];
+    }
+    else {
+      body = null;
+    }
+
+    return new PreparedRequest(
+      trimmedMethod,
+      new AbstractRequest(uri, headers) {
+        @Override
+        HTTPResponse doRequest(final HTTPConnection connection,
+                               final String path,
+                               final NVPair[] mergedHeaders)
+          throws IOException, ModuleException {
+          return connection.ExtensionMethod(trimmedMethod,
+                                            path,
+                                            body,
+                                            mergedHeaders);
+        }
+      });
+  }
+
+  /**
+   * A request created by {@link HTTPRequest#prepare}, ready to be executed.
+   *
+   * <p>Instances are immutable, and may be shared between worker threads.
+   * Each execution uses the calling worker thread's connections. To record
+   * statistics, wrap the prepared request with {@link Test#record(Object)}.
+   * </p>
+   */
+  public final class PreparedRequest {
+    private final String m_method;
+    private final AbstractRequest m_request;
+
+    private PreparedRequest(final String method,
+                            final AbstractRequest request) {
+      m_method = method;
+      m_request = request;
+    }
+
+    /**
+     * Makes the request.
+     *
+     * @return Contains details of the server's response.
+     * @throws Exception If an error occurs.
+     */
+    public HTTPResponse execute() throws Exception {
+      return m_request.getHTTPResponse();
+    }
+
+    /**
+     * Returns the HTTP method.
+     *
+     * @return The method.
+     */
+    public String getMethod() {
+      return m_method;
+    }
+
+    /**
+     * Returns the resolved URL.
+     *
+     * @return The URL.
+     */
+    public String getUrl() {
+      return m_request.getURL().toString();
+    }
+
+    /**
+     * Returns a string representation of the prepared request.
+     *
+     * @return The method and URL.
+     */
+    @Override
+    public String toString() {
+      return m_method + " " + getUrl();
+    }
+  }
+
   /**
    * Subclasses of HTTPRequest that wish to post-process responses
    * should override this method.
@@ -1343,6 +1646,8 @@ public class HTTPRequest {
   private abstract class AbstractRequest {
     private final URI m_url;
     private final NVPair[] m_mergedHeaders;
+    private final String m_path;
+    private final URI m_connectionKey;
 
     public AbstractRequest(final String uri, final NVPair[] headers)
       throws ParseException, URLException {
@@ -1395,6 +1700,16 @@ public class HTTPRequest {
           m_url = new URI(defaultURL, uri);
         }
       }
+
+      final String pathAndQuery = m_url.getPathAndQuery();
+      final String fragment = m_url.getFragment();
+
+      m_path = fragment != null ? pathAndQuery + '#' + fragment : pathAndQuery;
+      m_connectionKey = HTTPPluginThreadState.getConnectionKey(m_url);
+    }
+
+    public final URI getURL() {
+      return m_url;
     }
 
     public final HTTPResponse getHTTPResponse()
@@ -1406,26 +1721,23 @@ public class HTTPRequest {
       final HTTPPluginThreadState threadState = plugin.getThreadState();
       final ScriptContext scriptContext = plugin.getScriptContext();
 
-      final String pathAndQuery = m_url.getPathAndQuery();
-      final String fragment = m_url.getFragment();
-
-      final String path =
-        fragment != null ? pathAndQuery + '#' + fragment : pathAndQuery;
-
-      final HTTPConnection connection =
-        threadState.getConnectionWrapper(m_url).getConnection();
+      final HTTPConnectionWrapper connectionWrapper =
+        threadState.getConnectionWrapper(m_url, m_connectionKey);
+      final HTTPConnection connection = connectionWrapper.getConnection();
 
       // This will be different to the time the Test was started if
       // the Test wraps several HTTPRequests.
       final long startTime =
         connection.getTimeAuthority().getTimeInMilliseconds();
 
+      connectionWrapper.beginRequest(startTime);
+
       final long oldConnections = connection.getConnectionsEstablished();
 
       final HTTPResponse httpResponse;
 
       try {
-        httpResponse = doRequest(connection, path, m_mergedHeaders);
+        httpResponse = doRequest(connection, m_path, m_mergedHeaders);
       }
       catch (final InterruptedIOException e) {
         // We never interrupt worker threads, so we can be sure this is due to
@@ -1457,6 +1769,7 @@ public class HTTPRequest {
 
       final long dnsTime = connection.getDnsTime();
       final long connectTime = connection.getConnectTime();
+      final long sslHandshakeTime = connection.getSSLHandshakeTime();
       final long timeToFirstByte =
         httpResponse.getTimeToFirstByte() - startTime;
       final boolean newConnection =
@@ -1518,6 +1831,10 @@ public class HTTPRequest {
 
             statisticsForCurrentTest.addLong(
               StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED, 1);
+
+            statisticsForCurrentTest.addLong(
+              StatisticsIndexMap.HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY,
+              sslHandshakeTime);
           }
         }
       }
@@ -1554,7 +1871,7 @@ public class HTTPRequest {
                            final NVPair[] mergedHeaders)
       throws IOException, ModuleException {
 
-      long contentLength = -1;
+      long contentLength = getDefaultContentLength();
 
       for (final NVPair header : mergedHeaders) {
         if (header != null &&
@@ -1564,20 +1881,39 @@ public class HTTPRequest {
         }
       }
 
-      @SuppressWarnings("resource") // Closed by StreamCopier.
-      final HttpOutputStream outputStream =
-        contentLength >= 0 ?
-          new HttpOutputStream(contentLength) : new HttpOutputStream();
+      // Obtain the input stream before we start the request, so we fail
+      // cleanly if it can't be opened. It is closed whether or not the
+      // request succeeds.
+      final InputStream inputStream = getInputStream();
+
+      try {
+        @SuppressWarnings("resource") // Closed by copyBody.
+        final HttpOutputStream outputStream =
+          contentLength >= 0 ?
+            new HttpOutputStream(contentLength) : new HttpOutputStream();
+
+        final HTTPResponse result =
+          doStreamingRequest(connection, path, mergedHeaders, outputStream);
 
-      final HTTPResponse result =
-        doStreamingRequest(connection, path, mergedHeaders, outputStream);
+        copyBody(inputStream, outputStream);
 
-      new StreamCopier(4096, true).copy(getInputStream(), outputStream);
+        return result;
+      }
+      finally {
+        Closer.close(inputStream);
+      }
+    }
 
-      return result;
+    long getDefaultContentLength() {
+      return -1;
     }
 
-    abstract InputStream getInputStream();
+    void copyBody(final InputStream inputStream,
+                  final HttpOutputStream outputStream) throws IOException {
+      new StreamCopier(4096, true).copy(inputStream, outputStream);
+    }
+
+    abstract InputStream getInputStream() throws IOException;
 
     abstract HTTPResponse doStreamingRequest(final HTTPConnection connection,
                                              final String path,
@@ -1586,10 +1922,57 @@ public class HTTPRequest {
       throws IOException, ModuleException;
   }
 
+  private abstract class FileRequest extends AbstractStreamingRequest {
+
+    /**
+     * Large enough that the per-block overhead is insignificant; small
+     * enough that bandwidth limiting still has a fine granularity.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File m_file;
+
+    public FileRequest(final String uri,
+                       final NVPair[] headers,
+                       final File file)
+      throws ParseException, URLException {
+      super(uri, headers);
+      m_file = file;
+    }
+
+    @Override
+    long getDefaultContentLength() {
+      return m_file.length();
+    }
+
+    @Override
+    InputStream getInputStream() throws IOException {
+      return new FileInputStream(m_file);
+    }
+
+    @Override
+    void copyBody(final InputStream inputStream,
+                  final HttpOutputStream outputStream) throws IOException {
+
+      final FileChannel channel = ((FileInputStream) inputStream).getChannel();
+      final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+      while (channel.read(buffer) != -1) {
+        outputStream.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+      }
+
+      outputStream.close();
+    }
+  }
+
   private static boolean isAbsolute(final String uri) {
     return s_absoluteURIPattern.matcher(uri).matches();
   }
 
+  private static Collection<String> s_methodsWithBody =
+    asList("POST", "PUT", "PATCH");
+
   private static Collection<String> s_httpMethodNames =
     asList("DELETE", "GET", "HEAD", "OPTIONS", "POST", "PUT", "TRACE", "PATCH");
 
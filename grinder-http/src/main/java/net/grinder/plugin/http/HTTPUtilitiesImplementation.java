@@ -23,16 +23,15 @@ package net.grinder.plugin.http;
 
 import static java.util.Collections.emptyList;
 
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import net.grinder.common.GrinderException;
-import net.grinder.plugin.http.tcpproxyfilter.RegularExpressions;
-import net.grinder.plugin.http.tcpproxyfilter.RegularExpressionsImplementation;
+import net.grinder.plugin.http.tcpproxyfilter.HTMLTokenScanner;
 import net.grinder.util.AttributeStringParser;
 import net.grinder.util.AttributeStringParserImplementation;
 import net.grinder.util.http.URIParser;
@@ -40,6 +39,8 @@ import net.grinder.util.http.URIParserImplementation;
 import HTTPClient.Codecs;
 import HTTPClient.HTTPResponse;
 import HTTPClient.NVPair;
+import HTTPClient.ParseException;
+import HTTPClient.Util;
 
 
 /**
@@ -49,15 +50,14 @@ import HTTPClient.NVPair;
  */
 class HTTPUtilitiesImplementation implements HTTPUtilities {
 
+  private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
   private final URIParser m_uriParser = new URIParserImplementation();
-  private final RegularExpressions m_regularExpressions =
-    new RegularExpressionsImplementation();
   private final AttributeStringParser m_attributeStringParser =
     new AttributeStringParserImplementation();
 
   private final ThreadLocal<ParsedBody> m_parsedBodyThreadLocal =
     new ThreadLocal<ParsedBody>();
-  private final NameValue[] m_emptyNameValues = new NameValue[0];
 
   private final HTTPPlugin m_httpPlugin;
 
@@ -260,311 +260,378 @@ class HTTPUtilitiesImplementation implements HTTPUtilities {
   }
 
   /**
-   * Cache parse results from a HTTPResponse.
+   * Index of the tokens in a HTTPResponse.
+   *
+   * <p>The body is scanned once, at the byte level, to find the position and
+   * raw text of every input and hyperlink. The raw text is only decoded and
+   * parsed into name-value pairs when a script first asks for a token of
+   * the corresponding kind.</p>
    *
    * <p>Specific to a thread, so no need to synchronise.</p>
    */
-  private final class ParsedBody {
+  private final class ParsedBody implements HTMLTokenScanner.Listener {
 
     private final HTTPResponse m_response;
-    private final String m_body;
-    private final MatchList m_bodyInputMatchList;
-    private final MatchList m_hiddenInputMatchList;
-    private final MatchList m_bodyURIMatchList;
+    private final byte[] m_body;
+    private final Charset m_charset;
+
+    private final List<RawToken> m_inputs = new ArrayList<RawToken>();
+    private final List<RawToken> m_hyperlinks = new ArrayList<RawToken>();
+
+    private TokenIndex m_bodyInputIndex;
+    private TokenIndex m_hiddenInputIndex;
+    private TokenIndex m_bodyURIIndex;
 
     public ParsedBody(final HTTPResponse response) {
       m_response = response;
 
+      final byte[] body;
+      final String contentType;
+
       try {
         // This shouldn't fail as we have already read the complete response.
-        m_body = response.getText();
+        body = response.getData();
+        contentType = response.getHeader("Content-Type");
       }
       catch (final Exception e) {
         throw new AssertionError(e);
       }
 
-      m_bodyInputMatchList =
-        new InputMatchList(m_regularExpressions.getInputPattern(), m_body);
-      m_hiddenInputMatchList =
-        new InputMatchList(m_regularExpressions.getHiddenInputPattern(),
-                           m_body);
-      m_bodyURIMatchList = new BodyURIMatchList(m_body);
+      m_body = body != null ? body : new byte[0];
+      m_charset = getCharset(contentType);
+
+      new HTMLTokenScanner(this, m_body.length).scan(m_body, 0, m_body.length);
     }
 
     public boolean isValidForResponse(final HTTPResponse response) {
       return m_response.equals(response);
     }
 
+    @Override
+    public void hyperlinkURI(final long position, final String uri) {
+      m_hyperlinks.add(new RawToken((int) position, uri, false));
+    }
+
+    @Override
+    public void input(final long position,
+                      final String tag,
+                      final boolean hidden) {
+      m_inputs.add(new RawToken((int) position, tag, hidden));
+    }
+
     public String valueFromBodyInput(final String tokenName,
                                      final String afterText) {
-      return m_bodyInputMatchList.getMatchValue(tokenName, afterText);
+      indexInputs();
+      return m_bodyInputIndex.getValue(tokenName, getStartFrom(afterText));
     }
 
     public List<String> valuesFromBodyInput(final String tokenName,
                                             final String afterText) {
-      return m_bodyInputMatchList.getMatchValues(tokenName, afterText);
+      indexInputs();
+      return m_bodyInputIndex.getValues(tokenName, getStartFrom(afterText));
     }
 
-
     public String valueFromHiddenInput(final String tokenName,
                                        final String afterText) {
-      return m_hiddenInputMatchList.getMatchValue(tokenName, afterText);
+      indexInputs();
+      return m_hiddenInputIndex.getValue(tokenName, getStartFrom(afterText));
     }
 
     public List<String> valuesFromHiddenInput(final String tokenName,
                                               final String afterText) {
-      return m_hiddenInputMatchList.getMatchValues(tokenName, afterText);
+      indexInputs();
+      return m_hiddenInputIndex.getValues(tokenName, getStartFrom(afterText));
     }
 
     public String valueFromBodyURI(final String tokenName,
                                    final String afterText) {
-      return m_bodyURIMatchList.getMatchValue(tokenName, afterText);
+      indexHyperlinks();
+      return m_bodyURIIndex.getValue(tokenName, getStartFrom(afterText));
     }
 
     public List<String> valuesFromBodyURI(final String tokenName,
                                           final String afterText) {
-      return m_bodyURIMatchList.getMatchValues(tokenName, afterText);
+      indexHyperlinks();
+      return m_bodyURIIndex.getValues(tokenName, getStartFrom(afterText));
     }
-  }
 
-  private static final class NameValue {
-    private final String m_name;
-    private final String m_value;
+    private void indexInputs() {
+      if (m_bodyInputIndex != null) {
+        return;
+      }
 
-    public NameValue(final String name, final String value) {
-      m_name = name;
-      m_value = value;
-    }
+      m_bodyInputIndex = new TokenIndex();
+      m_hiddenInputIndex = new TokenIndex();
 
-    public String getName() {
-      return m_name;
-    }
+      for (final RawToken input : m_inputs) {
+        final AttributeStringParser.AttributeMap map =
+          m_attributeStringParser.parse(decode(input.getText()));
 
-    public String getValue() {
-      return m_value;
-    }
-  }
+        final String name = map.get("name");
+        final String value = map.get("value");
 
-  private static final class Match {
-    private final int m_position;
-    private final String m_value;
+        if (name != null && value != null) {
+          m_bodyInputIndex.add(name, input.getPosition(), value);
 
-    public Match(final int position, final String value) {
-      m_position = position;
-      m_value = value;
+          if (input.isHidden()) {
+            m_hiddenInputIndex.add(name, input.getPosition(), value);
+          }
+        }
+      }
     }
 
-    public int getPosition() {
-      return m_position;
-    }
+    private void indexHyperlinks() {
+      if (m_bodyURIIndex != null) {
+        return;
+      }
 
-    public String getValue() {
-      return m_value;
-    }
-  }
+      final TokenIndex index = new TokenIndex();
 
-  private static class CachedMatchList {
-    private final List<Match> m_matchesByPosition = new ArrayList<Match>();
-    private int m_lastPosition = -1;
+      for (final RawToken hyperlink : m_hyperlinks) {
+        final int position = hyperlink.getPosition();
 
-    public void addMatch(final Match match) {
-      m_matchesByPosition.add(match);
-      m_lastPosition = match.getPosition();
-    }
+        m_uriParser.parse(decode(hyperlink.getText()),
+                          new URIParser.AbstractParseListener() {
+          @Override
+          public boolean pathParameterNameValue(final String name,
+                                                final String value) {
+            index.add(name, position, value);
+            return true;
+          }
 
-    public Match getMatchFrom(final int startFrom) {
-      if (m_lastPosition >= startFrom) {
-        for (final Match match : m_matchesByPosition) {
-          if (match.getPosition() >= startFrom) {
-            return match;
+          @Override
+          public boolean queryStringNameValue(final String name,
+                                              final String value) {
+            index.add(name, position, value);
+            return true;
           }
-        }
+        });
       }
 
-      return null;
+      m_bodyURIIndex = index;
     }
-  }
-
-  private interface MatchList {
 
-    String getMatchValue(String tokenName, String afterText);
-
-    List<String> getMatchValues(String tokenName, String afterText);
-  }
+    /**
+     * The scanner interprets the body as ISO 8859-1, which maps each byte
+     * to the character with the same value. Recover the original bytes and
+     * decode them properly.
+     */
+    private String decode(final String text) {
+      if (m_charset.equals(ISO_8859_1)) {
+        return text;
+      }
 
-  private static class CachedValueMap {
-    private final Map<String, CachedMatchList> m_map =
-      new HashMap<String, CachedMatchList>();
+      return new String(text.getBytes(ISO_8859_1), m_charset);
+    }
 
-    public CachedMatchList get(final String tokenName) {
-      final CachedMatchList existing = m_map.get(tokenName);
+    /**
+     * Find the start position in the body for a search.
+     *
+     * @return The byte offset of the first occurrence of {@code text}, or
+     *         {@code -1} if {@code text} does not occur.
+     */
+    private int getStartFrom(final String text) {
+      // afterText parameter is infrequently used, so memoizing this
+      // method would cost more than it saved.
 
-      if (existing != null) {
-        return existing;
+      if (text == null) {
+        return 0;
       }
 
-      final CachedMatchList newCachedValueList = new CachedMatchList();
-      m_map.put(tokenName, newCachedValueList);
-      return newCachedValueList;
+      return indexOf(m_body, text.getBytes(m_charset));
     }
   }
 
-  private abstract static class AbstractMatchList implements MatchList {
-    private final String m_body;
-    private final Matcher m_matcher;
-    private final CachedValueMap m_cache = new CachedValueMap();
+  private static Charset getCharset(final String contentType) {
+    if (contentType != null) {
+      try {
+        final String charset = Util.getParameter("charset", contentType);
+
+        if (charset != null) {
+          return Charset.forName(charset);
+        }
+      }
+      catch (final ParseException e) {
+        // Malformed header; fall back to the HTTP default.
+      }
+      catch (final IllegalArgumentException e) {
+        // Unknown or illegal charset; fall back to the HTTP default.
+      }
+    }
+
+    return ISO_8859_1;
+  }
 
-    public AbstractMatchList(final Pattern pattern, final String body) {
-      m_body = body;
-      m_matcher = pattern.matcher(body);
+  private static int indexOf(final byte[] bytes, final byte[] target) {
+    if (target.length == 0) {
+      return 0;
     }
 
-    @Override
-    public String getMatchValue(final String tokenName,
-                                final String afterText) {
-      final int startFrom = getStartFrom(afterText);
+    final byte first = target[0];
+    final int last = bytes.length - target.length;
 
-      if (startFrom == -1) {
-        return "";
+    for (int i = 0; i <= last; ++i) {
+      if (bytes[i] != first) {
+        continue;
       }
 
-      final CachedMatchList cachedValueList = m_cache.get(tokenName);
+      int j = 1;
 
-      final Match match = getMatch(cachedValueList, tokenName, startFrom);
-      return match != null ? match.getValue() : "";
+      while (j < target.length && bytes[i + j] == target[j]) {
+        ++j;
+      }
+
+      if (j == target.length) {
+        return i;
+      }
     }
 
-    @Override
-    public List<String> getMatchValues(final String tokenName,
-                                       final String afterText) {
+    return -1;
+  }
 
-      int startFrom = getStartFrom(afterText);
+  private static final class RawToken {
+    private final int m_position;
+    private final String m_text;
+    private final boolean m_hidden;
 
-      if (startFrom == -1) {
-        return emptyList();
-      }
+    public RawToken(final int position,
+                    final String text,
+                    final boolean hidden) {
+      m_position = position;
+      m_text = text;
+      m_hidden = hidden;
+    }
 
-      final CachedMatchList cachedValueList = m_cache.get(tokenName);
+    public int getPosition() {
+      return m_position;
+    }
 
-      final List<String> result = new ArrayList<String>();
+    public String getText() {
+      return m_text;
+    }
 
-      while (true) {
-        final Match match = getMatch(cachedValueList, tokenName, startFrom);
+    public boolean isHidden() {
+      return m_hidden;
+    }
+  }
 
-        if (match == null) {
-          return result;
-        }
+  /**
+   * Values of each token name, in body order.
+   */
+  private static final class TokenIndex {
+    private final Map<String, ValueList> m_map =
+      new HashMap<String, ValueList>();
 
-        result.add(match.getValue());
-        startFrom = match.getPosition() + 1;
+    public void add(final String name, final int position, final String value) {
+      final ValueList existing = m_map.get(name);
+
+      if (existing != null) {
+        existing.add(position, value);
+      }
+      else {
+        final ValueList newValueList = new ValueList();
+        newValueList.add(position, value);
+        m_map.put(name, newValueList);
       }
     }
 
-    private Match getMatch(final CachedMatchList cachedValueList,
-                           final String tokenName,
-                           final int startFrom) {
+    public String getValue(final String tokenName, final int startFrom) {
+      if (startFrom == -1) {
+        return "";
+      }
 
-      final Match existingMatch = cachedValueList.getMatchFrom(startFrom);
+      final ValueList values = m_map.get(tokenName);
 
-      if (existingMatch != null) {
-        return existingMatch;
+      if (values == null) {
+        return "";
       }
 
-      Match result = null;
+      final int i = values.indexFrom(startFrom);
+
+      return i < values.size() ? values.get(i) : "";
+    }
 
-      // Cache miss, parse more of the body.
-      while (result == null && m_matcher.find()) {
-        final NameValue[] nameValueArray = parseMatch();
+    public List<String> getValues(final String tokenName,
+                                  final int startFrom) {
+      if (startFrom == -1) {
+        return emptyList();
+      }
 
-        final int matchPosition = m_matcher.start();
+      final ValueList values = m_map.get(tokenName);
 
-        for (final NameValue element : nameValueArray) {
-          final String name = element.getName();
+      if (values == null) {
+        return emptyList();
+      }
 
-          final Match match = new Match(matchPosition,
-                                        element.getValue());
+      final List<String> result = new ArrayList<String>();
+      int lastPosition = -1;
 
-          if (name.equals(tokenName)) {
-            cachedValueList.addMatch(match);
+      // Only the first value is returned for each position, so for a URI
+      // with repeated parameters we return the same value as getValue().
+      for (int i = values.indexFrom(startFrom); i < values.size(); ++i) {
+        final int position = values.getPosition(i);
 
-            if (result == null && matchPosition >= startFrom) {
-              result = match;
-            }
-          }
-          else {
-            m_cache.get(name).addMatch(match);
-          }
+        if (position != lastPosition) {
+          result.add(values.get(i));
+          lastPosition = position;
         }
       }
 
       return result;
     }
-
-    private int getStartFrom(final String text) {
-      // afterText parameter is infrequently used, so memoizing this
-      // method would cost more than it saved.
-
-      return text == null ? 0 : m_body.indexOf(text);
-    }
-
-    protected final Matcher getMatcher() {
-      return m_matcher;
-    }
-
-    protected abstract NameValue[] parseMatch();
   }
 
-  private final class InputMatchList extends AbstractMatchList {
+  /**
+   * Values and their positions, in increasing order of position.
+   */
+  private static final class ValueList {
+    private int[] m_positions = new int[4];
+    private String[] m_values = new String[4];
+    private int m_size;
+
+    public void add(final int position, final String value) {
+      if (m_size == m_positions.length) {
+        m_positions = Arrays.copyOf(m_positions, m_size * 2);
+        m_values = Arrays.copyOf(m_values, m_size * 2);
+      }
 
-    public InputMatchList(final Pattern pattern, final String body) {
-      super(pattern, body);
+      m_positions[m_size] = position;
+      m_values[m_size] = value;
+      ++m_size;
     }
 
-    @Override
-    protected NameValue[] parseMatch() {
-      final AttributeStringParser.AttributeMap map =
-        m_attributeStringParser.parse(getMatcher().group());
-
-      final String name = map.get("name");
-      final String value = map.get("value");
-
-      if (name != null && value != null) {
-        return new NameValue[] { new NameValue(name, value) };
-      }
-
-      return m_emptyNameValues;
+    public int size() {
+      return m_size;
     }
-  }
 
-  private final class BodyURIMatchList extends AbstractMatchList {
+    public String get(final int i) {
+      return m_values[i];
+    }
 
-    public BodyURIMatchList(final String body) {
-      super(m_regularExpressions.getHyperlinkURIPattern(), body);
+    public int getPosition(final int i) {
+      return m_positions[i];
     }
 
-    @Override
-    protected NameValue[] parseMatch() {
-      final List<NameValue> result = new ArrayList<NameValue>();
+    /**
+     * @return The index of the first value at or after {@code position}, or
+     *         {@link #size()} if there is none.
+     */
+    public int indexFrom(final int position) {
+      int low = 0;
+      int high = m_size;
 
-      final String uri = getMatcher().group(1);
+      while (low < high) {
+        final int middle = (low + high) >>> 1;
 
-      m_uriParser.parse(uri, new URIParser.AbstractParseListener() {
-        @Override
-        public boolean pathParameterNameValue(final String name,
-                                              final String value) {
-          result.add(new NameValue(name, value));
-          return true;
+        if (m_positions[middle] < position) {
+          low = middle + 1;
         }
-
-        @Override
-        public boolean queryStringNameValue(final String name,
-                                            final String value) {
-          result.add(new NameValue(name, value));
-          return true;
+        else {
+          high = middle;
         }
-      });
+      }
 
-      return result.toArray(new NameValue[result.size()]);
+      return low;
     }
   }
 }
@@ -0,0 +1,136 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http;
+
+
+/**
+ * Interface that scripts can use to control how the HTTP plug-in resolves
+ * host names. An implementation can be obtained using {@link
+ * HTTPPluginControl#getNameResolverControl}.
+ *
+ * <p>By default, host names are resolved using the Java VM for each new
+ * connection, and so are subject to the VM's global DNS cache. The time
+ * taken is recorded by the {@code httpplugin.dnsTime} statistic. The HTTP
+ * plug-in can instead maintain its own cache of resolved addresses, either
+ * shared by all worker threads or per worker thread, and can return the
+ * addresses of hosts with several addresses in round-robin order.</p>
+ *
+ * <p>These are worker process level settings. Changes affect subsequent
+ * host name resolutions by all worker threads.</p>
+ *
+ * @author agent
+ * @see HTTPPluginControl
+ */
+public interface NameResolverControl {
+
+  /**
+   * Where resolved addresses are cached.
+   */
+  enum CacheMode {
+    /** Resolve every host name using the Java VM. */
+    NONE,
+
+    /** Cache resolved addresses for all worker threads. */
+    SHARED,
+
+    /** Cache resolved addresses separately for each worker thread. */
+    PER_THREAD,
+  }
+
+  /**
+   * Set where resolved addresses are cached.
+   *
+   * <p>Default: {@link CacheMode#NONE}</p>
+   *
+   * @param mode The cache mode.
+   */
+  void setCacheMode(CacheMode mode);
+
+  /**
+   * Get where resolved addresses are cached.
+   *
+   * @return The cache mode.
+   */
+  CacheMode getCacheMode();
+
+  /**
+   * Set the time for which a resolved address is cached.
+   *
+   * <p>Default: {@code 0}</p>
+   *
+   * @param milliseconds
+   *          Time to live in milliseconds. Set to {@code 0} to cache
+   *          addresses indefinitely.
+   */
+  void setTimeToLive(long milliseconds);
+
+  /**
+   * Set whether the addresses of a host that resolves to several
+   * addresses should be rotated.
+   *
+   * <p>A new connection is made to the first address that accepts the
+   * connection. If round-robin is enabled, each resolution of the host
+   * starts at the next address, so the connections made by a test will
+   * be spread across all of the addresses. This also applies if the
+   * cache mode is {@link CacheMode#NONE}.</p>
+   *
+   * <p>Default: {@code false}</p>
+   *
+   * @param roundRobin {@code true} => rotate addresses.
+   */
+  void setRoundRobin(boolean roundRobin);
+
+  /**
+   * Pin the addresses for a host name. Pinned addresses are used
+   * regardless of the cache mode, and never expire.
+   *
+   * @param host The host name.
+   * @param addresses
+   *          The IP addresses. Pass {@code null} or an empty array to remove
+   *          the pinned addresses for {@code host}.
+   * @throws URLException If one of the {@code addresses} is not valid.
+   */
+  void setHostAddresses(String host, String[] addresses) throws URLException;
+
+  /**
+   * Discard all cached addresses. Pinned addresses are retained.
+   */
+  void clearCache();
+
+  /**
+   * Get the number of resolutions that were answered without consulting
+   * the Java VM, either from the cache or from pinned addresses.
+   *
+   * @return The number of hits.
+   */
+  long getHits();
+
+  /**
+   * Get the number of resolutions that were passed to the Java VM.
+   *
+   * <p>Hits and misses are counted for the whole worker process. Each
+   * worker thread also logs its own counts when it finishes.</p>
+   *
+   * @return The number of misses.
+   */
+  long getMisses();
+}
@@ -0,0 +1,315 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+
+import HTTPClient.HTTPConnection;
+import HTTPClient.HTTPConnection.NameResolver;
+import HTTPClient.HTTPConnection.TimeAuthority;
+
+
+/**
+ * Implementation of {@link NameResolverControl}. Creates the
+ * {@link HTTPClient.HTTPConnection.NameResolver}s used by each worker thread.
+ *
+ * @author agent
+ */
+final class NameResolverControlImplementation implements NameResolverControl {
+
+  private static final NameResolverControlImplementation s_instance =
+    new NameResolverControlImplementation(
+      HTTPConnection.getStandardNameResolver());
+
+  public static NameResolverControlImplementation getInstance() {
+    return s_instance;
+  }
+
+  private final NameResolver m_delegate;
+
+  private final ConcurrentMap<String, CacheEntry> m_pinned =
+    new ConcurrentHashMap<String, CacheEntry>();
+
+  private final ConcurrentMap<String, CacheEntry> m_sharedCache =
+    new ConcurrentHashMap<String, CacheEntry>();
+
+  private final ConcurrentMap<String, AtomicInteger> m_uncachedRotation =
+    new ConcurrentHashMap<String, AtomicInteger>();
+
+  private final AtomicInteger m_generation = new AtomicInteger();
+  private final AtomicLong m_hits = new AtomicLong();
+  private final AtomicLong m_misses = new AtomicLong();
+
+  private volatile CacheMode m_cacheMode = CacheMode.NONE;
+  private volatile long m_timeToLive = 0;
+  private volatile boolean m_roundRobin = false;
+
+  /**
+   * Constructor.
+   *
+   * @param delegate Resolver to use for cache misses.
+   */
+  NameResolverControlImplementation(NameResolver delegate) {
+    m_delegate = delegate;
+  }
+
+  @Override
+  public void setCacheMode(CacheMode mode) {
+    m_cacheMode = mode;
+  }
+
+  @Override
+  public CacheMode getCacheMode() {
+    return m_cacheMode;
+  }
+
+  @Override
+  public void setTimeToLive(long milliseconds) {
+    m_timeToLive = milliseconds;
+  }
+
+  @Override
+  public void setRoundRobin(boolean roundRobin) {
+    m_roundRobin = roundRobin;
+  }
+
+  @Override
+  public void setHostAddresses(String host, String[] addresses)
+    throws URLException {
+
+    final String key = key(host);
+
+    if (addresses == null || addresses.length == 0) {
+      m_pinned.remove(key);
+      return;
+    }
+
+    final InetAddress[] inetAddresses = new InetAddress[addresses.length];
+
+    try {
+      for (int i = 0; i < addresses.length; ++i) {
+        inetAddresses[i] =
+          InetAddress.getByAddress(
+            host, InetAddress.getByName(addresses[i]).getAddress());
+      }
+    }
+    catch (UnknownHostException e) {
+      throw new URLException(e.getMessage(), e);
+    }
+
+    m_pinned.put(key, new CacheEntry(inetAddresses, Long.MAX_VALUE));
+  }
+
+  @Override
+  public void clearCache() {
+    m_sharedCache.clear();
+    m_generation.incrementAndGet();
+  }
+
+  @Override
+  public long getHits() {
+    return m_hits.get();
+  }
+
+  @Override
+  public long getMisses() {
+    return m_misses.get();
+  }
+
+  /**
+   * Create a resolver for a worker thread.
+   *
+   * @param timeAuthority Time authority used to expire cache entries.
+   * @return The resolver.
+   */
+  ThreadNameResolver createThreadResolver(TimeAuthority timeAuthority) {
+    return new ThreadNameResolver(timeAuthority);
+  }
+
+  private static String key(String host) {
+    return host.toLowerCase(Locale.ENGLISH);
+  }
+
+  private static InetAddress[] rotate(InetAddress[] addresses,
+                                      AtomicInteger next) {
+    final int n = addresses.length;
+
+    // Always return a copy; HTTPClient is free to modify the array.
+    final InetAddress[] result = new InetAddress[n];
+
+    final int start =
+      next != null && n > 1 ? (next.getAndIncrement() & Integer.MAX_VALUE) % n
+                            : 0;
+
+    for (int i = 0; i < n; ++i) {
+      result[i] = addresses[(start + i) % n];
+    }
+
+    return result;
+  }
+
+  /**
+   * Resolver used by a single worker thread. Keeps its own hit and miss
+   * counts so they can be reported when the thread finishes.
+   */
+  final class ThreadNameResolver implements NameResolver {
+
+    private final TimeAuthority m_timeAuthority;
+    private long m_threadHits;
+    private long m_threadMisses;
+
+    private final ConcurrentMap<String, CacheEntry> m_threadCache =
+      new ConcurrentHashMap<String, CacheEntry>();
+
+    private int m_threadCacheGeneration = m_generation.get();
+
+    public ThreadNameResolver(TimeAuthority timeAuthority) {
+      m_timeAuthority = timeAuthority;
+    }
+
+    /**
+     * Log the number of host name resolutions made by this thread.
+     *
+     * @param logger The logger.
+     */
+    public void report(Logger logger) {
+      if (m_threadHits + m_threadMisses > 0) {
+        logger.info("host name resolution: {} hits, {} misses ({} mode)",
+                    new Object[] { m_threadHits, m_threadMisses,
+                                   m_cacheMode });
+      }
+    }
+
+    private void hit() {
+      ++m_threadHits;
+      m_hits.incrementAndGet();
+    }
+
+    private void miss() {
+      ++m_threadMisses;
+      m_misses.incrementAndGet();
+    }
+
+    @Override
+    public InetAddress[] getAllByName(String host)
+      throws UnknownHostException {
+
+      final String key = key(host);
+
+      final CacheEntry pinned = m_pinned.get(key);
+
+      if (pinned != null) {
+        hit();
+        return pinned.getAddresses(m_roundRobin);
+      }
+
+      final ConcurrentMap<String, CacheEntry> cache;
+
+      switch (m_cacheMode) {
+        case SHARED:
+          cache = m_sharedCache;
+          break;
+
+        case PER_THREAD:
+          final int generation = m_generation.get();
+
+          if (generation != m_threadCacheGeneration) {
+            m_threadCache.clear();
+            m_threadCacheGeneration = generation;
+          }
+
+          cache = m_threadCache;
+          break;
+
+        default:
+          miss();
+          return resolveUncached(key, host);
+      }
+
+      // Only consult the time authority if entries can expire.
+      final long timeToLive = m_timeToLive;
+      final long now =
+        timeToLive > 0 ? m_timeAuthority.getTimeInMilliseconds() : 0;
+
+      final CacheEntry existing = cache.get(key);
+
+      if (existing != null && existing.getExpiryTime() > now) {
+        hit();
+        return existing.getAddresses(m_roundRobin);
+      }
+
+      miss();
+
+      final CacheEntry entry =
+        new CacheEntry(m_delegate.getAllByName(host),
+                       timeToLive > 0 ? now + timeToLive : Long.MAX_VALUE);
+
+      cache.put(key, entry);
+
+      return entry.getAddresses(m_roundRobin);
+    }
+
+    private InetAddress[] resolveUncached(String key, String host)
+      throws UnknownHostException {
+
+      final InetAddress[] addresses = m_delegate.getAllByName(host);
+
+      if (!m_roundRobin) {
+        return addresses;
+      }
+
+      // Nothing is cached, so keep a rotation position for each host.
+      final AtomicInteger next = new AtomicInteger();
+      final AtomicInteger existing =
+        m_uncachedRotation.putIfAbsent(key, next);
+
+      return rotate(addresses, existing != null ? existing : next);
+    }
+  }
+
+  private static final class CacheEntry {
+    private final InetAddress[] m_addresses;
+    private final long m_expiryTime;
+    private final AtomicInteger m_next = new AtomicInteger();
+
+    public CacheEntry(InetAddress[] addresses, long expiryTime) {
+      m_addresses = addresses;
+      m_expiryTime = expiryTime;
+    }
+
+    public long getExpiryTime() {
+      return m_expiryTime;
+    }
+
+    public InetAddress[] getAddresses(boolean roundRobin) {
+      return rotate(m_addresses, roundRobin ? m_next : null);
+    }
+  }
+}
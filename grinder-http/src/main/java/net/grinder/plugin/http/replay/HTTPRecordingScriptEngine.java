@@ -0,0 +1,147 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.replay;
+
+import java.io.File;
+
+import net.grinder.common.GrinderException;
+import net.grinder.engine.common.EngineException;
+import net.grinder.plugin.http.HTTPPluginControl;
+import net.grinder.plugin.http.HTTPUtilities;
+import net.grinder.plugin.http.xml.HTTPRecordingType;
+import net.grinder.script.Grinder.ScriptContext;
+import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
+import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
+import net.grinder.scriptengine.ScriptExecutionException;
+import HTTPClient.NVPair;
+
+
+/**
+ * Script engine that replays an HTTP recording.
+ *
+ * <p>The recording is compiled once, when the engine is created. Worker
+ * threads share the compiled plan, and each has its own token values.</p>
+ *
+ * @author agent
+ */
+final class HTTPRecordingScriptEngine implements ScriptEngine {
+
+  private final ScriptContext m_scriptContext;
+  private final HTTPUtilities m_httpUtilities;
+  private final String[] m_tokenIDs;
+  private final PagePlan[] m_pages;
+
+  /**
+   * Constructor.
+   *
+   * @param recording The recording.
+   * @param directory Directory used to resolve relative body file names.
+   * @param scriptContext The script context.
+   * @throws EngineException If the recording could not be compiled.
+   */
+  public HTTPRecordingScriptEngine(final HTTPRecordingType recording,
+                                   final File directory,
+                                   final ScriptContext scriptContext)
+    throws EngineException {
+
+    m_scriptContext = scriptContext;
+
+    final RecordingCompiler compiler =
+      new RecordingCompiler(recording, directory);
+
+    try {
+      m_httpUtilities = HTTPPluginControl.getHTTPUtilities();
+
+      final NVPair[] defaultHeaders = compiler.getDefaultHeaders();
+
+      if (defaultHeaders != null) {
+        HTTPPluginControl.getConnectionDefaults()
+          .setDefaultHeaders(defaultHeaders);
+      }
+
+      m_pages = compiler.compile();
+    }
+    catch (final EngineException e) {
+      throw e;
+    }
+    catch (final GrinderException e) {
+      throw new ReplayException("Failed to compile recording", e);
+    }
+
+    m_tokenIDs = compiler.getTokenIDs();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public WorkerRunnable createWorkerRunnable() {
+    return new ReplayWorkerRunnable(
+      new WorkerState(m_tokenIDs, m_scriptContext, m_httpUtilities));
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public WorkerRunnable createWorkerRunnable(final Object testRunner)
+    throws EngineException {
+    throw new ReplayException(
+      "HTTP recordings do not support supplied test runners");
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public void shutdown() {
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public String getDescription() {
+    return "HTTP recording replay";
+  }
+
+  private final class ReplayWorkerRunnable implements WorkerRunnable {
+    private final WorkerState m_state;
+
+    private ReplayWorkerRunnable(final WorkerState state) {
+      m_state = state;
+    }
+
+    @Override public void run() throws ScriptExecutionException {
+      for (final PagePlan page : m_pages) {
+        try {
+          page.sleepAndRun(m_state);
+        }
+        catch (final ScriptExecutionException e) {
+          throw e;
+        }
+        catch (final Exception e) {
+          throw new ReplayException("Replay failed", e);
+        }
+      }
+    }
+
+    @Override public void shutdown() {
+    }
+  }
+}
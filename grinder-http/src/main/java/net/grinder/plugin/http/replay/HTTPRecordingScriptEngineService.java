@@ -0,0 +1,103 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.replay;
+
+import static java.util.Collections.emptyList;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import net.grinder.engine.common.EngineException;
+import net.grinder.engine.common.ScriptLocation;
+import net.grinder.plugin.http.xml.HttpRecordingDocument;
+import net.grinder.script.Grinder;
+import net.grinder.scriptengine.Instrumenter;
+import net.grinder.scriptengine.ScriptEngineService;
+import net.grinder.util.FileExtensionMatcher;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlObject;
+
+
+/**
+ * Script engine service that replays TCPProxy HTTP recordings.
+ *
+ * <p>A recording saved by the TCPProxy with {@code -http xml} can be used
+ * directly as the {@code grinder.script}. The recording is compiled into request plans
+ * when the worker process starts, and the plans are executed using {@link
+ * net.grinder.plugin.http.HTTPRequest}s. No script is generated, and no
+ * interpreter is involved.</p>
+ *
+ * <p>The tests are numbered in the same way as those of the Jython script
+ * that the TCPProxy would generate for the recording.</p>
+ *
+ * @author agent
+ */
+public final class HTTPRecordingScriptEngineService
+  implements ScriptEngineService {
+
+  private final FileExtensionMatcher m_xmlFileMatcher =
+    new FileExtensionMatcher(".xml");
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public ScriptEngine createScriptEngine(final ScriptLocation script)
+    throws EngineException {
+
+    final File file = script.getFile();
+
+    if (!m_xmlFileMatcher.accept(file)) {
+      return null;
+    }
+
+    final XmlObject document;
+
+    try {
+      document = XmlObject.Factory.parse(file);
+    }
+    catch (final XmlException e) {
+      throw new ReplayException("Failed to parse " + script, e);
+    }
+    catch (final IOException e) {
+      throw new ReplayException("Failed to read " + script, e);
+    }
+
+    if (!(document instanceof HttpRecordingDocument)) {
+      // Some other type of XML file.
+      return null;
+    }
+
+    return new HTTPRecordingScriptEngine(
+      ((HttpRecordingDocument) document).getHttpRecording(),
+      file.getAbsoluteFile().getParentFile(),
+      Grinder.grinder);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public List<? extends Instrumenter> createInstrumenters() {
+    return emptyList();
+  }
+}
@@ -0,0 +1,94 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.replay;
+
+import java.lang.reflect.Method;
+
+import net.grinder.script.Test.InstrumentationFilter;
+
+
+/**
+ * A recorded page, compiled for replay.
+ *
+ * <p>Each page is recorded against its own test, so only {@link #run} should
+ * be instrumented. Use {@link #getRunFilter}.</p>
+ *
+ * @author agent
+ */
+final class PagePlan {
+
+  private static final InstrumentationFilter s_runFilter =
+    new InstrumentationFilter() {
+      @Override public boolean matches(final Object item) {
+        return "run".equals(((Method) item).getName());
+      }
+    };
+
+  private final long m_sleepTime;
+  private final RequestPlan[] m_requests;
+
+  /**
+   * Constructor.
+   *
+   * @param sleepTime
+   *          Time to sleep before the page, in milliseconds. This time is not
+   *          included in the page test.
+   * @param requests
+   *          The page's requests.
+   */
+  public PagePlan(final long sleepTime, final RequestPlan[] requests) {
+    m_sleepTime = sleepTime;
+    m_requests = requests;
+  }
+
+  /**
+   * Sleep for the recorded time before the page, then replay it.
+   *
+   * @param state The worker thread state.
+   * @throws Exception If a request failed.
+   */
+  public void sleepAndRun(final WorkerState state) throws Exception {
+    state.sleep(m_sleepTime);
+    run(state);
+  }
+
+  /**
+   * Replay the page.
+   *
+   * @param state The worker thread state.
+   * @throws Exception If a request failed.
+   */
+  public void run(final WorkerState state) throws Exception {
+    for (final RequestPlan request : m_requests) {
+      request.run(state);
+    }
+  }
+
+  /**
+   * Return an instrumentation filter that selects {@link #run}.
+   *
+   * @return The filter.
+   */
+  public static InstrumentationFilter getRunFilter() {
+    return s_runFilter;
+  }
+}
@@ -0,0 +1,388 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.replay;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.grinder.common.GrinderException;
+import net.grinder.plugin.http.HTTPRequest;
+import net.grinder.plugin.http.xml.AuthorizationHeaderType;
+import net.grinder.plugin.http.xml.BaseURIType;
+import net.grinder.plugin.http.xml.BasicAuthorizationHeaderType;
+import net.grinder.plugin.http.xml.CommonHeadersType;
+import net.grinder.plugin.http.xml.HTTPRecordingType;
+import net.grinder.plugin.http.xml.HeaderType;
+import net.grinder.plugin.http.xml.HeadersType;
+import net.grinder.plugin.http.xml.PageType;
+import net.grinder.plugin.http.xml.ParsedURIPartType;
+import net.grinder.plugin.http.xml.RequestType;
+import net.grinder.plugin.http.xml.TokenReferenceType;
+import net.grinder.plugin.http.xml.TokenType;
+import net.grinder.script.Test;
+
+import org.apache.xmlbeans.XmlCursor;
+import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlString;
+
+import HTTPClient.Codecs;
+import HTTPClient.NVPair;
+
+
+/**
+ * Compiles an HTTP recording into {@link PagePlan}s.
+ *
+ * <p>The tests, and the order and content of the requests, are the same as
+ * those of the Jython script that {@code httpToJythonScript.xsl} would
+ * generate for the recording, so statistics from the two are
+ * comparable.</p>
+ *
+ * @author agent
+ */
+final class RecordingCompiler {
+
+  private static final String DEFAULT_HEADERS_ID = "defaultHeaders";
+
+  private static final int PAGE_TEST_NUMBER_INCREMENT = 100;
+
+  private final HTTPRecordingType m_recording;
+  private final File m_directory;
+
+  private final Map<String, Integer> m_tokenIndices =
+    new HashMap<String, Integer>();
+  private final String[] m_tokenIDs;
+  private final String[] m_tokenNames;
+
+  private final Map<String, String> m_baseURIs =
+    new HashMap<String, String>();
+
+  private final Map<String, NVPair[]> m_commonHeaders =
+    new HashMap<String, NVPair[]>();
+
+  /**
+   * Constructor.
+   *
+   * @param recording The recording.
+   * @param directory Directory used to resolve relative body file names.
+   */
+  public RecordingCompiler(final HTTPRecordingType recording,
+                           final File directory) {
+    m_recording = recording;
+    m_directory = directory;
+
+    final TokenType[] tokens = recording.getTokenArray();
+    m_tokenIDs = new String[tokens.length];
+    m_tokenNames = new String[tokens.length];
+
+    for (int i = 0; i < tokens.length; ++i) {
+      m_tokenIDs[i] = tokens[i].getTokenId();
+      m_tokenNames[i] = tokens[i].getName();
+      m_tokenIndices.put(m_tokenIDs[i], i);
+    }
+
+    for (final BaseURIType baseURI : recording.getBaseUriArray()) {
+      m_baseURIs.put(baseURI.getUriId(),
+                     baseURI.getScheme() + "://" + baseURI.getHost() + ":" +
+                     baseURI.getPort());
+    }
+
+    for (final CommonHeadersType headers :
+         recording.getCommonHeadersArray()) {
+      m_commonHeaders.put(headers.getHeadersId(), headers(headers));
+    }
+  }
+
+  /**
+   * The token IDs, in token number order.
+   *
+   * @return The token IDs.
+   */
+  public String[] getTokenIDs() {
+    return m_tokenIDs;
+  }
+
+  /**
+   * The headers that the recording specifies for every request.
+   *
+   * @return The default headers, or {@code null} if the recording has none.
+   */
+  public NVPair[] getDefaultHeaders() {
+    return m_commonHeaders.get(DEFAULT_HEADERS_ID);
+  }
+
+  /**
+   * Create the tests and the {@link PagePlan}s.
+   *
+   * @return The pages, in the recorded order.
+   * @throws GrinderException If the recording could not be compiled.
+   */
+  public PagePlan[] compile() throws GrinderException {
+
+    final PageType[] pages = m_recording.getPageArray();
+    final PagePlan[] result = new PagePlan[pages.length];
+
+    final int testNumberOffset =
+      m_recording.getMetadata().getTestNumberOffset();
+
+    int pageNumber = 1;
+
+    for (int i = 0; i < pages.length; ++i) {
+      final RequestType[] requests = pages[i].getRequestArray();
+      final RequestPlan[] requestPlans = new RequestPlan[requests.length];
+
+      final int pageTestNumber = pageNumber * PAGE_TEST_NUMBER_INCREMENT;
+
+      for (int j = 0; j < requests.length; ++j) {
+        final RequestType request = requests[j];
+
+        final Test test = new Test(pageTestNumber + j + 1 + testNumberOffset,
+                                   request.getDescription());
+
+        final HTTPRequest httpRequest = new HTTPRequest();
+
+        final String headersID = request.getHeaders().getExtends();
+
+        if (headersID != null && !DEFAULT_HEADERS_ID.equals(headersID)) {
+          httpRequest.setHeaders(commonHeaders(headersID));
+        }
+
+        final long sleepTime =
+          j > 0 && request.isSetSleepTime() ? request.getSleepTime() : 0;
+
+        try {
+          httpRequest.setUrl(baseURI(request.getUri().getExtends()));
+
+          requestPlans[j] =
+            new RequestPlan(httpRequest, request, sleepTime, this);
+        }
+        catch (final GrinderException e) {
+          throw e;
+        }
+        catch (final Exception e) {
+          throw new ReplayException(
+            "Failed to compile request " + test.getNumber(), e);
+        }
+
+        test.record(httpRequest, HTTPRequest.getHttpMethodFilter());
+      }
+
+      // The first request's sleep time is spent outside the page test.
+      final long pageSleepTime =
+        requests.length > 0 && requests[0].isSetSleepTime() ?
+          requests[0].getSleepTime() : 0;
+
+      result[i] = new PagePlan(pageSleepTime, requestPlans);
+
+      new Test(pageTestNumber, "Page " + pageNumber)
+        .record(result[i], PagePlan.getRunFilter());
+
+      // Pages with more than 100 requests use more than one page number.
+      pageNumber += 1 + requests.length / PAGE_TEST_NUMBER_INCREMENT;
+    }
+
+    return result;
+  }
+
+  private String baseURI(final String id) throws ReplayException {
+    final String result = m_baseURIs.get(id);
+
+    if (result == null) {
+      throw new ReplayException("Unknown base URI '" + id + "'");
+    }
+
+    return result;
+  }
+
+  private NVPair[] commonHeaders(final String id) throws ReplayException {
+    final NVPair[] result = m_commonHeaders.get(id);
+
+    if (result == null) {
+      throw new ReplayException("Unknown common headers '" + id + "'");
+    }
+
+    return result;
+  }
+
+  private int tokenIndex(final String tokenID) throws ReplayException {
+    final Integer result = m_tokenIndices.get(tokenID);
+
+    if (result == null) {
+      throw new ReplayException("Unknown token '" + tokenID + "'");
+    }
+
+    return result;
+  }
+
+  /**
+   * Return the name of a referenced token.
+   *
+   * @param reference The token reference.
+   * @return The token name.
+   * @throws ReplayException If the token is not defined.
+   */
+  String tokenName(final TokenReferenceType reference)
+    throws ReplayException {
+    return m_tokenNames[tokenIndex(reference.getTokenId())];
+  }
+
+  /**
+   * Return a string that refers to a token's current value.
+   *
+   * @param reference The token reference.
+   * @return The string.
+   * @throws ReplayException If the token is not defined.
+   */
+  TokenisedString tokenValue(final TokenReferenceType reference)
+    throws ReplayException {
+    return new TokenisedString.Builder()
+      .token(tokenIndex(reference.getTokenId()))
+      .build();
+  }
+
+  /**
+   * Return the update specified by a token reference.
+   *
+   * @param reference The token reference.
+   * @return The update, or {@code null} if the reference does not specify a
+   *         new value.
+   * @throws ReplayException If the token is not defined.
+   */
+  TokenUpdate tokenUpdate(final TokenReferenceType reference)
+    throws ReplayException {
+
+    if (!reference.isSetNewValue()) {
+      return null;
+    }
+
+    return TokenUpdate.create(tokenIndex(reference.getTokenId()),
+                              tokenName(reference),
+                              reference.getSource(),
+                              reference.getNewValue());
+  }
+
+  /**
+   * Compile part of a URI.
+   *
+   * @param part The parsed URI part.
+   * @param result The compiled part is appended to this builder.
+   * @param updates Token updates specified by the part are added to this
+   *          list.
+   * @throws ReplayException If a token is not defined.
+   */
+  void uriPart(final ParsedURIPartType part,
+               final TokenisedString.Builder result,
+               final List<TokenUpdate> updates)
+    throws ReplayException {
+
+    for (final XmlObject child : children(part)) {
+      if (child instanceof TokenReferenceType) {
+        final TokenReferenceType reference = (TokenReferenceType) child;
+
+        result.text(tokenName(reference) + "=")
+          .token(tokenIndex(reference.getTokenId()));
+
+        add(updates, tokenUpdate(reference));
+      }
+      else {
+        result.text(((XmlString) child).getStringValue());
+      }
+    }
+  }
+
+  /**
+   * Convert recorded headers to name-value pairs.
+   *
+   * @param headers The headers.
+   * @return The name-value pairs.
+   */
+  NVPair[] headers(final HeadersType headers) {
+    final List<NVPair> result = new ArrayList<NVPair>();
+
+    for (final XmlObject child : children(headers)) {
+      if (child instanceof HeaderType) {
+        final HeaderType header = (HeaderType) child;
+        result.add(new NVPair(header.getName(), header.getValue()));
+      }
+      else if (child instanceof AuthorizationHeaderType) {
+        final BasicAuthorizationHeaderType basic =
+          ((AuthorizationHeaderType) child).getBasic();
+
+        result.add(new NVPair("Authorization",
+                              "Basic " +
+                              Codecs.base64Encode(basic.getUserid() + ":" +
+                                                  basic.getPassword())));
+      }
+    }
+
+    return result.toArray(new NVPair[result.size()]);
+  }
+
+  /**
+   * Resolve a body file name relative to the recording.
+   *
+   * @param fileName The file name.
+   * @return The file.
+   */
+  File file(final String fileName) {
+    final File file = new File(fileName);
+
+    if (file.isAbsolute() || m_directory == null) {
+      return file;
+    }
+
+    return new File(m_directory, fileName);
+  }
+
+  static void add(final List<TokenUpdate> updates, final TokenUpdate update) {
+    if (update != null) {
+      updates.add(update);
+    }
+  }
+
+  /**
+   * Return the child elements in document order. The XMLBeans accessors
+   * return each type of child separately, losing the interleaving of
+   * choices and repeated sequences.
+   */
+  static List<XmlObject> children(final XmlObject parent) {
+    final List<XmlObject> result = new ArrayList<XmlObject>();
+
+    final XmlCursor cursor = parent.newCursor();
+
+    try {
+      if (cursor.toFirstChild()) {
+        do {
+          result.add(cursor.getObject());
+        }
+        while (cursor.toNextSibling());
+      }
+    }
+    finally {
+      cursor.dispose();
+    }
+
+    return result;
+  }
+}
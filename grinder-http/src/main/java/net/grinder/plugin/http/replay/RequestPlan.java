@@ -0,0 +1,266 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.replay;
+
+import static net.grinder.plugin.http.replay.RecordingCompiler.add;
+import static net.grinder.plugin.http.replay.RecordingCompiler.children;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import net.grinder.plugin.http.HTTPRequest;
+import net.grinder.plugin.http.xml.BodyType;
+import net.grinder.plugin.http.xml.FormBodyType;
+import net.grinder.plugin.http.xml.FormFieldType;
+import net.grinder.plugin.http.xml.RelativeURIType;
+import net.grinder.plugin.http.xml.RequestType;
+import net.grinder.plugin.http.xml.ResponseTokenReferenceType;
+import net.grinder.plugin.http.xml.TokenReferenceType;
+import net.grinder.util.SimpleStringEscaper;
+
+import org.apache.xmlbeans.XmlObject;
+
+import HTTPClient.NVPair;
+
+
+/**
+ * A recorded request, compiled so that it can be replayed without
+ * referring back to the recording.
+ *
+ * <p>Immutable, and shared by all worker threads. Per-thread token values
+ * are held by the {@link WorkerState}.</p>
+ *
+ * @author agent
+ */
+final class RequestPlan {
+
+  private final HTTPRequest m_request;
+  private final int m_method;
+  private final long m_sleepTime;
+  private final TokenUpdate[] m_requestTokenUpdates;
+  private final TokenisedString m_uri;
+  private final NVPair[] m_headers;
+  private final byte[] m_data;
+  private final String[] m_formNames;
+  private final TokenisedString[] m_formValues;
+  private final NVPair[] m_constantForm;
+  private final boolean m_multipart;
+  private final TokenUpdate[] m_responseTokenUpdates;
+
+  /**
+   * Constructor.
+   *
+   * @param request
+   *          The request to use. It should already have been instrumented.
+   * @param recorded
+   *          The recorded request.
+   * @param sleepTime
+   *          Time to sleep before the request, in milliseconds.
+   * @param compiler
+   *          Provides access to the recording's tokens.
+   * @throws Exception
+   *           If the request could not be compiled.
+   */
+  public RequestPlan(final HTTPRequest request,
+                     final RequestType recorded,
+                     final long sleepTime,
+                     final RecordingCompiler compiler)
+    throws Exception {
+
+    m_request = request;
+    m_method = recorded.getMethod().intValue();
+    m_sleepTime = sleepTime;
+
+    final List<TokenUpdate> requestTokenUpdates =
+      new ArrayList<TokenUpdate>();
+
+    // Fragments are not sent over the wire, so are ignored.
+    final RelativeURIType uri = recorded.getUri();
+
+    final TokenisedString.Builder uriBuilder = new TokenisedString.Builder();
+    compiler.uriPart(uri.getPath(), uriBuilder, requestTokenUpdates);
+
+    if (uri.getQueryString() != null) {
+      uriBuilder.text("?");
+      compiler.uriPart(uri.getQueryString(), uriBuilder, requestTokenUpdates);
+    }
+
+    m_uri = uriBuilder.build();
+
+    m_headers = compiler.headers(recorded.getHeaders());
+
+    final BodyType body = recorded.getBody();
+
+    final FormBodyType form = body != null ? body.getForm() : null;
+    final List<String> formNames = new ArrayList<String>();
+    final List<TokenisedString> formValues = new ArrayList<TokenisedString>();
+    boolean constantForm = true;
+
+    if (body == null) {
+      m_data = null;
+      m_multipart = false;
+    }
+    else if (form != null) {
+      if (m_method != RequestType.Method.INT_POST) {
+        throw new ReplayException(
+          "Form bodies are only supported for POST requests");
+      }
+
+      for (final XmlObject child : children(form)) {
+        if (child instanceof TokenReferenceType) {
+          final TokenReferenceType reference = (TokenReferenceType) child;
+          formNames.add(compiler.tokenName(reference));
+          formValues.add(compiler.tokenValue(reference));
+          add(requestTokenUpdates, compiler.tokenUpdate(reference));
+          constantForm = false;
+        }
+        else {
+          final FormFieldType field = (FormFieldType) child;
+          formNames.add(field.getName());
+          formValues.add(
+            new TokenisedString.Builder().text(field.getValue()).build());
+        }
+      }
+
+      m_data = null;
+      m_multipart = form.isSetMultipart() && form.getMultipart();
+    }
+    else if (body.isSetFile()) {
+      m_data = request.setDataFromFile(
+        compiler.file(body.getFile()).getPath());
+      m_multipart = false;
+    }
+    else if (body.isSetEscapedString()) {
+      m_data = new SimpleStringEscaper()
+        .unescape(body.getEscapedString()).getBytes("ISO8859_1");
+      m_multipart = false;
+    }
+    else {
+      m_data = body.getBinary();
+      m_multipart = false;
+    }
+
+    if (form != null) {
+      m_formNames = formNames.toArray(new String[formNames.size()]);
+      m_formValues =
+        formValues.toArray(new TokenisedString[formValues.size()]);
+      m_constantForm = constantForm ? formData(null) : null;
+    }
+    else {
+      m_formNames = null;
+      m_formValues = null;
+      m_constantForm = null;
+    }
+
+    m_requestTokenUpdates =
+      requestTokenUpdates.toArray(
+        new TokenUpdate[requestTokenUpdates.size()]);
+
+    final List<TokenUpdate> responseTokenUpdates =
+      new ArrayList<TokenUpdate>();
+
+    for (final ResponseTokenReferenceType reference :
+         recorded.getResponse().getTokenReferenceArray()) {
+      add(responseTokenUpdates, compiler.tokenUpdate(reference));
+    }
+
+    m_responseTokenUpdates =
+      responseTokenUpdates.toArray(
+        new TokenUpdate[responseTokenUpdates.size()]);
+  }
+
+  /**
+   * Build the form data. Values that do not refer to tokens are constant,
+   * and do not require a worker thread state.
+   */
+  private NVPair[] formData(final WorkerState state) throws ReplayException {
+    final NVPair[] result = new NVPair[m_formNames.length];
+
+    for (int i = 0; i < result.length; ++i) {
+      result[i] = new NVPair(m_formNames[i], m_formValues[i].resolve(state));
+    }
+
+    return result;
+  }
+
+  /**
+   * Make the request.
+   *
+   * @param state The worker thread state.
+   * @throws Exception If the request failed.
+   */
+  public void run(final WorkerState state) throws Exception {
+    state.sleep(m_sleepTime);
+
+    for (final TokenUpdate update : m_requestTokenUpdates) {
+      update.apply(state);
+    }
+
+    final String uri = m_uri.resolve(state);
+
+    switch (m_method) {
+      case RequestType.Method.INT_DELETE:
+        m_request.DELETE(uri, m_headers);
+        break;
+
+      case RequestType.Method.INT_GET:
+        m_request.GET(uri, null, m_headers);
+        break;
+
+      case RequestType.Method.INT_HEAD:
+        m_request.HEAD(uri, null, m_headers);
+        break;
+
+      case RequestType.Method.INT_OPTIONS:
+        m_request.OPTIONS(uri, m_data, m_headers);
+        break;
+
+      case RequestType.Method.INT_POST:
+        if (m_formNames != null) {
+          m_request.POST(uri,
+                         m_constantForm != null ?
+                           m_constantForm : formData(state),
+                         m_headers,
+                         m_multipart);
+        }
+        else {
+          m_request.POST(uri, m_data, m_headers);
+        }
+        break;
+
+      case RequestType.Method.INT_PUT:
+        m_request.PUT(uri, m_data, m_headers);
+        break;
+
+      case RequestType.Method.INT_TRACE:
+        m_request.TRACE(uri, m_headers);
+        break;
+
+      default:
+        throw new ReplayException("Unsupported method " + m_method);
+    }
+
+    for (final TokenUpdate update : m_responseTokenUpdates) {
+      update.apply(state);
+    }
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.replay;
+
+import net.grinder.common.GrinderException;
+import net.grinder.plugin.http.HTTPUtilities;
+import net.grinder.plugin.http.xml.TokenResponseLocationType;
+
+
+/**
+ * Sets a new value for a token, either from a value captured in the
+ * recording, or from the last response received by the worker thread.
+ *
+ * @author agent
+ */
+abstract class TokenUpdate {
+
+  private final int m_index;
+
+  protected TokenUpdate(final int index) {
+    m_index = index;
+  }
+
+  public final void apply(final WorkerState state) throws GrinderException {
+    state.setToken(m_index, value(state.getHTTPUtilities()));
+  }
+
+  protected abstract String value(HTTPUtilities httpUtilities)
+    throws GrinderException;
+
+  /**
+   * Factory method.
+   *
+   * @param index The token number.
+   * @param name The token name.
+   * @param source
+   *          Where the value should be found in the last response. If
+   *          {@code null}, {@code recordedValue} is used.
+   * @param recordedValue The recorded value.
+   * @return The update.
+   */
+  public static TokenUpdate create(final int index,
+                                   final String name,
+                                   final String source,
+                                   final String recordedValue) {
+    if (source == null) {
+      return new TokenUpdate(index) {
+        @Override protected String value(final HTTPUtilities httpUtilities) {
+          return recordedValue;
+        }
+      };
+    }
+    else if (TokenResponseLocationType.RESPONSE_LOCATION_HEADER_PATH_PARAMETER
+               .toString().equals(source) ||
+             TokenResponseLocationType.RESPONSE_LOCATION_HEADER_QUERY_STRING
+               .toString().equals(source)) {
+      return new TokenUpdate(index) {
+        @Override protected String value(final HTTPUtilities httpUtilities)
+          throws GrinderException {
+          return httpUtilities.valueFromLocationURI(name);
+        }
+      };
+    }
+    else if (TokenResponseLocationType.RESPONSE_BODY_HIDDEN_INPUT
+               .toString().equals(source)) {
+      return new TokenUpdate(index) {
+        @Override protected String value(final HTTPUtilities httpUtilities)
+          throws GrinderException {
+          return httpUtilities.valueFromHiddenInput(name);
+        }
+      };
+    }
+    else {
+      return new TokenUpdate(index) {
+        @Override protected String value(final HTTPUtilities httpUtilities)
+          throws GrinderException {
+          return httpUtilities.valueFromBodyURI(name);
+        }
+      };
+    }
+  }
+}
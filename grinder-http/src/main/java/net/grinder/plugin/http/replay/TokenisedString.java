@@ -0,0 +1,118 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.replay;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * A string made up of literal text and token values.
+ *
+ * <p>Immutable, and shared by all worker threads.</p>
+ *
+ * @author agent
+ */
+final class TokenisedString {
+
+  private static final int LITERAL = -1;
+
+  private final String[] m_text;
+  private final int[] m_tokens;
+  private final String m_constant;
+
+  private TokenisedString(final List<String> text,
+                          final List<Integer> tokens) {
+    m_text = text.toArray(new String[text.size()]);
+    m_tokens = new int[tokens.size()];
+
+    boolean constant = true;
+
+    for (int i = 0; i < m_tokens.length; ++i) {
+      m_tokens[i] = tokens.get(i);
+      constant &= m_tokens[i] == LITERAL;
+    }
+
+    if (constant) {
+      final StringBuilder result = new StringBuilder();
+
+      for (final String s : m_text) {
+        result.append(s);
+      }
+
+      m_constant = result.toString();
+    }
+    else {
+      m_constant = null;
+    }
+  }
+
+  /**
+   * Build the string for a particular worker thread.
+   *
+   * @param state The worker thread state.
+   * @return The string.
+   * @throws ReplayException If a referenced token has no value.
+   */
+  public String resolve(final WorkerState state) throws ReplayException {
+    if (m_constant != null) {
+      return m_constant;
+    }
+
+    final StringBuilder result = new StringBuilder();
+
+    for (int i = 0; i < m_tokens.length; ++i) {
+      if (m_tokens[i] == LITERAL) {
+        result.append(m_text[i]);
+      }
+      else {
+        result.append(state.getToken(m_tokens[i]));
+      }
+    }
+
+    return result.toString();
+  }
+
+  /**
+   * Builder for {@link TokenisedString}s.
+   */
+  static final class Builder {
+    private final List<String> m_text = new ArrayList<String>();
+    private final List<Integer> m_tokens = new ArrayList<Integer>();
+
+    public Builder text(final String text) {
+      m_text.add(text);
+      m_tokens.add(LITERAL);
+      return this;
+    }
+
+    public Builder token(final int index) {
+      m_text.add(null);
+      m_tokens.add(index);
+      return this;
+    }
+
+    public TokenisedString build() {
+      return new TokenisedString(m_text, m_tokens);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.replay;
+
+import net.grinder.common.GrinderException;
+import net.grinder.plugin.http.HTTPUtilities;
+import net.grinder.script.Grinder.ScriptContext;
+
+
+/**
+ * The state of a single worker thread replaying a recording.
+ *
+ * <p>The generated scripts hold token values as attributes of each
+ * {@code TestRunner} instance. We hold them in an array indexed by the token
+ * numbers assigned when the recording was compiled.</p>
+ *
+ * @author agent
+ */
+final class WorkerState {
+
+  private final String[] m_tokenIDs;
+  private final String[] m_tokenValues;
+  private final ScriptContext m_scriptContext;
+  private final HTTPUtilities m_httpUtilities;
+
+  public WorkerState(final String[] tokenIDs,
+                     final ScriptContext scriptContext,
+                     final HTTPUtilities httpUtilities) {
+    m_tokenIDs = tokenIDs;
+    m_tokenValues = new String[tokenIDs.length];
+    m_scriptContext = scriptContext;
+    m_httpUtilities = httpUtilities;
+  }
+
+  public String getToken(final int index) throws ReplayException {
+    final String result = m_tokenValues[index];
+
+    if (result == null) {
+      throw new ReplayException(
+        "No value has been found for token '" + m_tokenIDs[index] + "'");
+    }
+
+    return result;
+  }
+
+  public void setToken(final int index, final String value) {
+    m_tokenValues[index] = value;
+  }
+
+  public HTTPUtilities getHTTPUtilities() {
+    return m_httpUtilities;
+  }
+
+  public void sleep(final long time) throws GrinderException {
+    if (time > 0) {
+      m_scriptContext.sleep(time);
+    }
+  }
+}
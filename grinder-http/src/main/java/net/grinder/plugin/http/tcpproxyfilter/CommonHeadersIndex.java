@@ -0,0 +1,392 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.grinder.plugin.http.xml.CommonHeadersType;
+import net.grinder.plugin.http.xml.HeaderType;
+import net.grinder.plugin.http.xml.HeadersType;
+import net.grinder.plugin.http.xml.RequestType;
+import net.grinder.util.Pair;
+
+import org.apache.xmlbeans.XmlObject;
+
+
+/**
+ * Running index of the headers seen in a recording, used to factor out sets
+ * of common headers.
+ *
+ * <p>Requests are {@link #add added} as they are recorded. The index retains
+ * one entry for each distinct set of common headers, rather than the requests
+ * themselves. When the recording is complete, {@link #resolve} decides which
+ * sets are worth sharing, and the resulting {@link Resolution} is applied to
+ * each request as it is read back.</p>
+ *
+ * @author agent
+ */
+final class CommonHeadersIndex {
+
+  private static final String DEFAULT_HEADERS_ID = "defaultHeaders";
+
+  private final HTTPRecordingParameters m_parameters;
+
+  /** Keyed by the common headers, in order of first use. */
+  private final Map<List<Pair<String, String>>, Entry> m_entries =
+    new LinkedHashMap<List<Pair<String, String>>, Entry>();
+
+  /**
+   * Constructor.
+   *
+   * @param parameters
+   *          Recording parameters, used to identify common headers.
+   */
+  public CommonHeadersIndex(HTTPRecordingParameters parameters) {
+    m_parameters = parameters;
+  }
+
+  /**
+   * Update the index with the headers of a request.
+   *
+   * @param request
+   *          The request. Not modified.
+   */
+  public synchronized void add(RequestType request) {
+    final SplitHeaders split = split(request.getHeaders());
+
+    final Set<Pair<String, String>> allHeaders =
+      headerPairs(request.getHeaders());
+
+    final Entry existing = m_entries.get(split.getKey());
+
+    if (existing == null) {
+      m_entries.put(split.getKey(),
+                    new Entry(split.getCommonHeaders(), allHeaders));
+    }
+    else {
+      existing.add(allHeaders);
+    }
+  }
+
+  /**
+   * Decide how to factor out common headers, based on all the requests added
+   * so far.
+   *
+   * @return The decision.
+   */
+  public synchronized Resolution resolve() {
+
+    // Extract common headers if more than one request refers to them.
+    final IntGenerator idGenerator = new IntGenerator();
+    final List<CommonHeadersType> commonHeaders =
+      new ArrayList<CommonHeadersType>();
+    final Map<List<Pair<String, String>>, String> idByKey =
+      new HashMap<List<Pair<String, String>>, String>();
+
+    // Find default headers that are present in all common headers, and in
+    // the headers of requests that don't extend common headers.
+    final List<Set<Pair<String, String>>> defaultHeaderSources =
+      new ArrayList<Set<Pair<String, String>>>();
+    int numberOfSources = 0;
+
+    for (Map.Entry<List<Pair<String, String>>, Entry> e :
+           m_entries.entrySet()) {
+      final Entry entry = e.getValue();
+
+      if (entry.getCommonHeaders().sizeOfHeaderArray() > 0 &&
+          entry.getCount() > 1) {
+        final CommonHeadersType headers =
+          (CommonHeadersType) entry.getCommonHeaders().copy();
+        headers.setHeadersId("headers" + idGenerator.next());
+        commonHeaders.add(headers);
+        idByKey.put(e.getKey(), headers.getHeadersId());
+
+        defaultHeaderSources.add(headerPairs(headers));
+        ++numberOfSources;
+      }
+      else {
+        // Every request in the entry is a source. The headers they share
+        // are their contribution to the intersection.
+        defaultHeaderSources.add(entry.getSharedHeaders());
+        numberOfSources += entry.getCount();
+      }
+    }
+
+    final Set<Pair<String, String>> defaultHeaders =
+      numberOfSources < 2 ?
+        Collections.<Pair<String, String>>emptySet() :
+        intersection(defaultHeaderSources);
+
+    if (defaultHeaders.size() == 0) {
+      return new Resolution(commonHeaders, idByKey, defaultHeaders, null);
+    }
+
+    final List<CommonHeadersType> newCommonHeaders =
+      new ArrayList<CommonHeadersType>(commonHeaders.size() + 1);
+
+    final CommonHeadersType defaultHeadersXML =
+      CommonHeadersType.Factory.newInstance();
+    defaultHeadersXML.setHeadersId(DEFAULT_HEADERS_ID);
+    newCommonHeaders.add(defaultHeadersXML);
+
+    for (Pair<String, String> defaultHeader : defaultHeaders) {
+      final HeaderType header = defaultHeadersXML.addNewHeader();
+      header.setName(defaultHeader.getFirst());
+      header.setValue(defaultHeader.getSecond());
+    }
+
+    // There can be at most one CommonHeaders that is the same as the
+    // default headers. If we find it, we remove it.
+    String emptyCommonHeadersID = null;
+
+    for (CommonHeadersType headers : commonHeaders) {
+      removeDefaultHeaders(defaultHeaders, headers);
+
+      if (headers.sizeOfHeaderArray() == 0) {
+        assert emptyCommonHeadersID == null;
+        emptyCommonHeadersID = headers.getHeadersId();
+      }
+      else {
+        newCommonHeaders.add(headers);
+      }
+    }
+
+    return new Resolution(newCommonHeaders,
+                          idByKey,
+                          defaultHeaders,
+                          emptyCommonHeadersID);
+  }
+
+  private SplitHeaders split(HeadersType headers) {
+    final CommonHeadersType commonHeaders =
+      CommonHeadersType.Factory.newInstance();
+
+    final HeadersType uncommonHeaders = HeadersType.Factory.newInstance();
+
+    final XmlObject[] children = headers.selectPath("./*");
+
+    for (int i = 0; i < children.length; ++i) {
+      if (children[i] instanceof HeaderType) {
+        final HeaderType header = (HeaderType)children[i];
+
+        if (m_parameters.isCommonHeader(header.getName())) {
+          commonHeaders.addNewHeader().set(header);
+        }
+        else {
+          uncommonHeaders.addNewHeader().set(header);
+        }
+      }
+      else {
+        uncommonHeaders.addNewAuthorization().set(children[i]);
+      }
+    }
+
+    return new SplitHeaders(commonHeaders, uncommonHeaders);
+  }
+
+  private static Set<Pair<String, String>> headerPairs(HeadersType headers) {
+    final HeaderType[] headerArray = headers.getHeaderArray();
+
+    final Set<Pair<String, String>> result =
+      new HashSet<Pair<String, String>>(headerArray.length);
+
+    for (HeaderType header : headerArray) {
+      result.add(Pair.of(header.getName(), header.getValue()));
+    }
+
+    return result;
+  }
+
+  private static Set<Pair<String, String>>
+    intersection(List<Set<Pair<String, String>>> sets) {
+
+    final Set<Pair<String, String>> result =
+      new HashSet<Pair<String, String>>(sets.get(sets.size() - 1));
+
+    for (Set<Pair<String, String>> set : sets) {
+      result.retainAll(set);
+    }
+
+    return result;
+  }
+
+  /**
+   * Remove default headers.
+   *
+   * @param defaultHeaders Headers to remove.
+   * @param headers The headers. Mutated in place.
+   */
+  private static void removeDefaultHeaders(
+        Set<Pair<String, String>> defaultHeaders,
+        HeadersType headers) {
+
+    final HeaderType[] headersArray = headers.getHeaderArray();
+
+    final List<Integer> defaultHeaderIndexes =
+        new ArrayList<Integer>(defaultHeaders.size());
+
+    for (int i = headersArray.length - 1; i >= 0; --i) {
+      if (defaultHeaders.contains(Pair.of(headersArray[i].getName(),
+                                          headersArray[i].getValue()))) {
+        defaultHeaderIndexes.add(i);
+      }
+    }
+
+    assert defaultHeaderIndexes.size() == defaultHeaders.size();
+
+    for (int index : defaultHeaderIndexes) {
+      headers.removeHeader(index);
+    }
+
+    headers.setExtends(DEFAULT_HEADERS_ID);
+  }
+
+  /**
+   * The outcome of {@link CommonHeadersIndex#resolve}.
+   */
+  final class Resolution {
+    private final List<CommonHeadersType> m_commonHeaders;
+    private final Map<List<Pair<String, String>>, String> m_idByKey;
+    private final Set<Pair<String, String>> m_defaultHeaders;
+    private final String m_emptyCommonHeadersID;
+
+    private Resolution(List<CommonHeadersType> commonHeaders,
+                       Map<List<Pair<String, String>>, String> idByKey,
+                       Set<Pair<String, String>> defaultHeaders,
+                       String emptyCommonHeadersID) {
+      m_commonHeaders = commonHeaders;
+      m_idByKey = idByKey;
+      m_defaultHeaders = defaultHeaders;
+      m_emptyCommonHeadersID = emptyCommonHeadersID;
+    }
+
+    /**
+     * The common header sets, in the order they should be recorded.
+     *
+     * @return The common headers.
+     */
+    public CommonHeadersType[] getCommonHeaders() {
+      return m_commonHeaders.toArray(
+        new CommonHeadersType[m_commonHeaders.size()]);
+    }
+
+    /**
+     * Rewrite the headers of a request to refer to the common headers.
+     *
+     * @param request
+     *          The request. Mutated in place.
+     */
+    public void apply(RequestType request) {
+      final SplitHeaders split = split(request.getHeaders());
+
+      final String id = m_idByKey.get(split.getKey());
+
+      if (id != null) {
+        final HeadersType uncommonHeaders = split.getUncommonHeaders();
+
+        // Fix up any references to the CommonHeaders that duplicated the
+        // defaultHeaders.
+        uncommonHeaders.setExtends(
+          id.equals(m_emptyCommonHeadersID) ? DEFAULT_HEADERS_ID : id);
+
+        request.setHeaders(uncommonHeaders);
+      }
+      else if (m_defaultHeaders.size() > 0) {
+        removeDefaultHeaders(m_defaultHeaders, request.getHeaders());
+      }
+    }
+  }
+
+  private static final class SplitHeaders {
+    private final CommonHeadersType m_commonHeaders;
+    private final HeadersType m_uncommonHeaders;
+
+    public SplitHeaders(CommonHeadersType commonHeaders,
+                        HeadersType uncommonHeaders) {
+      m_commonHeaders = commonHeaders;
+      m_uncommonHeaders = uncommonHeaders;
+    }
+
+    public CommonHeadersType getCommonHeaders() {
+      return m_commonHeaders;
+    }
+
+    public HeadersType getUncommonHeaders() {
+      return m_uncommonHeaders;
+    }
+
+    /**
+     * Key that ignores ID, and how the headers were serialised.
+     */
+    public List<Pair<String, String>> getKey() {
+      final HeaderType[] headers = m_commonHeaders.getHeaderArray();
+
+      final List<Pair<String, String>> result =
+        new ArrayList<Pair<String, String>>(headers.length);
+
+      for (HeaderType header : headers) {
+        result.add(Pair.of(header.getName(), header.getValue()));
+      }
+
+      return result;
+    }
+  }
+
+  private static final class Entry {
+    private final CommonHeadersType m_commonHeaders;
+    private final Set<Pair<String, String>> m_sharedHeaders;
+    private int m_count = 1;
+
+    public Entry(CommonHeadersType commonHeaders,
+                 Set<Pair<String, String>> allHeaders) {
+      m_commonHeaders = commonHeaders;
+      m_sharedHeaders = allHeaders;
+    }
+
+    public void add(Set<Pair<String, String>> allHeaders) {
+      ++m_count;
+      m_sharedHeaders.retainAll(allHeaders);
+    }
+
+    public CommonHeadersType getCommonHeaders() {
+      return m_commonHeaders;
+    }
+
+    /**
+     * The headers that every request with this set of common headers had.
+     */
+    public Set<Pair<String, String>> getSharedHeaders() {
+      return m_sharedHeaders;
+    }
+
+    public int getCount() {
+      return m_count;
+    }
+  }
+}
@@ -41,7 +41,6 @@ public final class ConnectionHandlerFactoryImplementation
 
   private final Logger m_logger;
   private final HTTPRecording m_httpRecording;
-  private final RegularExpressions m_regularExpressions;
   private final URIParser m_uriParser;
   private final AttributeStringParser m_attributeStringParser;
   private final StringEscaper m_postBodyStringEscaper;
@@ -54,8 +53,6 @@ public final class ConnectionHandlerFactoryImplementation
    *          Common recording state.
    * @param logger
    *          Logger.
-   * @param regularExpressions
-   *          Compiled regular expressions.
    * @param uriParser
    *          A URI parser.
    * @param attributeStringParser
@@ -69,7 +66,6 @@ public final class ConnectionHandlerFactoryImplementation
   public ConnectionHandlerFactoryImplementation(
     HTTPRecording httpRecording,
     Logger logger,
-    RegularExpressions regularExpressions,
     URIParser uriParser,
     AttributeStringParser attributeStringParser,
     StringEscaper postBodyStringEscaper,
@@ -77,7 +73,6 @@ public final class ConnectionHandlerFactoryImplementation
 
     m_logger = logger;
     m_httpRecording = httpRecording;
-    m_regularExpressions = regularExpressions;
     m_uriParser = uriParser;
     m_attributeStringParser = attributeStringParser;
     m_postBodyStringEscaper = postBodyStringEscaper;
@@ -93,7 +88,6 @@ public final class ConnectionHandlerFactoryImplementation
   public ConnectionHandler create(ConnectionDetails connectionDetails) {
     return new ConnectionHandlerImplementation(m_httpRecording,
                                                m_logger,
-                                               m_regularExpressions,
                                                m_uriParser,
                                                m_attributeStringParser,
                                                m_postBodyStringEscaper,
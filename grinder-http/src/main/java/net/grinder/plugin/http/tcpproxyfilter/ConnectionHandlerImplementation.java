@@ -30,17 +30,17 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
 import java.nio.BufferOverflowException;
-import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
 
 import org.slf4j.Logger;
 
 import net.grinder.common.Closer;
+import net.grinder.plugin.http.tcpproxyfilter.HTTPMessageParser.RequestLine;
+import net.grinder.plugin.http.tcpproxyfilter.HTTPMessageParser.StatusLine;
 import net.grinder.plugin.http.xml.BasicAuthorizationHeaderType;
 import net.grinder.plugin.http.xml.BodyType;
 import net.grinder.plugin.http.xml.ConflictingTokenReferenceType;
@@ -69,6 +69,13 @@ import HTTPClient.ParseException;
  * Multi-threaded calls for a given connection are serialised.
  * </p>
  *
+ * <p>
+ * Messages are parsed incrementally by {@link HTTPMessageParser}, and
+ * response bodies are scanned for tokens by {@link HTMLTokenScanner} as they
+ * arrive. Neither packets nor response bodies are converted to strings, so
+ * the cost of recording is linear in the size of the traffic.
+ * </p>
+ *
  * @author Philip Aston
  */
 final class ConnectionHandlerImplementation implements ConnectionHandler {
@@ -86,8 +93,6 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
 
   private final Logger m_logger;
 
-  private final RegularExpressions m_regularExpressions;
-
   private final URIParser m_uriParser;
   private final AttributeStringParser m_attributeStringParser;
   private final StringEscaper m_postBodyStringEscaper;
@@ -95,18 +100,29 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
 
   private final ConnectionDetails m_connectionDetails;
 
-  // Buffer should be at least as large as the HTTPProxyTCPProxyEngine buffer.
-  // We've introduced buffers at this level to solve a specific issue
-  // (bug 3484390). Later, we may push this up the API, and perhaps copy
-  // directly from a socket channel into the buffer.
-  private final ByteBuffer m_requestBuffer = ByteBuffer.allocate(40960);
+  // Limit on the length of a line, and on the number of bytes we will
+  // skip looking for a request line. Should be at least as large as the
+  // HTTPProxyTCPProxyEngine buffer. The parsers assemble lines split across
+  // packets (bug 3484390).
+  private static final int MAXIMUM_LINE_LENGTH = 40960;
+
+  // Limit on the length of a token value or hidden input tag.
+  private static final int MAXIMUM_TOKEN_LENGTH = 0x4000;
+
+  private final HTTPMessageParser m_requestParser =
+    new HTTPMessageParser(MAXIMUM_LINE_LENGTH);
+
+  private final HTTPMessageParser m_responseParser =
+    new HTTPMessageParser(MAXIMUM_LINE_LENGTH);
+
+  private final HTTPMessageParser.Listener m_requestParserListener =
+    new RequestParserListener();
 
   private Request m_request;
 
   public ConnectionHandlerImplementation(
     HTTPRecording httpRecording,
     Logger logger,
-    RegularExpressions regularExpressions,
     URIParser uriParser,
     AttributeStringParser attributeStringParser,
     StringEscaper postBodyStringEscaper,
@@ -115,7 +131,6 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
 
     m_httpRecording = httpRecording;
     m_logger = logger;
-    m_regularExpressions = regularExpressions;
     m_uriParser = uriParser;
     m_attributeStringParser = attributeStringParser;
     m_postBodyStringEscaper = postBodyStringEscaper;
@@ -128,127 +143,47 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
    */
   @Override public synchronized void handleRequest(byte[] buffer, int length) {
 
-    try {
-      m_requestBuffer.put(buffer,  0, length);
-    }
-    catch (BufferOverflowException e) {
-      m_logger.error("Filled buffer without matching request line", e);
-      m_requestBuffer.clear();
-      return;
+    // A packet that starts with a request line is the start of a new
+    // request message. We don't rely on the parser for this, since we
+    // don't know where message bodies without a Content-Length end.
+    if (m_request != null &&
+        (m_request.isComplete() || isRequestLine(buffer, length))) {
+      requestFinished();
     }
 
-    m_requestBuffer.flip();
+    final int bodyStart;
 
-    // String used to parse headers - header names are US-ASCII encoded and
-    // anchored to start of line. The correct character set to use for URL's
-    // is not well defined by RFC 2616, so we use ISO8859_1. This way we are
-    // at least non-lossy (US-ASCII maps characters above 0x7F to '?').
-    final String asciiString;
     try {
-      asciiString = new String(m_requestBuffer.array(),
-                               0,
-                               m_requestBuffer.remaining(),
-                               "ISO8859_1");
-    }
-    catch (UnsupportedEncodingException e) {
-      throw new AssertionError(e);
+      bodyStart = m_requestParser.parse(buffer, 0, length,
+                                        m_requestParserListener);
     }
-
-    if (m_request != null && m_request.isComplete()) {
-      requestFinished();
-    }
-
-    final Matcher matcher =
-      m_regularExpressions.getRequestLinePattern().matcher(asciiString);
-
-    if (matcher.find()) {
-      // Packet is start of new request message.
-
-      final String method = matcher.group(1);
-      final String relativeURI = matcher.group(2);
-
-      if (RequestType.Method.Enum.forString(method) != null) {
-        requestFinished();
-
-        m_request = new Request(method,
-                                relativeURI,
-                                m_commentSource.getComments());
+    catch (BufferOverflowException e) {
+      if (m_request == null) {
+        m_logger.error("Filled buffer without matching request line", e);
+      }
+      else {
+        m_logger.error("Request header too long for " + m_request, e);
       }
-    }
-
-    // Stuff we do whatever.
-
-    if (m_request == null) {
-      // We haven't received enough bytes to match the request line.
-      m_requestBuffer
-        .position(m_requestBuffer.limit())
-        .limit(m_requestBuffer.capacity());
 
       return;
     }
-    else if (m_request.getBody() != null) {
-      m_request.getBody().write(m_requestBuffer.array(),
-                                0,
-                                m_requestBuffer.remaining());
-      m_requestBuffer.clear();
 
+    if (m_request == null || !m_requestParser.isBody()) {
+      // We haven't yet received the request line, or we're still parsing
+      // headers.
       return;
     }
 
-    // Still parsing headers.
+    final int bodyLength = length - bodyStart;
 
-    String headers = asciiString;
-    final int bodyStart;
-
-    final Matcher messageBodyMatcher =
-      m_regularExpressions.getMessageBodyPattern().matcher(asciiString);
-
-    if (messageBodyMatcher.find()) {
-      bodyStart = messageBodyMatcher.start(1);
-      headers = asciiString.substring(0, bodyStart);
-    }
-    else {
-      bodyStart = -1;
+    if (m_request.getBody() != null) {
+      m_request.getBody().write(buffer, bodyStart, bodyLength);
     }
-
-    final Matcher headerMatcher =
-      m_regularExpressions.getHeaderPattern().matcher(headers);
-
-    while (headerMatcher.find()) {
-      final String name = headerMatcher.group(1);
-      final String value = headerMatcher.group(2);
-
-      if (m_httpRecording.getParameters().isMirroredHeader(name)) {
-        m_request.addHeader(name, value);
-      }
-
-      if ("Content-Type".equalsIgnoreCase(name)) {
-        m_request.setContentType(value);
-      }
-
-      if ("Content-Length".equalsIgnoreCase(name)) {
-        m_request.setContentLength(Integer.parseInt(value));
-      }
-    }
-
-    final Matcher authorizationMatcher =
-      m_regularExpressions.getBasicAuthorizationHeaderPattern().matcher(
-        headers);
-
-    if (authorizationMatcher.find()) {
-      m_request.addBasicAuthorization(authorizationMatcher.group(1));
-    }
-
-    // Write out the body after parsing the headers as we need to
-    // know the content length.
-
-    if (bodyStart > -1) {
-      final int bodyLength = m_requestBuffer.remaining() - bodyStart;
-
+    else if (!m_request.isComplete()) {
+      // Headers have just been completed. Write out the body after parsing
+      // the headers as we need to know the content length.
       if (m_request.expectingBody()) {
-        m_request.new RequestBody().write(m_requestBuffer.array(),
-                                          bodyStart,
-                                          bodyLength);
+        m_request.new RequestBody().write(buffer, bodyStart, bodyLength);
       }
       else {
         if (bodyLength != 0) {
@@ -259,8 +194,13 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
         m_request.setComplete();
       }
     }
+  }
+
+  private static boolean isRequestLine(byte[] buffer, int length) {
+    final RequestLine requestLine = RequestLine.parsePacket(buffer, length);
 
-    m_requestBuffer.clear();
+    return requestLine != null &&
+           RequestType.Method.Enum.forString(requestLine.getMethod()) != null;
   }
 
   public synchronized void handleResponse(byte[] buffer, int length) {
@@ -271,25 +211,17 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
       return;
     }
 
-    // See notes in handleRequest about why we use this code page.
-    final String asciiString;
-    try {
-      asciiString = new String(buffer, 0, length, "ISO8859_1");
-    }
-    catch (UnsupportedEncodingException e) {
-      throw new AssertionError(e);
-    }
-
-    final Matcher matcher =
-      m_regularExpressions.getResponseLinePattern().matcher(asciiString);
+    final StatusLine statusLine = StatusLine.parsePacket(buffer, length);
 
-    if (matcher.find()) {
+    if (statusLine != null) {
       // Packet is start of new response message.
 
       m_httpRecording.markLastResponseTime();
 
-      m_request.addNewResponse(Integer.parseInt(matcher.group(1)),
-                               matcher.group(2));
+      m_request.addNewResponse(statusLine.getStatusCode(),
+                               statusLine.getReasonPhrase());
+
+      m_responseParser.reset();
     }
 
     final Response response = m_request.getResponse();
@@ -297,61 +229,27 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
     if (response == null) {
       m_logger.error("UNEXPECTED - No current response");
     }
-    else if (response.getBody() != null) {
-      response.getBody().write(buffer, 0, length);
+    else if (m_responseParser.isBody()) {
+      if (response.getBody() != null) {
+        response.getBody().write(buffer, 0, length);
+      }
     }
     else {
       // Still parsing headers.
 
-      String headers = asciiString;
-      int bodyStart = -1;
-
-      if (m_request.expectingResponseBody()) {
-        final Matcher messageBodyMatcher =
-          m_regularExpressions.getMessageBodyPattern().matcher(asciiString);
+      final int bodyStart;
 
-        if (messageBodyMatcher.find()) {
-          bodyStart = messageBodyMatcher.start(1);
-          headers = asciiString.substring(0, bodyStart);
-        }
+      try {
+        bodyStart = m_responseParser.parse(buffer, 0, length, response);
       }
-
-      final Matcher headerMatcher =
-        m_regularExpressions.getHeaderPattern().matcher(headers);
-
-      while (headerMatcher.find()) {
-        final String name = headerMatcher.group(1);
-        final String value = headerMatcher.group(2);
-
-        if ("Location".equals(name)) {
-          m_uriParser.parse(value, new URIParser.AbstractParseListener() {
-
-            public boolean pathParameterNameValue(String name, String value) {
-              response.addResponseTokenReference(
-                name,
-                value,
-                TokenResponseLocationType
-                .RESPONSE_LOCATION_HEADER_PATH_PARAMETER);
-
-              return true;
-            }
-
-            public boolean queryStringNameValue(String name, String value) {
-              response.addResponseTokenReference(
-                name,
-                value,
-                TokenResponseLocationType
-                .RESPONSE_LOCATION_HEADER_QUERY_STRING);
-
-              return true;
-            }
-          });
-        }
+      catch (BufferOverflowException e) {
+        m_logger.error("Response header too long for " + m_request, e);
+        return;
       }
 
       // Write out the body after parsing the headers for consistency with
       // handleRequest.
-      if (bodyStart > -1) {
+      if (m_responseParser.isBody() && m_request.expectingResponseBody()) {
         response.new ResponseBody().write(
           buffer, bodyStart, length - bodyStart);
       }
@@ -366,6 +264,52 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
       m_request.end();
       m_request = null;
     }
+
+    m_requestParser.reset();
+  }
+
+  private final class RequestParserListener
+    implements HTTPMessageParser.Listener {
+
+    public boolean startLine(byte[] line, int length) {
+      final RequestLine requestLine = RequestLine.parse(line, length);
+
+      if (requestLine == null ||
+          RequestType.Method.Enum.forString(requestLine.getMethod()) == null) {
+        return false;
+      }
+
+      m_request = new Request(requestLine.getMethod(),
+                              requestLine.getRelativeURI(),
+                              m_commentSource.getComments());
+
+      return true;
+    }
+
+    public void header(String name, String value) {
+      if (m_httpRecording.getParameters().isMirroredHeader(name)) {
+        m_request.addHeader(name, value);
+      }
+
+      if ("Content-Type".equalsIgnoreCase(name)) {
+        m_request.setContentType(value);
+      }
+      else if ("Content-Length".equalsIgnoreCase(name)) {
+        try {
+          m_request.setContentLength(Integer.parseInt(value));
+        }
+        catch (NumberFormatException e) {
+          m_logger.warn("Ignoring invalid Content-Length '{}' for {}",
+                        value, m_request);
+        }
+      }
+      else if ("Authorization".equals(name) &&
+               value.startsWith("Basic") &&
+               value.length() > 5 &&
+               Character.isWhitespace(value.charAt(5))) {
+        m_request.addBasicAuthorization(value.substring(6).trim());
+      }
+    }
   }
 
   private final class Request {
@@ -464,6 +408,8 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
       }
 
       m_logger.debug("Request finished {}", m_requestXML);
+
+      m_httpRecording.requestFinished(m_requestXML);
     }
 
     private class RequestBody extends AbstractBody {
@@ -630,7 +576,7 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
     }
   }
 
-  private final class Response {
+  private final class Response implements HTTPMessageParser.Listener {
 
     private final ResponseType m_responseXML;
     private ResponseBody m_body;
@@ -651,6 +597,38 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
       }
     }
 
+    public boolean startLine(byte[] line, int length) {
+      // The status line has already been handled by handleResponse().
+      return true;
+    }
+
+    public void header(String name, String value) {
+      if ("Location".equals(name)) {
+        m_uriParser.parse(value, new URIParser.AbstractParseListener() {
+
+          public boolean pathParameterNameValue(String name, String value) {
+            addResponseTokenReference(
+              name,
+              value,
+              TokenResponseLocationType
+              .RESPONSE_LOCATION_HEADER_PATH_PARAMETER);
+
+            return true;
+          }
+
+          public boolean queryStringNameValue(String name, String value) {
+            addResponseTokenReference(
+              name,
+              value,
+              TokenResponseLocationType
+              .RESPONSE_LOCATION_HEADER_QUERY_STRING);
+
+            return true;
+          }
+        });
+      }
+    }
+
     public void addResponseTokenReference(String name, String value,
       TokenResponseLocationType.Enum source) {
 
@@ -681,69 +659,67 @@ final class ConnectionHandlerImplementation implements ConnectionHandler {
       }
     }
 
-    private class ResponseBody extends AbstractBody {
+    private class ResponseBody implements HTMLTokenScanner.Listener {
+
+      // Scan body for href="<url>" patterns containing URL tokens, and for
+      // hidden input fields. We could choose to do this only for certain
+      // content types, (probably just text/html) but its better to catch
+      // too many tokens than too few.
+      private final HTMLTokenScanner m_scanner =
+        new HTMLTokenScanner(this, MAXIMUM_TOKEN_LENGTH);
+
       public ResponseBody() {
         assert m_body == null;
         m_body = this;
       }
 
-      public void end() {
-        // Parse body for href="<url>" patterns containing URL tokens. We could
-        // choose to do this only for certain content types, (probably just
-        // text/html) but its better to catch too many tokens than too few.
-
-        // This ought to respect content character encoding.
-        final String iso85591String;
+      public void write(byte[] bytes, int start, int length) {
+        m_scanner.scan(bytes, start, length);
+      }
 
-        try {
-          iso85591String = new String(toByteArray(), "ISO8859_1");
-        }
-        catch (UnsupportedEncodingException e) {
-          throw new AssertionError(e);
-        }
+      public void end() {
+        // Tokens are processed as they are found.
+      }
 
-        final Matcher uriMatcher =
-          m_regularExpressions.getHyperlinkURIPattern().matcher(iso85591String);
+      public void hyperlinkURI(long position, String uri) {
+        m_uriParser.parse(
+          uri,
+          new URIParser.AbstractParseListener() {
 
-        while (uriMatcher.find()) {
-          m_uriParser.parse(
-            uriMatcher.group(1),
-            new URIParser.AbstractParseListener() {
+            public boolean pathParameterNameValue(String name, String value) {
+              addResponseTokenReference(
+                name,
+                value,
+                TokenResponseLocationType.RESPONSE_BODY_URI_PATH_PARAMETER);
 
-              public boolean pathParameterNameValue(String name, String value) {
-                addResponseTokenReference(
-                  name,
-                  value,
-                  TokenResponseLocationType.RESPONSE_BODY_URI_PATH_PARAMETER);
+              return true;
+            }
 
-                return true;
-              }
+            public boolean queryStringNameValue(String name, String value) {
+              addResponseTokenReference(name, value,
+                TokenResponseLocationType.RESPONSE_BODY_URI_QUERY_STRING);
 
-              public boolean queryStringNameValue(String name, String value) {
-                addResponseTokenReference(name, value,
-                  TokenResponseLocationType.RESPONSE_BODY_URI_QUERY_STRING);
+              return true;
+            }
+          });
+      }
 
-                return true;
-              }
-            });
+      public void input(long position, String tag, boolean hidden) {
+        if (!hidden) {
+          return;
         }
 
-        final Matcher hiddenParameterMatcher = m_regularExpressions
-            .getHiddenInputPattern().matcher(iso85591String);
-
-        while (hiddenParameterMatcher.find()) {
-          final AttributeStringParser.AttributeMap map =
-            m_attributeStringParser.parse(hiddenParameterMatcher.group());
+        final AttributeStringParser.AttributeMap map =
+          m_attributeStringParser.parse(tag);
 
-          final String name = map.get("name");
-          final String value = map.get("value");
+        final String name = map.get("name");
+        final String value = map.get("value");
 
-          if (name != null && value != null) {
-            addResponseTokenReference(
-              name,
-              value,
-              TokenResponseLocationType.RESPONSE_BODY_HIDDEN_INPUT);
-          }
+        if (name != null && value != null) {
+          addResponseTokenReference(
+            name,
+            value,
+            TokenResponseLocationType.RESPONSE_BODY_HIDDEN_INPUT);
         }
       }
     }
@@ -0,0 +1,507 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.datatype.DatatypeConfigurationException;
+import javax.xml.datatype.DatatypeFactory;
+
+import net.grinder.tools.tcpproxy.ConnectionDetails;
+import net.grinder.tools.tcpproxy.EndPoint;
+
+import org.slf4j.Logger;
+
+import HTTPClient.Codecs;
+
+
+/**
+ * Imports an HTTP Archive (HAR) capture, such as those saved by browser
+ * developer tools.
+ *
+ * <p>
+ * Each entry is converted back into request and response messages which are
+ * passed to the {@link HTTPFilterEventListener}, so the recording is
+ * processed in exactly the same way as traffic captured by the TCPProxy.
+ * The captured start and end times of each entry are replayed through a
+ * {@link ReplayTimeAuthority}.
+ * </p>
+ *
+ * <p>
+ * The capture is streamed, and only one entry is held in memory at a time.
+ * Entries are replayed in the order they appear in the file.
+ * </p>
+ *
+ * <p>
+ * Public as it is wired by PicoContainer.
+ * </p>
+ *
+ * @author agent
+ */
+public final class HARImporter {
+
+  private static final EndPoint LOCAL_END_POINT = new EndPoint("har", 0);
+
+  private static final String CRLF = "\r\n";
+
+  private final HTTPFilterEventListener m_eventListener;
+  private final ReplayTimeAuthority m_timeAuthority;
+  private final Logger m_logger;
+  private final DatatypeFactory m_datatypeFactory;
+
+  /**
+   * Constructor.
+   *
+   * @param eventListener
+   *          Receives the replayed messages.
+   * @param timeAuthority
+   *          Set to the captured time of each message.
+   * @param logger
+   *          A logger.
+   * @throws DatatypeConfigurationException
+   *           If the JAXP date parser is not available.
+   */
+  public HARImporter(HTTPFilterEventListener eventListener,
+                     ReplayTimeAuthority timeAuthority,
+                     Logger logger)
+    throws DatatypeConfigurationException {
+
+    m_eventListener = eventListener;
+    m_timeAuthority = timeAuthority;
+    m_logger = logger;
+    m_datatypeFactory = DatatypeFactory.newInstance();
+  }
+
+  /**
+   * Import a capture.
+   *
+   * @param in
+   *          Source of the capture.
+   * @return The number of entries imported.
+   * @throws IOException
+   *           If the capture could not be read, or is not valid JSON.
+   */
+  public int importHAR(Reader in) throws IOException {
+    final JSONReader json = new JSONReader(in);
+
+    int entries = 0;
+
+    json.beginObject();
+
+    while (json.hasNext()) {
+      if ("log".equals(json.nextName())) {
+        json.beginObject();
+
+        while (json.hasNext()) {
+          if ("entries".equals(json.nextName())) {
+            json.beginArray();
+
+            while (json.hasNext()) {
+              if (replay(readEntry(json))) {
+                ++entries;
+              }
+            }
+
+            json.endArray();
+          }
+          else {
+            json.skipValue();
+          }
+        }
+
+        json.endObject();
+      }
+      else {
+        json.skipValue();
+      }
+    }
+
+    json.endObject();
+
+    return entries;
+  }
+
+  private boolean replay(Entry entry) throws IOException {
+    final TargetURL url = TargetURL.parse(entry.m_request.m_url);
+
+    if (url == null) {
+      m_logger.warn("Ignoring request for unsupported URL '{}'",
+                    entry.m_request.m_url);
+      return false;
+    }
+
+    final ConnectionDetails connection =
+      new ConnectionDetails(LOCAL_END_POINT, url.m_endPoint, url.m_secure);
+
+    m_timeAuthority.setTime(entry.m_startTime);
+    m_eventListener.open(connection);
+
+    try {
+      final byte[] request = entry.m_request.toBytes(url.m_path);
+      m_eventListener.request(connection, request, request.length);
+
+      // HAR uses a status of 0 for requests that received no response.
+      if (entry.m_response.m_status > 0) {
+        m_timeAuthority.setTime(entry.m_startTime + entry.m_time);
+
+        final byte[] response = entry.m_response.toBytes();
+        m_eventListener.response(connection.getOtherEnd(),
+                                 response,
+                                 response.length);
+      }
+    }
+    finally {
+      m_eventListener.close(connection);
+    }
+
+    return true;
+  }
+
+  private Entry readEntry(JSONReader json) throws IOException {
+    final Entry entry = new Entry();
+
+    json.beginObject();
+
+    while (json.hasNext()) {
+      final String name = json.nextName();
+
+      if ("startedDateTime".equals(name)) {
+        final String value = json.nextString();
+
+        try {
+          entry.m_startTime = m_datatypeFactory.newXMLGregorianCalendar(value)
+                              .toGregorianCalendar().getTimeInMillis();
+        }
+        catch (IllegalArgumentException e) {
+          m_logger.warn("Ignoring invalid startedDateTime '{}'", value);
+        }
+      }
+      else if ("time".equals(name)) {
+        entry.m_time = Math.round(json.nextDouble());
+      }
+      else if ("request".equals(name)) {
+        readRequest(json, entry.m_request);
+      }
+      else if ("response".equals(name)) {
+        readResponse(json, entry.m_response);
+      }
+      else {
+        json.skipValue();
+      }
+    }
+
+    json.endObject();
+
+    return entry;
+  }
+
+  private static void readRequest(JSONReader json, Request request)
+    throws IOException {
+
+    json.beginObject();
+
+    while (json.hasNext()) {
+      final String name = json.nextName();
+
+      if ("method".equals(name)) {
+        request.m_method = json.nextString();
+      }
+      else if ("url".equals(name)) {
+        request.m_url = json.nextString();
+      }
+      else if ("headers".equals(name)) {
+        readHeaders(json, request.m_headers);
+      }
+      else if ("postData".equals(name)) {
+        json.beginObject();
+
+        while (json.hasNext()) {
+          if ("text".equals(json.nextName())) {
+            request.m_body = json.nextString();
+          }
+          else {
+            json.skipValue();
+          }
+        }
+
+        json.endObject();
+      }
+      else {
+        json.skipValue();
+      }
+    }
+
+    json.endObject();
+  }
+
+  private static void readResponse(JSONReader json, Response response)
+    throws IOException {
+
+    json.beginObject();
+
+    while (json.hasNext()) {
+      final String name = json.nextName();
+
+      if ("status".equals(name)) {
+        response.m_status = (int) json.nextDouble();
+      }
+      else if ("statusText".equals(name)) {
+        response.m_statusText = json.nextString();
+      }
+      else if ("headers".equals(name)) {
+        readHeaders(json, response.m_headers);
+      }
+      else if ("content".equals(name)) {
+        json.beginObject();
+
+        while (json.hasNext()) {
+          final String contentName = json.nextName();
+
+          if ("text".equals(contentName)) {
+            response.m_body = json.nextString();
+          }
+          else if ("encoding".equals(contentName)) {
+            response.m_base64 = "base64".equals(json.nextString());
+          }
+          else {
+            json.skipValue();
+          }
+        }
+
+        json.endObject();
+      }
+      else {
+        json.skipValue();
+      }
+    }
+
+    json.endObject();
+  }
+
+  private static void readHeaders(JSONReader json, List<String[]> headers)
+    throws IOException {
+
+    json.beginArray();
+
+    while (json.hasNext()) {
+      String headerName = null;
+      String headerValue = null;
+
+      json.beginObject();
+
+      while (json.hasNext()) {
+        final String name = json.nextName();
+
+        if ("name".equals(name)) {
+          headerName = json.nextString();
+        }
+        else if ("value".equals(name)) {
+          headerValue = json.nextString();
+        }
+        else {
+          json.skipValue();
+        }
+      }
+
+      json.endObject();
+
+      if (headerName != null && headerValue != null) {
+        headers.add(new String[] { headerName, headerValue });
+      }
+    }
+
+    json.endArray();
+  }
+
+  private static final class Entry {
+    private long m_startTime;
+    private long m_time;
+    private final Request m_request = new Request();
+    private final Response m_response = new Response();
+  }
+
+  private abstract static class Message {
+    protected final List<String[]> m_headers = new ArrayList<String[]>();
+
+    /**
+     * Write the headers, replacing the message framing headers. The HAR
+     * content has already been decoded, and any HTTP/2 pseudo-headers are
+     * dropped.
+     */
+    protected final byte[] toBytes(String startLine, byte[] body)
+      throws UnsupportedEncodingException {
+
+      final StringBuilder headers = new StringBuilder(startLine).append(CRLF);
+
+      for (String[] header : m_headers) {
+        final String name = header[0];
+
+        if (!name.startsWith(":") &&
+            !"Content-Length".equalsIgnoreCase(name) &&
+            !"Content-Encoding".equalsIgnoreCase(name) &&
+            !"Transfer-Encoding".equalsIgnoreCase(name)) {
+          headers.append(name).append(": ").append(header[1]).append(CRLF);
+        }
+      }
+
+      if (body.length > 0) {
+        headers.append("Content-Length: ").append(body.length).append(CRLF);
+      }
+
+      headers.append(CRLF);
+
+      final ByteArrayOutputStream result = new ByteArrayOutputStream();
+      final byte[] headerBytes = headers.toString().getBytes("ISO8859_1");
+      result.write(headerBytes, 0, headerBytes.length);
+      result.write(body, 0, body.length);
+
+      return result.toByteArray();
+    }
+  }
+
+  private static final class Request extends Message {
+    private String m_method = "GET";
+    private String m_url = "";
+    private String m_body;
+
+    public byte[] toBytes(String path) throws UnsupportedEncodingException {
+      return toBytes(m_method + " " + path + " HTTP/1.1",
+                     m_body != null ? m_body.getBytes("UTF-8") : new byte[0]);
+    }
+  }
+
+  private static final class Response extends Message {
+    private int m_status;
+    private String m_statusText = "";
+    private String m_body;
+    private boolean m_base64;
+
+    public byte[] toBytes() throws UnsupportedEncodingException {
+      final byte[] body;
+
+      if (m_body == null) {
+        body = new byte[0];
+      }
+      else if (m_base64) {
+        body = Codecs.base64Decode(m_body.getBytes("ISO8859_1"));
+      }
+      else {
+        body = m_body.getBytes("UTF-8");
+      }
+
+      return toBytes("HTTP/1.1 " + m_status + " " + m_statusText, body);
+    }
+  }
+
+  /**
+   * The parts of an absolute URL that we need.
+   */
+  private static final class TargetURL {
+    private final EndPoint m_endPoint;
+    private final boolean m_secure;
+    private final String m_path;
+
+    private TargetURL(EndPoint endPoint, boolean secure, String path) {
+      m_endPoint = endPoint;
+      m_secure = secure;
+      m_path = path;
+    }
+
+    /**
+     * We don't use {@link java.net.URI} as browsers are more forgiving
+     * about the characters they allow.
+     *
+     * @return The URL, or {@code null} if it is not an HTTP or HTTPS URL.
+     */
+    public static TargetURL parse(String url) {
+      final int schemeEnd = url.indexOf("://");
+
+      if (schemeEnd == -1) {
+        return null;
+      }
+
+      final String scheme = url.substring(0, schemeEnd).toLowerCase();
+      final boolean secure = "https".equals(scheme);
+
+      if (!secure && !"http".equals(scheme)) {
+        return null;
+      }
+
+      final int authorityStart = schemeEnd + 3;
+      int authorityEnd = url.length();
+
+      for (int i = authorityStart; i < url.length(); ++i) {
+        final char c = url.charAt(i);
+
+        if (c == '/' || c == '?' || c == '#') {
+          authorityEnd = i;
+          break;
+        }
+      }
+
+      String authority = url.substring(authorityStart, authorityEnd);
+      authority = authority.substring(authority.lastIndexOf('@') + 1);
+
+      // Allow for IPv6 literals.
+      final int portSeparator = authority.lastIndexOf(':');
+      final String host;
+      int port = secure ? 443 : 80;
+
+      if (portSeparator > authority.lastIndexOf(']')) {
+        host = authority.substring(0, portSeparator);
+
+        try {
+          port = Integer.parseInt(authority.substring(portSeparator + 1));
+        }
+        catch (NumberFormatException e) {
+          return null;
+        }
+      }
+      else {
+        host = authority;
+      }
+
+      if (host.length() == 0) {
+        return null;
+      }
+
+      String path = url.substring(authorityEnd);
+
+      final int fragment = path.indexOf('#');
+
+      if (fragment != -1) {
+        path = path.substring(0, fragment);
+      }
+
+      if (!path.startsWith("/")) {
+        path = "/" + path;
+      }
+
+      return new TargetURL(new EndPoint(host, port), secure, path);
+    }
+  }
+}
@@ -0,0 +1,441 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+
+/**
+ * Streaming scanner that finds the candidate tokens in an HTML response
+ * body.
+ *
+ * <p>
+ * The scanner reports the URIs of {@code href} attributes, and the text of
+ * {@code <input>} tags, noting those with {@code type="hidden"}. Each token
+ * is reported with its offset from the start of the body. The scanner is fed
+ * the body as it arrives, and makes a single pass over each byte, so the cost
+ * is linear in the size of the body and the body need not be retained.
+ * </p>
+ *
+ * <p>
+ * Bytes are interpreted as ISO 8859-1. This ought to respect the content
+ * character encoding, but all the markup we're interested in is ASCII.
+ * </p>
+ *
+ * @author agent
+ */
+public final class HTMLTokenScanner {
+
+  private static final byte[] HREF = { 'h', 'r', 'e', 'f' };
+  private static final byte[] INPUT = { 'i', 'n', 'p', 'u', 't' };
+  private static final byte[] TYPE = { 't', 'y', 'p', 'e' };
+  private static final byte[] HIDDEN = { 'h', 'i', 'd', 'd', 'e', 'n' };
+
+  private enum HrefState {
+    NAME,
+    BEFORE_EQUALS,
+    BEFORE_QUOTE,
+    VALUE,
+  }
+
+  private enum InputState {
+    OUTSIDE,
+    BEFORE_NAME,
+    NAME,
+    AFTER_NAME,
+    ATTRIBUTES,
+  }
+
+  private final Listener m_listener;
+  private final int m_maximumLength;
+
+  private long m_position;
+
+  private HrefState m_hrefState = HrefState.NAME;
+  private int m_hrefMatched;
+  private long m_hrefStart;
+  private final Buffer m_hrefValue = new Buffer();
+
+  private InputState m_inputState = InputState.OUTSIDE;
+  private int m_inputMatched;
+  private byte m_quote;
+  private long m_inputStart;
+  private final Buffer m_inputTag = new Buffer();
+
+  /**
+   * Constructor.
+   *
+   * @param listener
+   *          Receives the tokens.
+   * @param maximumLength
+   *          Attribute values and tags longer than this are ignored.
+   */
+  public HTMLTokenScanner(Listener listener, int maximumLength) {
+    m_listener = listener;
+    m_maximumLength = maximumLength;
+  }
+
+  /**
+   * Scan the next part of the body.
+   *
+   * @param bytes
+   *          The bytes.
+   * @param offset
+   *          Offset of the first byte.
+   * @param length
+   *          Number of bytes.
+   */
+  public void scan(byte[] bytes, int offset, int length) {
+    final int end = offset + length;
+
+    for (int i = offset; i < end; ++i) {
+      final byte b = bytes[i];
+      scanHref(b);
+      scanInput(b);
+      ++m_position;
+    }
+  }
+
+  /**
+   * Equivalent to {@code href[ \t]*=[ \t]*['"]([^'"]*)['"]}.
+   */
+  private void scanHref(byte b) {
+    switch (m_hrefState) {
+      case NAME:
+        break;
+
+      case BEFORE_EQUALS:
+        if (b == '=') {
+          m_hrefState = HrefState.BEFORE_QUOTE;
+          return;
+        }
+        else if (isSpaceOrTab(b)) {
+          return;
+        }
+
+        break;
+
+      case BEFORE_QUOTE:
+        if (isQuote(b)) {
+          m_hrefState = HrefState.VALUE;
+          m_hrefValue.clear();
+          return;
+        }
+        else if (isSpaceOrTab(b)) {
+          return;
+        }
+
+        break;
+
+      case VALUE:
+        if (isQuote(b)) {
+          m_listener.hyperlinkURI(m_hrefStart, m_hrefValue.toString());
+        }
+        else if (m_hrefValue.append(b)) {
+          return;
+        }
+
+        break;
+
+      default:
+        throw new AssertionError(m_hrefState);
+    }
+
+    // Match the start of a new attribute name.
+    m_hrefState = HrefState.NAME;
+
+    if (b == HREF[m_hrefMatched]) {
+      if (m_hrefMatched == 0) {
+        m_hrefStart = m_position;
+      }
+
+      if (++m_hrefMatched == HREF.length) {
+        m_hrefMatched = 0;
+        m_hrefState = HrefState.BEFORE_EQUALS;
+      }
+    }
+    else if (b == HREF[0]) {
+      // "href" doesn't overlap itself, so we need only consider whether
+      // this byte starts a new match.
+      m_hrefMatched = 1;
+      m_hrefStart = m_position;
+    }
+    else {
+      m_hrefMatched = 0;
+    }
+  }
+
+  /**
+   * Find {@code <input>} tags.
+   */
+  private void scanInput(byte b) {
+    switch (m_inputState) {
+      case OUTSIDE:
+        break;
+
+      case BEFORE_NAME:
+        if (isWhitespace(b)) {
+          m_inputTag.append(b);
+          return;
+        }
+
+        m_inputState = InputState.NAME;
+        m_inputMatched = 0;
+
+        if (matchInputName(b)) {
+          return;
+        }
+
+        break;
+
+      case NAME:
+        if (matchInputName(b)) {
+          return;
+        }
+
+        break;
+
+      case AFTER_NAME:
+        if (isWhitespace(b)) {
+          m_inputTag.append(b);
+          m_inputState = InputState.ATTRIBUTES;
+          m_quote = 0;
+          return;
+        }
+
+        break;
+
+      case ATTRIBUTES:
+        if (!m_inputTag.append(b)) {
+          break;
+        }
+
+        if (m_quote != 0) {
+          if (b == m_quote) {
+            m_quote = 0;
+          }
+        }
+        else if (isQuote(b)) {
+          m_quote = b;
+        }
+        else if (b == '>') {
+          m_inputState = InputState.OUTSIDE;
+
+          m_listener.input(m_inputStart,
+                           m_inputTag.toString(),
+                           isHidden(m_inputTag.m_bytes, m_inputTag.m_length));
+        }
+
+        return;
+
+      default:
+        throw new AssertionError(m_inputState);
+    }
+
+    if (b == '<') {
+      m_inputState = InputState.BEFORE_NAME;
+      m_inputStart = m_position;
+      m_inputTag.clear();
+      m_inputTag.append(b);
+    }
+    else {
+      m_inputState = InputState.OUTSIDE;
+    }
+  }
+
+  /**
+   * Match the next byte of the tag name against {@code input}.
+   *
+   * @return {@code true} if the byte matched.
+   */
+  private boolean matchInputName(byte b) {
+    if (toLowerCase(b) != INPUT[m_inputMatched]) {
+      return false;
+    }
+
+    m_inputTag.append(b);
+
+    if (++m_inputMatched == INPUT.length) {
+      m_inputState = InputState.AFTER_NAME;
+    }
+
+    return true;
+  }
+
+  /**
+   * Search a tag for {@code type\s*=\s*["']\s*hidden\s*["']}, ignoring
+   * case.
+   */
+  private static boolean isHidden(byte[] tag, int length) {
+    for (int start = 0; start < length; ++start) {
+      int i = matchIgnoreCase(tag, start, length, TYPE);
+
+      if (i == -1) {
+        continue;
+      }
+
+      i = skipWhitespace(tag, i, length);
+
+      if (i == length || tag[i] != '=') {
+        continue;
+      }
+
+      i = skipWhitespace(tag, i + 1, length);
+
+      if (i == length || !isQuote(tag[i])) {
+        continue;
+      }
+
+      i = matchIgnoreCase(tag, skipWhitespace(tag, i + 1, length), length,
+                          HIDDEN);
+
+      if (i == -1) {
+        continue;
+      }
+
+      i = skipWhitespace(tag, i, length);
+
+      if (i < length && isQuote(tag[i])) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  private static int matchIgnoreCase(byte[] bytes,
+                                     int offset,
+                                     int length,
+                                     byte[] lowerCase) {
+    if (length - offset < lowerCase.length) {
+      return -1;
+    }
+
+    for (int i = 0; i < lowerCase.length; ++i) {
+      if (toLowerCase(bytes[offset + i]) != lowerCase[i]) {
+        return -1;
+      }
+    }
+
+    return offset + lowerCase.length;
+  }
+
+  private static int skipWhitespace(byte[] bytes, int offset, int length) {
+    int i = offset;
+
+    while (i < length && isWhitespace(bytes[i])) {
+      ++i;
+    }
+
+    return i;
+  }
+
+  private static byte toLowerCase(byte b) {
+    return b >= 'A' && b <= 'Z' ? (byte) (b + 'a' - 'A') : b;
+  }
+
+  private static boolean isQuote(byte b) {
+    return b == '"' || b == '\'';
+  }
+
+  private static boolean isSpaceOrTab(byte b) {
+    return b == ' ' || b == '\t';
+  }
+
+  /**
+   * Equivalent to the regular expression {@code \s}.
+   */
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b >= '\t' && b <= '\r';
+  }
+
+  /**
+   * Receives tokens.
+   */
+  public interface Listener {
+
+    /**
+     * Called for each hyperlink.
+     *
+     * @param position
+     *          Offset of the {@code href} attribute from the start of the
+     *          body.
+     * @param uri
+     *          The value of the {@code href} attribute.
+     */
+    void hyperlinkURI(long position, String uri);
+
+    /**
+     * Called for each input.
+     *
+     * @param position
+     *          Offset of the {@code <input>} tag from the start of the body.
+     * @param tag
+     *          The text of the {@code <input>} tag.
+     * @param hidden
+     *          {@code true} if the input has {@code type="hidden"}.
+     */
+    void input(long position, String tag, boolean hidden);
+  }
+
+  /**
+   * Bounded byte buffer.
+   */
+  private final class Buffer {
+    private byte[] m_bytes = new byte[64];
+    private int m_length;
+
+    public void clear() {
+      m_length = 0;
+    }
+
+    /**
+     * @return {@code false} if the buffer is full, in which case it is
+     *         cleared.
+     */
+    public boolean append(byte b) {
+      if (m_length == m_maximumLength) {
+        m_length = 0;
+        return false;
+      }
+
+      if (m_length == m_bytes.length) {
+        final byte[] bytes =
+          new byte[Math.min(m_bytes.length * 2, m_maximumLength)];
+        System.arraycopy(m_bytes, 0, bytes, 0, m_length);
+        m_bytes = bytes;
+      }
+
+      m_bytes[m_length++] = b;
+
+      return true;
+    }
+
+    @Override public String toString() {
+      final char[] chars = new char[m_length];
+
+      for (int i = 0; i < m_length; ++i) {
+        chars[i] = (char) (m_bytes[i] & 0xFF);
+      }
+
+      return new String(chars);
+    }
+  }
+}
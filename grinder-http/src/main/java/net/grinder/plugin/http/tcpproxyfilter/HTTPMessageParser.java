@@ -0,0 +1,564 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import java.nio.BufferOverflowException;
+
+
+/**
+ * Incremental parser for the start line and headers of an HTTP/1.x
+ * message.
+ *
+ * <p>
+ * Bytes are supplied as they arrive from the connection. Lines are
+ * assembled across calls, so a start line or header may be split between
+ * packets. The parser works on the raw bytes; only the fields that are
+ * reported are converted to strings. We use ISO 8859-1 for the conversion
+ * so that it is non-lossy.
+ * </p>
+ *
+ * <p>
+ * We're generally flexible about SP and CRLF, see RFC 2616, 19.3. Blank
+ * lines and lines that the {@link Listener} rejects are skipped whilst
+ * looking for the start line.
+ * </p>
+ *
+ * @author agent
+ */
+final class HTTPMessageParser {
+
+  private enum State {
+    START_LINE,
+    HEADERS,
+    BODY,
+  }
+
+  private final int m_maximumLength;
+
+  private byte[] m_line = new byte[256];
+  private int m_lineLength;
+  private int m_skippedLength;
+  private State m_state = State.START_LINE;
+
+  /**
+   * Constructor.
+   *
+   * @param maximumLength
+   *          The maximum length of a single line, and the maximum number of
+   *          bytes that will be skipped looking for a start line.
+   */
+  public HTTPMessageParser(int maximumLength) {
+    m_maximumLength = maximumLength;
+  }
+
+  /**
+   * Parse some bytes.
+   *
+   * <p>
+   * Parsing stops at the end of the headers. The remaining bytes, and all
+   * bytes passed to subsequent calls until the parser is {@link #reset()},
+   * belong to the message body and are not consumed.
+   * </p>
+   *
+   * @param bytes
+   *          The bytes.
+   * @param offset
+   *          Offset of the first byte to parse.
+   * @param length
+   *          Number of bytes to parse.
+   * @param listener
+   *          Receives the start line and headers.
+   * @return The offset of the first byte that was not consumed.
+   * @throws BufferOverflowException
+   *           If a line exceeds the maximum length, or if too many bytes
+   *           were skipped without finding a start line. The partial line is
+   *           discarded.
+   */
+  public int parse(byte[] bytes, int offset, int length, Listener listener) {
+    final int end = offset + length;
+    int position = offset;
+
+    while (position < end && m_state != State.BODY) {
+      final int newLine = indexOf(bytes, position, end, '\n');
+      final int lineEnd = newLine == -1 ? end : newLine;
+
+      append(bytes, position, lineEnd - position);
+
+      if (newLine == -1) {
+        return end;
+      }
+
+      position = newLine + 1;
+
+      int lineLength = m_lineLength;
+      m_lineLength = 0;
+
+      if (lineLength > 0 && m_line[lineLength - 1] == '\r') {
+        --lineLength;
+      }
+
+      if (m_state == State.START_LINE) {
+        if (lineLength > 0 && listener.startLine(m_line, lineLength)) {
+          m_state = State.HEADERS;
+          m_skippedLength = 0;
+        }
+        else {
+          m_skippedLength += lineLength;
+
+          if (m_skippedLength > m_maximumLength) {
+            m_skippedLength = 0;
+            throw new BufferOverflowException();
+          }
+        }
+      }
+      else if (lineLength == 0) {
+        m_state = State.BODY;
+      }
+      else {
+        header(m_line, lineLength, listener);
+      }
+    }
+
+    return position;
+  }
+
+  /**
+   * Whether the parser has reached the message body.
+   *
+   * @return {@code true} if the headers are complete.
+   */
+  public boolean isBody() {
+    return m_state == State.BODY;
+  }
+
+  /**
+   * Discard any partial line and prepare to parse a new message.
+   */
+  public void reset() {
+    m_lineLength = 0;
+    m_skippedLength = 0;
+    m_state = State.START_LINE;
+  }
+
+  private void append(byte[] bytes, int offset, int length) {
+    final int newLength = m_lineLength + length;
+
+    if (newLength > m_maximumLength) {
+      m_lineLength = 0;
+      throw new BufferOverflowException();
+    }
+
+    if (newLength > m_line.length) {
+      final byte[] line = new byte[Math.min(
+                                     Math.max(newLength, m_line.length * 2),
+                                     m_maximumLength)];
+      System.arraycopy(m_line, 0, line, 0, m_lineLength);
+      m_line = line;
+    }
+
+    System.arraycopy(bytes, offset, m_line, m_lineLength, length);
+    m_lineLength = newLength;
+  }
+
+  private static void header(byte[] line, int length, Listener listener) {
+    // Obsolete line folding (RFC 2616, 2.2) is not supported. Continuation
+    // lines are ignored.
+    if (isSpace(line[0])) {
+      return;
+    }
+
+    final int colon = indexOf(line, 0, length, ':');
+
+    if (colon == -1) {
+      return;
+    }
+
+    int nameEnd = colon;
+
+    while (nameEnd > 0 && isSpace(line[nameEnd - 1])) {
+      --nameEnd;
+    }
+
+    int valueStart = colon + 1;
+
+    while (valueStart < length && isSpace(line[valueStart])) {
+      ++valueStart;
+    }
+
+    int valueEnd = length;
+
+    while (valueEnd > valueStart && isSpace(line[valueEnd - 1])) {
+      --valueEnd;
+    }
+
+    listener.header(latin1(line, 0, nameEnd),
+                    latin1(line, valueStart, valueEnd));
+  }
+
+  private static int indexOf(byte[] bytes, int start, int end, char c) {
+    for (int i = start; i < end; ++i) {
+      if (bytes[i] == c) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  /**
+   * Length of the first line of a packet, excluding the line terminator.
+   *
+   * @return The length, or -1 if the packet does not contain a complete
+   *         line.
+   */
+  private static int firstLineLength(byte[] bytes, int length) {
+    final int newLine = indexOf(bytes, 0, length, '\n');
+
+    if (newLine > 0 && bytes[newLine - 1] == '\r') {
+      return newLine - 1;
+    }
+
+    return newLine;
+  }
+
+  private static boolean isSpace(byte b) {
+    return b == ' ' || b == '\t';
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+
+  private static boolean isUpperCase(byte b) {
+    return b >= 'A' && b <= 'Z';
+  }
+
+  private static boolean regionMatches(byte[] bytes,
+                                       int offset,
+                                       int end,
+                                       String s) {
+    if (end - offset < s.length()) {
+      return false;
+    }
+
+    for (int i = 0; i < s.length(); ++i) {
+      if (bytes[offset + i] != s.charAt(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Parse HTTP-Version. Like our previous regular expressions, we accept
+   * any character between the major and minor version numbers.
+   *
+   * @return Offset of the first byte after the version, or -1.
+   */
+  private static int parseVersion(byte[] bytes, int offset, int end) {
+    if (regionMatches(bytes, offset, end, "HTTP/") &&
+        end - offset >= 8 &&
+        isDigit(bytes[offset + 5]) &&
+        isDigit(bytes[offset + 7])) {
+      return offset + 8;
+    }
+
+    return -1;
+  }
+
+  private static String latin1(byte[] bytes, int start, int end) {
+    final char[] chars = new char[end - start];
+
+    for (int i = 0; i < chars.length; ++i) {
+      chars[i] = (char) (bytes[start + i] & 0xFF);
+    }
+
+    return new String(chars);
+  }
+
+  /**
+   * Receives parse events.
+   */
+  interface Listener {
+
+    /**
+     * Called with each candidate start line.
+     *
+     * @param line
+     *          Buffer containing the line. Only valid for the duration of
+     *          the call.
+     * @param length
+     *          Length of the line, excluding the line terminator.
+     * @return {@code true} if the line is a valid start line. Otherwise, the
+     *         line is skipped.
+     */
+    boolean startLine(byte[] line, int length);
+
+    /**
+     * Called for each header.
+     *
+     * @param name
+     *          The header name.
+     * @param value
+     *          The header value, without leading or trailing white space.
+     */
+    void header(String name, String value);
+  }
+
+  /**
+   * A parsed Request-Line.
+   *
+   * <pre>
+   * Request-Line = Method SP Request-URI SP HTTP-Version CRLF
+   * </pre>
+   */
+  static final class RequestLine {
+    private final String m_method;
+    private final String m_relativeURI;
+
+    private RequestLine(String method, String relativeURI) {
+      m_method = method;
+      m_relativeURI = relativeURI;
+    }
+
+    /**
+     * The method.
+     *
+     * @return The method.
+     */
+    public String getMethod() {
+      return m_method;
+    }
+
+    /**
+     * The Request-URI, with any scheme, host, and port removed.
+     *
+     * @return The path, query string, and fragment.
+     */
+    public String getRelativeURI() {
+      return m_relativeURI;
+    }
+
+    /**
+     * Parse a line.
+     *
+     * @param line
+     *          Buffer containing the line.
+     * @param length
+     *          Length of the line, excluding the line terminator.
+     * @return The request line, or {@code null} if the line is not a
+     *         request line.
+     */
+    public static RequestLine parse(byte[] line, int length) {
+      int methodEnd = 0;
+
+      while (methodEnd < length && isUpperCase(line[methodEnd])) {
+        ++methodEnd;
+      }
+
+      if (methodEnd == 0 || methodEnd == length || !isSpace(line[methodEnd])) {
+        return null;
+      }
+
+      int uriStart = methodEnd;
+
+      while (uriStart < length && isSpace(line[uriStart])) {
+        ++uriStart;
+      }
+
+      int end = length;
+
+      while (end > uriStart && isSpace(line[end - 1])) {
+        --end;
+      }
+
+      final int versionStart = end - 8;
+
+      if (versionStart <= uriStart ||
+          parseVersion(line, versionStart, end) != end ||
+          !isSpace(line[versionStart - 1])) {
+        return null;
+      }
+
+      int uriEnd = versionStart;
+
+      while (isSpace(line[uriEnd - 1])) {
+        --uriEnd;
+      }
+
+      // Ignore scheme, host, port.
+      final int schemeLength =
+        regionMatches(line, uriStart, uriEnd, "http://") ? 7 :
+        regionMatches(line, uriStart, uriEnd, "https://") ? 8 : 0;
+
+      if (schemeLength > 0) {
+        final int path =
+          indexOf(line, uriStart + schemeLength, uriEnd, '/');
+
+        if (path == -1) {
+          return new RequestLine(latin1(line, 0, methodEnd), "/");
+        }
+
+        uriStart = path;
+      }
+
+      return new RequestLine(latin1(line, 0, methodEnd),
+                             latin1(line, uriStart, uriEnd));
+    }
+
+    /**
+     * Parse the first line of a packet.
+     *
+     * @param bytes
+     *          The packet.
+     * @param length
+     *          Length of the packet.
+     * @return The request line, or {@code null} if the packet does not start
+     *         with a request line.
+     */
+    public static RequestLine parsePacket(byte[] bytes, int length) {
+      if (length == 0 || !isUpperCase(bytes[0])) {
+        return null;
+      }
+
+      final int lineLength = firstLineLength(bytes, length);
+
+      return lineLength == -1 ? null : parse(bytes, lineLength);
+    }
+  }
+
+  /**
+   * A parsed Status-Line.
+   *
+   * <pre>
+   * Status-Line = HTTP-Version SP Status-Code SP Reason-Phrase CRLF
+   * </pre>
+   */
+  static final class StatusLine {
+    private final int m_statusCode;
+    private final String m_reasonPhrase;
+
+    private StatusLine(int statusCode, String reasonPhrase) {
+      m_statusCode = statusCode;
+      m_reasonPhrase = reasonPhrase;
+    }
+
+    /**
+     * The status code.
+     *
+     * @return The status code.
+     */
+    public int getStatusCode() {
+      return m_statusCode;
+    }
+
+    /**
+     * The reason phrase.
+     *
+     * @return The reason phrase. May be empty.
+     */
+    public String getReasonPhrase() {
+      return m_reasonPhrase;
+    }
+
+    /**
+     * Parse a line.
+     *
+     * @param line
+     *          Buffer containing the line.
+     * @param length
+     *          Length of the line, excluding the line terminator.
+     * @return The status line, or {@code null} if the line is not a
+     *         status line.
+     */
+    public static StatusLine parse(byte[] line, int length) {
+      final int versionEnd = parseVersion(line, 0, length);
+
+      if (versionEnd == -1 ||
+          versionEnd == length ||
+          !isSpace(line[versionEnd])) {
+        return null;
+      }
+
+      int codeStart = versionEnd;
+
+      while (codeStart < length && isSpace(line[codeStart])) {
+        ++codeStart;
+      }
+
+      int statusCode = 0;
+      int codeEnd = codeStart;
+
+      // Status-Code is three digits; we allow a few more but not enough to
+      // overflow.
+      while (codeEnd < length && isDigit(line[codeEnd])) {
+        if (codeEnd - codeStart == 9) {
+          return null;
+        }
+
+        statusCode = statusCode * 10 + line[codeEnd] - '0';
+        ++codeEnd;
+      }
+
+      if (codeEnd == codeStart ||
+          codeEnd < length && !isSpace(line[codeEnd])) {
+        return null;
+      }
+
+      int reasonStart = codeEnd;
+
+      while (reasonStart < length && isSpace(line[reasonStart])) {
+        ++reasonStart;
+      }
+
+      int reasonEnd = length;
+
+      while (reasonEnd > reasonStart && isSpace(line[reasonEnd - 1])) {
+        --reasonEnd;
+      }
+
+      return new StatusLine(statusCode,
+                            latin1(line, reasonStart, reasonEnd));
+    }
+
+    /**
+     * Parse the first line of a packet.
+     *
+     * @param bytes
+     *          The packet.
+     * @param length
+     *          Length of the packet.
+     * @return The status line, or {@code null} if the packet does not start
+     *         with a status line.
+     */
+    public static StatusLine parsePacket(byte[] bytes, int length) {
+      if (length == 0 || bytes[0] != 'H') {
+        return null;
+      }
+
+      final int lineLength = firstLineLength(bytes, length);
+
+      return lineLength == -1 ? null : parse(bytes, lineLength);
+    }
+  }
+}
@@ -61,6 +61,19 @@ public interface HTTPRecording {
   RequestType addRequest(
     ConnectionDetails connectionDetails, String method, String relativeURI);
 
+  /**
+   * Called when a request and its response are complete.
+   *
+   * <p>
+   * The recording may write the request out and discard it, so the caller
+   * must not modify the request after calling this method.
+   * </p>
+   *
+   * @param request
+   *          The request, as returned by {@link #addRequest}.
+   */
+  void requestFinished(RequestType request);
+
   /**
    * Called when a response message starts. Because the test script represents a
    * single thread of control we need to calculate the sleep deltas using the
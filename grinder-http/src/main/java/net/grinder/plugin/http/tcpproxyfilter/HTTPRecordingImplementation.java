@@ -21,31 +21,32 @@
 
 package net.grinder.plugin.http.tcpproxyfilter;
 
-import static java.util.Collections.emptySet;
-
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.HttpURLConnection;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IdentityHashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import javax.xml.namespace.QName;
+import javax.xml.transform.stream.StreamSource;
+
 import net.grinder.common.GrinderBuild;
+import net.grinder.common.TimeAuthority;
 import net.grinder.plugin.http.xml.BaseURIType;
 import net.grinder.plugin.http.xml.CommonHeadersType;
 import net.grinder.plugin.http.xml.HTTPRecordingType;
-import net.grinder.plugin.http.xml.HeaderType;
-import net.grinder.plugin.http.xml.HeadersType;
 import net.grinder.plugin.http.xml.HttpRecordingDocument;
-import net.grinder.plugin.http.xml.PageType;
 import net.grinder.plugin.http.xml.ParsedURIPartType;
 import net.grinder.plugin.http.xml.RelativeURIType;
 import net.grinder.plugin.http.xml.RequestType;
@@ -54,10 +55,11 @@ import net.grinder.plugin.http.xml.TokenReferenceType;
 import net.grinder.plugin.http.xml.TokenType;
 import net.grinder.tools.tcpproxy.ConnectionDetails;
 import net.grinder.tools.tcpproxy.EndPoint;
-import net.grinder.util.Pair;
+import net.grinder.util.StandardTimeAuthority;
 import net.grinder.util.http.URIParser;
 
 import org.apache.xmlbeans.XmlObject;
+import org.apache.xmlbeans.XmlOptions;
 import org.picocontainer.Disposable;
 import org.slf4j.Logger;
 
@@ -68,10 +70,17 @@ import HTTPClient.URI;
 /**
  * Contains common state for HTTP recording.
  *
+ * <p>Requests are written to a spool file as they are finished, so the
+ * memory used does not grow with the length of the recording.</p>
+ *
  * @author Philip Aston
  */
 public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
 
+  private static final String NAMESPACE =
+    HttpRecordingDocument.type.getDocumentElementName().getNamespaceURI();
+
+
   private final HTTPRecordingParameters m_parameters;
   private final HttpRecordingDocument m_recordingDocument =
     HttpRecordingDocument.Factory.newInstance();
@@ -79,10 +88,12 @@ public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
   private final HTTPRecordingResultProcessor m_resultProcessor;
   private final RegularExpressions m_regularExpressions;
   private final URIParser m_uriParser;
+  private final TimeAuthority m_timeAuthority;
 
   private final IntGenerator m_bodyFileIDGenerator = new IntGenerator();
   private final BaseURLMap m_baseURLMap = new BaseURLMap();
   private final RequestList m_requestList = new RequestList();
+  private final CommonHeadersIndex m_commonHeadersIndex;
   private final TokenMap m_tokenMap = new TokenMap();
 
   private long m_lastResponseTime = 0;
@@ -107,12 +118,46 @@ public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
     Logger logger,
     RegularExpressions regularExpressions,
     URIParser uriParser) {
+    this(parameters,
+         resultProcessor,
+         logger,
+         regularExpressions,
+         uriParser,
+         new StandardTimeAuthority());
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param parameters
+   *          Recording parameters.
+   * @param resultProcessor
+   *          Component which handles result.
+   * @param logger
+   *          A logger.
+   * @param regularExpressions
+   *          Compiled regular expressions.
+   * @param uriParser
+   *          A URI parser.
+   * @param timeAuthority
+   *          Source of the request and response times. Recordings imported
+   *          from capture files use the captured times.
+   */
+  public HTTPRecordingImplementation(
+    HTTPRecordingParameters parameters,
+    HTTPRecordingResultProcessor resultProcessor,
+    Logger logger,
+    RegularExpressions regularExpressions,
+    URIParser uriParser,
+    TimeAuthority timeAuthority) {
 
     m_parameters = parameters;
     m_resultProcessor = resultProcessor;
     m_logger = logger;
     m_regularExpressions = regularExpressions;
     m_uriParser = uriParser;
+    m_timeAuthority = timeAuthority;
+    m_commonHeadersIndex = new CommonHeadersIndex(parameters);
 
     final HTTPRecordingType.Metadata httpRecording =
       m_recordingDocument.addNewHttpRecording().addNewMetadata();
@@ -137,14 +182,18 @@ public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
   public RequestType addRequest(
     ConnectionDetails connectionDetails, String method, String relativeURI) {
 
+    final long now = m_timeAuthority.getTimeInMilliseconds();
+
     final RequestType request = m_requestList.add();
-    request.setTime(Calendar.getInstance());
+    final Calendar calendar = Calendar.getInstance();
+    calendar.setTimeInMillis(now);
+    request.setTime(calendar);
 
     synchronized (this) {
       if (m_lastResponseTime > 0) {
         // We only want to record a sleep time for the first request after
         // a response.
-        final long time = System.currentTimeMillis() - m_lastResponseTime;
+        final long time = now - m_lastResponseTime;
 
         if (time > 10) {
           request.setSleepTime(time);
@@ -252,7 +301,7 @@ public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
   @Override
   public void markLastResponseTime() {
     synchronized (this) {
-      m_lastResponseTime = System.currentTimeMillis();
+      m_lastResponseTime = m_timeAuthority.getTimeInMilliseconds();
     }
   }
 
@@ -292,286 +341,133 @@ public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
     return new File("http-data-" + m_bodyFileIDGenerator.next() + ".dat");
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void requestFinished(RequestType request) {
+    m_requestList.finished(request);
+  }
+
   /**
    * Called after the component has been stopped.
+   *
+   * <p>Any requests that have not been finished are written to the spool,
+   * then the recording is written out in a single pass over the spool and
+   * passed to the result processor. The spool is deleted once it has been
+   * read.</p>
    */
   public void dispose() {
-    final HttpRecordingDocument result;
-
-    synchronized (m_recordingDocument) {
-      result = (HttpRecordingDocument)m_recordingDocument.copy();
-    }
-
-    final HTTPRecordingType httpRecording = result.getHttpRecording();
-    m_requestList.record(httpRecording);
+    final File result;
 
-    final XmlObject[] requestXmlObjects = httpRecording.selectPath(
-        "declare namespace ns=" +
-        "'http://grinder.sourceforge.net/tcpproxy/http/1.0';" +
-        "$this//ns:request");
-
-    final List<RequestType> requests =
-        new ArrayList<RequestType>(requestXmlObjects.length);
-
-    for (XmlObject o : requestXmlObjects) {
-      requests.add((RequestType) o);
-    }
-
-    extractCommonHeaders(requests, httpRecording);
-
-    // Find default headers that are present in all common headers, or
-    // request headers that don't extend common headers.
-
-    final CommonHeadersType[] commonHeaders =
-        httpRecording.getCommonHeadersArray();
-
-    final List<HeadersType> defaultHeaderSources =
-        new ArrayList<HeadersType>(commonHeaders.length);
+    try {
+      m_requestList.flush();
 
-    for (HeadersType header : commonHeaders) {
-      defaultHeaderSources.add(header);
+      result = writeRecording();
     }
-
-    for (RequestType request : requests) {
-      final HeadersType headers = request.getHeaders();
-
-      if (!headers.isSetExtends()) {
-        defaultHeaderSources.add(headers);
-      }
+    catch (IOException e) {
+      m_logger.error(e.getMessage(), e);
+      return;
     }
-
-    final Set<Pair<String, String>> defaultHeaders =
-        findSharedHeaders(defaultHeaderSources);
-
-    if (defaultHeaders.size() > 0) {
-      final List<CommonHeadersType> newCommonHeaders =
-        new ArrayList<CommonHeadersType>(commonHeaders.length + 1);
-
-      final CommonHeadersType defaultHeadersXML =
-          CommonHeadersType.Factory.newInstance();
-      defaultHeadersXML.setHeadersId("defaultHeaders");
-      newCommonHeaders.add(defaultHeadersXML);
-
-      for (Pair<String, String> defaultHeader : defaultHeaders) {
-        final HeaderType header = defaultHeadersXML.addNewHeader();
-        header.setName(defaultHeader.getFirst());
-        header.setValue(defaultHeader.getSecond());
-      }
-
-      // There can be at most one CommonHeaders that is the same as the
-      // default headers. If we find it, we remove it.
-      String emptyCommonHeadersID = null;
-
-      for (CommonHeadersType headers : commonHeaders) {
-        removeDefaultHeaders(defaultHeaders,
-                             defaultHeadersXML.getHeadersId(),
-                             headers);
-
-        if (headers.sizeOfHeaderArray() == 0) {
-          assert emptyCommonHeadersID == null;
-          emptyCommonHeadersID = headers.getHeadersId();
-        }
-        else {
-          newCommonHeaders.add(headers);
-        }
-      }
-
-      httpRecording.setCommonHeadersArray(
-        newCommonHeaders.toArray(
-          new CommonHeadersType[newCommonHeaders.size()]));
-
-      for (RequestType request : requests) {
-        final HeadersType headers = request.getHeaders();
-
-        if (!headers.isSetExtends()) {
-          removeDefaultHeaders(defaultHeaders,
-                               defaultHeadersXML.getHeadersId(),
-                               headers);
-        }
-        else {
-          // Fix up any references to the CommonHeaders that duplicated the
-          // defaultHeaders.
-          if (headers.getExtends().equals(emptyCommonHeadersID)) {
-            headers.setExtends(defaultHeadersXML.getHeadersId());
-          }
-        }
-      }
+    finally {
+      m_requestList.delete();
     }
 
     try {
-      m_resultProcessor.process(result);
+      m_resultProcessor.process(new StreamSource(result));
     }
     catch (IOException e) {
       m_logger.error(e.getMessage(), e);
     }
+    finally {
+      result.delete();
+    }
   }
 
-  private void extractCommonHeaders(List<RequestType> requests,
-                                    HTTPRecordingType httpRecording) {
+  private File writeRecording() throws IOException {
+    final HTTPRecordingType httpRecording;
 
-    // Build identity map of Request to (Common, Uncommon) and map containing
-    // the number of times each set of common headers is referenced.
-    final Map<RequestType, Pair<CommonHeadersType, HeadersType>>
-      parsedRequests =
-      new IdentityHashMap<RequestType, Pair<CommonHeadersType, HeadersType>>();
-
-    final Map<String, Integer> commonHeadersCountByValue =
-        new HashMap<String, Integer>();
+    synchronized (m_recordingDocument) {
+      httpRecording =
+        ((HttpRecordingDocument)m_recordingDocument.copy()).getHttpRecording();
+    }
 
-    final Map<String, CommonHeadersType> uniqueCommonHeaders =
-        new HashMap<String, CommonHeadersType>();
+    final CommonHeadersIndex.Resolution commonHeaders =
+      m_commonHeadersIndex.resolve();
 
-    for (RequestType request : requests) {
-      final CommonHeadersType commonHeaders =
-          CommonHeadersType.Factory.newInstance();
+    final File file = File.createTempFile("grinder-http-recording", ".xml");
+    file.deleteOnExit();
 
-      final HeadersType uncommonHeaders = HeadersType.Factory.newInstance();
+    final Writer out =
+      new BufferedWriter(
+        new OutputStreamWriter(new FileOutputStream(file), "UTF-8"));
 
-      final XmlObject[] children = request.getHeaders().selectPath("./*");
+    try {
+      out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+      out.write("<http-recording xmlns=\"" + NAMESPACE + "\">");
 
-      for (int i = 0; i < children.length; ++i) {
-        if (children[i] instanceof HeaderType) {
-          final HeaderType header = (HeaderType)children[i];
+      writeElement(out, "metadata", httpRecording.getMetadata());
 
-          if (m_parameters.isCommonHeader(header.getName())) {
-            commonHeaders.addNewHeader().set(header);
-          }
-          else {
-            uncommonHeaders.addNewHeader().set(header);
-          }
-        }
-        else {
-          uncommonHeaders.addNewAuthorization().set(children[i]);
-        }
+      for (CommonHeadersType headers : commonHeaders.getCommonHeaders()) {
+        writeElement(out, "common-headers", headers);
       }
 
-      // Key that ignores ID.
-      final String key =
-        Arrays.asList(commonHeaders.getHeaderArray()).toString();
-
-      final CommonHeadersType existing = uniqueCommonHeaders.get(key);
-
-      final CommonHeadersType theCommonHeaders;
-
-      if (existing != null) {
-        theCommonHeaders = existing;
+      for (BaseURIType baseURI : httpRecording.getBaseUriArray()) {
+        writeElement(out, "base-uri", baseURI);
       }
-      else {
-        uniqueCommonHeaders.put(key, commonHeaders);
-        theCommonHeaders = commonHeaders;
-      }
-
-      parsedRequests.put(request, Pair.of(theCommonHeaders, uncommonHeaders));
 
-      final Integer count = commonHeadersCountByValue.get(key);
-      final int oldCount = count != null ? count.intValue() : 0;
-      commonHeadersCountByValue.put(key, oldCount + 1);
-    }
+      for (TokenType token : httpRecording.getTokenArray()) {
+        writeElement(out, "token", token);
+      }
 
-    // Now extract common headers if more than one request refers to them.
-    final IntGenerator idGenerator = new IntGenerator();
+      final boolean[] pageOpen = { false };
+      final Paginator paginator = new Paginator();
 
-    for (RequestType request : requests) {
-      final Pair<CommonHeadersType, HeadersType> pair =
-          parsedRequests.get(request);
+      m_requestList.read(new RequestSpool.Visitor() {
+        public void visit(RequestType request) throws IOException {
 
-      final CommonHeadersType commonHeaders = pair.getFirst();
-      final HeadersType uncommonHeaders = pair.getSecond();
+          if (paginator.startsPage(request)) {
+            if (pageOpen[0]) {
+              out.write("</page>");
+            }
 
-      final String key =
-          Arrays.asList(commonHeaders.getHeaderArray()).toString();
+            out.write("<page>");
+            pageOpen[0] = true;
+          }
 
-      if (commonHeaders.sizeOfHeaderArray() > 0 &&
-          commonHeadersCountByValue.get(key).intValue() > 1) {
-        if (commonHeaders.getHeadersId() == null) {
-          commonHeaders.setHeadersId("headers" + idGenerator.next());
+          commonHeaders.apply(request);
 
-          httpRecording.addNewCommonHeaders().set(commonHeaders);
+          writeElement(out, "request", request);
         }
+      });
 
-        uncommonHeaders.setExtends(commonHeaders.getHeadersId());
-
-        request.setHeaders(uncommonHeaders);
+      if (pageOpen[0]) {
+        out.write("</page>");
       }
-    }
-  }
 
-  /**
-   * Find the intersection of (matching name and value) from a set of headers.
-   * If there are less than two sets of headers in headersList, the result
-   * is empty.
-   *
-   * @param headersList
-   *          Headers to search.
-   * @return Shared headers.
-   */
-  private static Set<Pair<String, String>>
-    findSharedHeaders(List<HeadersType> headersList) {
-
-    if (headersList.size() < 2) {
-      return emptySet();
+      out.write("</http-recording>\n");
     }
-
-    final HeaderType[] oneHeaders =
-        headersList.remove(headersList.size() - 1).getHeaderArray();
-
-    final Set<Pair<String, String>> sharedHeaders =
-        new HashSet<Pair<String, String>>(oneHeaders.length);
-
-    for (HeaderType header : oneHeaders) {
-      sharedHeaders.add(Pair.of(header.getName(), header.getValue()));
+    finally {
+      out.close();
     }
 
-    for (HeadersType headers : headersList) {
-      final HeaderType[] h = headers.getHeaderArray();
-
-      final Set<Pair<String, String>> sharedHeadersCopy =
-          new HashSet<Pair<String, String>>(sharedHeaders);
-
-      for (int j = 0; j < h.length; ++j) {
-        final String name = h[j].getName();
-        final String value = h[j].getValue();
-
-        sharedHeadersCopy.remove(Pair.of(name, value));
-      }
-
-      sharedHeaders.removeAll(sharedHeadersCopy);
-    }
-
-    return sharedHeaders;
+    return file;
   }
 
-  /**
-   * Remove default headers.
-   *
-   * @param defaultHeaders Headers to remove.
-   * @param defaultHeadersID
-   * @param headers The headers. Mutated in place.
-   */
-  private static void removeDefaultHeaders(
-        Set<Pair<String, String>> defaultHeaders,
-        String defaultHeadersID,
-        HeadersType headers) {
-
-    final HeaderType[] headersArray = headers.getHeaderArray();
-
-    final List<Integer> defaultHeaderIndexes =
-        new ArrayList<Integer>(defaultHeaders.size());
+  private static void writeElement(Writer out, String name, XmlObject o)
+    throws IOException {
 
-    for (int i = headersArray.length - 1; i >= 0; --i) {
-      if (defaultHeaders.contains(Pair.of(headersArray[i].getName(),
-                                          headersArray[i].getValue()))) {
-        defaultHeaderIndexes.add(i);
-      }
-    }
+    final XmlOptions options = new XmlOptions();
+    options.setSaveSyntheticDocumentElement(new QName(NAMESPACE, name));
 
-    assert defaultHeaderIndexes.size() == defaultHeaders.size();
+    // The enclosing elements are written directly, and declare the
+    // namespace as the default.
+    options.setSaveImplicitNamespaces(Collections.singletonMap("", NAMESPACE));
+    options.setSaveNoXmlDecl();
+    options.setUseDefaultNamespace();
+    options.setSaveAggressiveNamespaces();
 
-    for (int index : defaultHeaderIndexes) {
-      headers.removeHeader(index);
-    }
-
-    headers.setExtends(defaultHeadersID);
+    o.save(out, options);
   }
 
   private final class BaseURLMap {
@@ -610,70 +506,139 @@ public class HTTPRecordingImplementation implements HTTPRecording, Disposable {
     }
   }
 
+  /**
+   * Requests that have been added. Each request is numbered in the order it
+   * was added, and written to the spool as soon as it is finished.
+   *
+   * <p>Requests on different connections finish in any order, and a request
+   * on an idle keep-alive, long-poll, or event stream connection might not
+   * finish until the recording ends. Only such unfinished requests are held
+   * in memory. The spool restores the order when it is read.</p>
+   */
   private final class RequestList {
-    private final List<RequestType> m_requests = new ArrayList<RequestType>();
-    private final Pattern m_resourcePathPattern = Pattern.compile(
-      ".*(?:\\.css|\\.gif|\\.ico|\\.jpe?g|\\.js|\\.png)(?:\\?.*)?$",
-      Pattern.CASE_INSENSITIVE);
+    private final Map<RequestType, Integer> m_pending =
+      new IdentityHashMap<RequestType, Integer>();
+
+    private int m_nextPosition = 0;
+    private RequestSpool m_spool;
 
     public RequestType add() {
       final RequestType request = RequestType.Factory.newInstance();
 
-      synchronized (m_requests) {
-        m_requests.add(request);
+      synchronized (this) {
+        m_pending.put(request, m_nextPosition++);
       }
 
       return request;
     }
 
-    public void record(HTTPRecordingType httpRecording) {
-      synchronized (m_requests) {
-        m_logger.debug("Recording {} requests", m_requests.size());
+    public synchronized void finished(RequestType request) {
+      final Integer position = m_pending.remove(request);
 
-        String lastBaseURI = null;
-        boolean lastResponseWasRedirect = false;
+      if (position != null) {
+        try {
+          record(request, position);
+        }
+        catch (IOException e) {
+          m_logger.error(e.getMessage(), e);
+        }
+      }
+    }
 
-        PageType currentPage = null;
+    public synchronized void flush() throws IOException {
+      for (Map.Entry<RequestType, Integer> entry : m_pending.entrySet()) {
+        record(entry.getKey(), entry.getValue());
+      }
 
-        for (RequestType request : m_requests) {
-          final ResponseType response = request.getResponse();
+      m_pending.clear();
 
-          if (response == null) {
-            m_logger.debug("Skipping due to no response: {}", request);
-            continue;
-          }
+      m_logger.debug("Recording {} requests",
+                     m_spool != null ? m_spool.size() : 0);
+    }
 
-          synchronized (m_recordingDocument) {
-            // Crude but effective pagination heuristics.
-            if (!request.getUri().getExtends().equals(lastBaseURI) ||
-                request.isSetBody() ||
-                !(m_resourcePathPattern.matcher(request.getUri().getUnparsed())
-                     .matches() ||
-                  lastResponseWasRedirect) ||
-                currentPage == null) {
-              currentPage = httpRecording.addNewPage();
-            }
+    public synchronized void read(RequestSpool.Visitor visitor)
+      throws IOException {
+      if (m_spool != null) {
+        m_spool.read(visitor);
+      }
+    }
 
-            lastBaseURI = request.getUri().getExtends();
+    public synchronized void delete() {
+      if (m_spool != null) {
+        m_spool.delete();
+        m_spool = null;
+      }
+    }
 
-            switch (response.getStatusCode()) {
-              case HttpURLConnection.HTTP_MOVED_PERM:
-              case HttpURLConnection.HTTP_MOVED_TEMP:
-              case 307:
-                lastResponseWasRedirect = true;
+    private void record(RequestType request, int position)
+      throws IOException {
 
-                request.setAnnotation(
-                  "Expecting " + response.getStatusCode() +
-                  " '" + response.getReasonPhrase() + "'");
-                break;
-              default:
-                lastResponseWasRedirect = false;
-            }
+      if (request.getResponse() == null) {
+        m_logger.debug("Skipping due to no response: {}", request);
+        return;
+      }
 
-            currentPage.addNewRequest().set(request);
-          }
-        }
+      if (m_spool == null) {
+        final File file =
+          File.createTempFile("grinder-http-recording", ".spool");
+        file.deleteOnExit();
+        m_spool = new RequestSpool(file);
       }
+
+      m_spool.append(request, position);
+      m_commonHeadersIndex.add(request);
+    }
+  }
+
+  /**
+   * Crude but effective pagination heuristics. Applied to the requests in
+   * order as they are read back from the spool.
+   */
+  private static final class Paginator {
+    private static final Pattern RESOURCE_PATH_PATTERN = Pattern.compile(
+      ".*(?:\\.css|\\.gif|\\.ico|\\.jpe?g|\\.js|\\.png)(?:\\?.*)?$",
+      Pattern.CASE_INSENSITIVE);
+
+    private String m_lastBaseURI = null;
+    private boolean m_lastResponseWasRedirect = false;
+    private boolean m_pageStarted = false;
+
+    /**
+     * Decide whether a request starts a new page. Redirect requests are
+     * annotated.
+     *
+     * @param request The next request.
+     * @return {@code true} if the request starts a new page.
+     */
+    public boolean startsPage(RequestType request) {
+      final ResponseType response = request.getResponse();
+
+      final boolean result =
+        !request.getUri().getExtends().equals(m_lastBaseURI) ||
+        request.isSetBody() ||
+        !(RESOURCE_PATH_PATTERN.matcher(request.getUri().getUnparsed())
+          .matches() ||
+          m_lastResponseWasRedirect) ||
+        !m_pageStarted;
+
+      m_pageStarted = true;
+      m_lastBaseURI = request.getUri().getExtends();
+
+      switch (response.getStatusCode()) {
+        case HttpURLConnection.HTTP_MOVED_PERM:
+        case HttpURLConnection.HTTP_MOVED_TEMP:
+        case 307:
+          m_lastResponseWasRedirect = true;
+
+          request.setAnnotation(
+            "Expecting " + response.getStatusCode() +
+            " '" + response.getReasonPhrase() + "'");
+          break;
+        default:
+          m_lastResponseWasRedirect = false;
+      }
+
+      return result;
     }
   }
 
@@ -35,8 +35,6 @@ import net.grinder.tools.tcpproxy.TCPProxyFilter;
  * every packet that starts with such a line is the start of a request.
  * <li>Should filter chunked transfer coding from POST data.
  * <li>Doesn't handle line continuations.
- * <li>Doesn't parse correctly if lines are broken across message
- * fragments.
  * </ul>
  *
  * @author Philip Aston
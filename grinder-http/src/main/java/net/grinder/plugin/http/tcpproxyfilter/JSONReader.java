@@ -0,0 +1,565 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+
+/**
+ * Minimal streaming JSON parser.
+ *
+ * <p>
+ * Values are read one token at a time, so large documents can be processed
+ * in bounded memory. The API is modelled on the pull parsers provided by
+ * the common JSON libraries, none of which we otherwise depend upon.
+ * </p>
+ *
+ * @author agent
+ */
+final class JSONReader implements Closeable {
+
+  /**
+   * JSON tokens.
+   */
+  enum Token {
+    BEGIN_OBJECT,
+    END_OBJECT,
+    BEGIN_ARRAY,
+    END_ARRAY,
+    NAME,
+    STRING,
+    NUMBER,
+    BOOLEAN,
+    NULL,
+    END_DOCUMENT,
+  }
+
+  private enum Scope {
+    EMPTY_DOCUMENT,
+    NONEMPTY_DOCUMENT,
+    EMPTY_ARRAY,
+    NONEMPTY_ARRAY,
+    EMPTY_OBJECT,
+    DANGLING_NAME,
+    NONEMPTY_OBJECT,
+  }
+
+  private final Reader m_in;
+  private final char[] m_buffer = new char[8192];
+  private int m_position;
+  private int m_limit;
+  private long m_offset;
+
+  private Scope[] m_stack = new Scope[32];
+  private int m_stackSize;
+
+  private Token m_peeked;
+  private String m_peekedValue;
+
+  private final StringBuilder m_stringBuilder = new StringBuilder();
+
+  /**
+   * Constructor.
+   *
+   * @param in
+   *          Source of the JSON text.
+   */
+  public JSONReader(Reader in) {
+    m_in = in;
+    push(Scope.EMPTY_DOCUMENT);
+  }
+
+  /**
+   * Return the type of the next token without consuming it.
+   *
+   * @return The token type.
+   * @throws IOException
+   *           If the text could not be read, or is malformed.
+   */
+  public Token peek() throws IOException {
+    if (m_peeked != null) {
+      return m_peeked;
+    }
+
+    final int top = m_stackSize - 1;
+
+    switch (m_stack[top]) {
+      case EMPTY_DOCUMENT:
+        m_stack[top] = Scope.NONEMPTY_DOCUMENT;
+        return m_peeked = readValue();
+
+      case NONEMPTY_DOCUMENT:
+        if (nextNonWhitespace() != -1) {
+          throw syntaxError("Expected end of document");
+        }
+
+        return m_peeked = Token.END_DOCUMENT;
+
+      case EMPTY_ARRAY:
+        m_stack[top] = Scope.NONEMPTY_ARRAY;
+
+        switch (nextNonWhitespace()) {
+          case ']':
+            return m_peeked = Token.END_ARRAY;
+
+          case -1:
+            throw syntaxError("Unterminated array");
+
+          default:
+            --m_position;
+            return m_peeked = readValue();
+        }
+
+      case NONEMPTY_ARRAY:
+        switch (nextNonWhitespace()) {
+          case ']':
+            return m_peeked = Token.END_ARRAY;
+
+          case ',':
+            return m_peeked = readValue();
+
+          default:
+            throw syntaxError("Expected ',' or ']'");
+        }
+
+      case EMPTY_OBJECT:
+      case NONEMPTY_OBJECT:
+        int c = nextNonWhitespace();
+
+        if (c == '}') {
+          return m_peeked = Token.END_OBJECT;
+        }
+
+        if (m_stack[top] == Scope.NONEMPTY_OBJECT) {
+          if (c != ',') {
+            throw syntaxError("Expected ',' or '}'");
+          }
+
+          c = nextNonWhitespace();
+        }
+
+        if (c != '"') {
+          throw syntaxError("Expected name");
+        }
+
+        m_stack[top] = Scope.DANGLING_NAME;
+        m_peekedValue = readString();
+        return m_peeked = Token.NAME;
+
+      case DANGLING_NAME:
+        if (nextNonWhitespace() != ':') {
+          throw syntaxError("Expected ':'");
+        }
+
+        m_stack[top] = Scope.NONEMPTY_OBJECT;
+        return m_peeked = readValue();
+
+      default:
+        throw new AssertionError(m_stack[top]);
+    }
+  }
+
+  /**
+   * Whether the current array or object has more elements.
+   *
+   * @return {@code true} if there are more elements.
+   * @throws IOException
+   *           If the text could not be read, or is malformed.
+   */
+  public boolean hasNext() throws IOException {
+    final Token token = peek();
+    return token != Token.END_OBJECT &&
+           token != Token.END_ARRAY &&
+           token != Token.END_DOCUMENT;
+  }
+
+  /**
+   * Consume the start of an object.
+   *
+   * @throws IOException
+   *           If the text could not be read, or the next token is not the
+   *           start of an object.
+   */
+  public void beginObject() throws IOException {
+    expect(Token.BEGIN_OBJECT);
+    push(Scope.EMPTY_OBJECT);
+  }
+
+  /**
+   * Consume the end of an object.
+   *
+   * @throws IOException
+   *           If the text could not be read, or the next token is not the end
+   *           of an object.
+   */
+  public void endObject() throws IOException {
+    expect(Token.END_OBJECT);
+    --m_stackSize;
+  }
+
+  /**
+   * Consume the start of an array.
+   *
+   * @throws IOException
+   *           If the text could not be read, or the next token is not the
+   *           start of an array.
+   */
+  public void beginArray() throws IOException {
+    expect(Token.BEGIN_ARRAY);
+    push(Scope.EMPTY_ARRAY);
+  }
+
+  /**
+   * Consume the end of an array.
+   *
+   * @throws IOException
+   *           If the text could not be read, or the next token is not the end
+   *           of an array.
+   */
+  public void endArray() throws IOException {
+    expect(Token.END_ARRAY);
+    --m_stackSize;
+  }
+
+  /**
+   * Consume a property name.
+   *
+   * @return The name.
+   * @throws IOException
+   *           If the text could not be read, or the next token is not a
+   *           name.
+   */
+  public String nextName() throws IOException {
+    expect(Token.NAME);
+    return m_peekedValue;
+  }
+
+  /**
+   * Consume a string or number value.
+   *
+   * @return The value, or {@code null} if the value was {@code null}.
+   * @throws IOException
+   *           If the text could not be read, or the next token is not a
+   *           string, number, or {@code null}.
+   */
+  public String nextString() throws IOException {
+    final Token token = peek();
+
+    if (token == Token.NULL) {
+      m_peeked = null;
+      return null;
+    }
+
+    if (token != Token.STRING && token != Token.NUMBER) {
+      throw syntaxError("Expected a string but was " + token);
+    }
+
+    m_peeked = null;
+    return m_peekedValue;
+  }
+
+  /**
+   * Consume a number value.
+   *
+   * @return The value.
+   * @throws IOException
+   *           If the text could not be read, or the next token is not a
+   *           number.
+   */
+  public double nextDouble() throws IOException {
+    expect(Token.NUMBER);
+
+    try {
+      return Double.parseDouble(m_peekedValue);
+    }
+    catch (NumberFormatException e) {
+      throw syntaxError("Invalid number '" + m_peekedValue + "'");
+    }
+  }
+
+  /**
+   * Consume a boolean value.
+   *
+   * @return The value.
+   * @throws IOException
+   *           If the text could not be read, or the next token is not a
+   *           boolean.
+   */
+  public boolean nextBoolean() throws IOException {
+    expect(Token.BOOLEAN);
+    return "true".equals(m_peekedValue);
+  }
+
+  /**
+   * Consume the next value, including any nested values.
+   *
+   * @throws IOException
+   *           If the text could not be read, or is malformed.
+   */
+  public void skipValue() throws IOException {
+    int depth = 0;
+
+    do {
+      switch (peek()) {
+        case BEGIN_OBJECT:
+          beginObject();
+          ++depth;
+          break;
+
+        case BEGIN_ARRAY:
+          beginArray();
+          ++depth;
+          break;
+
+        case END_OBJECT:
+          endObject();
+          --depth;
+          break;
+
+        case END_ARRAY:
+          endArray();
+          --depth;
+          break;
+
+        case END_DOCUMENT:
+          throw syntaxError("Unexpected end of document");
+
+        default:
+          m_peeked = null;
+      }
+    }
+    while (depth > 0);
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override public void close() throws IOException {
+    m_in.close();
+  }
+
+  private void expect(Token token) throws IOException {
+    final Token peeked = peek();
+
+    if (peeked != token) {
+      throw syntaxError("Expected " + token + " but was " + peeked);
+    }
+
+    m_peeked = null;
+  }
+
+  private void push(Scope scope) {
+    if (m_stackSize == m_stack.length) {
+      final Scope[] stack = new Scope[m_stackSize * 2];
+      System.arraycopy(m_stack, 0, stack, 0, m_stackSize);
+      m_stack = stack;
+    }
+
+    m_stack[m_stackSize++] = scope;
+  }
+
+  private Token readValue() throws IOException {
+    final int c = nextNonWhitespace();
+
+    switch (c) {
+      case '{':
+        return Token.BEGIN_OBJECT;
+
+      case '[':
+        return Token.BEGIN_ARRAY;
+
+      case '"':
+        m_peekedValue = readString();
+        return Token.STRING;
+
+      case 't':
+        readLiteral("rue");
+        m_peekedValue = "true";
+        return Token.BOOLEAN;
+
+      case 'f':
+        readLiteral("alse");
+        m_peekedValue = "false";
+        return Token.BOOLEAN;
+
+      case 'n':
+        readLiteral("ull");
+        m_peekedValue = null;
+        return Token.NULL;
+
+      default:
+        if (c == '-' || c >= '0' && c <= '9') {
+          m_peekedValue = readNumber((char) c);
+          return Token.NUMBER;
+        }
+
+        throw syntaxError("Expected value");
+    }
+  }
+
+  private void readLiteral(String rest) throws IOException {
+    for (int i = 0; i < rest.length(); ++i) {
+      if (read() != rest.charAt(i)) {
+        throw syntaxError("Expected value");
+      }
+    }
+  }
+
+  private String readNumber(char first) throws IOException {
+    m_stringBuilder.setLength(0);
+    m_stringBuilder.append(first);
+
+    while (true) {
+      final int c = read();
+
+      if (c >= '0' && c <= '9' ||
+          c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+        m_stringBuilder.append((char) c);
+      }
+      else {
+        if (c != -1) {
+          --m_position;
+        }
+
+        return m_stringBuilder.toString();
+      }
+    }
+  }
+
+  private String readString() throws IOException {
+    m_stringBuilder.setLength(0);
+
+    while (true) {
+      // Copy runs of unescaped characters directly from the buffer.
+      final int start = m_position;
+
+      while (m_position < m_limit) {
+        final char c = m_buffer[m_position];
+
+        if (c == '"' || c == '\\') {
+          break;
+        }
+
+        ++m_position;
+      }
+
+      m_stringBuilder.append(m_buffer, start, m_position - start);
+
+      final int c = read();
+
+      switch (c) {
+        case -1:
+          throw syntaxError("Unterminated string");
+
+        case '"':
+          return m_stringBuilder.toString();
+
+        case '\\':
+          m_stringBuilder.append(readEscape());
+          break;
+
+        default:
+          // Buffer was refilled.
+          --m_position;
+      }
+    }
+  }
+
+  private char readEscape() throws IOException {
+    final int c = read();
+
+    switch (c) {
+      case '"':
+      case '\\':
+      case '/':
+        return (char) c;
+
+      case 'b':
+        return '\b';
+
+      case 'f':
+        return '\f';
+
+      case 'n':
+        return '\n';
+
+      case 'r':
+        return '\r';
+
+      case 't':
+        return '\t';
+
+      case 'u':
+        int result = 0;
+
+        for (int i = 0; i < 4; ++i) {
+          final int digit = Character.digit(read(), 16);
+
+          if (digit == -1) {
+            throw syntaxError("Invalid unicode escape");
+          }
+
+          result = result << 4 | digit;
+        }
+
+        return (char) result;
+
+      default:
+        throw syntaxError("Invalid escape sequence");
+    }
+  }
+
+  private int nextNonWhitespace() throws IOException {
+    while (true) {
+      final int c = read();
+
+      if (c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+        return c;
+      }
+    }
+  }
+
+  private int read() throws IOException {
+    if (m_position == m_limit) {
+      m_offset += m_limit;
+      m_position = 0;
+      m_limit = 0;
+
+      final int n = m_in.read(m_buffer);
+
+      if (n <= 0) {
+        return -1;
+      }
+
+      m_limit = n;
+    }
+
+    return m_buffer[m_position++];
+  }
+
+  private IOException syntaxError(String message) {
+    return new IOException(
+      "Malformed JSON: " + message + " at offset " + (m_offset + m_position));
+  }
+}
@@ -29,10 +29,11 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 
 import javax.xml.transform.ErrorListener;
+import javax.xml.transform.Source;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.stax.StAXSource;
+import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
 
@@ -132,6 +133,18 @@ public class ProcessHTTPRecordingWithXSLT implements
    *           If an output error occurred.
    */
   public void process(HttpRecordingDocument result) throws IOException {
+    process(new DOMSource(result.getDomNode()));
+  }
+
+  /**
+   * Produce output.
+   *
+   * @param result
+   *          The result to process.
+   * @throws IOException
+   *           If an output error occurred.
+   */
+  public void process(Source result) throws IOException {
 
     try {
       final Transformer transformer = m_transformerFactory
@@ -140,8 +153,7 @@ public class ProcessHTTPRecordingWithXSLT implements
       // One might expect this to be the default, but it's not.
       transformer.setErrorListener(m_transformerFactory.getErrorListener());
 
-      transformer.transform(new StAXSource(result.newXMLStreamReader()),
-                            new StreamResult(m_output));
+      transformer.transform(result, new StreamResult(m_output));
 
       m_output.println();
     }
@@ -191,7 +203,10 @@ public class ProcessHTTPRecordingWithXSLT implements
     Jython("resources/httpToJythonScript.xsl"),
 
     /** Generate a Clojure script. */
-    Clojure("resources/httpToClojureScript.xsl");
+    Clojure("resources/httpToClojureScript.xsl"),
+
+    /** Save the recording as XML, which can be replayed without a script. */
+    XML("resources/httpToXML.xsl");
 
     private final String m_resourceName;
 
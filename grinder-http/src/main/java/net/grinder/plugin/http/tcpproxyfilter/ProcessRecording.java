@@ -27,9 +27,10 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.io.PrintWriter;
 
+import javax.xml.transform.stream.StreamSource;
+
 import net.grinder.common.GrinderException;
 import net.grinder.plugin.http.tcpproxyfilter.ProcessHTTPRecordingWithXSLT.StyleSheetFile;
-import net.grinder.plugin.http.xml.HttpRecordingDocument;
 import net.grinder.util.AbstractMainClass;
 
 import org.slf4j.Logger;
@@ -105,10 +106,7 @@ public final class ProcessRecording extends AbstractMainClass {
 
   private void run() throws Exception {
 
-    final HttpRecordingDocument recording =
-      HttpRecordingDocument.Factory.parse(m_recordingStream);
-
-    m_processor.process(recording);
+    m_processor.process(new StreamSource(m_recordingStream));
   }
 
 }
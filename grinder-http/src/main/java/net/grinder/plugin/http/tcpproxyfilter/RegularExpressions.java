@@ -30,66 +30,10 @@ import java.util.regex.Pattern;
  */
 public interface RegularExpressions {
 
-  /**
-   * A pattern that matches the first line of an HTTP request.
-   *
-   * @return The pattern.
-   */
-  Pattern getRequestLinePattern();
-
-  /**
-   * A pattern that matches the first line of an HTTP response.
-   *
-   * @return The pattern.
-   */
-  Pattern getResponseLinePattern();
-
-  /**
-   * A pattern that matches an HTTP message body.
-   *
-   * @return The pattern.
-   */
-  Pattern getMessageBodyPattern();
-
-  /**
-   * A pattern that matches an HTTP header.
-   *
-   * @return The pattern
-   */
-  Pattern getHeaderPattern();
-
-  /**
-   * A pattern that matches an HTTP Basic Authorization header.
-   *
-   * @return The pattern
-   */
-  Pattern getBasicAuthorizationHeaderPattern();
-
   /**
    * A pattern that matches the last element in a path.
    *
    * @return The pattern
    */
   Pattern getLastPathElementPathPattern();
-
-  /**
-   * A pattern that matches URLs referenced by hyperlinks.
-   *
-   * @return The pattern.
-   */
-  Pattern getHyperlinkURIPattern();
-
-  /**
-   * A pattern that matches input parameters in HTML forms.
-   *
-   * @return The pattern.
-   */
-  Pattern getInputPattern();
-
-  /**
-   * A pattern that matches hidden input parameters in HTML forms.
-   *
-   * @return The pattern.
-   */
-  Pattern getHiddenInputPattern();
 }
@@ -0,0 +1,222 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import javax.xml.namespace.QName;
+
+import net.grinder.common.Closer;
+import net.grinder.plugin.http.xml.HttpRecordingDocument;
+import net.grinder.plugin.http.xml.RequestType;
+
+import org.apache.xmlbeans.XmlException;
+import org.apache.xmlbeans.XmlOptions;
+
+
+/**
+ * Append-only file of completed requests.
+ *
+ * <p>Each record holds the position of the request in the recording,
+ * followed by the UTF-8 encoded XML of the request. Requests may be
+ * appended in any order; they are read back one at a time in recording
+ * order, so a recording need never be held in memory in its entirety. Only
+ * the position and file offset of each record are kept in memory.</p>
+ *
+ * @author agent
+ */
+final class RequestSpool {
+
+  private final File m_file;
+  private final XmlOptions m_saveOptions = new XmlOptions();
+  private final XmlOptions m_loadOptions = new XmlOptions();
+  private final DataOutputStream m_output;
+
+  private int m_size;
+  private long m_offset;
+
+  /**
+   * For each record, the position of the request in the upper 32 bits and
+   * the record number in the lower 32 bits.
+   */
+  private long[] m_keys = new long[256];
+  private long[] m_offsets = new long[256];
+
+  /**
+   * Constructor.
+   *
+   * @param file
+   *          The spool file. Any existing content is discarded.
+   * @throws IOException
+   *           If the file could not be opened.
+   */
+  public RequestSpool(File file) throws IOException {
+    m_file = file;
+    m_output =
+      new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file), 65536));
+    m_saveOptions.setCharacterEncoding("UTF-8");
+    m_saveOptions.setSaveSyntheticDocumentElement(
+      new QName(
+        HttpRecordingDocument.type.getDocumentElementName().getNamespaceURI(),
+        "request"));
+    m_saveOptions.setUseDefaultNamespace();
+    m_saveOptions.setSaveAggressiveNamespaces();
+
+    // Discard the synthetic element when reading the request back.
+    m_loadOptions.setLoadReplaceDocumentElement(null);
+  }
+
+  /**
+   * Append a request.
+   *
+   * @param request
+   *          The request.
+   * @param position
+   *          The position of the request in the recording. Must not be
+   *          negative.
+   * @throws IOException
+   *           If the request could not be written.
+   */
+  public synchronized void append(RequestType request, int position)
+    throws IOException {
+
+    final byte[] bytes = request.xmlText(m_saveOptions).getBytes("UTF-8");
+
+    m_output.writeInt(position);
+    m_output.writeInt(bytes.length);
+    m_output.write(bytes);
+
+    if (m_size == m_keys.length) {
+      m_keys = Arrays.copyOf(m_keys, m_size * 2);
+      m_offsets = Arrays.copyOf(m_offsets, m_size * 2);
+    }
+
+    m_keys[m_size] = (long) position << 32 | m_size;
+    m_offsets[m_size] = m_offset;
+
+    m_offset += 8 + bytes.length;
+    ++m_size;
+  }
+
+  /**
+   * The number of requests that have been appended.
+   *
+   * @return The number of requests.
+   */
+  public synchronized int size() {
+    return m_size;
+  }
+
+  /**
+   * Read every request back, in order of position.
+   *
+   * <p>The spool remains open; further requests may be appended afterwards.
+   * </p>
+   *
+   * @param visitor
+   *          Receives each request.
+   * @throws IOException
+   *           If the spool could not be read.
+   */
+  public synchronized void read(Visitor visitor) throws IOException {
+    m_output.flush();
+
+    final long[] keys = Arrays.copyOf(m_keys, m_size);
+    Arrays.sort(keys);
+
+    final RandomAccessFile in = new RandomAccessFile(m_file, "r");
+    final byte[] header = new byte[8];
+
+    try {
+      for (long key : keys) {
+        final int position = (int) (key >>> 32);
+
+        in.seek(m_offsets[(int) key]);
+        in.readFully(header);
+
+        final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+
+        final int storedPosition = headerBuffer.getInt();
+        final int length = headerBuffer.getInt();
+
+        if (storedPosition != position || length < 0) {
+          throw new IOException("Corrupt request spool " + m_file);
+        }
+
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+
+        final RequestType request;
+
+        try {
+          request = RequestType.Factory.parse(new ByteArrayInputStream(bytes),
+                                              m_loadOptions);
+        }
+        catch (XmlException e) {
+          throw new IOException("Corrupt request spool " + m_file, e);
+        }
+
+        visitor.visit(request);
+      }
+    }
+    catch (EOFException e) {
+      throw new IOException("Truncated request spool " + m_file);
+    }
+    finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Close and delete the spool.
+   */
+  public synchronized void delete() {
+    Closer.close(m_output);
+    m_file.delete();
+  }
+
+  /**
+   * Callback interface for {@link RequestSpool#read}.
+   */
+  interface Visitor {
+
+    /**
+     * Called for each request.
+     *
+     * @param request
+     *          The request. The visitor may modify it.
+     * @throws IOException
+     *           If the visitor failed to process the request.
+     */
+    void visit(RequestType request) throws IOException;
+  }
+}
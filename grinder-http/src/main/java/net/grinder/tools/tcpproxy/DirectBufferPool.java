@@ -0,0 +1,103 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.tools.tcpproxy;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+
+/**
+ * A pool of direct byte buffers of a fixed size.
+ *
+ * <p>Direct buffers are expensive to allocate and are not promptly
+ * reclaimed by the garbage collector, so we recycle them.</p>
+ *
+ * <p>Not thread safe. Each instance is intended to be used by a single
+ * selector thread.</p>
+ *
+ * @author agent
+ */
+final class DirectBufferPool {
+
+  private final int m_bufferSize;
+  private final int m_maximumPooled;
+  private final Deque<ByteBuffer> m_pool = new ArrayDeque<ByteBuffer>();
+
+  /**
+   * Constructor.
+   *
+   * @param bufferSize Size of each buffer, in bytes.
+   * @param maximumPooled
+   *          The maximum number of free buffers to retain. Buffers released
+   *          when the pool is full are left for the garbage collector.
+   */
+  public DirectBufferPool(final int bufferSize, final int maximumPooled) {
+    m_bufferSize = bufferSize;
+    m_maximumPooled = maximumPooled;
+  }
+
+  /**
+   * Obtain a buffer from the pool, allocating a new one if necessary.
+   *
+   * @return A cleared buffer.
+   */
+  public ByteBuffer acquire() {
+    final ByteBuffer buffer = m_pool.pollFirst();
+
+    if (buffer != null) {
+      return buffer;
+    }
+
+    return ByteBuffer.allocateDirect(m_bufferSize);
+  }
+
+  /**
+   * Return a buffer to the pool. The caller must not use the buffer again.
+   *
+   * @param buffer The buffer. Ignored if {@code null}.
+   */
+  public void release(final ByteBuffer buffer) {
+    if (buffer != null && m_pool.size() < m_maximumPooled) {
+      buffer.clear();
+      m_pool.addFirst(buffer);
+    }
+  }
+
+  /**
+   * The size of the buffers issued by this pool.
+   *
+   * @return The buffer size, in bytes.
+   */
+  public int getBufferSize() {
+    return m_bufferSize;
+  }
+
+  /**
+   * The number of free buffers currently held by the pool.
+   *
+   * @return The number of free buffers.
+   */
+  public int getPooledCount() {
+    return m_pool.size();
+  }
+}
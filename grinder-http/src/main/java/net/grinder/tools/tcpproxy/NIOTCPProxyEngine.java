@@ -0,0 +1,1557 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.tools.tcpproxy;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLEngineResult.HandshakeStatus;
+import javax.net.ssl.SSLException;
+
+import net.grinder.common.Closer;
+import net.grinder.common.GrinderBuild;
+import net.grinder.common.GrinderException;
+import net.grinder.common.UncheckedInterruptedException;
+import net.grinder.util.TerminalColour;
+import net.grinder.util.html.HTMLElement;
+
+import org.slf4j.Logger;
+
+import HTTPClient.HTTPConnection;
+
+
+/**
+ * Event driven {@link TCPProxyEngine}.
+ *
+ * <p>The thread based engines use a pair of threads for each proxied
+ * connection. When recording a browser that opens many connections, the
+ * TCPProxy itself can become the bottleneck, distorting the recorded
+ * timings. This engine handles all connections on a single thread using a
+ * {@link Selector}. SSL is terminated and re-established with {@link
+ * SSLEngine}s rather than SSL sockets, and network buffers are direct
+ * buffers drawn from a pool.</p>
+ *
+ * <p>The engine acts either as an HTTP/HTTPS proxy, or as a port forwarder
+ * to a single remote end point. It drives the same {@link TCPProxyFilter}s,
+ * and produces the same {@link ConnectionDetails}, as {@link
+ * HTTPProxyTCPProxyEngine} and {@link PortForwarderTCPProxyEngine}
+ * respectively. Filters are called on the selector thread, so a slow filter
+ * will delay every connection.</p>
+ *
+ * <p>Routing through a chained HTTP or HTTPS proxy is not supported.</p>
+ *
+ * @author agent
+ */
+public final class NIOTCPProxyEngine implements TCPProxyEngine {
+
+  private static final long s_connectTimeout =
+    Long.getLong("tcpproxy.connecttimeout", 5000).longValue();
+
+  private static final Charset s_ascii = Charset.forName("US-ASCII");
+
+  private static final Pattern s_httpConnectPattern =
+    Pattern.compile("^([A-Z]+)[ \\t]+http://([^/:]+):?(\\d*)/.*\r\n\r\n",
+                    Pattern.DOTALL);
+
+  private static final Pattern s_httpsConnectPattern =
+    Pattern.compile("^CONNECT[ \\t]+([^:]+):(\\d+).*\r\n\r\n",
+                    Pattern.DOTALL);
+
+  private static final ByteBuffer EMPTY_BUFFER = ByteBuffer.allocate(0);
+
+  /**
+   * Large enough for any SSL packet, and consistent with the thread based
+   * engines.
+   */
+  private static final int BUFFER_SIZE = 65536;
+
+  /**
+   * Needs to hold the largest reasonable set of HTTP headers - see
+   * {@link HTTPProxyTCPProxyEngine}.
+   */
+  private static final int HEADER_BUFFER_SIZE = 40960;
+
+  /**
+   * When more than this is queued for a connection, we stop reading from the
+   * connections that feed it until it drains.
+   */
+  private static final int HIGH_WATER_MARK = 4 * BUFFER_SIZE;
+
+  private static final int MAXIMUM_POOLED_BUFFERS = 256;
+
+  private static final long SELECT_PERIOD = 100;
+
+  private final SSLContext m_sslContext;
+  private final TCPProxyFilter m_requestFilter;
+  private final TCPProxyFilter m_responseFilter;
+  private final TerminalColour m_requestColour;
+  private final TerminalColour m_responseColour;
+  private final PrintWriter m_outputWriter;
+  private final Logger m_logger;
+  private final EndPoint m_proxyAddress;
+  private final ConnectionDetails m_forwardingDetails;
+  private final int m_timeout;
+
+  private final Selector m_selector;
+  private final ServerSocketChannel m_serverChannel;
+
+  // The following are only accessed by the selector thread.
+  private final DirectBufferPool m_bufferPool =
+    new DirectBufferPool(BUFFER_SIZE, MAXIMUM_POOLED_BUFFERS);
+  private final byte[] m_scratch = new byte[BUFFER_SIZE];
+  private final Set<Connection> m_connections = new LinkedHashSet<Connection>();
+  private final Set<ProxyClient> m_undeterminedClients =
+    new LinkedHashSet<ProxyClient>();
+  private final Set<Connection> m_deferredConnections =
+    new LinkedHashSet<Connection>();
+  private ByteBuffer m_readBuffer;
+
+  private volatile boolean m_stopped;
+
+  // Guarded by m_stateLock.
+  private final Object m_stateLock = new Object();
+  private Thread m_runThread;
+
+  /**
+   * Constructor for an HTTP/HTTPS proxy engine.
+   *
+   * @param sslContext
+   *          SSL context used to terminate and establish SSL connections.
+   * @param requestFilter
+   *          Request filter.
+   * @param responseFilter
+   *          Response filter.
+   * @param output
+   *          Where to direct the output.
+   * @param logger
+   *          Logger.
+   * @param localEndPoint
+   *          Local host and port to listen on. If the {@code EndPoint}'s
+   *          port is 0, an arbitrary port will be assigned.
+   * @param useColour
+   *          Whether to use colour.
+   * @param timeout
+   *          Time in milliseconds to wait for a new connection, when there
+   *          are no active connections, before stopping. {@code 0} means
+   *          wait indefinitely.
+   * @exception IOException
+   *              If an I/O error occurs.
+   */
+  public NIOTCPProxyEngine(final SSLContext sslContext,
+                           final TCPProxyFilter requestFilter,
+                           final TCPProxyFilter responseFilter,
+                           final PrintWriter output,
+                           final Logger logger,
+                           final EndPoint localEndPoint,
+                           final boolean useColour,
+                           final int timeout) throws IOException {
+    this(sslContext, requestFilter, responseFilter, output, logger,
+         localEndPoint, null, useColour, timeout);
+  }
+
+  /**
+   * Constructor for a port forwarding engine.
+   *
+   * @param sslContext
+   *          SSL context used to terminate and establish SSL connections.
+   * @param requestFilter
+   *          Request filter.
+   * @param responseFilter
+   *          Response filter.
+   * @param output
+   *          Where to direct the output.
+   * @param logger
+   *          Logger.
+   * @param connectionDetails
+   *          The local end point to listen on, the remote end point to
+   *          forward to, and whether to use SSL.
+   * @param useColour
+   *          Whether to use colour.
+   * @param timeout
+   *          Time in milliseconds to wait for a new connection, when there
+   *          are no active connections, before stopping. {@code 0} means
+   *          wait indefinitely.
+   * @exception IOException
+   *              If an I/O error occurs.
+   */
+  public NIOTCPProxyEngine(final SSLContext sslContext,
+                           final TCPProxyFilter requestFilter,
+                           final TCPProxyFilter responseFilter,
+                           final PrintWriter output,
+                           final Logger logger,
+                           final ConnectionDetails connectionDetails,
+                           final boolean useColour,
+                           final int timeout) throws IOException {
+    this(sslContext, requestFilter, responseFilter, output, logger,
+         connectionDetails.getLocalEndPoint(), connectionDetails, useColour,
+         timeout);
+  }
+
+  // CHECKSTYLE.OFF: ParameterNumber
+  private NIOTCPProxyEngine(final SSLContext sslContext,
+                            final TCPProxyFilter requestFilter,
+                            final TCPProxyFilter responseFilter,
+                            final PrintWriter output,
+                            final Logger logger,
+                            final EndPoint localEndPoint,
+                            final ConnectionDetails forwardingDetails,
+                            final boolean useColour,
+                            final int timeout) throws IOException {
+  // CHECKSTYLE.ON: ParameterNumber
+
+    m_sslContext = sslContext;
+    m_requestFilter = requestFilter;
+    m_responseFilter = responseFilter;
+    m_outputWriter = output;
+    m_logger = logger;
+    m_proxyAddress = localEndPoint;
+    m_forwardingDetails = forwardingDetails;
+    m_timeout = timeout;
+
+    if (useColour) {
+      m_requestColour = TerminalColour.RED;
+      m_responseColour = TerminalColour.BLUE;
+    }
+    else {
+      m_requestColour = TerminalColour.NONE;
+      m_responseColour = TerminalColour.NONE;
+    }
+
+    final InetAddress localAddress =
+      InetAddress.getByName(localEndPoint.getHost());
+
+    m_selector = Selector.open();
+    m_serverChannel = ServerSocketChannel.open();
+
+    try {
+      m_serverChannel.socket().bind(
+        new InetSocketAddress(localAddress, localEndPoint.getPort()), 50);
+      m_serverChannel.configureBlocking(false);
+    }
+    catch (final IOException e) {
+      Closer.close(m_serverChannel);
+      Closer.close(m_selector);
+      throw e;
+    }
+  }
+
+  /**
+   * Main event loop.
+   */
+  @Override
+  public void run() {
+    synchronized (m_stateLock) {
+      if (m_stopped) {
+        return;
+      }
+
+      m_runThread = Thread.currentThread();
+    }
+
+    m_readBuffer = m_bufferPool.acquire();
+
+    try {
+      m_serverChannel.register(m_selector, SelectionKey.OP_ACCEPT);
+
+      long lastActivity = System.currentTimeMillis();
+
+      while (!m_stopped) {
+        if (m_deferredConnections.isEmpty()) {
+          m_selector.select(SELECT_PERIOD);
+        }
+        else {
+          m_selector.selectNow();
+        }
+
+        final Iterator<SelectionKey> keys =
+          m_selector.selectedKeys().iterator();
+
+        while (keys.hasNext()) {
+          final SelectionKey key = keys.next();
+          keys.remove();
+
+          if (!key.isValid()) {
+            continue;
+          }
+
+          if (key.isAcceptable()) {
+            accept();
+          }
+          else {
+            ((Connection) key.attachment()).ready(key);
+          }
+        }
+
+        processDeferred();
+
+        final long now = System.currentTimeMillis();
+
+        checkUndeterminedClients(now);
+
+        if (!m_connections.isEmpty()) {
+          lastActivity = now;
+        }
+        else if (m_timeout > 0 && now - lastActivity >= m_timeout) {
+          m_logger.error("Listen time out");
+          break;
+        }
+      }
+    }
+    catch (final IOException e) {
+      UncheckedInterruptedException.ioException(e);
+      logIOException(e);
+    }
+    finally {
+      // Closing connections sends connection closed events to the filters.
+      final List<Connection> connections =
+        new ArrayList<Connection>(m_connections);
+
+      for (final Connection connection : connections) {
+        connection.close();
+      }
+
+      m_bufferPool.release(m_readBuffer);
+      m_readBuffer = null;
+
+      Closer.close(m_serverChannel);
+      Closer.close(m_selector);
+
+      synchronized (m_stateLock) {
+        m_stopped = true;
+        m_runThread = null;
+        m_stateLock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Stop the engine. If the engine is running, this waits until all
+   * connections have been closed.
+   */
+  @Override
+  public void stop() {
+    synchronized (m_stateLock) {
+      m_stopped = true;
+
+      if (m_runThread == null) {
+        // Not running; release the port.
+        Closer.close(m_serverChannel);
+        Closer.close(m_selector);
+        return;
+      }
+
+      m_selector.wakeup();
+
+      if (m_runThread != Thread.currentThread()) {
+        while (m_runThread != null) {
+          try {
+            m_stateLock.wait();
+          }
+          catch (final InterruptedException e) {
+            throw new UncheckedInterruptedException(e);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Check whether this engine is stopped.
+   *
+   * @return {@code true} => the engine is stopped.
+   */
+  public boolean isStopped() {
+    return m_stopped;
+  }
+
+  /**
+   * Return the EndPoint we are listening on.
+   *
+   * @return The {@code EndPoint}.
+   */
+  EndPoint getListenEndPoint() {
+    return EndPoint.serverEndPoint(m_serverChannel.socket());
+  }
+
+  /**
+   * Allow unit tests to check that buffers are recycled.
+   *
+   * @return The buffer pool.
+   */
+  DirectBufferPool getBufferPool() {
+    return m_bufferPool;
+  }
+
+  private void accept() {
+    final SocketChannel channel;
+
+    try {
+      channel = m_serverChannel.accept();
+    }
+    catch (final IOException e) {
+      UncheckedInterruptedException.ioException(e);
+      logIOException(e);
+      return;
+    }
+
+    if (channel == null) {
+      return;
+    }
+
+    try {
+      if (m_forwardingDetails != null) {
+        forward(channel);
+      }
+      else {
+        final Connection client =
+          new Connection(channel,
+                         EndPoint.clientEndPoint(channel.socket()),
+                         true,
+                         null);
+        final ProxyClient proxyClient = new ProxyClient(client);
+        client.setReceiver(proxyClient);
+        m_undeterminedClients.add(proxyClient);
+        client.start();
+      }
+    }
+    catch (final IOException e) {
+      UncheckedInterruptedException.ioException(e);
+      logIOException(e);
+      Closer.close(channel);
+    }
+  }
+
+  private void forward(final SocketChannel channel) throws IOException {
+    final boolean isSecure = m_forwardingDetails.isSecure();
+    final EndPoint remoteEndPoint = m_forwardingDetails.getRemoteEndPoint();
+
+    final Connection remote =
+      connect(remoteEndPoint,
+              isSecure ? createClientSSLEngine(remoteEndPoint) : null);
+
+    final EndPoint clientEndPoint = EndPoint.clientEndPoint(channel.socket());
+
+    final Connection client =
+      new Connection(channel,
+                     clientEndPoint,
+                     true,
+                     isSecure ? createServerSSLEngine() : null);
+
+    final ConnectionDetails connectionDetails =
+      new ConnectionDetails(clientEndPoint, remoteEndPoint, isSecure);
+
+    final FilterTee requestTee =
+      new FilterTee(connectionDetails, m_requestFilter, m_requestColour,
+                    remote);
+
+    final FilterTee responseTee =
+      new FilterTee(connectionDetails.getOtherEnd(), m_responseFilter,
+                    m_responseColour, client);
+
+    client.setReceiver(requestTee);
+    remote.setReceiver(responseTee);
+
+    requestTee.opened();
+    responseTee.opened();
+
+    client.start();
+    remote.start();
+  }
+
+  private Connection connect(final EndPoint endPoint,
+                             final SSLEngine sslEngine) throws IOException {
+
+    final InetSocketAddress address =
+      new InetSocketAddress(endPoint.getHost(), endPoint.getPort());
+
+    if (address.isUnresolved()) {
+      throw new UnknownHostException(endPoint.getHost());
+    }
+
+    final SocketChannel channel = SocketChannel.open();
+
+    try {
+      channel.configureBlocking(false);
+      final boolean connected = channel.connect(address);
+      return new Connection(channel, endPoint, connected, sslEngine);
+    }
+    catch (final ConnectException e) {
+      Closer.close(channel);
+      throw new VerboseConnectException(e, "end point " + endPoint);
+    }
+    catch (final IOException e) {
+      Closer.close(channel);
+      throw e;
+    }
+  }
+
+  private SSLEngine createServerSSLEngine() {
+    final SSLEngine engine = m_sslContext.createSSLEngine();
+    engine.setUseClientMode(false);
+    engine.setEnabledCipherSuites(engine.getSupportedCipherSuites());
+    engine.setEnabledProtocols(engine.getSupportedProtocols());
+    return engine;
+  }
+
+  private SSLEngine createClientSSLEngine(final EndPoint remoteEndPoint) {
+    final SSLEngine engine =
+      m_sslContext.createSSLEngine(remoteEndPoint.getHost(),
+                                   remoteEndPoint.getPort());
+    engine.setUseClientMode(true);
+    engine.setEnabledCipherSuites(HTTPConnection.getSSLCipherSuites());
+    engine.setEnabledProtocols(HTTPConnection.getSSLProtocols());
+    return engine;
+  }
+
+  private void processDeferred() {
+    while (!m_deferredConnections.isEmpty()) {
+      final Iterator<Connection> iterator = m_deferredConnections.iterator();
+      final Connection connection = iterator.next();
+      iterator.remove();
+      connection.processDeferred();
+    }
+  }
+
+  private void checkUndeterminedClients(final long now) {
+    if (m_undeterminedClients.isEmpty()) {
+      return;
+    }
+
+    final List<ProxyClient> clients =
+      new ArrayList<ProxyClient>(m_undeterminedClients);
+
+    for (final ProxyClient client : clients) {
+      client.checkTimeout(now);
+    }
+  }
+
+  private void sendHTTPErrorResponse(final HTMLElement message,
+                                     final String status,
+                                     final Connection connection) {
+    m_logger.error(message.toText());
+
+    final HTTPResponse response = new HTTPResponse();
+    response.setStatus(status);
+    response.setMessage(status, message);
+
+    final byte[] bytes = response.toString().getBytes(s_ascii);
+    connection.send(null, bytes, 0, bytes.length);
+  }
+
+  /**
+   * Log IOExceptions.
+   *
+   * @param e
+   *          The exception.
+   * @return A description of the exception.
+   */
+  private String logIOException(final IOException e) {
+
+    final String message = e.getMessage();
+    final String description;
+
+    if (e instanceof ConnectException) {
+      description = message;
+    }
+    else if (e instanceof UnknownHostException) {
+      description = "Failed to connect to unknown host '" + message + "'";
+    }
+    else if (e instanceof SocketException ||
+             IOException.class.equals(e.getClass()) &&
+             ("Broken pipe".equals(message) ||
+              "Connection reset by peer".equals(message))) {
+      // Ignore common exceptions that are due to connections being
+      // closed.
+      return "";
+    }
+    else {
+      m_logger.error(message, e);
+      return message;
+    }
+
+    m_logger.error(description);
+    return description;
+  }
+
+  /**
+   * Something that is interested in the events for a connection.
+   */
+  private abstract class Receiver {
+
+    /**
+     * The connection has been established.
+     */
+    void connected() {
+    }
+
+    /**
+     * The connection could not be established. It will be closed.
+     *
+     * @param e The reason.
+     */
+    void connectFailed(final IOException e) {
+      logIOException(e);
+    }
+
+    /**
+     * Data has arrived.
+     *
+     * @param source The connection.
+     * @param buffer The data. Only valid for the duration of the call.
+     * @param length How many bytes of data are in {@code buffer}.
+     */
+    abstract void received(Connection source, byte[] buffer, int length);
+
+    /**
+     * The input from the connection has ended, or the connection has been
+     * closed. Can be called more than once.
+     */
+    abstract void closed();
+  }
+
+  /**
+   * Passes data through a filter, and writes the result to a connection.
+   * The equivalent of {@link AbstractTCPProxyEngine.OutputStreamFilterTee}.
+   */
+  private class FilterTee extends Receiver {
+    private final ConnectionDetails m_connectionDetails;
+    private final TCPProxyFilter m_filter;
+    private final TerminalColour m_colour;
+    private final Connection m_sink;
+    private boolean m_opened;
+    private boolean m_closed;
+
+    FilterTee(final ConnectionDetails connectionDetails,
+              final TCPProxyFilter filter,
+              final TerminalColour colour,
+              final Connection sink) {
+      m_connectionDetails = connectionDetails;
+      m_filter = filter;
+      m_colour = colour;
+      m_sink = sink;
+    }
+
+    public void opened() {
+      m_opened = true;
+
+      preOutput();
+
+      try {
+        m_filter.connectionOpened(m_connectionDetails);
+      }
+      catch (final GrinderException e) {
+        m_logger.error(e.getMessage(), e);
+      }
+      finally {
+        postOutput();
+      }
+    }
+
+    @Override
+    void received(final Connection source,
+                  final byte[] buffer,
+                  final int length) {
+      preOutput();
+
+      byte[] newBytes = null;
+
+      try {
+        newBytes = m_filter.handle(m_connectionDetails, buffer, length);
+      }
+      catch (final GrinderException e) {
+        m_logger.error(e.getMessage(), e);
+      }
+      finally {
+        postOutput();
+      }
+
+      if (newBytes != null) {
+        m_sink.send(source, newBytes, 0, newBytes.length);
+      }
+      else {
+        m_sink.send(source, buffer, 0, length);
+      }
+    }
+
+    @Override
+    void closed() {
+      if (m_closed) {
+        return;
+      }
+
+      m_closed = true;
+
+      if (m_opened) {
+        preOutput();
+
+        try {
+          m_filter.connectionClosed(m_connectionDetails);
+        }
+        catch (final GrinderException e) {
+          m_logger.error(e.getMessage(), e);
+        }
+        finally {
+          postOutput();
+        }
+      }
+
+      // Close the connection we feed, as the thread based engines do.
+      m_sink.closeWhenFlushed();
+    }
+
+    private void preOutput() {
+      m_outputWriter.print(m_colour.pre());
+    }
+
+    private void postOutput() {
+      m_outputWriter.print(m_colour.post());
+      m_outputWriter.flush();
+    }
+  }
+
+  /**
+   * Handles a connection from an HTTP proxy client. Reads the start of the
+   * request to determine the destination, then either demultiplexes plain
+   * HTTP requests, or sets up an SSL tunnel.
+   */
+  private final class ProxyClient extends Receiver {
+    private final Connection m_client;
+    private final EndPoint m_clientEndPoint;
+    private final long m_acceptTime = System.currentTimeMillis();
+    private final Map<String, FilterTee> m_remoteStreamMap =
+      new HashMap<String, FilterTee>();
+
+    private byte[] m_header = new byte[HEADER_BUFFER_SIZE];
+    private int m_headerLength;
+    private FilterTee m_lastRemoteStream;
+    private Connection m_tunnelRemote;
+    private boolean m_closed;
+
+    ProxyClient(final Connection client) {
+      m_client = client;
+      m_clientEndPoint = client.getRemoteEndPoint();
+    }
+
+    @Override
+    void received(final Connection source,
+                  final byte[] buffer,
+                  final int length) {
+
+      if (m_header == null) {
+        handleHTTP(buffer, length);
+        return;
+      }
+
+      final int n = Math.min(length, m_header.length - m_headerLength);
+      System.arraycopy(buffer, 0, m_header, m_headerLength, n);
+      m_headerLength += n;
+
+      final String header = new String(m_header, 0, m_headerLength, s_ascii);
+
+      final Matcher httpsConnectMatcher =
+        s_httpsConnectPattern.matcher(header);
+
+      if (s_httpConnectPattern.matcher(header).find()) {
+        final byte[] bytes = m_header;
+        determined();
+        handleHTTP(bytes, m_headerLength);
+      }
+      else if (httpsConnectMatcher.find()) {
+        determined();
+
+        // group(2) must be a port number by specification.
+        startTunnel(
+          new EndPoint(httpsConnectMatcher.group(1),
+                       Integer.parseInt(httpsConnectMatcher.group(2))));
+      }
+      else if (m_headerLength == m_header.length) {
+        determined();
+
+        final HTMLElement message = new HTMLElement();
+        message.addElement("p").addText(
+          "Buffer overflow - failed to match HTTP message after " +
+          HEADER_BUFFER_SIZE + " bytes");
+
+        sendHTTPErrorResponse(message, "400 Bad Request", m_client);
+        m_client.closeWhenFlushed();
+      }
+    }
+
+    private void determined() {
+      m_header = null;
+      m_undeterminedClients.remove(this);
+    }
+
+    void checkTimeout(final long now) {
+      if (m_header == null || now - m_acceptTime < s_connectTimeout) {
+        return;
+      }
+
+      final String received = new String(m_header, 0, m_headerLength, s_ascii);
+
+      determined();
+
+      // Time out without matching a handler.
+      final HTMLElement message = new HTMLElement();
+
+      message.addElement("p").addText(
+        "Failed to determine proxy destination.");
+
+      if (received.length() > 0) {
+        final HTMLElement paragraph1 = message.addElement("p");
+        paragraph1.addText(
+          "Do not type TCPProxy address into your browser. ");
+        paragraph1.addText("The browser proxy settings should be set " +
+                           "to the TCPProxy address (");
+        paragraph1.addElement("code").addText(m_proxyAddress.toString());
+        paragraph1.addText("), and you should type the address of the " +
+                           "target server into the browser.");
+        message.addElement("p").addText(
+          "Text of received message follows:");
+        message.addElement("p").addElement("pre")
+          .addElement("blockquote").addText(received);
+      }
+      else {
+        message.addElement("p").addText(
+          "Client opened connection but sent no bytes.");
+      }
+
+      sendHTTPErrorResponse(message, "400 Bad Request", m_client);
+      m_client.closeWhenFlushed();
+    }
+
+    private void handleHTTP(final byte[] buffer, final int length) {
+      // Like HTTPProxyTCPProxyEngine, we rely on the World conspiring to
+      // place each request at the start of a buffer.
+      final Matcher matcher =
+        s_httpConnectPattern.matcher(new String(buffer, 0, length, s_ascii));
+
+      if (matcher.find()) {
+        final String remoteHost = matcher.group(2);
+
+        int remotePort = 80;
+
+        try {
+          remotePort = Integer.parseInt(matcher.group(3));
+        }
+        catch (final NumberFormatException e) {
+          // remotePort = 80;
+        }
+
+        final EndPoint remoteEndPoint = new EndPoint(remoteHost, remotePort);
+        final String key = remoteEndPoint.toString();
+
+        m_lastRemoteStream = m_remoteStreamMap.get(key);
+
+        if (m_lastRemoteStream == null) {
+          final Connection remote;
+
+          try {
+            remote = connect(remoteEndPoint, null);
+          }
+          catch (final IOException e) {
+            UncheckedInterruptedException.ioException(e);
+            badGateway(e);
+            return;
+          }
+
+          final ConnectionDetails connectionDetails =
+            new ConnectionDetails(m_clientEndPoint, remoteEndPoint, false);
+
+          m_lastRemoteStream =
+            new FilterTee(connectionDetails,
+                          new HTTPMethodRelativeURIFilterDecorator(
+                            m_requestFilter),
+                          m_requestColour,
+                          remote);
+
+          m_lastRemoteStream.opened();
+          m_remoteStreamMap.put(key, m_lastRemoteStream);
+
+          final FilterTee responseTee =
+            new FilterTee(connectionDetails.getOtherEnd(),
+                          m_responseFilter,
+                          m_responseColour,
+                          m_client) {
+              @Override
+              void connectFailed(final IOException e) {
+                badGateway(e);
+              }
+            };
+
+          remote.setReceiver(responseTee);
+          responseTee.opened();
+          remote.start();
+        }
+      }
+      else if (m_lastRemoteStream == null) {
+        m_logger.error("No destination for data from " + m_clientEndPoint);
+        m_client.close();
+        return;
+      }
+
+      m_lastRemoteStream.received(m_client, buffer, length);
+    }
+
+    private void badGateway(final IOException e) {
+      final HTMLElement message = new HTMLElement();
+      message.addElement("p").addText(logIOException(e));
+
+      // Should probably return other types of status code.
+      sendHTTPErrorResponse(message, "502 Bad Gateway", m_client);
+
+      closed();
+    }
+
+    private void startTunnel(final EndPoint remoteEndPoint) {
+      final Connection remote;
+
+      try {
+        remote = connect(remoteEndPoint, createClientSSLEngine(remoteEndPoint));
+      }
+      catch (final IOException e) {
+        UncheckedInterruptedException.ioException(e);
+        logIOException(e);
+        m_client.close();
+        return;
+      }
+
+      m_tunnelRemote = remote;
+
+      final ConnectionDetails connectionDetails =
+        new ConnectionDetails(m_clientEndPoint, remoteEndPoint, true);
+
+      final FilterTee requestTee =
+        new FilterTee(connectionDetails, m_requestFilter, m_requestColour,
+                      remote);
+
+      final FilterTee responseTee =
+        new FilterTee(connectionDetails.getOtherEnd(), m_responseFilter,
+                      m_responseColour, m_client) {
+
+          @Override
+          void connected() {
+            // Send a 200 response to the client. The client will now start
+            // an SSL handshake, which we terminate.
+            final byte[] response =
+              ("HTTP/1.0 200 OK\r\n" +
+               "Proxy-agent: The Grinder/" +
+               GrinderBuild.getVersionString() + "\r\n" +
+               "\r\n").getBytes(s_ascii);
+
+            m_client.send(null, response, 0, response.length);
+            m_client.setReceiver(requestTee);
+            m_client.startSSL(createServerSSLEngine());
+
+            requestTee.opened();
+            opened();
+          }
+
+          @Override
+          void connectFailed(final IOException e) {
+            super.connectFailed(e);
+            m_client.close();
+          }
+        };
+
+      remote.setReceiver(responseTee);
+      remote.start();
+    }
+
+    @Override
+    void closed() {
+      if (m_closed) {
+        return;
+      }
+
+      m_closed = true;
+      m_undeterminedClients.remove(this);
+
+      // When exiting, close all our outgoing streams.
+      for (final FilterTee tee : m_remoteStreamMap.values()) {
+        tee.closed();
+      }
+
+      if (m_tunnelRemote != null) {
+        m_tunnelRemote.close();
+      }
+
+      m_client.closeWhenFlushed();
+    }
+  }
+
+  /**
+   * A non-blocking socket connection, optionally secured with an
+   * {@link SSLEngine}.
+   *
+   * <p>Outgoing data is queued in pooled buffers and written as the channel
+   * allows. Incoming data is read into a shared buffer, and passed to the
+   * {@link Receiver}.</p>
+   */
+  private final class Connection {
+    private final SocketChannel m_channel;
+    private final EndPoint m_remoteEndPoint;
+    private final SelectionKey m_key;
+    private final Deque<ByteBuffer> m_outbound = new ArrayDeque<ByteBuffer>();
+    private final List<Connection> m_blockedSources =
+      new ArrayList<Connection>(1);
+
+    private Receiver m_receiver;
+    private SSLEngine m_sslEngine;
+    private SSLEngine m_pendingSSLEngine;
+    private ByteBuffer m_netIn;
+    private ByteBuffer m_netOut;
+    private int m_outboundBytes;
+    private boolean m_connected;
+    private boolean m_inputClosed;
+    private boolean m_readSuspended;
+    private boolean m_writeBlocked;
+    private boolean m_closeWhenFlushed;
+    private boolean m_closed;
+
+    Connection(final SocketChannel channel,
+               final EndPoint remoteEndPoint,
+               final boolean connected,
+               final SSLEngine sslEngine) throws IOException {
+      channel.configureBlocking(false);
+      m_channel = channel;
+      m_remoteEndPoint = remoteEndPoint;
+      m_connected = connected;
+      m_key = channel.register(m_selector, 0, this);
+      m_connections.add(this);
+
+      if (sslEngine != null) {
+        m_sslEngine = sslEngine;
+        m_netIn = m_bufferPool.acquire();
+        m_netOut = m_bufferPool.acquire();
+      }
+    }
+
+    EndPoint getRemoteEndPoint() {
+      return m_remoteEndPoint;
+    }
+
+    void setReceiver(final Receiver receiver) {
+      m_receiver = receiver;
+    }
+
+    /**
+     * Start processing events. The receiver must have been set.
+     */
+    void start() {
+      if (m_connected) {
+        try {
+          connected();
+        }
+        catch (final IOException e) {
+          failed(e);
+        }
+      }
+      else {
+        updateInterest();
+      }
+    }
+
+    /**
+     * Layer SSL over the connection, after any data that has already been
+     * queued has been sent.
+     */
+    void startSSL(final SSLEngine sslEngine) {
+      m_pendingSSLEngine = sslEngine;
+      m_netIn = m_bufferPool.acquire();
+      flushQuietly();
+    }
+
+    void ready(final SelectionKey key) {
+      try {
+        if (key.isConnectable()) {
+          try {
+            m_channel.finishConnect();
+          }
+          catch (final IOException e) {
+            UncheckedInterruptedException.ioException(e);
+            m_receiver.connectFailed(e instanceof ConnectException ?
+              new VerboseConnectException((ConnectException) e,
+                                          "end point " + m_remoteEndPoint) :
+              e);
+            close();
+            return;
+          }
+
+          connected();
+        }
+
+        if (!m_closed && key.isReadable()) {
+          read();
+        }
+
+        if (!m_closed && key.isWritable()) {
+          flush();
+        }
+      }
+      catch (final IOException e) {
+        failed(e);
+      }
+    }
+
+    void processDeferred() {
+      if (m_closed || m_sslEngine == null) {
+        return;
+      }
+
+      try {
+        unwrap();
+
+        if (!m_closed) {
+          flush();
+        }
+      }
+      catch (final IOException e) {
+        failed(e);
+      }
+    }
+
+    private void failed(final IOException e) {
+      UncheckedInterruptedException.ioException(e);
+      logIOException(e);
+      close();
+    }
+
+    private void connected() throws IOException {
+      m_connected = true;
+
+      if (m_sslEngine != null) {
+        m_sslEngine.beginHandshake();
+      }
+
+      m_receiver.connected();
+
+      if (!m_closed) {
+        flush();
+      }
+    }
+
+    private void read() throws IOException {
+      final int n;
+
+      if (m_netIn != null) {
+        n = m_channel.read(m_netIn);
+
+        if (m_sslEngine != null) {
+          unwrap();
+        }
+      }
+      else {
+        m_readBuffer.clear();
+        n = m_channel.read(m_readBuffer);
+        m_readBuffer.flip();
+        deliver(m_readBuffer);
+      }
+
+      if (n < 0 && !m_closed) {
+        if (m_sslEngine != null) {
+          try {
+            m_sslEngine.closeInbound();
+          }
+          catch (final SSLException e) {
+            // The peer didn't send close_notify. Nothing we can do.
+          }
+        }
+
+        inputClosed();
+      }
+
+      if (!m_closed && m_sslEngine != null) {
+        flush();
+      }
+    }
+
+    private void deliver(final ByteBuffer buffer) {
+      while (buffer.hasRemaining() && !m_closed) {
+        final int n = Math.min(buffer.remaining(), m_scratch.length);
+        buffer.get(m_scratch, 0, n);
+        m_receiver.received(this, m_scratch, n);
+      }
+    }
+
+    private void inputClosed() {
+      if (!m_inputClosed) {
+        m_inputClosed = true;
+        updateInterest();
+        m_receiver.closed();
+      }
+    }
+
+    /**
+     * Unwrap as much SSL data as we can from {@code m_netIn}. The shared read
+     * buffer is used for the application data, so this must not be called
+     * re-entrantly; see {@link #deferUnwrap}.
+     */
+    private void unwrap() throws IOException {
+      while (!m_closed) {
+        m_readBuffer.clear();
+        m_netIn.flip();
+
+        final SSLEngineResult result;
+
+        try {
+          result = m_sslEngine.unwrap(m_netIn, m_readBuffer);
+        }
+        finally {
+          m_netIn.compact();
+        }
+
+        m_readBuffer.flip();
+        deliver(m_readBuffer);
+
+        if (m_closed) {
+          return;
+        }
+
+        if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+          inputClosed();
+          return;
+        }
+
+        if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+          return;
+        }
+
+        final HandshakeStatus handshakeStatus = result.getHandshakeStatus();
+
+        if (handshakeStatus == HandshakeStatus.NEED_TASK) {
+          runDelegatedTasks();
+        }
+        else if (handshakeStatus == HandshakeStatus.NEED_WRAP) {
+          flushSSL();
+
+          if (m_writeBlocked) {
+            return;
+          }
+        }
+        else if (result.bytesConsumed() == 0 && result.bytesProduced() == 0) {
+          return;
+        }
+      }
+    }
+
+    private void deferUnwrap() {
+      if (m_netIn.position() > 0) {
+        m_deferredConnections.add(this);
+      }
+    }
+
+    private void runDelegatedTasks() {
+      Runnable task;
+
+      while ((task = m_sslEngine.getDelegatedTask()) != null) {
+        task.run();
+      }
+    }
+
+    void send(final Connection source,
+              final byte[] bytes,
+              final int offset,
+              final int length) {
+      if (m_closed) {
+        return;
+      }
+
+      ByteBuffer tail = m_outbound.peekLast();
+
+      int position = offset;
+      int remaining = length;
+
+      while (remaining > 0) {
+        if (tail == null || tail.limit() == tail.capacity()) {
+          tail = m_bufferPool.acquire();
+          tail.limit(0);
+          m_outbound.addLast(tail);
+        }
+
+        // Outbound buffers are kept ready for reading. Append to the end.
+        final int start = tail.position();
+        final int end = tail.limit();
+        final int n = Math.min(remaining, tail.capacity() - end);
+
+        tail.limit(end + n);
+        tail.position(end);
+        tail.put(bytes, position, n);
+        tail.position(start);
+
+        position += n;
+        remaining -= n;
+        m_outboundBytes += n;
+      }
+
+      if (source != null &&
+          m_outboundBytes > HIGH_WATER_MARK &&
+          !m_blockedSources.contains(source)) {
+        m_blockedSources.add(source);
+        source.m_readSuspended = true;
+        source.updateInterest();
+      }
+
+      flushQuietly();
+    }
+
+    void closeWhenFlushed() {
+      if (!m_connected) {
+        close();
+      }
+      else {
+        m_closeWhenFlushed = true;
+        flushQuietly();
+      }
+    }
+
+    private void flushQuietly() {
+      try {
+        flush();
+      }
+      catch (final IOException e) {
+        failed(e);
+      }
+    }
+
+    private void flush() throws IOException {
+      if (m_closed || !m_connected) {
+        return;
+      }
+
+      m_writeBlocked = false;
+
+      if (m_sslEngine != null) {
+        flushSSL();
+      }
+      else {
+        while (!m_outbound.isEmpty()) {
+          final ByteBuffer head = m_outbound.peekFirst();
+          m_outboundBytes -= m_channel.write(head);
+
+          if (head.hasRemaining()) {
+            m_writeBlocked = true;
+            break;
+          }
+
+          m_bufferPool.release(m_outbound.removeFirst());
+        }
+
+        if (m_outbound.isEmpty() && m_pendingSSLEngine != null) {
+          m_sslEngine = m_pendingSSLEngine;
+          m_pendingSSLEngine = null;
+          m_netOut = m_bufferPool.acquire();
+          m_sslEngine.beginHandshake();
+          deferUnwrap();
+          flushSSL();
+        }
+      }
+
+      if (m_outboundBytes <= HIGH_WATER_MARK && !m_blockedSources.isEmpty()) {
+        resumeBlockedSources();
+      }
+
+      if (m_closeWhenFlushed &&
+          m_outbound.isEmpty() &&
+          (m_netOut == null || m_netOut.position() == 0)) {
+        close();
+      }
+      else {
+        updateInterest();
+      }
+    }
+
+    private void flushSSL() throws IOException {
+      while (writeNetOut()) {
+        final HandshakeStatus handshakeStatus =
+          m_sslEngine.getHandshakeStatus();
+
+        if (handshakeStatus == HandshakeStatus.NEED_TASK) {
+          runDelegatedTasks();
+        }
+        else if (handshakeStatus == HandshakeStatus.NEED_WRAP) {
+          final SSLEngineResult result =
+            m_sslEngine.wrap(EMPTY_BUFFER, m_netOut);
+
+          if (result.getStatus() == SSLEngineResult.Status.CLOSED &&
+              result.bytesProduced() == 0) {
+            return;
+          }
+        }
+        else if (handshakeStatus == HandshakeStatus.NEED_UNWRAP) {
+          // Wait for the peer. If we already have data, process it once
+          // we're no longer using the read buffer.
+          deferUnwrap();
+          return;
+        }
+        else {
+          if (m_outbound.isEmpty()) {
+            return;
+          }
+
+          final ByteBuffer head = m_outbound.peekFirst();
+          final int before = head.remaining();
+
+          final SSLEngineResult result = m_sslEngine.wrap(head, m_netOut);
+
+          m_outboundBytes -= before - head.remaining();
+
+          if (!head.hasRemaining()) {
+            m_bufferPool.release(m_outbound.removeFirst());
+          }
+
+          if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+            discardOutbound();
+            return;
+          }
+        }
+      }
+    }
+
+    /**
+     * Write pending SSL data.
+     *
+     * @return {@code true} if all the data was written.
+     */
+    private boolean writeNetOut() throws IOException {
+      if (m_netOut.position() == 0) {
+        return true;
+      }
+
+      m_netOut.flip();
+
+      try {
+        m_channel.write(m_netOut);
+        return !m_netOut.hasRemaining();
+      }
+      finally {
+        m_writeBlocked = m_netOut.hasRemaining();
+        m_netOut.compact();
+      }
+    }
+
+    private void discardOutbound() {
+      while (!m_outbound.isEmpty()) {
+        m_bufferPool.release(m_outbound.removeFirst());
+      }
+
+      m_outboundBytes = 0;
+    }
+
+    private void resumeBlockedSources() {
+      for (final Connection source : m_blockedSources) {
+        source.m_readSuspended = false;
+        source.updateInterest();
+      }
+
+      m_blockedSources.clear();
+    }
+
+    private void updateInterest() {
+      if (m_closed) {
+        return;
+      }
+
+      int ops = 0;
+
+      if (!m_connected) {
+        ops = SelectionKey.OP_CONNECT;
+      }
+      else {
+        if (!m_inputClosed && !m_readSuspended) {
+          ops |= SelectionKey.OP_READ;
+        }
+
+        if (m_writeBlocked) {
+          ops |= SelectionKey.OP_WRITE;
+        }
+      }
+
+      m_key.interestOps(ops);
+    }
+
+    void close() {
+      if (m_closed) {
+        return;
+      }
+
+      m_closed = true;
+
+      if (m_sslEngine != null && m_connected) {
+        // Best effort attempt to send close_notify.
+        m_sslEngine.closeOutbound();
+
+        try {
+          m_sslEngine.wrap(EMPTY_BUFFER, m_netOut);
+          m_netOut.flip();
+          m_channel.write(m_netOut);
+        }
+        catch (final IOException e) {
+          UncheckedInterruptedException.ioException(e);
+        }
+      }
+
+      m_key.cancel();
+      Closer.close(m_channel);
+
+      discardOutbound();
+      m_bufferPool.release(m_netIn);
+      m_bufferPool.release(m_netOut);
+      m_netIn = null;
+      m_netOut = null;
+
+      m_connections.remove(this);
+      m_deferredConnections.remove(this);
+
+      resumeBlockedSources();
+
+      if (m_receiver != null) {
+        m_receiver.closed();
+      }
+    }
+  }
+}
@@ -67,6 +67,7 @@ import net.grinder.util.InsecureSSLContextFactory;
 public final class TCPProxySSLSocketFactoryImplementation
   implements TCPProxySSLSocketFactory {
 
+  private final SSLContext m_sslContext;
   private final ServerSocketFactory m_serverSocketFactory;
   private final SSLSocketFactory m_clientSocketFactory;
 
@@ -122,16 +123,26 @@ public final class TCPProxySSLSocketFactoryImplementation
                                       keyStorePassword,
                                       keyStoreType);
 
-      final SSLContext sslContext = sslContextFactory.getSSLContext();
+      m_sslContext = sslContextFactory.getSSLContext();
 
-      m_clientSocketFactory = sslContext.getSocketFactory();
-      m_serverSocketFactory = sslContext.getServerSocketFactory();
+      m_clientSocketFactory = m_sslContext.getSocketFactory();
+      m_serverSocketFactory = m_sslContext.getServerSocketFactory();
     }
     finally {
       Closer.close(keyStoreInputStream);
     }
   }
 
+  /**
+   * The SSL context used to create sockets. Allows engines that use
+   * {@link javax.net.ssl.SSLEngine}s to share the same key store.
+   *
+   * @return The SSL context.
+   */
+  public SSLContext getSSLContext() {
+    return m_sslContext;
+  }
+
   /**
    * Factory method for server sockets.
    *
@@ -31,10 +31,21 @@ import java.net.InetAddress;
  */
 public class StubHTTPConnection extends HTTPConnection {
 
+  private int m_stopCount;
+
   public StubHTTPConnection(String host) {
     super(host);
   }
 
+  @Override public void stop() {
+    ++m_stopCount;
+    super.stop();
+  }
+
+  public int getStopCount() {
+    return m_stopCount;
+  }
+
   public InetAddress getLocalAddressForTest() {
     return super.getLocalAddress();
   }
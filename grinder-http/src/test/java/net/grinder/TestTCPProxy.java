@@ -39,6 +39,7 @@ import java.io.Writer;
 import java.util.Properties;
 
 import net.grinder.common.GrinderException;
+import net.grinder.plugin.http.tcpproxyfilter.HARImporter;
 import net.grinder.plugin.http.tcpproxyfilter.HTTPRequestFilter;
 import net.grinder.plugin.http.tcpproxyfilter.HTTPResponseFilter;
 import net.grinder.testutility.TemporaryDirectory;
@@ -355,4 +356,49 @@ public class TestTCPProxy {
     final TCPProxy tcpProxy = new TCPProxy(arguments, m_logger);
     assertNotNull(tcpProxy.getFilterContainer().getComponent(TestClass.class));
   }
+
+  @Test public void testHAR() throws Exception {
+    final TemporaryDirectory directory = new TemporaryDirectory();
+
+    try {
+      final File harFile = directory.newFile("capture.har");
+      harFile.createNewFile();
+
+      final String[] arguments = { "-http", "-har", harFile.getPath() };
+
+      final TCPProxy tcpProxy = new TCPProxy(arguments, m_logger);
+
+      verify(m_logger).info(contains("import " + harFile));
+
+      assertNotNull(
+        tcpProxy.getFilterContainer().getComponent(HARImporter.class));
+    }
+    finally {
+      directory.delete();
+    }
+  }
+
+  @Test public void testBadHAROptions() throws Exception {
+    final String[] arguments = { "-har", "capture.har" };
+
+    try {
+      new TCPProxy(arguments, m_logger);
+      fail("Expected exception");
+    }
+    catch (GrinderException e) {
+    }
+
+    verify(m_logger).error(contains("must be used with -http"));
+
+    final String[] arguments2 = { "-http", "-har", "nonexistent.har" };
+
+    try {
+      new TCPProxy(arguments2, m_logger);
+      fail("Expected exception");
+    }
+    catch (GrinderException e) {
+    }
+
+    verify(m_logger).error(contains("Cannot read"));
+  }
 }
@@ -44,7 +44,7 @@ import HTTPClient.NVPair;
  * Active class that accepts a connection on a socket, reads an HTTP request,
  * and returns a response. The details of the request can then be retrieved.
  */
-class HTTPRequestHandler extends Assert implements Runnable {
+public class HTTPRequestHandler extends Assert implements Runnable {
   private static final Pattern s_contentLengthPattern;
 
   private final List<NVPair> m_headers = new ArrayList<NVPair>();
@@ -128,6 +128,54 @@ public class TestHTTPConnectionWrapper extends TestCase {
     wrapper.setBandwidthLimit(0);
     assertSame(defaultBWLimiterFactory,
       connection.getBandwithLimiterFactoryForTest());
+
+    assertFalse(wrapper.getKeepAliveBetweenRuns());
+    defaults.setKeepAliveBetweenRuns(true);
+    assertTrue(new HTTPConnectionWrapper(connection, defaults, sleeper)
+               .getKeepAliveBetweenRuns());
+    wrapper.setKeepAliveBetweenRuns(true);
+    assertTrue(wrapper.getKeepAliveBetweenRuns());
+  }
+
+  public void testConnectionRetention() throws Exception {
+    final RandomStubFactory<Sleeper> sleeperStubFactory =
+      RandomStubFactory.create(Sleeper.class);
+
+    final StubHTTPConnection connection = new StubHTTPConnection("foo");
+
+    final HTTPConnectionWrapper wrapper =
+      new HTTPConnectionWrapper(connection,
+                                new HTTPPluginConnectionDefaults(),
+                                sleeperStubFactory.getStub());
+
+    for (int i = 0; i < 10; ++i) {
+      wrapper.beginRequest(i * 1000);
+    }
+
+    assertEquals(0, connection.getStopCount());
+
+    wrapper.setMaximumConnectionRequests(3);
+    wrapper.beginRequest(10000);
+    assertEquals(1, connection.getStopCount());
+    wrapper.beginRequest(10001);
+    wrapper.beginRequest(10002);
+    assertEquals(1, connection.getStopCount());
+    wrapper.beginRequest(10003);
+    assertEquals(2, connection.getStopCount());
+
+    wrapper.setMaximumConnectionRequests(0);
+    wrapper.setMaximumConnectionAge(100);
+    wrapper.beginRequest(10050);
+    assertEquals(2, connection.getStopCount());
+    wrapper.beginRequest(10103);
+    assertEquals(3, connection.getStopCount());
+    wrapper.beginRequest(10202);
+    assertEquals(3, connection.getStopCount());
+
+    wrapper.close();
+    assertEquals(4, connection.getStopCount());
+    wrapper.beginRequest(20000);
+    assertEquals(4, connection.getStopCount());
   }
 
   private void assertModule(HTTPConnection connection,
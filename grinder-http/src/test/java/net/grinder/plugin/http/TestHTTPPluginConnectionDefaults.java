@@ -94,6 +94,22 @@ public class TestHTTPPluginConnectionDefaults extends TestCase {
     defaults.setBandwidthLimit(99);
     assertEquals(99, defaults.getBandwidthLimit());
 
+    assertFalse(defaults.getKeepAliveBetweenRuns());
+    defaults.setKeepAliveBetweenRuns(true);
+    assertTrue(defaults.getKeepAliveBetweenRuns());
+
+    assertEquals(0, defaults.getMaximumConnectionAge());
+    defaults.setMaximumConnectionAge(1000);
+    assertEquals(1000, defaults.getMaximumConnectionAge());
+
+    assertEquals(0, defaults.getMaximumConnectionRequests());
+    defaults.setMaximumConnectionRequests(10);
+    assertEquals(10, defaults.getMaximumConnectionRequests());
+
+    assertTrue(defaults.getDiscardCookiesBetweenRuns());
+    defaults.setDiscardCookiesBetweenRuns(false);
+    assertFalse(defaults.getDiscardCookiesBetweenRuns());
+
     // Cover no-op.
     defaults.close();
   }
@@ -69,7 +69,8 @@ public class TestHTTPPluginControl {
     final HTTPPluginThreadState threadState =
       new HTTPPluginThreadState(m_sslContextFactory,
                                 null,
-                                m_timeAuthority);
+                                m_timeAuthority,
+                                null);
 
     when(m_pluginProcessContext.getPluginThreadListener(m_httpPlugin))
       .thenReturn(threadState);
@@ -60,6 +60,7 @@ public class TestHTTPPluginThreadState {
     final HTTPPluginThreadState pluginThreadState =
       new HTTPPluginThreadState(m_sslContextFactory,
                                 m_sleeper,
+                                null,
                                 null);
 
     pluginThreadState.beginThread();
@@ -103,6 +104,34 @@ public class TestHTTPPluginThreadState {
     pluginThreadState.beginShutdown();
   }
 
+  @Test public void testKeepAliveBetweenRuns() throws Exception {
+    final HTTPPluginThreadState pluginThreadState =
+      new HTTPPluginThreadState(m_sslContextFactory,
+                                m_sleeper,
+                                null,
+                                null);
+
+    pluginThreadState.beginRun();
+
+    final HTTPConnectionWrapper wrapper1 =
+      pluginThreadState.getConnectionWrapper(new URI("http://blah.com"));
+    wrapper1.setKeepAliveBetweenRuns(true);
+
+    final HTTPConnectionWrapper wrapper2 =
+      pluginThreadState.getConnectionWrapper(new URI("http://other.com"));
+
+    pluginThreadState.endRun();
+
+    pluginThreadState.beginRun();
+
+    assertSame(wrapper1,
+      pluginThreadState.getConnectionWrapper(new URI("http://blah.com/lah")));
+    assertNotSame(wrapper2,
+      pluginThreadState.getConnectionWrapper(new URI("http://other.com")));
+
+    pluginThreadState.endRun();
+  }
+
   @Test public void testSetResponse() throws Exception {
     final HTTPRequestHandler handler = new HTTPRequestHandler();
     handler.start();
@@ -114,6 +143,7 @@ public class TestHTTPPluginThreadState {
       final HTTPPluginThreadState pluginThreadState =
         new HTTPPluginThreadState(m_sslContextFactory,
                                   m_sleeper,
+                                  null,
                                   null);
 
       final HTTPResponse response = connection.Get("foo");
@@ -106,7 +106,8 @@ public class TestHTTPRequest {
     final HTTPPluginThreadState threadState =
       new HTTPPluginThreadState(m_sslContextFactory,
                                 null,
-                                m_timeAuthority);
+                                m_timeAuthority,
+                                m_logger);
 
     when(m_scriptContext.getStatistics()).thenReturn(m_statistics);
     when(m_scriptContext.getLogger()).thenReturn(m_logger);
@@ -834,6 +835,109 @@ public class TestHTTPRequest {
 
   }
 
+  @Test public void testPrepare() throws Exception {
+    final HTTPRequest request = new HTTPRequest();
+
+    try {
+      request.prepare("GET", null);
+      fail("Expected URLException");
+    }
+    catch (final URLException e) {
+    }
+
+    try {
+      request.prepare(" ", m_handler.getURL());
+      fail("Expected URLException");
+    }
+    catch (final URLException e) {
+    }
+
+    request.setUrl(m_handler.getURL());
+    request.setHeaders(new NVPair[] { new NVPair("key", "value") });
+
+    final HTTPRequest.PreparedRequest get =
+      request.prepare("GET", "/foo?x=1",
+                      new NVPair[] { new NVPair("key", "override") });
+
+    assertEquals("GET", get.getMethod());
+    assertEquals(m_handler.getURL() + "/foo?x=1", get.getUrl());
+    assertEquals("GET " + m_handler.getURL() + "/foo?x=1", get.toString());
+
+    // Later changes to the defaults don't affect the prepared request.
+    request.setUrl("http://somewhere.else/");
+    request.setHeaders(new NVPair[0]);
+
+    for (int i = 0; i < 3; ++i) {
+      final HTTPResponse response = get.execute();
+      assertEquals(200, response.getStatusCode());
+      assertEquals("GET /foo?x=1 HTTP/1.1", m_handler.getRequestFirstHeader());
+      m_handler.assertRequestContainsHeader("key: override");
+    }
+
+    final byte[] data = randomBytes(100);
+
+    final HTTPResponse response2 =
+      request.prepare("PUT",
+                      m_handler.getURL() + "/bah",
+                      new NVPair[0],
+                      data).execute();
+    assertEquals(200, response2.getStatusCode());
+    assertEquals("PUT /bah HTTP/1.1", m_handler.getRequestFirstHeader());
+    assertArrayEquals(data, m_handler.getLastRequestBody());
+
+    // The data is copied.
+    final byte[] expected = data.clone();
+
+    final HTTPRequest.PreparedRequest put =
+      request.prepare("PUT", m_handler.getURL() + "/bah", new NVPair[0], data);
+    data[0] = (byte) ~data[0];
+
+    put.execute();
+    assertArrayEquals(expected, m_handler.getLastRequestBody());
+
+    // The method is trimmed, but its case is preserved.
+    assertEquals("post",
+                 request.prepare(" post ", m_handler.getURL()).getMethod());
+
+    final HTTPRequest.PreparedRequest post =
+      request.prepare(" POST ", m_handler.getURL());
+    assertEquals("POST", post.getMethod());
+
+    final HTTPResponse response3 = post.execute();
+    assertEquals(200, response3.getStatusCode());
+    assertEquals("POST / HTTP/1.1", m_handler.getRequestFirstHeader());
+    m_handler.assertRequestContainsHeader("Content-length: 0");
+  }
+
+  @Test public void testPOSTAndPUTFile() throws Exception {
+
+    final File file = File.createTempFile("testing", "123");
+    file.deleteOnExit();
+
+    final byte[] data = randomBytes(200000);
+
+    final OutputStream out = new FileOutputStream(file);
+    out.write(data);
+    out.close();
+
+    final HTTPRequest request = new HTTPRequest();
+
+    final HTTPResponse response =
+      request.POST(m_handler.getURL() + "/upload", file);
+    assertEquals(200, response.getStatusCode());
+    assertArrayEquals(data, m_handler.getLastRequestBody());
+    m_handler.assertRequestContainsHeader("Content-length: " + data.length);
+
+    final HTTPResponse response2 =
+      request.PUT(m_handler.getURL() + "/upload",
+                  file,
+                  new NVPair[] { new NVPair("foo", "bah") });
+    assertEquals(200, response2.getStatusCode());
+    assertArrayEquals(data, m_handler.getLastRequestBody());
+    m_handler.assertRequestContainsHeader("foo: bah");
+    m_handler.assertRequestContainsHeader("Content-length: " + data.length);
+  }
+
   @Test public void testResponseProcessing() throws Exception {
     final HTTPRequest request = new HTTPRequest();
     request.GET(m_handler.getURL());
@@ -937,7 +1041,8 @@ public class TestHTTPRequest {
     final HTTPPluginThreadState threadState =
       new HTTPPluginThreadState(m_sslContextFactory,
                                 null,
-                                timeAuthority);
+                                timeAuthority,
+                                m_logger);
 
     when(m_pluginProcessContext.getPluginThreadListener(m_httpPlugin))
       .thenReturn(threadState);
@@ -965,6 +1070,8 @@ public class TestHTTPRequest {
       .addLong(StatisticsIndexMap.HTTP_PLUGIN_FIRST_BYTE_TIME_KEY, 119);
     verify(m_statisticsForTest)
       .addLong(StatisticsIndexMap.HTTP_PLUGIN_CONNECTIONS_ESTABLISHED, 1);
+    verify(m_statisticsForTest)
+      .addLong(StatisticsIndexMap.HTTP_PLUGIN_SSL_HANDSHAKE_TIME_KEY, 0);
 
     try {
       timeAuthority.getTimeInMilliseconds();
@@ -992,7 +1099,8 @@ public class TestHTTPRequest {
     final HTTPPluginThreadState threadState =
       new HTTPPluginThreadState(m_sslContextFactory,
                                 null,
-                                timeAuthority);
+                                timeAuthority,
+                                m_logger);
 
     when(m_pluginProcessContext.getPluginThreadListener(m_httpPlugin))
       .thenReturn(threadState);
@@ -1045,7 +1153,8 @@ public class TestHTTPRequest {
     final HTTPPluginThreadState threadState =
       new HTTPPluginThreadState(m_sslContextFactory,
                                 null,
-                                timeAuthority);
+                                timeAuthority,
+                                m_logger);
 
     when(m_pluginProcessContext.getPluginThreadListener(m_httpPlugin))
       .thenReturn(threadState);
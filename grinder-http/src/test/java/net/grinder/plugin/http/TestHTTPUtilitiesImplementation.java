@@ -66,7 +66,8 @@ public class TestHTTPUtilitiesImplementation {
     final HTTPPluginThreadState threadState =
       new HTTPPluginThreadState(m_sslContextFactory,
                                 null,
-                                m_timeAuthority);
+                                m_timeAuthority,
+                                null);
 
     when(m_scriptContext.getStatistics()).thenReturn(m_statistics);
 
@@ -336,7 +337,9 @@ public class TestHTTPUtilitiesImplementation {
     assertEquals("bah", httpUtilities.valueFromHiddenInput("foo"));
     assertEquals("", httpUtilities.valueFromHiddenInput("bah"));
     assertEquals("bah", httpUtilities.valueFromHiddenInput("foo", "<body>"));
-    assertEquals("", httpUtilities.valueFromHiddenInput("foo", "input"));
+    assertEquals("bah", httpUtilities.valueFromHiddenInput("foo", "input"));
+    assertEquals("bah", httpUtilities.valueFromHiddenInput("foo", "blah"));
+    assertEquals("", httpUtilities.valueFromHiddenInput("foo", "type"));
     assertEquals("", httpUtilities.valueFromHiddenInput("foo", "not there"));
 
     handler.shutdown();
@@ -0,0 +1,234 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.net.InetAddress;
+
+import net.grinder.plugin.http.NameResolverControl.CacheMode;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import HTTPClient.HTTPConnection.NameResolver;
+import HTTPClient.HTTPConnection.TimeAuthority;
+
+
+/**
+ * Unit tests for {@link NameResolverControlImplementation}.
+ *
+ * @author agent
+ */
+public class TestNameResolverControlImplementation {
+
+  @Mock private NameResolver m_delegate;
+  @Mock private TimeAuthority m_timeAuthority;
+  @Mock private Logger m_logger;
+
+  private final InetAddress[] m_addresses = new InetAddress[3];
+
+  private NameResolverControlImplementation m_control;
+
+  @Before public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+
+    for (int i = 0; i < m_addresses.length; ++i) {
+      m_addresses[i] =
+        InetAddress.getByAddress("foo", new byte[] { 10, 0, 0, (byte) i });
+    }
+
+    when(m_delegate.getAllByName("foo")).thenReturn(m_addresses);
+
+    m_control = new NameResolverControlImplementation(m_delegate);
+  }
+
+  @Test public void testNoCache() throws Exception {
+    final NameResolver resolver =
+      m_control.createThreadResolver(m_timeAuthority);
+
+    assertEquals(CacheMode.NONE, m_control.getCacheMode());
+
+    assertArrayEquals(m_addresses, resolver.getAllByName("foo"));
+    assertArrayEquals(m_addresses, resolver.getAllByName("foo"));
+
+    verify(m_delegate, times(2)).getAllByName("foo");
+    assertEquals(0, m_control.getHits());
+    assertEquals(2, m_control.getMisses());
+  }
+
+  @Test public void testSharedCache() throws Exception {
+    m_control.setCacheMode(CacheMode.SHARED);
+
+    final NameResolver resolver1 =
+      m_control.createThreadResolver(m_timeAuthority);
+    final NameResolver resolver2 =
+      m_control.createThreadResolver(m_timeAuthority);
+
+    final InetAddress[] result = resolver1.getAllByName("foo");
+    assertArrayEquals(m_addresses, result);
+    assertNotSame(m_addresses, result);
+    assertArrayEquals(m_addresses, resolver2.getAllByName("FOO"));
+
+    verify(m_delegate, times(1)).getAllByName("foo");
+    assertEquals(1, m_control.getHits());
+    assertEquals(1, m_control.getMisses());
+
+    m_control.clearCache();
+    resolver2.getAllByName("foo");
+    verify(m_delegate, times(2)).getAllByName("foo");
+  }
+
+  @Test public void testPerThreadCache() throws Exception {
+    m_control.setCacheMode(CacheMode.PER_THREAD);
+
+    final NameResolver resolver1 =
+      m_control.createThreadResolver(m_timeAuthority);
+    final NameResolver resolver2 =
+      m_control.createThreadResolver(m_timeAuthority);
+
+    resolver1.getAllByName("foo");
+    resolver1.getAllByName("foo");
+    resolver2.getAllByName("foo");
+    verify(m_delegate, times(2)).getAllByName("foo");
+
+    m_control.clearCache();
+    resolver1.getAllByName("foo");
+    verify(m_delegate, times(3)).getAllByName("foo");
+
+    assertEquals(1, m_control.getHits());
+    assertEquals(3, m_control.getMisses());
+  }
+
+  @Test public void testTimeToLive() throws Exception {
+    m_control.setCacheMode(CacheMode.SHARED);
+    m_control.setTimeToLive(100);
+
+    final NameResolver resolver =
+      m_control.createThreadResolver(m_timeAuthority);
+
+    when(m_timeAuthority.getTimeInMilliseconds()).thenReturn(1000L);
+    resolver.getAllByName("foo");
+
+    when(m_timeAuthority.getTimeInMilliseconds()).thenReturn(1099L);
+    resolver.getAllByName("foo");
+    verify(m_delegate, times(1)).getAllByName("foo");
+
+    when(m_timeAuthority.getTimeInMilliseconds()).thenReturn(1100L);
+    resolver.getAllByName("foo");
+    verify(m_delegate, times(2)).getAllByName("foo");
+  }
+
+  @Test public void testRoundRobin() throws Exception {
+    m_control.setCacheMode(CacheMode.SHARED);
+    m_control.setRoundRobin(true);
+
+    final NameResolver resolver =
+      m_control.createThreadResolver(m_timeAuthority);
+
+    for (int i = 0; i < 5; ++i) {
+      final InetAddress[] result = resolver.getAllByName("foo");
+      assertEquals(m_addresses.length, result.length);
+
+      for (int j = 0; j < result.length; ++j) {
+        assertEquals(m_addresses[(i + j) % m_addresses.length], result[j]);
+      }
+    }
+  }
+
+  @Test public void testRoundRobinNoCache() throws Exception {
+    m_control.setRoundRobin(true);
+
+    final NameResolver resolver1 =
+      m_control.createThreadResolver(m_timeAuthority);
+    final NameResolver resolver2 =
+      m_control.createThreadResolver(m_timeAuthority);
+
+    for (int i = 0; i < 6; ++i) {
+      final NameResolver resolver = i % 2 == 0 ? resolver1 : resolver2;
+      final InetAddress[] result = resolver.getAllByName("foo");
+
+      for (int j = 0; j < result.length; ++j) {
+        assertEquals(m_addresses[(i + j) % m_addresses.length], result[j]);
+      }
+    }
+
+    verify(m_delegate, times(6)).getAllByName("foo");
+  }
+
+  @Test public void testReport() throws Exception {
+    m_control.setCacheMode(CacheMode.PER_THREAD);
+
+    final NameResolverControlImplementation.ThreadNameResolver resolver1 =
+      m_control.createThreadResolver(m_timeAuthority);
+    final NameResolverControlImplementation.ThreadNameResolver resolver2 =
+      m_control.createThreadResolver(m_timeAuthority);
+
+    resolver2.report(m_logger);
+    verifyNoMoreInteractions(m_logger);
+
+    resolver1.getAllByName("foo");
+    resolver1.getAllByName("foo");
+    resolver1.getAllByName("foo");
+    resolver2.getAllByName("foo");
+
+    resolver1.report(m_logger);
+    verify(m_logger).info("host name resolution: {} hits, {} misses ({} mode)",
+                          new Object[] { 2L, 1L, CacheMode.PER_THREAD });
+
+    assertEquals(2, m_control.getHits());
+    assertEquals(2, m_control.getMisses());
+  }
+
+  @Test public void testPinnedAddresses() throws Exception {
+    final NameResolver resolver =
+      m_control.createThreadResolver(m_timeAuthority);
+
+    m_control.setHostAddresses("foo", new String[] { "10.0.0.2" });
+
+    final InetAddress[] result = resolver.getAllByName("foo");
+    assertArrayEquals(new InetAddress[] { m_addresses[2] }, result);
+    assertEquals("foo", result[0].getHostName());
+    verify(m_delegate, times(0)).getAllByName("foo");
+    assertEquals(1, m_control.getHits());
+
+    m_control.setHostAddresses("foo", null);
+    assertArrayEquals(m_addresses, resolver.getAllByName("foo"));
+
+    try {
+      m_control.setHostAddresses("foo", new String[] { "not an address" });
+      fail("Expected URLException");
+    }
+    catch (URLException e) {
+    }
+  }
+}
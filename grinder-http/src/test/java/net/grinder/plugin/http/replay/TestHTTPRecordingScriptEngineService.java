@@ -0,0 +1,346 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.replay;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.grinder.engine.common.ScriptLocation;
+import net.grinder.plugin.http.HTTPPlugin;
+import net.grinder.plugin.http.HTTPPluginControl;
+import net.grinder.plugin.http.HTTPRequest;
+import net.grinder.plugin.http.HTTPRequestHandler;
+import net.grinder.plugininterface.PluginProcessContext;
+import net.grinder.plugininterface.PluginThreadListener;
+import net.grinder.script.Grinder;
+import net.grinder.script.InternalScriptContext;
+import net.grinder.script.SSLControl;
+import net.grinder.script.Statistics;
+import net.grinder.script.TestRegistry;
+import net.grinder.script.TestRegistry.RegisteredTest;
+import net.grinder.scriptengine.ScriptEngineService.ScriptEngine;
+import net.grinder.scriptengine.ScriptEngineService.WorkerRunnable;
+import net.grinder.testutility.AbstractJUnit4FileTestCase;
+import net.grinder.util.InsecureSSLContextFactory;
+import net.grinder.util.StandardTimeAuthority;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+import HTTPClient.NVPair;
+
+
+/**
+ * Unit tests for {@link HTTPRecordingScriptEngineService}.
+ *
+ * @author agent
+ */
+public class TestHTTPRecordingScriptEngineService
+  extends AbstractJUnit4FileTestCase {
+
+  @Mock private PluginProcessContext m_pluginProcessContext;
+  @Mock private InternalScriptContext m_scriptContext;
+  @Mock private Statistics m_statistics;
+  @Mock private SSLControl m_sslControl;
+  @Mock private Logger m_logger;
+  @Mock private TestRegistry m_testRegistry;
+  @Mock private RegisteredTest m_registeredTest;
+  @Captor private ArgumentCaptor<net.grinder.script.Test> m_testCaptor;
+
+  private HTTPRequestHandler m_handler;
+
+  private final HTTPRecordingScriptEngineService m_service =
+    new HTTPRecordingScriptEngineService();
+
+  @Before public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+
+    when(m_scriptContext.getStatistics()).thenReturn(m_statistics);
+    when(m_scriptContext.getSSLControl()).thenReturn(m_sslControl);
+    when(m_scriptContext.getLogger()).thenReturn(m_logger);
+    when(m_sslControl.getSSLContext())
+      .thenReturn(new InsecureSSLContextFactory().getSSLContext());
+    when(m_scriptContext.getTimeAuthority())
+      .thenReturn(new StandardTimeAuthority());
+    when(m_scriptContext.getTestRegistry()).thenReturn(m_testRegistry);
+    when(m_testRegistry.register(any(net.grinder.script.Test.class)))
+      .thenReturn(m_registeredTest);
+
+    final HTTPPlugin plugin =
+      new HTTPPlugin(m_pluginProcessContext, m_scriptContext);
+
+    final PluginThreadListener threadState = plugin.createThreadListener();
+
+    when(m_pluginProcessContext.getPluginThreadListener(plugin))
+      .thenReturn(threadState);
+
+    Grinder.grinder = m_scriptContext;
+
+    m_handler = new HTTPRequestHandler();
+    m_handler.start();
+  }
+
+  @After public void shutdown() throws Exception {
+    m_handler.shutdown();
+    Grinder.grinder = null;
+    HTTPPluginControl.getConnectionDefaults()
+      .setDefaultHeaders(new NVPair[0]);
+  }
+
+  private ScriptEngine create(final File file) throws Exception {
+    return m_service.createScriptEngine(new ScriptLocation(file));
+  }
+
+  private File write(final String name, final String text) throws Exception {
+    final File file = new File(getDirectory(), name);
+    final Writer out = new FileWriter(file);
+
+    try {
+      out.write(text);
+    }
+    finally {
+      out.close();
+    }
+
+    return file;
+  }
+
+  private String recording(final String tokens, final String pages) {
+    final String port =
+      m_handler.getURL().substring(m_handler.getURL().lastIndexOf(':') + 1);
+
+    return
+      "<http-recording " +
+      "xmlns='http://grinder.sourceforge.net/tcpproxy/http/1.0'>" +
+      "<metadata><version>test</version>" +
+      "<time>2013-05-01T10:00:00Z</time>" +
+      "<test-number-offset>0</test-number-offset></metadata>" +
+      "<common-headers headers-id='defaultHeaders'>" +
+      "<header name='Accept' value='*/*'/></common-headers>" +
+      "<common-headers headers-id='headers0'>" +
+      "<header name='X-Common' value='c'/>" +
+      "<authorization><basic userid='u' password='p'/></authorization>" +
+      "</common-headers>" +
+      "<base-uri uri-id='url0'><scheme>http</scheme>" +
+      "<host>localhost</host><port>" + port + "</port></base-uri>" +
+      tokens +
+      pages +
+      "</http-recording>";
+  }
+
+  private static String request(final String method,
+                                final String path,
+                                final String queryString,
+                                final String headers,
+                                final String description,
+                                final int sleepTime,
+                                final String body,
+                                final String response) {
+    return
+      "<request><time>2013-05-01T10:00:00Z</time>" +
+      "<method>" + method + "</method>" +
+      "<uri extends='url0'><unparsed>x</unparsed>" +
+      "<path>" + path + "</path>" +
+      (queryString != null ?
+        "<query-string>" + queryString + "</query-string>" : "") +
+      "</uri>" +
+      "<headers extends='headers0'>" + headers + "</headers>" +
+      "<description>" + description + "</description>" +
+      (sleepTime > 0 ? "<sleep-time>" + sleepTime + "</sleep-time>" : "") +
+      body +
+      "<response status-code='200' reason-phrase='OK'>" + response +
+      "</response></request>";
+  }
+
+  @Test public void testNotARecording() throws Exception {
+    assertNull(create(write("foo.py", "pass")));
+    assertNull(create(write("foo.xml", "<foo/>")));
+
+    try {
+      create(write("bad.xml", "<foo>"));
+      fail("Expected ReplayException");
+    }
+    catch (final ReplayException e) {
+    }
+  }
+
+  @Test public void testReplay() throws Exception {
+    m_handler.setBody(
+      "<html><input type='hidden' name='tok' value='xyz'></html>");
+
+    final String tokens =
+      "<token token-id='token_sid'><name>sid</name></token>" +
+      "<token token-id='token_tok'><name>tok</name></token>";
+
+    final String pages =
+      "<page>" +
+      request("GET", "<text>/</text>", null, "", "GET /", 500, "",
+              "<token-reference token-id='token_tok' " +
+              "source='RESPONSE_BODY_HIDDEN_INPUT'>" +
+              "<new-value>abc</new-value></token-reference>") +
+      "</page><page>" +
+      request("GET", "<text>/page2</text>", null, "", "GET page2", 100, "",
+              "") +
+      request("POST",
+              "<text>/next;</text>" +
+              "<token-reference token-id='token_sid'>" +
+              "<new-value>42</new-value></token-reference>",
+              "<text>x=1</text>",
+              "<header name='Content-Type' " +
+              "value='application/x-www-form-urlencoded'/>",
+              "POST next", 200,
+              "<body><form>" +
+              "<token-reference token-id='token_tok'/>" +
+              "<form-field name='q' value='1'/>" +
+              "</form></body>",
+              "") +
+      "</page>";
+
+    final ScriptEngine engine =
+      create(write("recording.xml", recording(tokens, pages)));
+
+    verify(m_testRegistry, times(5)).register(m_testCaptor.capture());
+
+    final List<Integer> testNumbers = new ArrayList<Integer>();
+
+    for (final net.grinder.script.Test test : m_testCaptor.getAllValues()) {
+      testNumbers.add(test.getNumber());
+    }
+
+    assertEquals(asList(101, 100, 201, 202, 200), testNumbers);
+    assertEquals("POST next", m_testCaptor.getAllValues().get(3)
+                 .getDescription());
+
+    verify(m_registeredTest, times(3))
+      .instrument(isA(HTTPRequest.class),
+                  same(HTTPRequest.getHttpMethodFilter()));
+    verify(m_registeredTest, times(2))
+      .instrument(isA(PagePlan.class), same(PagePlan.getRunFilter()));
+
+    final WorkerRunnable runnable = engine.createWorkerRunnable();
+    runnable.run();
+
+    final InOrder inOrder = inOrder(m_scriptContext);
+    inOrder.verify(m_scriptContext).sleep(500);
+    inOrder.verify(m_scriptContext).sleep(100);
+    inOrder.verify(m_scriptContext).sleep(200);
+
+    assertEquals("POST /next;sid=42?x=1 HTTP/1.1",
+                 m_handler.getRequestFirstHeader());
+    m_handler.assertRequestContainsHeader("Accept: */*");
+    m_handler.assertRequestContainsHeader("X-Common: c");
+    m_handler.assertRequestContainsHeader("Authorization: Basic dTpw");
+    m_handler.assertRequestContainsHeader(
+      "Content-Type: application/x-www-form-urlencoded");
+    assertArrayEquals("tok=xyz&q=1".getBytes(),
+                      m_handler.getLastRequestBody());
+  }
+
+  @Test public void testBodies() throws Exception {
+    final String pages =
+      "<page>" +
+      request("PUT", "<text>/escaped</text>", null, "", "PUT escaped", 0,
+              "<body><escaped-string>a\\nb</escaped-string></body>", "") +
+      "</page>";
+
+    create(write("r.xml", recording("", pages)))
+      .createWorkerRunnable().run();
+
+    assertEquals("PUT /escaped HTTP/1.1", m_handler.getRequestFirstHeader());
+    assertArrayEquals("a\nb".getBytes(), m_handler.getLastRequestBody());
+
+    write("data", "file data");
+
+    final String pages2 =
+      "<page>" +
+      request("POST", "<text>/file</text>", null, "", "POST file", 0,
+              "<body><file>data</file></body>", "") +
+      "</page>";
+
+    create(write("r2.xml", recording("", pages2)))
+      .createWorkerRunnable().run();
+
+    assertEquals("POST /file HTTP/1.1", m_handler.getRequestFirstHeader());
+    assertArrayEquals("file data".getBytes(), m_handler.getLastRequestBody());
+  }
+
+  @Test public void testTokenWithoutValue() throws Exception {
+    final String tokens = "<token token-id='token_x'><name>x</name></token>";
+
+    final String pages =
+      "<page>" +
+      request("GET", "<text>/;</text><token-reference token-id='token_x'/>",
+              null, "", "GET /", 0, "", "") +
+      "</page>";
+
+    final WorkerRunnable runnable =
+      create(write("r.xml", recording(tokens, pages)))
+      .createWorkerRunnable();
+
+    try {
+      runnable.run();
+      fail("Expected ReplayException");
+    }
+    catch (final ReplayException e) {
+      assertEquals("No value has been found for token 'token_x'",
+                   e.getMessage());
+    }
+  }
+
+  @Test public void testUnknownToken() throws Exception {
+    final String pages =
+      "<page>" +
+      request("GET", "<text>/;</text><token-reference token-id='token_x'/>",
+              null, "", "GET /", 0, "", "") +
+      "</page>";
+
+    try {
+      create(write("r.xml", recording("", pages)));
+      fail("Expected ReplayException");
+    }
+    catch (final ReplayException e) {
+    }
+  }
+}
@@ -47,7 +47,6 @@ public class TestConnectionHandlerFactoryImplementation {
 
   @Mock private HTTPRecording m_httpRecording;
   @Mock private Logger m_logger;
-  @Mock private RegularExpressions m_regularExpressions;
   @Mock private URIParser m_uriParser;
   @Mock private AttributeStringParser m_attributeStringParser;
 
@@ -66,7 +65,7 @@ public class TestConnectionHandlerFactoryImplementation {
   @Test public void testFactory() {
     final ConnectionHandlerFactory factory =
       new ConnectionHandlerFactoryImplementation(m_httpRecording,
-        m_logger, m_regularExpressions, m_uriParser,
+        m_logger, m_uriParser,
         m_attributeStringParser, null, m_commentSource);
 
     final ConnectionHandler handler1 = factory.create(m_connectionDetails);
@@ -75,7 +74,6 @@ public class TestConnectionHandlerFactoryImplementation {
 
     verifyNoMoreInteractions(m_httpRecording,
                              m_logger,
-                             m_regularExpressions,
                              m_uriParser,
                              m_attributeStringParser);
   }
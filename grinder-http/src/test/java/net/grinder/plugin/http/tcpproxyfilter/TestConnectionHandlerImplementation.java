@@ -23,6 +23,7 @@
 
 package net.grinder.plugin.http.tcpproxyfilter;
 
+import static java.util.Arrays.copyOfRange;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -80,8 +81,6 @@ public class TestConnectionHandlerImplementation
   @Captor private ArgumentCaptor<ResponseTokenReferenceType>
     m_responseTokenRTCaptor;
 
-  private final RegularExpressions m_regularExpressions =
-    new RegularExpressionsImplementation();
 
   private final URIParser m_uriParser = new URIParserImplementation();
 
@@ -111,7 +110,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testRequestWithGet() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -140,12 +139,14 @@ public class TestConnectionHandlerImplementation
     verify(m_httpRecording).markLastResponseTime();
 
     handler.requestFinished();
+
+    verify(m_httpRecording).requestFinished(request);
   }
 
   @Test public void testAuthorization() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -181,7 +182,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testRequestWithPost() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, m_stringEscaper, m_commentSource,
         m_connectionDetails);
 
@@ -245,7 +246,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testResponseMessage1() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null, m_commentSource, m_connectionDetails);
 
     final RequestType request = RequestType.Factory.newInstance();
@@ -285,7 +286,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testResponseMessage2() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -316,7 +317,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testResponseMessage3() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null, m_commentSource, m_connectionDetails);
 
     final RequestType request = RequestType.Factory.newInstance();
@@ -342,7 +343,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testResponseMessageWithTokensInLinks() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -406,7 +407,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testResponseMessageWithTokensInHiddenParameters() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null, m_commentSource, m_connectionDetails);
 
     final RequestType request = RequestType.Factory.newInstance();
@@ -449,7 +450,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testRequestStringBody() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, m_stringEscaper,
         m_commentSource, m_connectionDetails);
 
@@ -483,7 +484,7 @@ public class TestConnectionHandlerImplementation
 
   @Test public void testRequestWithUserComment() throws Exception {
     ConnectionHandler handler = new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -520,7 +521,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testRequestBinaryBody() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -571,7 +572,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testRequestFormBody() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -643,7 +644,6 @@ public class TestConnectionHandlerImplementation
       new ConnectionHandlerImplementation(
             m_httpRecording,
             m_logger,
-            m_regularExpressions,
             m_uriParser,
             m_attributeStringParser, null,
             m_commentSource,
@@ -826,7 +826,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testRequestFileBody() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -873,7 +873,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testRequestFileBody2() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -921,7 +921,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testPartitionedRequest() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -945,10 +945,57 @@ public class TestConnectionHandlerImplementation
     verify(m_httpRecording).addRequest(m_connectionDetails, "GET", "blah");
   }
 
+  @Test public void testPartitionedHeaders() throws Exception {
+    final ConnectionHandler handler =
+      new ConnectionHandlerImplementation(
+        m_httpRecording, m_logger,
+        m_uriParser, m_attributeStringParser, m_stringEscaper,
+        m_commentSource, m_connectionDetails);
+
+    final RequestType request = RequestType.Factory.newInstance();
+    request.addNewHeaders();
+    request.setMethod(RequestType.Method.Enum.forString("POST"));
+
+    when(m_httpRecording.addRequest(m_connectionDetails, "POST", "/"))
+      .thenReturn(request);
+
+    final String[] packets = {
+      "POST / HTTP/1.1\r\nContent-Le",
+      "ngth: 3\r\nContent-Type: text/plain\r",
+      "\n\r",
+      "\n12",
+      "3",
+    };
+
+    for (int i = 0; i < packets.length; ++i) {
+      final byte[] bytes = packets[i].getBytes("US-ASCII");
+      handler.handleRequest(bytes, bytes.length);
+    }
+
+    final byte[] response =
+      "HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n<a href='/x?y=z'>"
+      .getBytes("US-ASCII");
+
+    final byte[] response2 = copyOfRange(response, 22, response.length);
+
+    handler.handleResponse(response, 22);
+    handler.handleResponse(response2, response2.length);
+    handler.requestFinished();
+
+    verify(m_httpRecording).requestFinished(request);
+    assertEquals("text/plain", request.getBody().getContentType());
+    assertEquals("123", request.getBody().getEscapedString());
+    assertEquals(200, request.getResponse().getStatusCode());
+
+    verify(m_httpRecording).setTokenReference(eq("y"),
+                                              eq("z"),
+                                              isA(TokenReferenceType.class));
+  }
+
   @Test public void testOverflowBuffer() {
     final ConnectionHandler handler =
         new ConnectionHandlerImplementation(
-          m_httpRecording, m_logger, m_regularExpressions,
+          m_httpRecording, m_logger,
           m_uriParser, m_attributeStringParser, null,
           m_commentSource, m_connectionDetails);
 
@@ -970,7 +1017,7 @@ public class TestConnectionHandlerImplementation
   @Test public void testWithBadResponseMessages() throws Exception {
     final ConnectionHandler handler =
       new ConnectionHandlerImplementation(
-        m_httpRecording, m_logger, m_regularExpressions,
+        m_httpRecording, m_logger,
         m_uriParser, m_attributeStringParser, null,
         m_commentSource, m_connectionDetails);
 
@@ -0,0 +1,191 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.grinder.tools.tcpproxy.ConnectionDetails;
+import net.grinder.tools.tcpproxy.EndPoint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.slf4j.Logger;
+
+
+/**
+ * Unit tests for {@link HARImporter}.
+ *
+ * @author agent
+ */
+public class TestHARImporter {
+
+  @Mock private HTTPFilterEventListener m_eventListener;
+  @Mock private Logger m_logger;
+  @Captor private ArgumentCaptor<ConnectionDetails> m_connectionCaptor;
+
+  private final ReplayTimeAuthority m_timeAuthority =
+    new ReplayTimeAuthority();
+
+  private final List<String> m_messages = new ArrayList<String>();
+  private final List<Long> m_times = new ArrayList<Long>();
+
+  private final Answer<Void> m_recordMessage = new Answer<Void>() {
+    public Void answer(InvocationOnMock invocation) throws Exception {
+      final Object[] arguments = invocation.getArguments();
+      m_messages.add(new String((byte[]) arguments[1],
+                                0,
+                                (Integer) arguments[2],
+                                "UTF-8"));
+      m_times.add(m_timeAuthority.getTimeInMilliseconds());
+      return null;
+    }
+  };
+
+  @Before public void setUp() {
+    MockitoAnnotations.initMocks(this);
+
+    doAnswer(m_recordMessage).when(m_eventListener)
+      .request(m_connectionCaptor.capture(), anyBytes(), anyInt());
+    doAnswer(m_recordMessage).when(m_eventListener)
+      .response(m_connectionCaptor.capture(), anyBytes(), anyInt());
+  }
+
+  private static byte[] anyBytes() {
+    return org.mockito.Matchers.isA(byte[].class);
+  }
+
+  private static final String HAR =
+    "{ \"log\": {" +
+    "  \"version\": \"1.2\"," +
+    "  \"creator\": { \"name\": \"test\", \"version\": \"1\" }," +
+    "  \"pages\": []," +
+    "  \"entries\": [" +
+    "  { \"startedDateTime\": \"2013-05-01T10:00:00.000Z\"," +
+    "    \"time\": 150.4," +
+    "    \"request\": {" +
+    "      \"method\": \"POST\"," +
+    "      \"url\": \"http://user@grinder.sf.net:8080/a%20b?x=1#frag\"," +
+    "      \"httpVersion\": \"HTTP/1.1\"," +
+    "      \"headers\": [" +
+    "        { \"name\": \"Content-Type\"," +
+    "          \"value\": \"application/x-www-form-urlencoded\" }," +
+    "        { \"name\": \"Content-Length\", \"value\": \"99\" }," +
+    "        { \"name\": \":authority\", \"value\": \"grinder.sf.net\" }" +
+    "      ]," +
+    "      \"postData\": { \"mimeType\": \"text/plain\", \"text\": \"y=\u00e0\" }" +
+    "    }," +
+    "    \"response\": {" +
+    "      \"status\": 200," +
+    "      \"statusText\": \"OK\"," +
+    "      \"headers\": [" +
+    "        { \"name\": \"Content-Encoding\", \"value\": \"gzip\" }" +
+    "      ]," +
+    "      \"content\": { \"size\": 3, \"text\": \"PGE+\"," +
+    "                   \"encoding\": \"base64\" }" +
+    "    }," +
+    "    \"timings\": { \"wait\": 100 }" +
+    "  }," +
+    "  { \"startedDateTime\": \"2013-05-01T11:00:01.000+01:00\"," +
+    "    \"request\": { \"method\": \"GET\", \"url\": \"https://[::1]\" }," +
+    "    \"response\": { \"status\": 0 }" +
+    "  }," +
+    "  { \"request\": { \"method\": \"GET\", \"url\": \"data:,x\" }," +
+    "    \"response\": { \"status\": 200 }" +
+    "  }" +
+    "  ]" +
+    "} }";
+
+  @Test public void testImport() throws Exception {
+    final HARImporter importer =
+      new HARImporter(m_eventListener, m_timeAuthority, m_logger);
+
+    assertEquals(2, importer.importHAR(new StringReader(HAR)));
+
+    assertEquals(3, m_messages.size());
+
+    assertEquals("POST /a%20b?x=1 HTTP/1.1\r\n" +
+                 "Content-Type: application/x-www-form-urlencoded\r\n" +
+                 "Content-Length: 4\r\n" +
+                 "\r\n" +
+                 "y=\u00e0",
+                 m_messages.get(0));
+
+    assertEquals("HTTP/1.1 200 OK\r\n" +
+                 "Content-Length: 3\r\n" +
+                 "\r\n" +
+                 "<a>",
+                 m_messages.get(1));
+
+    assertEquals("GET / HTTP/1.1\r\n\r\n", m_messages.get(2));
+
+    final long start = 1367402400000L;
+    assertEquals(start, m_times.get(0).longValue());
+    assertEquals(start + 150, m_times.get(1).longValue());
+    assertEquals(start + 1000, m_times.get(2).longValue());
+
+    final List<ConnectionDetails> connections =
+      m_connectionCaptor.getAllValues();
+
+    final ConnectionDetails connection1 = connections.get(0);
+    assertEquals(new EndPoint("grinder.sf.net", 8080),
+                 connection1.getRemoteEndPoint());
+    assertEquals(connection1.getOtherEnd(), connections.get(1));
+
+    final ConnectionDetails connection2 = connections.get(2);
+    assertEquals(new EndPoint("[::1]", 443), connection2.getRemoteEndPoint());
+    assertTrue(connection2.isSecure());
+
+    final InOrder inOrder = inOrder(m_eventListener);
+    inOrder.verify(m_eventListener).open(connection1);
+    inOrder.verify(m_eventListener)
+      .request(eq(connection1), anyBytes(), anyInt());
+    inOrder.verify(m_eventListener)
+      .response(eq(connection1.getOtherEnd()), anyBytes(), anyInt());
+    inOrder.verify(m_eventListener).close(connection1);
+    inOrder.verify(m_eventListener).open(connection2);
+    inOrder.verify(m_eventListener)
+      .request(eq(connection2), anyBytes(), anyInt());
+    inOrder.verify(m_eventListener).close(connection2);
+    verifyNoMoreInteractions(m_eventListener);
+
+    verify(m_logger).warn(contains("unsupported URL"), eq("data:,x"));
+  }
+}
@@ -0,0 +1,130 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+/**
+ * Unit tests for {@link HTMLTokenScanner}.
+ *
+ * @author agent
+ */
+public class TestHTMLTokenScanner {
+
+  @Mock private HTMLTokenScanner.Listener m_listener;
+
+  @Before public void setUp() {
+    MockitoAnnotations.initMocks(this);
+  }
+
+  private void scan(String text) throws Exception {
+    final byte[] bytes = text.getBytes("ISO8859_1");
+    new HTMLTokenScanner(m_listener, 100).scan(bytes, 0, bytes.length);
+  }
+
+  @Test public void testHyperlinks() throws Exception {
+    scan("  blah='./foo' <a href=\"http://bah\">http://blah</a>\n" +
+         "<a href='#fragment'/> hhref = 'x' href=\"\"" +
+         "href=unquoted href\t=\t'à'");
+
+    final InOrder inOrder = inOrder(m_listener);
+    inOrder.verify(m_listener).hyperlinkURI(18, "http://bah");
+    inOrder.verify(m_listener).hyperlinkURI(55, "#fragment");
+    inOrder.verify(m_listener).hyperlinkURI(75, "x");
+    inOrder.verify(m_listener).hyperlinkURI(86, "");
+    inOrder.verify(m_listener).hyperlinkURI(107, "à");
+    verifyNoMoreInteractions(m_listener);
+  }
+
+  @Test public void testHiddenInputs() throws Exception {
+    final String[] goodMatches = {
+      "<input type='hidden' name=\"name\" value='myvalue'>",
+      "<input type='HIDDEN' />",
+      "<  Input Name='name' Type=\"hidden\" />",
+      "<input\ntype='hidden'\nname=\"name\"\nvalue='my>value'>",
+    };
+
+    for (int i = 0; i < goodMatches.length; ++i) {
+      scan(" " + goodMatches[i] + " ");
+      verify(m_listener).input(1, goodMatches[i], true);
+    }
+
+    scan("<input type='somethingelse' name=\"name\" value='myvalue'/>");
+    verify(m_listener).input(
+      0, "<input type='somethingelse' name=\"name\" value='myvalue'/>", false);
+
+    scan("<input name='a'><input type='hidden'");
+    verify(m_listener).input(0, "<input name='a'>", false);
+
+    final String[] badMatches = {
+      " <input type='hidden' name=\"name\" value='myvalue'",
+      "<output type='hidden' name=\"name\" value='myvalue'>",
+      "<input>",
+    };
+
+    for (int i = 0; i < badMatches.length; ++i) {
+      scan(badMatches[i]);
+    }
+
+    verifyNoMoreInteractions(m_listener);
+  }
+
+  @Test public void testSplitAcrossPackets() throws Exception {
+    final byte[] bytes =
+      "<a href='/foo'><<input type='hidden' name='x' value='1'>"
+      .getBytes("ISO8859_1");
+
+    final HTMLTokenScanner scanner = new HTMLTokenScanner(m_listener, 100);
+
+    for (int i = 0; i < bytes.length; ++i) {
+      scanner.scan(bytes, i, 1);
+    }
+
+    verify(m_listener).hyperlinkURI(3, "/foo");
+    verify(m_listener)
+      .input(16, "<input type='hidden' name='x' value='1'>", true);
+    verifyNoMoreInteractions(m_listener);
+  }
+
+  @Test public void testMaximumLength() throws Exception {
+    final StringBuilder longValue = new StringBuilder();
+
+    for (int i = 0; i < 200; ++i) {
+      longValue.append('x');
+    }
+
+    scan("<a href='" + longValue + "'> <input type='hidden' value='" +
+         longValue + "'> <a href='ok'>");
+
+    verify(m_listener).hyperlinkURI(446, "ok");
+    verifyNoMoreInteractions(m_listener);
+  }
+}
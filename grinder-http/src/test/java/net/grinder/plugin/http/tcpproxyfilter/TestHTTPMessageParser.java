@@ -0,0 +1,224 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.BufferOverflowException;
+
+import net.grinder.plugin.http.tcpproxyfilter.HTTPMessageParser.RequestLine;
+import net.grinder.plugin.http.tcpproxyfilter.HTTPMessageParser.StatusLine;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+
+/**
+ * Unit tests for {@link HTTPMessageParser}.
+ *
+ * @author agent
+ */
+public class TestHTTPMessageParser {
+
+  @Mock private HTTPMessageParser.Listener m_listener;
+
+  @Before public void setUp() {
+    MockitoAnnotations.initMocks(this);
+
+    when(m_listener.startLine(any(byte[].class), anyInt())).thenReturn(true);
+  }
+
+  private static byte[] bytes(String s) throws Exception {
+    return s.getBytes("ISO8859_1");
+  }
+
+  private static RequestLine requestLine(String s) throws Exception {
+    final byte[] bytes = bytes(s);
+    return RequestLine.parse(bytes, bytes.length);
+  }
+
+  private static StatusLine statusLine(String s) throws Exception {
+    final byte[] bytes = bytes(s);
+    return StatusLine.parse(bytes, bytes.length);
+  }
+
+  @Test public void testParse() throws Exception {
+    final HTTPMessageParser parser = new HTTPMessageParser(100);
+
+    final byte[] message =
+      bytes("\r\nGET / HTTP/1.1\r\n" +
+            "Host:  foo \r\n" +
+            "Bad header\r\n" +
+            "X-Empty:\n" +
+            " folded\r\n" +
+            "\r\n" +
+            "body");
+
+    assertEquals(message.length - 4,
+                 parser.parse(message, 0, message.length, m_listener));
+    assertTrue(parser.isBody());
+
+    assertEquals(0, parser.parse(message, 0, 2, m_listener));
+
+    final InOrder inOrder = inOrder(m_listener);
+    inOrder.verify(m_listener).startLine(any(byte[].class), anyInt());
+    inOrder.verify(m_listener).header("Host", "foo");
+    inOrder.verify(m_listener).header("X-Empty", "");
+    verifyNoMoreInteractions(m_listener);
+
+    parser.reset();
+    assertFalse(parser.isBody());
+  }
+
+  @Test public void testSplitAcrossPackets() throws Exception {
+    final HTTPMessageParser parser = new HTTPMessageParser(100);
+
+    final byte[] message =
+      bytes("HTTP/1.1 200 OK\r\nContent-Length: 10\r\n\r\n");
+
+    for (int i = 0; i < message.length; ++i) {
+      assertFalse(parser.isBody());
+      assertEquals(i + 1, parser.parse(message, i, 1, m_listener));
+    }
+
+    assertTrue(parser.isBody());
+    verify(m_listener).header("Content-Length", "10");
+  }
+
+  @Test public void testRejectedStartLine() throws Exception {
+    when(m_listener.startLine(any(byte[].class), anyInt())).thenReturn(false);
+
+    final HTTPMessageParser parser = new HTTPMessageParser(20);
+
+    final byte[] junk = bytes("0123456789\n");
+
+    parser.parse(junk, 0, junk.length, m_listener);
+    parser.parse(junk, 0, junk.length, m_listener);
+
+    try {
+      parser.parse(junk, 0, junk.length, m_listener);
+      fail("Expected BufferOverflowException");
+    }
+    catch (BufferOverflowException e) {
+    }
+
+    // Count is reset after overflow.
+    parser.parse(junk, 0, junk.length, m_listener);
+  }
+
+  @Test public void testLongLine() throws Exception {
+    final HTTPMessageParser parser = new HTTPMessageParser(20);
+
+    final byte[] line = bytes("X-Long: 0123456789");
+
+    parser.parse(bytes("GET / HTTP/1.0\n"), 0, 15, m_listener);
+    parser.parse(line, 0, line.length, m_listener);
+
+    try {
+      parser.parse(line, 0, line.length, m_listener);
+      fail("Expected BufferOverflowException");
+    }
+    catch (BufferOverflowException e) {
+    }
+
+    assertFalse(parser.isBody());
+  }
+
+  @Test public void testRequestLine() throws Exception {
+    final RequestLine r1 = requestLine("GET /foo?x=1 HTTP/1.1");
+    assertEquals("GET", r1.getMethod());
+    assertEquals("/foo?x=1", r1.getRelativeURI());
+
+    final RequestLine r2 =
+      requestLine("POST \thttp://grinder.sf.net:80/a b  HTTP/1.0 ");
+    assertEquals("POST", r2.getMethod());
+    assertEquals("/a b", r2.getRelativeURI());
+
+    assertEquals("/", requestLine("GET https://host HTTP/1.1")
+                      .getRelativeURI());
+
+    final String[] bad = {
+      "",
+      "GET",
+      "GET / HTTP/1.1X",
+      "GET HTTP/1.1",
+      "get / HTTP/1.1",
+      " GET / HTTP/1.1",
+      "GET /HTTP/1.1",
+      "GET / HTTP/x.1",
+    };
+
+    for (int i = 0; i < bad.length; ++i) {
+      assertNull(bad[i], requestLine(bad[i]));
+    }
+
+    final byte[] packet = bytes("PUT /x HTTP/1.1\r\nFoo: bar\r\n");
+    assertEquals("/x",
+                 RequestLine.parsePacket(packet, packet.length)
+                 .getRelativeURI());
+    assertNull(RequestLine.parsePacket(packet, 10));
+    assertNull(RequestLine.parsePacket(packet, 0));
+  }
+
+  @Test public void testStatusLine() throws Exception {
+    final StatusLine s1 = statusLine("HTTP/1.1 302 Moved Temporarily ");
+    assertEquals(302, s1.getStatusCode());
+    assertEquals("Moved Temporarily", s1.getReasonPhrase());
+
+    final StatusLine s2 = statusLine("HTTP/1.0 200");
+    assertEquals(200, s2.getStatusCode());
+    assertEquals("", s2.getReasonPhrase());
+
+    final String[] bad = {
+      "",
+      "HTTP/1.1",
+      "HTTP/1.1 OK",
+      "HTTP/1.1 200OK",
+      "HTTP/1.1 12345678901 OK",
+      "HTTPS/1.1 200 OK",
+    };
+
+    for (int i = 0; i < bad.length; ++i) {
+      assertNull(bad[i], statusLine(bad[i]));
+    }
+
+    final byte[] packet = bytes("HTTP/1.1 404 Not Found\nbody");
+    assertEquals(404,
+                 StatusLine.parsePacket(packet, packet.length)
+                 .getStatusCode());
+    assertNull(StatusLine.parsePacket(packet, 10));
+    assertNull(StatusLine.parsePacket(bytes("body"), 4));
+  }
+}
@@ -31,6 +31,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -38,6 +39,12 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
 
 import net.grinder.plugin.http.xml.BasicAuthorizationHeaderType;
 import net.grinder.plugin.http.xml.CommonHeadersType;
@@ -57,10 +64,10 @@ import net.grinder.util.http.URIParserImplementation;
 
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.ArgumentCaptor;
-import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 
 import HTTPClient.NVPair;
@@ -78,7 +85,8 @@ public class TestHTTPRecordingImplementation {
 
   @Mock private HTTPRecordingResultProcessor m_resultProcessor;
   @Mock private Logger m_logger;
-  @Captor private ArgumentCaptor<HttpRecordingDocument> m_recordingCaptor;
+  private final List<HttpRecordingDocument> m_recordings =
+    new ArrayList<HttpRecordingDocument>();
 
   private final RegularExpressions m_regularExpressions =
     new RegularExpressionsImplementation();
@@ -90,9 +98,24 @@ public class TestHTTPRecordingImplementation {
 
   private HTTPRecordingImplementation m_httpRecording;
 
-  @Before public void setUp() {
+  @Before public void setUp() throws Exception {
     MockitoAnnotations.initMocks(this);
 
+    // The recording is deleted after it has been processed, so parse it
+    // straight away.
+    doAnswer(new Answer<Void>() {
+      @Override public Void answer(final InvocationOnMock invocation)
+        throws Exception {
+        final StreamSource source =
+          (StreamSource) invocation.getArguments()[0];
+
+        m_recordings.add(
+          HttpRecordingDocument.Factory.parse(new URL(source.getSystemId())));
+
+        return null;
+      }
+    }).when(m_resultProcessor).process(isA(Source.class));
+
     m_httpRecording =
         new HTTPRecordingImplementation(new ParametersFromProperties(),
                                         m_resultProcessor,
@@ -111,12 +134,12 @@ public class TestHTTPRecordingImplementation {
     m_httpRecording.dispose();
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor, times(2)).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor, times(2)).process(isA(Source.class));
 
     final HttpRecordingDocument recording =
-        m_recordingCaptor.getAllValues().get(0);
+        m_recordings.get(0);
     final HttpRecordingDocument recording2 =
-        m_recordingCaptor.getAllValues().get(1);
+        m_recordings.get(1);
 
     XMLBeansUtilities.validate(recording);
     XMLBeansUtilities.validate(recording2);
@@ -133,7 +156,7 @@ public class TestHTTPRecordingImplementation {
 
     final IOException exception = new IOException("Eat me");
     doThrow(exception)
-    .when(m_resultProcessor).process(isA(HttpRecordingDocument.class));
+    .when(m_resultProcessor).process(isA(Source.class));
 
     m_httpRecording.dispose();
 
@@ -201,9 +224,9 @@ public class TestHTTPRecordingImplementation {
 
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(Source.class));
 
-    final HttpRecordingDocument recording = m_recordingCaptor.getValue();
+    final HttpRecordingDocument recording = m_recordings.get(0);
 
     XMLBeansUtilities.validate(recording);
 
@@ -348,10 +371,10 @@ public class TestHTTPRecordingImplementation {
 
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(Source.class));
 
     final HTTPRecordingType recording =
-      m_recordingCaptor.getValue().getHttpRecording();
+      m_recordings.get(0).getHttpRecording();
 
     // Default, plus 2 sets.
     assertEquals(3, recording.getCommonHeadersArray().length);
@@ -410,10 +433,10 @@ public class TestHTTPRecordingImplementation {
 
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(Source.class));
 
     final HTTPRecordingType recording =
-      m_recordingCaptor.getValue().getHttpRecording();
+      m_recordings.get(0).getHttpRecording();
 
     assertEquals(0, recording.getCommonHeadersArray().length);
 
@@ -443,10 +466,10 @@ public class TestHTTPRecordingImplementation {
 
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(Source.class));
 
     final HTTPRecordingType recording =
-      m_recordingCaptor.getValue().getHttpRecording();
+      m_recordings.get(0).getHttpRecording();
 
     assertEquals(0, recording.getCommonHeadersArray().length);
   }
@@ -471,10 +494,10 @@ public class TestHTTPRecordingImplementation {
 
     m_httpRecording.dispose();
 
-    verify(m_resultProcessor).process(m_recordingCaptor.capture());
+    verify(m_resultProcessor).process(isA(Source.class));
 
     final HTTPRecordingType recording =
-      m_recordingCaptor.getValue().getHttpRecording();
+      m_recordings.get(0).getHttpRecording();
 
     assertEquals(1, recording.getCommonHeadersArray().length);
 
@@ -484,6 +507,53 @@ public class TestHTTPRecordingImplementation {
     assertEquals(1, headers.sizeOfHeaderArray());
   }
 
+  @Test public void testRequestFinished() throws Exception {
+    final RequestType request1 =
+      m_httpRecording.addRequest(m_connectionDetails1, "GET", "/one");
+    request1.setHeaders(createHeaders(new NVPair("User-Agent", "blah")));
+    request1.addNewResponse();
+
+    final RequestType request2 =
+      m_httpRecording.addRequest(m_connectionDetails1, "POST", "/two");
+    request2.setHeaders(createHeaders(new NVPair("User-Agent", "blah")));
+    request2.addNewResponse();
+
+    final RequestType request3 =
+      m_httpRecording.addRequest(m_connectionDetails1, "GET", "/three");
+    request3.addNewResponse();
+
+    // Finished out of order, and request 1 is never finished. Requests are
+    // written as soon as they finish, and the recording order is restored
+    // when the recording is written.
+    m_httpRecording.requestFinished(request3);
+    m_httpRecording.requestFinished(request2);
+    request2.setDescription("Changed after it was written");
+    m_httpRecording.requestFinished(request2);
+
+    // Request 1 is recorded at dispose.
+    m_httpRecording.dispose();
+
+    verify(m_resultProcessor).process(isA(Source.class));
+
+    final HttpRecordingDocument document = m_recordings.get(0);
+    XMLBeansUtilities.validate(document);
+
+    final HTTPRecordingType recording = document.getHttpRecording();
+
+    assertEquals(3, recording.getPageArray().length);
+    assertEquals("GET one",
+                 recording.getPageArray(0).getRequestArray(0).getDescription());
+    assertEquals("POST two",
+                 recording.getPageArray(1).getRequestArray(0).getDescription());
+    assertEquals("GET three",
+                 recording.getPageArray(2).getRequestArray(0).getDescription());
+
+    assertEquals(1, recording.getCommonHeadersArray().length);
+    assertEquals("headers0", recording.getCommonHeadersArray(0).getHeadersId());
+    assertEquals("headers0",
+      recording.getPageArray(1).getRequestArray(0).getHeaders().getExtends());
+  }
+
   @Test public void testCreateBodyDataFileName() throws Exception {
 
     final File file1 = m_httpRecording.createBodyDataFileName();
@@ -0,0 +1,146 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import net.grinder.plugin.http.tcpproxyfilter.JSONReader.Token;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link JSONReader}.
+ *
+ * @author agent
+ */
+public class TestJSONReader {
+
+  private static JSONReader reader(String json) {
+    return new JSONReader(new StringReader(json));
+  }
+
+  @Test public void testRead() throws Exception {
+    final JSONReader reader =
+      reader(" {\"a\" : [1, -2.5e3, \"x\\n\\u00e0\\\"\\/\", true, false, null]," +
+             "\n\"b\":{}, \"c\":[] }  ");
+
+    reader.beginObject();
+    assertEquals("a", reader.nextName());
+    reader.beginArray();
+    assertEquals(Token.NUMBER, reader.peek());
+    assertEquals("1", reader.nextString());
+    assertEquals(-2500, reader.nextDouble(), 0);
+    assertEquals("x\n\u00e0\"/", reader.nextString());
+    assertTrue(reader.nextBoolean());
+    assertFalse(reader.nextBoolean());
+    assertNull(reader.nextString());
+    assertFalse(reader.hasNext());
+    reader.endArray();
+
+    assertEquals("b", reader.nextName());
+    reader.beginObject();
+    assertFalse(reader.hasNext());
+    reader.endObject();
+
+    assertEquals("c", reader.nextName());
+    reader.beginArray();
+    reader.endArray();
+
+    reader.endObject();
+    assertEquals(Token.END_DOCUMENT, reader.peek());
+    assertFalse(reader.hasNext());
+
+    reader.close();
+  }
+
+  @Test public void testSkipValue() throws Exception {
+    final JSONReader reader =
+      reader("[{\"a\":[{\"b\":[1,2]}, \"c\"]}, \"d\", 3]");
+
+    reader.beginArray();
+    reader.skipValue();
+    assertEquals("d", reader.nextString());
+    reader.skipValue();
+    reader.endArray();
+    assertEquals(Token.END_DOCUMENT, reader.peek());
+  }
+
+  @Test public void testLongString() throws Exception {
+    final StringBuilder s = new StringBuilder();
+
+    for (int i = 0; i < 20000; ++i) {
+      s.append((char) ('a' + i % 26));
+
+      if (i % 1000 == 0) {
+        s.append("\\t");
+      }
+    }
+
+    final JSONReader reader = reader("\"" + s + "\"");
+
+    assertEquals(s.toString().replace("\\t", "\t"), reader.nextString());
+  }
+
+  @Test public void testMalformed() throws Exception {
+    final String[] bad = {
+      "",
+      "{",
+      "[1 2]",
+      "[",
+      "{\"a\" 1}",
+      "{\"a\":1,}",
+      "{a:1}",
+      "\"abc",
+      "\"\\x\"",
+      "\"\\u00zz\"",
+      "tru",
+      "1 2",
+    };
+
+    for (int i = 0; i < bad.length; ++i) {
+      final JSONReader reader = reader(bad[i]);
+
+      try {
+        reader.skipValue();
+        reader.peek();
+        fail("Expected IOException for '" + bad[i] + "'");
+      }
+      catch (IOException e) {
+      }
+    }
+
+    try {
+      reader("[1]").beginObject();
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+    }
+  }
+}
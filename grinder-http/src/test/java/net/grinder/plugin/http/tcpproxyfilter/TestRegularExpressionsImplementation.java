@@ -34,56 +34,25 @@ import junit.framework.TestCase;
  */
 public class TestRegularExpressionsImplementation extends TestCase {
 
-  public void testHyperlinkURIPattern() throws Exception {
+  public void testLastPathElementPathPattern() throws Exception {
     final RegularExpressions regularExpressions =
       new RegularExpressionsImplementation();
 
-    final Pattern pattern = regularExpressions.getHyperlinkURIPattern();
+    final Pattern pattern = regularExpressions.getLastPathElementPathPattern();
 
-    final String text =
-      "  blah='./foo' <a href=\"http://bah\">http://blah</a>\n" +
-      "<a href='#fragment'/>";
-
-    final Matcher matcher = pattern.matcher(text);
-
-    assertTrue(matcher.find());
-    assertEquals("http://bah", matcher.group(1));
-
-    assertTrue(matcher.find());
-    assertEquals("#fragment", matcher.group(1));
-
-    assertFalse(matcher.find());
-  }
-
-  public void testHiddenParameterPattern() throws Exception {
-    final RegularExpressions regularExpressions =
-      new RegularExpressionsImplementation();
-
-    final Pattern pattern = regularExpressions.getHiddenInputPattern();
-
-    final String[] goodMatches = {
-      " <input type='hidden' name=\"name\" value='myvalue'>",
-      " <input type='HIDDEN' />",
-      " <  Input Name='name' Type=\"hidden\" />",
-      "<input\ntype='hidden'\nname=\"name\"\nvalue='myvalue'>",
+    final String[][] examples = {
+      { "/foo/bah.html", "bah.html" },
+      { "/foo/bah;jsessionid=1?x=/y", "bah" },
+      { "/foo/?x=/y#z", "" },
+      { "http://host/a/b#c", "b" },
     };
 
-    for (int i = 0; i < goodMatches.length; ++i) {
-      final Matcher matcher = pattern.matcher(goodMatches[i]);
-      assertTrue("Matches '" + goodMatches[i] + "'", matcher.find());
-      assertEquals(goodMatches[i].trim(), matcher.group());
+    for (int i = 0; i < examples.length; ++i) {
+      final Matcher matcher = pattern.matcher(examples[i][0]);
+      assertTrue(examples[i][0], matcher.find());
+      assertEquals(examples[i][1], matcher.group(1));
     }
 
-    final String[] badMatches = {
-        " <input type='hidden' name=\"name\" value='myvalue'",
-        "<output type='hidden' name=\"name\" value='myvalue'>",
-        "<input type='somethingelse' name=\"name\" value='myvalue'/>",
-        "<input>",
-      };
-
-      for (int i = 0; i < badMatches.length; ++i) {
-        final Matcher matcher = pattern.matcher(badMatches[i]);
-        assertFalse("Fails to match '" + badMatches[i] + "'", matcher.find());
-      }
+    assertFalse(pattern.matcher("bah?x=/y").find());
   }
 }
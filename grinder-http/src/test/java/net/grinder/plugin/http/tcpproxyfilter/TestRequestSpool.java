@@ -0,0 +1,162 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.plugin.http.tcpproxyfilter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.grinder.plugin.http.xml.HeaderType;
+import net.grinder.plugin.http.xml.RequestType;
+import net.grinder.testutility.AbstractJUnit4FileTestCase;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link RequestSpool}.
+ *
+ * @author agent
+ */
+public class TestRequestSpool extends AbstractJUnit4FileTestCase {
+
+  private final List<RequestType> m_requests = new ArrayList<RequestType>();
+
+  private final RequestSpool.Visitor m_visitor = new RequestSpool.Visitor() {
+      public void visit(RequestType request) {
+        m_requests.add(request);
+      }
+    };
+
+  private static RequestType createRequest(String description) {
+    final RequestType request = RequestType.Factory.newInstance();
+    request.setDescription(description);
+
+    final HeaderType header = request.addNewHeaders().addNewHeader();
+    header.setName("Accept");
+    header.setValue("text/\u00e0");
+
+    return request;
+  }
+
+  @Test public void testAppendAndRead() throws Exception {
+    final File file = new File(getDirectory(), "spool");
+    final RequestSpool spool = new RequestSpool(file);
+
+    assertEquals(0, spool.size());
+    spool.read(m_visitor);
+    assertEquals(0, m_requests.size());
+
+    spool.append(createRequest("one"), 0);
+    spool.append(createRequest("two"), 1);
+    assertEquals(2, spool.size());
+
+    spool.read(m_visitor);
+
+    assertEquals(2, m_requests.size());
+    assertEquals("one", m_requests.get(0).getDescription());
+    assertEquals("text/\u00e0",
+                 m_requests.get(0).getHeaders().getHeaderArray(0).getValue());
+    assertEquals("two", m_requests.get(1).getDescription());
+
+    // Can append after reading, and read again.
+    spool.append(createRequest("three"), 2);
+
+    m_requests.clear();
+    spool.read(m_visitor);
+    assertEquals(3, m_requests.size());
+    assertEquals("three", m_requests.get(2).getDescription());
+
+    spool.delete();
+    assertFalse(file.exists());
+  }
+
+  @Test public void testOutOfOrder() throws Exception {
+    final RequestSpool spool =
+      new RequestSpool(new File(getDirectory(), "spool"));
+
+    final int[] positions = { 1, 2, 5, 3, 6, 0, 1000, 4 };
+
+    for (int i = 0; i < positions.length; ++i) {
+      spool.append(createRequest(Integer.toString(positions[i])),
+                   positions[i]);
+    }
+
+    spool.read(m_visitor);
+
+    assertEquals(positions.length, m_requests.size());
+
+    final String[] expected = { "0", "1", "2", "3", "4", "5", "6", "1000" };
+
+    for (int i = 0; i < expected.length; ++i) {
+      assertEquals(expected[i], m_requests.get(i).getDescription());
+    }
+
+    // Grow beyond the initial capacity.
+    for (int i = 0; i < 300; ++i) {
+      spool.append(createRequest("x"), 2000 - i);
+    }
+
+    m_requests.clear();
+    spool.read(m_visitor);
+    assertEquals(positions.length + 300, m_requests.size());
+    assertEquals("1000", m_requests.get(positions.length - 1).getDescription());
+
+    spool.delete();
+  }
+
+  @Test public void testCorruptSpool() throws Exception {
+    final File file = new File(getDirectory(), "spool");
+    final RequestSpool spool = new RequestSpool(file);
+
+    spool.append(createRequest("one"), 0);
+    spool.read(m_visitor);
+
+    final FileOutputStream out = new FileOutputStream(file);
+    out.write(new byte[] { 0, 0, 0, 0, 0, 0, 0, 3, 'x', 'y', 'z' });
+    out.close();
+
+    try {
+      spool.read(m_visitor);
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+    }
+
+    new FileOutputStream(file).close();
+
+    try {
+      spool.read(m_visitor);
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+    }
+
+    spool.delete();
+  }
+}
@@ -0,0 +1,85 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.tools.tcpproxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+
+/**
+ * Unit tests for {@link DirectBufferPool}.
+ *
+ * @author agent
+ */
+public class TestDirectBufferPool {
+
+  @Test public void testAcquireAndRelease() throws Exception {
+    final DirectBufferPool pool = new DirectBufferPool(100, 2);
+    assertEquals(100, pool.getBufferSize());
+    assertEquals(0, pool.getPooledCount());
+
+    final ByteBuffer b1 = pool.acquire();
+    assertTrue(b1.isDirect());
+    assertEquals(100, b1.capacity());
+    assertEquals(100, b1.remaining());
+
+    final ByteBuffer b2 = pool.acquire();
+    assertNotSame(b1, b2);
+
+    b1.put((byte) 1);
+    b1.flip();
+    pool.release(b1);
+    assertEquals(1, pool.getPooledCount());
+
+    final ByteBuffer b3 = pool.acquire();
+    assertSame(b1, b3);
+    assertEquals(0, b3.position());
+    assertEquals(100, b3.limit());
+    assertEquals(0, pool.getPooledCount());
+
+    pool.release(null);
+    assertEquals(0, pool.getPooledCount());
+  }
+
+  @Test public void testMaximumPooled() throws Exception {
+    final DirectBufferPool pool = new DirectBufferPool(10, 2);
+
+    final ByteBuffer b1 = pool.acquire();
+    final ByteBuffer b2 = pool.acquire();
+    final ByteBuffer b3 = pool.acquire();
+
+    pool.release(b1);
+    pool.release(b2);
+    pool.release(b3);
+    assertEquals(2, pool.getPooledCount());
+
+    assertSame(b2, pool.acquire());
+    assertSame(b1, pool.acquire());
+    assertNotSame(b3, pool.acquire());
+  }
+}
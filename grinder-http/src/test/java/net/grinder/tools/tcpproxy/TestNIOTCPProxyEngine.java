@@ -0,0 +1,489 @@
+// Copyright (C) 2026 agent
+// All rights reserved.
+//
+// This file is part of The Grinder software distribution. Refer to
+// the file LICENSE which is part of The Grinder distribution for
+// licensing details. The Grinder distribution is available on the
+// Internet at http://grinder.sourceforge.net/
+//
+// THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+// "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+// LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+// FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+// COPYRIGHT HOLDERS OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+// INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+// (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+// SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+// HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+// STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+// ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+// OF THE POSSIBILITY OF SUCH DAMAGE.
+
+package net.grinder.tools.tcpproxy;
+
+import static net.grinder.testutility.SocketUtilities.findFreePort;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.contains;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Matchers.same;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.net.ssl.SSLSocket;
+
+import net.grinder.testutility.AssertUtilities;
+import net.grinder.util.StreamCopier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.slf4j.Logger;
+
+
+/**
+ * Unit tests for {@link NIOTCPProxyEngine}.
+ *
+ * @author agent
+ */
+public class TestNIOTCPProxyEngine {
+
+  private final List<AcceptAndEcho> m_echoers = new ArrayList<AcceptAndEcho>();
+
+  @Mock private TCPProxyFilter m_requestFilter;
+  @Mock private TCPProxyFilter m_responseFilter;
+  @Captor private ArgumentCaptor<ConnectionDetails> m_connectionDetailsCaptor;
+
+  @Mock private Logger m_logger;
+  private final PrintWriter m_out = new PrintWriter(new StringWriter());
+
+  private EndPoint m_localEndPoint;
+
+  private TCPProxySSLSocketFactoryImplementation m_sslSocketFactory;
+
+  private NIOTCPProxyEngine m_engine;
+  private Thread m_engineThread;
+
+  private EndPoint createFreeLocalEndPoint() throws IOException {
+    return new EndPoint("localhost", findFreePort());
+  }
+
+  @Before public void setUp() throws Exception {
+    MockitoAnnotations.initMocks(this);
+
+    m_localEndPoint = createFreeLocalEndPoint();
+
+    m_sslSocketFactory = new TCPProxySSLSocketFactoryImplementation();
+
+    // Speed things up.
+    System.setProperty("tcpproxy.connecttimeout", "500");
+  }
+
+  @After public void tearDown() throws Exception {
+    if (m_engine != null) {
+      m_engine.stop();
+      m_engineThread.join();
+    }
+
+    for (final AcceptAndEcho echoer : m_echoers) {
+      echoer.shutdown();
+    }
+  }
+
+  private void startEngine(final NIOTCPProxyEngine engine) {
+    m_engine = engine;
+    m_engineThread = new Thread(engine, "Run engine");
+    m_engineThread.start();
+  }
+
+  private NIOTCPProxyEngine createHTTPProxyEngine(final int timeout)
+    throws IOException {
+    return new NIOTCPProxyEngine(m_sslSocketFactory.getSSLContext(),
+                                 m_requestFilter,
+                                 m_responseFilter,
+                                 m_out,
+                                 m_logger,
+                                 m_localEndPoint,
+                                 false,
+                                 timeout);
+  }
+
+  @Test public void testBadLocalPort() throws Exception {
+    try {
+      new NIOTCPProxyEngine(null,
+                            m_requestFilter,
+                            m_responseFilter,
+                            m_out,
+                            m_logger,
+                            new EndPoint("fictitious-host", 222),
+                            false,
+                            1000);
+      fail("Expected UnknownHostException");
+    }
+    catch (final UnknownHostException e) {
+    }
+  }
+
+  @Test public void testTimeOut() throws Exception {
+    final NIOTCPProxyEngine engine = createHTTPProxyEngine(10);
+
+    engine.run();
+
+    verify(m_logger).error(contains("Listen time out"));
+    assertTrue(engine.isStopped());
+
+    // Stopping engine again doesn't do anything.
+    engine.stop();
+  }
+
+  @Test public void testStopBeforeRun() throws Exception {
+    final NIOTCPProxyEngine engine = createHTTPProxyEngine(0);
+    engine.stop();
+    assertTrue(engine.isStopped());
+
+    // Port is released.
+    new ServerSocket(m_localEndPoint.getPort()).close();
+  }
+
+  @Test public void testPortForwarder() throws Exception {
+    final AcceptAndEcho echoer = new AcceptAndEcho();
+
+    final ConnectionDetails connectionDetails =
+      new ConnectionDetails(m_localEndPoint, echoer.getEndPoint(), false);
+
+    startEngine(new NIOTCPProxyEngine(null,
+                                      m_requestFilter,
+                                      m_responseFilter,
+                                      m_out,
+                                      m_logger,
+                                      connectionDetails,
+                                      false,
+                                      100000));
+
+    assertEquals(m_localEndPoint, m_engine.getListenEndPoint());
+
+    final Socket clientSocket =
+      new Socket(m_localEndPoint.getHost(), m_localEndPoint.getPort());
+
+    final OutputStream out = clientSocket.getOutputStream();
+
+    for (int i = 0; i < 10; ++i) {
+      final String message = "This is line " + i;
+      out.write(message.getBytes("US-ASCII"));
+      out.flush();
+
+      final String response = readResponse(clientSocket, message + "$");
+      assertEquals(message, response);
+    }
+
+    // Something large enough to need several buffers.
+    final byte[] big = new byte[100000];
+
+    for (int i = 0; i < big.length; ++i) {
+      big[i] = (byte) ('a' + i % 26);
+    }
+
+    big[big.length - 1] = 'X';
+
+    out.write(big);
+    out.flush();
+
+    final String bigResponse = readResponse(clientSocket, "X$");
+    assertEquals(new String(big, "ISO-8859-1"), bigResponse);
+
+    verify(m_requestFilter)
+      .connectionOpened(m_connectionDetailsCaptor.capture());
+
+    final ConnectionDetails requestConnectionDetails =
+      m_connectionDetailsCaptor.getValue();
+    assertEquals(echoer.getEndPoint(),
+                 requestConnectionDetails.getRemoteEndPoint());
+
+    verify(m_responseFilter)
+      .connectionOpened(requestConnectionDetails.getOtherEnd());
+
+    clientSocket.close();
+
+    verify(m_requestFilter, timeout(5000))
+      .connectionClosed(requestConnectionDetails);
+    verify(m_responseFilter, timeout(5000))
+      .connectionClosed(requestConnectionDetails.getOtherEnd());
+
+    verify(m_requestFilter, atLeast(11)).handle(same(requestConnectionDetails),
+                                                isA(byte[].class),
+                                                isA(Integer.class));
+    verify(m_responseFilter, atLeast(11))
+      .handle(eq(requestConnectionDetails.getOtherEnd()),
+              isA(byte[].class),
+              isA(Integer.class));
+
+    verifyNoMoreInteractions(m_requestFilter, m_responseFilter);
+  }
+
+  @Test public void testHTTPProxyBadRequests() throws Exception {
+    startEngine(createHTTPProxyEngine(100000));
+
+    final Socket clientSocket =
+      new Socket(m_localEndPoint.getHost(), m_localEndPoint.getPort());
+
+    final String message = "This is not a valid HTTP message";
+    clientSocket.getOutputStream().write(message.getBytes("US-ASCII"));
+
+    final String response = readResponse(clientSocket, message);
+
+    AssertUtilities.assertStartsWith(response, "HTTP/1.0 400 Bad Request");
+    AssertUtilities.assertContainsHeader(response, "Connection", "close");
+    AssertUtilities.assertContainsHeader(response, "Content-Type", "text/html");
+
+    clientSocket.close();
+
+    verify(m_logger).error(contains("Failed to determine proxy destination"));
+
+    final Socket clientSocket2 =
+      new Socket(m_localEndPoint.getHost(), m_localEndPoint.getPort());
+
+    clientSocket2.getOutputStream().write(new byte[50000]);
+
+    final String response2 = readResponse(clientSocket2, "</html>");
+
+    AssertUtilities.assertStartsWith(response2, "HTTP/1.0 400 Bad Request");
+
+    clientSocket2.close();
+
+    verify(m_logger).error(contains("failed to match HTTP message"));
+
+    verifyNoMoreInteractions(m_requestFilter, m_responseFilter);
+  }
+
+  @Test public void testHTTPProxyGoodRequests() throws Exception {
+    final AcceptAndEcho echoer = new AcceptAndEcho();
+
+    startEngine(createHTTPProxyEngine(100000));
+
+    final Socket clientSocket =
+      new Socket(m_localEndPoint.getHost(), m_localEndPoint.getPort());
+
+    final OutputStream out = clientSocket.getOutputStream();
+
+    final String message0 =
+      "GET http://" + echoer.getEndPoint() + "/foo HTTP/1.1\r\n" +
+      "foo: bah\r\n" +
+      "\r\n" +
+      "A message";
+    out.write(message0.getBytes("US-ASCII"));
+
+    final String response0 = readResponse(clientSocket, "message$");
+
+    AssertUtilities.assertStartsWith(response0, "GET /foo HTTP/1.1\r\n");
+    AssertUtilities.assertContainsHeader(response0, "foo", "bah");
+    AssertUtilities.assertContainsPattern(response0, "\r\n\r\nA message$");
+
+    verify(m_requestFilter)
+      .connectionOpened(m_connectionDetailsCaptor.capture());
+
+    final ConnectionDetails requestConnectionDetails =
+      m_connectionDetailsCaptor.getValue();
+    assertEquals(echoer.getEndPoint(),
+                 requestConnectionDetails.getRemoteEndPoint());
+
+    verify(m_responseFilter)
+      .connectionOpened(requestConnectionDetails.getOtherEnd());
+
+    final String message1 =
+      "POST http://" + echoer.getEndPoint() + "/blah?x=123 HTTP/1.0\r\n" +
+      "\r\n" +
+      "Another message";
+    out.write(message1.getBytes("US-ASCII"));
+
+    final String response1 = readResponse(clientSocket, "Another message$");
+    AssertUtilities.assertStartsWith(response1, "POST /blah?x=123 HTTP/1.0\r\n");
+
+    clientSocket.close();
+
+    verify(m_requestFilter, timeout(5000))
+      .connectionClosed(requestConnectionDetails);
+    verify(m_responseFilter, timeout(5000))
+      .connectionClosed(requestConnectionDetails.getOtherEnd());
+  }
+
+  @Test public void testHTTPSProxy() throws Exception {
+    final AcceptAndEcho echoer = new SSLAcceptAndEcho();
+
+    startEngine(createHTTPProxyEngine(100000));
+
+    final Socket clientPlainSocket =
+      new Socket(m_localEndPoint.getHost(), m_localEndPoint.getPort());
+
+    clientPlainSocket.getOutputStream().write(
+      ("CONNECT " + echoer.getEndPoint() + "\r\n\r\n").getBytes("US-ASCII"));
+
+    final String response = readResponse(clientPlainSocket, "Proxy-agent");
+
+    AssertUtilities.assertStartsWith(response, "HTTP/1.0 200 OK\r\n");
+    AssertUtilities.assertContainsHeader(response,
+                                         "Proxy-agent",
+                                         "The Grinder.*");
+
+    final Socket clientSSLSocket =
+      m_sslSocketFactory.createClientSocket(clientPlainSocket,
+                                            echoer.getEndPoint());
+
+    // No URL decoration should take place.
+    final String message0 =
+      "GET http://galafray/foo HTTP/1.1\r\n" +
+      "foo: bah\r\n" +
+      "\r\n" +
+      "A message";
+    clientSSLSocket.getOutputStream().write(message0.getBytes("US-ASCII"));
+
+    final String response0 = readResponse(clientSSLSocket, "message$");
+    assertEquals(message0, response0);
+
+    verify(m_requestFilter)
+      .connectionOpened(m_connectionDetailsCaptor.capture());
+
+    final ConnectionDetails requestConnectionDetails =
+      m_connectionDetailsCaptor.getValue();
+    assertEquals(echoer.getEndPoint(),
+                 requestConnectionDetails.getRemoteEndPoint());
+    assertTrue(requestConnectionDetails.isSecure());
+
+    verify(m_requestFilter).handle(same(requestConnectionDetails),
+                                   isA(byte[].class),
+                                   isA(Integer.class));
+
+    clientSSLSocket.close();
+
+    verify(m_requestFilter, timeout(5000))
+      .connectionClosed(requestConnectionDetails);
+    verify(m_responseFilter, timeout(5000))
+      .connectionClosed(requestConnectionDetails.getOtherEnd());
+  }
+
+  @Test public void testBadGateway() throws Exception {
+    startEngine(createHTTPProxyEngine(100000));
+
+    final Socket clientSocket =
+      new Socket(m_localEndPoint.getHost(), m_localEndPoint.getPort());
+
+    final String message =
+      "GET http://localhost:" + findFreePort() + "/foo HTTP/1.1\r\n\r\n";
+    clientSocket.getOutputStream().write(message.getBytes("US-ASCII"));
+
+    final String response = readResponse(clientSocket, "</html>");
+    AssertUtilities.assertStartsWith(response, "HTTP/1.0 502 Bad Gateway");
+
+    clientSocket.close();
+  }
+
+  /**
+   * Read from a socket until the data matches a given regular expression.
+   * Bytes are decoded as ISO-8859-1 so the result doesn't depend on the
+   * platform encoding.
+   */
+  private static String readResponse(final Socket socket,
+                                     final String terminalExpression)
+    throws IOException, InterruptedException {
+
+    final InputStream in = socket.getInputStream();
+    final Pattern terminalPattern = Pattern.compile(terminalExpression);
+    final ByteArrayOutputStream response = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[4096];
+
+    socket.setSoTimeout(10000);
+
+    if (socket instanceof SSLSocket) {
+      // Force the handshake.
+      in.read(new byte[0]);
+    }
+
+    while (true) {
+      final int n = in.read(buffer);
+
+      if (n < 0) {
+        fail("Stream closed before '" + terminalExpression +
+             "' matched received data:\n" +
+             response.toString("ISO-8859-1"));
+      }
+
+      response.write(buffer, 0, n);
+
+      final String s = response.toString("ISO-8859-1");
+
+      if (terminalPattern.matcher(s).find()) {
+        return s;
+      }
+    }
+  }
+
+  private class AcceptAndEcho implements Runnable {
+    private final ServerSocket m_serverSocket;
+
+    public AcceptAndEcho() throws IOException {
+      this(new ServerSocket(0));
+    }
+
+    protected AcceptAndEcho(final ServerSocket serverSocket) {
+      m_serverSocket = serverSocket;
+      new Thread(this, getClass().getName()).start();
+      m_echoers.add(this);
+    }
+
+    public EndPoint getEndPoint() {
+      return EndPoint.serverEndPoint(m_serverSocket);
+    }
+
+    @Override
+    public void run() {
+      try {
+        while (true) {
+          final Socket socket = m_serverSocket.accept();
+
+          new Thread(
+            new StreamCopier(1000, true).getRunnable(socket.getInputStream(),
+                                                     socket.getOutputStream()),
+            "Echo thread").start();
+        }
+      }
+      catch (final SocketException e) {
+        // Ignore - probably shutdown.
+      }
+      catch (final IOException e) {
+        fail("Got a " + e.getClass());
+      }
+    }
+
+    public void shutdown() throws IOException {
+      m_serverSocket.close();
+    }
+  }
+
+  private class SSLAcceptAndEcho extends AcceptAndEcho {
+    public SSLAcceptAndEcho() throws IOException {
+      super(
+        m_sslSocketFactory.createServerSocket(createFreeLocalEndPoint(), 0));
+    }
+  }
+}
@@ -314,6 +314,9 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
     private        AtomicLong          con_time = new AtomicLong();
     private        AtomicLong          connectionsEstablished = new AtomicLong();
 
+    /** hack to capture SSL handshake time */
+    private        AtomicLong          SSL_handshake_time = new AtomicLong();
+
     public interface TimeAuthority {
       long getTimeInMilliseconds();
     }
@@ -334,6 +337,33 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
     public TimeAuthority getTimeAuthority() {
       return timeAuthority;
     }
+
+    public interface NameResolver {
+      InetAddress[] getAllByName(String host) throws UnknownHostException;
+    }
+
+    private static NameResolver standardNameResolver =
+      new NameResolver() {
+        public InetAddress[] getAllByName(String host)
+          throws UnknownHostException {
+          return InetAddress.getAllByName(host);
+        }
+      };
+
+    private NameResolver nameResolver = standardNameResolver;
+
+    public void setNameResolver(NameResolver nameResolver) {
+      this.nameResolver =
+        nameResolver != null ? nameResolver : standardNameResolver;
+    }
+
+    public NameResolver getNameResolver() {
+      return nameResolver;
+    }
+
+    public static NameResolver getStandardNameResolver() {
+      return standardNameResolver;
+    }
     /** --GRINDER MODIFICATION **/
 
     /** the default timeout to use for new connections */
@@ -3230,6 +3260,16 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 			sslSocket.setEnabledCipherSuites(getSSLCipherSuites());
 			sslSocket.setEnabledProtocols(getSSLProtocols());
 
+			// Handshake explicitly so we can time it separately from
+			// connection establishment.
+			final long handshakeStart =
+			  getTimeAuthority().getTimeInMilliseconds();
+			sslSocket.startHandshake();
+			SSL_handshake_time.set(
+			  Math.max(getTimeAuthority().getTimeInMilliseconds() -
+			           handshakeStart,
+			           0));
+
 			if (getCheckCertificates()) {
                         /** --GRINDER MODIFICATION **/
 
@@ -3325,7 +3365,11 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 		}
 
 		if (req.getStream() != null)
-		    req.getStream().goAhead(req, sock_out, 0);
+		  /** GRINDER MODIFICATION++ **/
+		    //req.getStream().goAhead(req, sock_out, 0);
+		    req.getStream().goAhead(
+		      req, new BandwidthLimitedOutputStream(sock_out), 0);
+		  /** GRINDER MODIFICATION-- **/
 		else
 		    sock_out.flush();
 
@@ -3469,6 +3513,40 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
       }
       while (position < buffer.length);
     }
+
+    /**
+     * Applies the bandwidth limit to request bodies that are streamed.
+     */
+    private final class BandwidthLimitedOutputStream
+      extends FilterOutputStream {
+
+      private final BandwidthLimiter bandwidthLimiter =
+        getBandwidthLimiterFactory().create();
+
+      private long position = 0;
+
+      BandwidthLimitedOutputStream(OutputStream out) {
+        super(out);
+      }
+
+      public void write(byte[] buffer, int offset, int length)
+        throws IOException {
+
+        final int end = offset + length;
+
+        while (offset < end) {
+          final int bytesToSend =
+            Math.min(end - offset,
+                     bandwidthLimiter.maximumBytes(
+                       (int) Math.min(position, Integer.MAX_VALUE)));
+
+          out.write(buffer, offset, bytesToSend);
+
+          offset += bytesToSend;
+          position += bytesToSend;
+        }
+      }
+    }
     /** GRINDER MODIFICATION-- **/
 
     /**
@@ -3511,8 +3589,9 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
 	              getTimeAuthority().getTimeInMilliseconds();
                 /** --GRINDER MODIFICATION **/
 		// try all A records
-		InetAddress[] addr_list = InetAddress.getAllByName(actual_host);
                 /** ++GRINDER MODIFICATION **/
+		InetAddress[] addr_list =
+		  getNameResolver().getAllByName(actual_host);
                 // capture time for DNS Lookup
                 DNS_time.set(
                   Math.max(getTimeAuthority().getTimeInMilliseconds() -
@@ -3538,6 +3617,7 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
                                    startTime,
                                    0));
                         connectionsEstablished.incrementAndGet();
+                        SSL_handshake_time.set(0);
                         /** --GRINDER MODIFICATION **/
 			break;		// success
 		    }
@@ -3584,6 +3664,10 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
     public long getConnectionsEstablished(){
       return connectionsEstablished.get();
     }
+
+    public long getSSLHandshakeTime(){
+      return SSL_handshake_time.get();
+    }
     /** --GRINDER-MODIFICATION++ */
 
     /**
@@ -4188,8 +4272,9 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
             /** --GRINDER MODIFICATION **/
 
 		    // try all A records
-		    InetAddress[] addr_list = InetAddress.getAllByName(actual_host);
                     /** ++GRINDER MODIFICATION **/
+		    InetAddress[] addr_list =
+		      getNameResolver().getAllByName(actual_host);
                     // capture time for DNS Lookup
                     DNS_time.set(
                        Math.max(getTimeAuthority().getTimeInMilliseconds()
@@ -4215,6 +4300,7 @@ public class HTTPConnection implements GlobalConstants, HTTPClientModuleConstant
                                 getTimeAuthority().getTimeInMilliseconds()
                                 - startTime,
                                 0));
+                            SSL_handshake_time.set(0);
                            /** --GRINDER MODIFICATION */
 			    break;		// success
 			}
@@ -187,6 +187,9 @@
                         :running-agent "Connected"
                         :finished-agent "Disconnected"
                         :worker-threads "({0}/{1} {1,choice,0#threads|1#thread|1<{0,number} threads})"
+                        :worker-impaired "[impaired]"
+                        :worker-startup "(started in {0} ms)"
+                        :worker-health "(GC {0} ms, allocation {1,choice,-1#n/a|0#{1,number,integer} B/s}, CPU {2,choice,-1#n/a|0#{2,number,percent}}, timer lag {3} ms, thread start {4,choice,-1#n/a|0#{4} ms}, sleep error {5,choice,-1#n/a|0#{5,number,0.0} ms})"
                         :ignoring-samples "Waiting for samples, ignoring"
                         :waiting-for-samples "Waiting for samples"
                         :collection-stopped "Collection stopped"
@@ -0,0 +1,34 @@
+// Hello World in Java
+//
+// A simple Java test runner. Set grinder.script to this file; it is
+// compiled when each worker process starts, so a JDK is required.
+
+import net.grinder.script.Grinder;
+import net.grinder.script.Grinder.ScriptContext;
+import net.grinder.script.Test;
+
+public class HelloWorld implements Runnable {
+
+  private static final ScriptContext grinder = Grinder.grinder;
+
+  // The static initialiser runs once per worker process.
+  private static final Test test1 = new Test(1, "Log method");
+
+  // A new instance is created for each worker thread.
+  private final Logger logger = new Logger();
+
+  public HelloWorld() throws Exception {
+    test1.record(logger);
+  }
+
+  public void run() {
+    logger.log("Hello World");
+  }
+
+  // Instrumented methods are those of a recorded instance.
+  public static class Logger {
+    public void log(String message) {
+      grinder.getLogger().info(message);
+    }
+  }
+}